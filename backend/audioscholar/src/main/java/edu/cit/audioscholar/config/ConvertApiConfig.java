@@ -5,7 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
 import com.convertapi.client.Config;
+import okhttp3.HttpUrl;
 
 @Configuration
 public class ConvertApiConfig {
@@ -15,6 +17,9 @@ public class ConvertApiConfig {
     @Value("${convertapi.secret:${CONVERTAPI_SECRET:}}")
     private String convertApiSecret;
 
+    @Value("${convertapi.base-url:}")
+    private String convertApiBaseUrl;
+
     @PostConstruct
     public void init() {
         if (convertApiSecret == null || convertApiSecret.isBlank()) {
@@ -24,5 +29,20 @@ public class ConvertApiConfig {
             logger.info("Initializing ConvertAPI with provided secret");
             Config.setDefaultApiCredentials(convertApiSecret);
         }
+        if (StringUtils.hasText(convertApiBaseUrl)) {
+            redirectTo(HttpUrl.get(convertApiBaseUrl));
+        }
+    }
+
+    // The SDK has no endpoint setting, so requests are rewritten to the override host (used by
+    // the loadtest profile to reach the local stand-in).
+    private void redirectTo(HttpUrl baseUrl) {
+        logger.info("Using ConvertAPI base URL override: {}", baseUrl);
+        Config.setDefaultHttpBuilder(builder -> builder.addInterceptor(chain -> {
+            HttpUrl original = chain.request().url();
+            HttpUrl rewritten = original.newBuilder().scheme(baseUrl.scheme())
+                    .host(baseUrl.host()).port(baseUrl.port()).build();
+            return chain.proceed(chain.request().newBuilder().url(rewritten).build());
+        }));
     }
 }
@@ -0,0 +1,45 @@
+package edu.cit.audioscholar.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+@Configuration
+public class GeminiClientConfig {
+
+    @Bean
+    WebClient geminiWebClient(WebClient.Builder webClientBuilder,
+            @Value("${app.gemini.http.max-connections:50}") int maxConnections,
+            @Value("${app.gemini.http.pending-acquire-timeout-seconds:60}") long pendingAcquireTimeoutSeconds,
+            @Value("${app.gemini.http.max-idle-seconds:30}") long maxIdleSeconds,
+            @Value("${app.gemini.http.connect-timeout-millis:10000}") int connectTimeoutMillis,
+            @Value("${app.gemini.http.max-response-mb:16}") int maxResponseMegabytes) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("gemini")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 4)
+                .pendingAcquireTimeout(Duration.ofSeconds(pendingAcquireTimeoutSeconds))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .maxLifeTime(Duration.ofMinutes(10))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+
+        // HTTP/2 is negotiated over TLS where the endpoint supports it; HTTP/1.1 otherwise.
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .protocol(HttpProtocol.H2, HttpProtocol.HTTP11)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .compress(true);
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs()
+                        .maxInMemorySize(maxResponseMegabytes * 1024 * 1024))
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.cit.audioscholar.config;
+
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import edu.cit.audioscholar.service.GeminiUsageRecorder;
+
+@Component
+@Endpoint(id = "geminiusage")
+public class GeminiUsageEndpoint {
+
+    private final GeminiUsageRecorder geminiUsageRecorder;
+
+    public GeminiUsageEndpoint(GeminiUsageRecorder geminiUsageRecorder) {
+        this.geminiUsageRecorder = geminiUsageRecorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> usage() {
+        return geminiUsageRecorder.snapshot();
+    }
+}
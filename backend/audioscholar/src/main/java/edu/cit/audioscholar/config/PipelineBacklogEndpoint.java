@@ -0,0 +1,23 @@
+package edu.cit.audioscholar.config;
+
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+import edu.cit.audioscholar.service.PipelineBacklogMonitor;
+
+@Component
+@Endpoint(id = "pipelinebacklog")
+public class PipelineBacklogEndpoint {
+
+    private final PipelineBacklogMonitor pipelineBacklogMonitor;
+
+    public PipelineBacklogEndpoint(PipelineBacklogMonitor pipelineBacklogMonitor) {
+        this.pipelineBacklogMonitor = pipelineBacklogMonitor;
+    }
+
+    @ReadOperation
+    public Map<String, Object> backlog() {
+        return pipelineBacklogMonitor.snapshot();
+    }
+}
@@ -1,16 +1,28 @@
 package edu.cit.audioscholar.config;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.lang.Nullable;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -36,10 +48,61 @@ public class RabbitMQConfig {
     public static final String SUMMARIZATION_QUEUE_NAME = "summarization.queue";
     public static final String SUMMARIZATION_ROUTING_KEY = "summarization.process.key";
 
+    public static final String TRANSCRIPTION_PREMIUM_QUEUE_NAME =
+            "audio.transcription.premium.queue";
+    public static final String TRANSCRIPTION_PREMIUM_ROUTING_KEY = "audio.transcription.premium.key";
+    public static final String SUMMARIZATION_PREMIUM_QUEUE_NAME = "summarization.premium.queue";
+    public static final String SUMMARIZATION_PREMIUM_ROUTING_KEY =
+            "summarization.premium.process.key";
+
     public static final String RECOMMENDATIONS_QUEUE_NAME = "recommendations.queue";
     public static final String RECOMMENDATIONS_ROUTING_KEY = "recommendations.process.key";
 
+    public static final String DELETION_QUEUE_NAME = "recording.deletion.queue";
+    public static final String DELETION_ROUTING_KEY = "recording.deletion.key";
+
+    public static final String RETRY_EXCHANGE_NAME = "audio.retry.exchange";
+    public static final String PARKING_EXCHANGE_NAME = "audio.parking.exchange";
+
+    /** Pipeline stages that get delayed retry tiers and a parking queue. */
+    public static final List<PipelineStage> RETRYABLE_STAGES = List.of(
+            // Retried uploads re-enter on the audio key; the listener dispatches on the file type.
+            new PipelineStage("upload", UPLOAD_QUEUE_NAME, UPLOAD_AUDIO_ROUTING_KEY),
+            new PipelineStage("transcription", TRANSCRIPTION_QUEUE_NAME, TRANSCRIPTION_ROUTING_KEY),
+            new PipelineStage("pptx", PPTX_CONVERSION_QUEUE_NAME, PPTX_CONVERSION_ROUTING_KEY),
+            new PipelineStage("summarization", SUMMARIZATION_QUEUE_NAME,
+                    SUMMARIZATION_ROUTING_KEY),
+            new PipelineStage("recommendations", RECOMMENDATIONS_QUEUE_NAME,
+                    RECOMMENDATIONS_ROUTING_KEY),
+            new PipelineStage("transcription-premium", TRANSCRIPTION_PREMIUM_QUEUE_NAME,
+                    TRANSCRIPTION_PREMIUM_ROUTING_KEY),
+            new PipelineStage("summarization-premium", SUMMARIZATION_PREMIUM_QUEUE_NAME,
+                    SUMMARIZATION_PREMIUM_ROUTING_KEY),
+            new PipelineStage("deletion", DELETION_QUEUE_NAME, DELETION_ROUTING_KEY));
+
+    /** Queues the listeners consume from, as reported by the backlog metrics. */
+    public static final List<String> WORK_QUEUES = List.of(UPLOAD_QUEUE_NAME,
+            TRANSCRIPTION_QUEUE_NAME, TRANSCRIPTION_PREMIUM_QUEUE_NAME,
+            PPTX_CONVERSION_QUEUE_NAME, SUMMARIZATION_QUEUE_NAME,
+            SUMMARIZATION_PREMIUM_QUEUE_NAME, RECOMMENDATIONS_QUEUE_NAME, DELETION_QUEUE_NAME);
 
+    public static final String UPLOAD_LISTENER_FACTORY = "uploadListenerFactory";
+    public static final String TRANSCRIPTION_LISTENER_FACTORY = "transcriptionListenerFactory";
+    public static final String PPTX_CONVERSION_LISTENER_FACTORY = "pptxConversionListenerFactory";
+    public static final String SUMMARIZATION_LISTENER_FACTORY = "summarizationListenerFactory";
+    public static final String TRANSCRIPTION_PREMIUM_LISTENER_FACTORY =
+            "transcriptionPremiumListenerFactory";
+    public static final String SUMMARIZATION_PREMIUM_LISTENER_FACTORY =
+            "summarizationPremiumListenerFactory";
+    public static final String RECOMMENDATIONS_LISTENER_FACTORY =
+            "recommendationsListenerFactory";
+    public static final String DELETION_LISTENER_FACTORY = "deletionListenerFactory";
+
+    @Value("${app.rabbit.listener.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    @Value("${app.pipeline.transport:rabbit}")
+    private String pipelineTransport;
 
     @Bean
     TopicExchange exchange() {
@@ -81,6 +144,21 @@ public class RabbitMQConfig {
         return new Queue(RECOMMENDATIONS_QUEUE_NAME, true);
     }
 
+    @Bean("transcriptionPremiumQueue")
+    Queue transcriptionPremiumQueue() {
+        return new Queue(TRANSCRIPTION_PREMIUM_QUEUE_NAME, true);
+    }
+
+    @Bean("summarizationPremiumQueue")
+    Queue summarizationPremiumQueue() {
+        return new Queue(SUMMARIZATION_PREMIUM_QUEUE_NAME, true);
+    }
+
+    @Bean("deletionQueue")
+    Queue deletionQueue() {
+        return new Queue(DELETION_QUEUE_NAME, true);
+    }
+
 
     @Bean
     Binding processingBinding(@Qualifier("processingQueue") Queue queue, TopicExchange exchange) {
@@ -117,12 +195,217 @@ public class RabbitMQConfig {
         return BindingBuilder.bind(queue).to(exchange).with(SUMMARIZATION_ROUTING_KEY);
     }
 
+    @Bean
+    Binding transcriptionPremiumBinding(@Qualifier("transcriptionPremiumQueue") Queue queue,
+            TopicExchange exchange) {
+        return BindingBuilder.bind(queue).to(exchange).with(TRANSCRIPTION_PREMIUM_ROUTING_KEY);
+    }
+
+    @Bean
+    Binding summarizationPremiumBinding(@Qualifier("summarizationPremiumQueue") Queue queue,
+            TopicExchange exchange) {
+        return BindingBuilder.bind(queue).to(exchange).with(SUMMARIZATION_PREMIUM_ROUTING_KEY);
+    }
+
     @Bean
     Binding recommendationsBinding(@Qualifier("recommendationsQueue") Queue queue,
             TopicExchange exchange) {
         return BindingBuilder.bind(queue).to(exchange).with(RECOMMENDATIONS_ROUTING_KEY);
     }
 
+    @Bean
+    Binding deletionBinding(@Qualifier("deletionQueue") Queue queue, TopicExchange exchange) {
+        return BindingBuilder.bind(queue).to(exchange).with(DELETION_ROUTING_KEY);
+    }
+
+    @Bean
+    DirectExchange retryExchange() {
+        return new DirectExchange(RETRY_EXCHANGE_NAME, true, false);
+    }
+
+    @Bean
+    DirectExchange parkingExchange() {
+        return new DirectExchange(PARKING_EXCHANGE_NAME, true, false);
+    }
+
+    /**
+     * One TTL queue per stage and delay that dead-letters back onto the stage's routing key, plus a
+     * parking queue for messages that ran out of attempts. The main queues keep their original
+     * arguments so existing brokers do not reject the redeclaration.
+     */
+    @Bean
+    Declarables stageRetryDeclarables(@Qualifier("retryExchange") DirectExchange retryExchange,
+            @Qualifier("parkingExchange") DirectExchange parkingExchange,
+            @Value("${app.rabbit.retry.delays-seconds:10,60,300}") List<Integer> delaysSeconds) {
+        List<Declarable> declarables = new ArrayList<>();
+        for (PipelineStage stage : RETRYABLE_STAGES) {
+            for (Integer delay : delaysSeconds) {
+                String retryQueueName = retryQueueName(stage.queue(), delay);
+                Queue retryQueue = QueueBuilder.durable(retryQueueName).ttl(delay * 1000)
+                        .deadLetterExchange(PROCESSING_EXCHANGE_NAME)
+                        .deadLetterRoutingKey(stage.routingKey()).build();
+                declarables.add(retryQueue);
+                declarables.add(BindingBuilder.bind(retryQueue).to(retryExchange)
+                        .with(retryQueueName));
+            }
+            Queue parkingQueue = QueueBuilder.durable(parkingQueueName(stage.queue())).build();
+            declarables.add(parkingQueue);
+            declarables.add(BindingBuilder.bind(parkingQueue).to(parkingExchange)
+                    .with(parkingQueue.getName()));
+        }
+        return new Declarables(declarables);
+    }
+
+    public static String retryQueueName(String queue, int delaySeconds) {
+        return queue + ".retry." + delaySeconds + "s";
+    }
+
+    public static String parkingQueueName(String queue) {
+        return queue + ".parking";
+    }
+
+    @Nullable
+    public static PipelineStage stageForQueue(@Nullable String queue) {
+        for (PipelineStage stage : RETRYABLE_STAGES) {
+            if (stage.queue().equals(queue)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    public static PipelineStage stageByName(String name) {
+        for (PipelineStage stage : RETRYABLE_STAGES) {
+            if (stage.name().equalsIgnoreCase(name)) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    @Bean(UPLOAD_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory uploadListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.upload.concurrency:2}") int concurrency,
+            @Value("${app.rabbit.listener.upload.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.rabbit.listener.upload.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "upload", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(TRANSCRIPTION_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory transcriptionListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.transcription.concurrency:4}") int concurrency,
+            @Value("${app.rabbit.listener.transcription.max-concurrency:24}") int maxConcurrency,
+            @Value("${app.rabbit.listener.transcription.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "transcription", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(PPTX_CONVERSION_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory pptxConversionListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.pptx.concurrency:1}") int concurrency,
+            @Value("${app.rabbit.listener.pptx.max-concurrency:2}") int maxConcurrency,
+            @Value("${app.rabbit.listener.pptx.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "pptx", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(SUMMARIZATION_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory summarizationListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.summarization.concurrency:4}") int concurrency,
+            @Value("${app.rabbit.listener.summarization.max-concurrency:16}") int maxConcurrency,
+            @Value("${app.rabbit.listener.summarization.prefetch:2}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "summarization", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    /**
+     * Premium lanes have their own consumers, so a free-tier backlog on the standard queues never
+     * delays premium recordings beyond the premium lane's own depth.
+     */
+    @Bean(TRANSCRIPTION_PREMIUM_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory transcriptionPremiumListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.transcription-premium.concurrency:2}") int concurrency,
+            @Value("${app.rabbit.listener.transcription-premium.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.rabbit.listener.transcription-premium.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "transcription-premium",
+                concurrency, maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(SUMMARIZATION_PREMIUM_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory summarizationPremiumListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.summarization-premium.concurrency:2}") int concurrency,
+            @Value("${app.rabbit.listener.summarization-premium.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.rabbit.listener.summarization-premium.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "summarization-premium",
+                concurrency, maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(RECOMMENDATIONS_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory recommendationsListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.recommendations.concurrency:1}") int concurrency,
+            @Value("${app.rabbit.listener.recommendations.max-concurrency:2}") int maxConcurrency,
+            @Value("${app.rabbit.listener.recommendations.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "recommendations", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    @Bean(DELETION_LISTENER_FACTORY)
+    SimpleRabbitListenerContainerFactory deletionListenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${app.rabbit.listener.deletion.concurrency:1}") int concurrency,
+            @Value("${app.rabbit.listener.deletion.max-concurrency:4}") int maxConcurrency,
+            @Value("${app.rabbit.listener.deletion.prefetch:1}") int prefetch,
+            StageRetryAdvice stageRetryAdvice) {
+        return listenerFactory(configurer, connectionFactory, "deletion", concurrency,
+                maxConcurrency, prefetch, stageRetryAdvice);
+    }
+
+    private SimpleRabbitListenerContainerFactory listenerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory, String name, int concurrency,
+            int maxConcurrency, int prefetch, @Nullable StageRetryAdvice stageRetryAdvice) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        int consumers = Math.max(1, concurrency);
+        factory.setConcurrentConsumers(consumers);
+        factory.setMaxConcurrentConsumers(Math.max(consumers, maxConcurrency));
+        factory.setPrefetchCount(Math.max(1, prefetch));
+        if (virtualThreads) {
+            // Listeners mostly wait on Gemini, Nhost and Firestore, so park on virtual threads.
+            factory.setTaskExecutor(new VirtualThreadTaskExecutor("rabbit-" + name + "-"));
+        }
+        if (stageRetryAdvice != null) {
+            factory.setAdviceChain(stageRetryAdvice);
+        }
+        // With the in-process transport the stages are fed from memory, not from the broker.
+        factory.setAutoStartup(!"memory".equals(pipelineTransport));
+        return factory;
+    }
+
     @Bean
     public ObjectMapper rabbitObjectMapper() {
         ObjectMapper objectMapper = new ObjectMapper();
@@ -141,6 +424,19 @@ public class RabbitMQConfig {
             MessageConverter messageConverter) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(messageConverter);
+        // Unroutable messages come back as returns instead of being dropped; see
+        // RabbitPipelineTransport for how returns and confirms are handled.
+        rabbitTemplate.setMandatory(true);
+        // The management API derives head_message_timestamp (oldest message age) from this.
+        rabbitTemplate.setBeforePublishPostProcessors(message -> {
+            if (message.getMessageProperties().getTimestamp() == null) {
+                message.getMessageProperties().setTimestamp(new Date());
+            }
+            return message;
+        });
         return rabbitTemplate;
     }
+
+    public record PipelineStage(String name, String queue, String routingKey) {
+    }
 }
@@ -4,6 +4,10 @@ import java.util.Arrays;
 import java.util.List;
 import javax.crypto.SecretKey;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.info.InfoEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -13,11 +17,14 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.oauth2.server.resource.web.authentication.BearerTokenAuthenticationFilter;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.security.web.util.matcher.OrRequestMatcher;
@@ -44,6 +51,12 @@ public class SecurityConfig {
         @Autowired
         private TokenRevocationService tokenRevocationService;
 
+        @Value("${app.management.username:actuator}")
+        private String managementUsername;
+
+        @Value("${app.management.password:}")
+        private String managementPassword;
+
         @Bean
         JwtDecoder jwtDecoder() {
                 SecretKey secretKey = tokenProvider.getJwtSecretKey();
@@ -72,7 +85,8 @@ public class SecurityConfig {
                 configuration.setAllowedMethods(
                                 Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH"));
                 configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control",
-                                "Content-Type", "X-Requested-With", "Accept", "X-CSRF-TOKEN"));
+                                "Content-Type", "X-Requested-With", "Accept", "X-CSRF-TOKEN",
+                                "Content-Range"));
                 configuration.setAllowCredentials(true);
                 configuration.setExposedHeaders(List.of("Authorization"));
                 configuration.setMaxAge(3600L);
@@ -82,6 +96,43 @@ public class SecurityConfig {
                 return source;
         }
 
+        /**
+         * Health and info stay public for load balancers; every other actuator endpoint (usage,
+         * metrics, prometheus, pipeline backlog) needs HTTP Basic with the management account.
+         * Without {@code app.management.password} those endpoints are closed entirely.
+         */
+        @Bean
+        @Order(0)
+        SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+                http.securityMatcher(EndpointRequest.toAnyEndpoint())
+                                .authorizeHttpRequests(authz -> {
+                                        authz.requestMatchers(EndpointRequest.to(HealthEndpoint.class,
+                                                        InfoEndpoint.class)).permitAll();
+                                        if (managementPassword.isBlank()) {
+                                                authz.anyRequest().denyAll();
+                                        } else {
+                                                authz.anyRequest().hasRole("ACTUATOR");
+                                        }
+                                })
+                                .httpBasic(basic -> {
+                                })
+                                .userDetailsService(managementUsers())
+                                .sessionManagement(session -> session.sessionCreationPolicy(
+                                                SessionCreationPolicy.STATELESS))
+                                .csrf(AbstractHttpConfigurer::disable);
+
+                return http.build();
+        }
+
+        private UserDetailsService managementUsers() {
+                if (managementPassword.isBlank()) {
+                        return new InMemoryUserDetailsManager();
+                }
+                return new InMemoryUserDetailsManager(User.withUsername(managementUsername)
+                                .password(passwordEncoder().encode(managementPassword))
+                                .roles("ACTUATOR").build());
+        }
+
         @Bean
         @Order(1)
         SecurityFilterChain statefulFilterChain(HttpSecurity http) throws Exception {
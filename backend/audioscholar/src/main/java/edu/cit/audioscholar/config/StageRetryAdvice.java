@@ -0,0 +1,171 @@
+package edu.cit.audioscholar.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.GeminiUnavailableException;
+import edu.cit.audioscholar.exception.TransientStageException;
+
+/**
+ * Listener advice for the pipeline stage queues. A transient failure is republished to the
+ * stage's next delay tier with an incremented attempt header instead of being retried inside the
+ * consumer; any other failure, or a transient one past the last tier, goes to the stage's parking
+ * queue. Either way the original delivery is acknowledged once the broker has confirmed the
+ * republished copy, and the consumer thread is freed; without a confirm the delivery is rejected
+ * back to the broker instead.
+ */
+@Component
+public class StageRetryAdvice implements MethodInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(StageRetryAdvice.class);
+
+    public static final String ATTEMPT_HEADER = "x-stage-attempt";
+    public static final String PARKED_REASON_HEADER = "x-parked-reason";
+    public static final String PARKED_AT_HEADER = "x-parked-at";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final List<Integer> delaysSeconds;
+    private final Duration confirmTimeout;
+
+    public StageRetryAdvice(RabbitTemplate rabbitTemplate,
+            @Value("${app.rabbit.retry.delays-seconds:10,60,300}") List<Integer> delaysSeconds,
+            @Value("${app.rabbit.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.delaysSeconds = List.copyOf(delaysSeconds);
+        this.confirmTimeout = Duration.ofMillis(confirmTimeoutMs);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } catch (ImmediateRequeueAmqpException e) {
+            throw e;
+        } catch (Throwable e) {
+            Object[] arguments = invocation.getArguments();
+            if (arguments.length < 2 || !(arguments[1] instanceof Message message)) {
+                throw e;
+            }
+            RabbitMQConfig.PipelineStage stage =
+                    RabbitMQConfig.stageForQueue(message.getMessageProperties().getConsumerQueue());
+            if (stage == null) {
+                throw e;
+            }
+            try {
+                redirect(stage, message, e);
+            } catch (AmqpException publishFailure) {
+                log.error("[{}] Could not reroute failed message; leaving it to the broker: {}",
+                        stage.name(), publishFailure.getMessage());
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    private void redirect(RabbitMQConfig.PipelineStage stage, Message message, Throwable failure) {
+        int attempt = attemptOf(message);
+        Throwable cause = rootCause(failure);
+        if (isTransient(failure) && attempt < delaysSeconds.size()) {
+            int delay = delaysSeconds.get(attempt);
+            Message retry = MessageBuilder.fromClonedMessage(message)
+                    .setHeader(ATTEMPT_HEADER, attempt + 1).build();
+            sendConfirmed(RabbitMQConfig.RETRY_EXCHANGE_NAME,
+                    RabbitMQConfig.retryQueueName(stage.queue(), delay), retry);
+            log.warn("[{}] Transient failure on attempt {} ({}); redelivering in {}s.",
+                    stage.name(), attempt + 1, cause.getMessage(), delay);
+            return;
+        }
+        Message parked = MessageBuilder.fromClonedMessage(message)
+                .setHeader(ATTEMPT_HEADER, attempt + 1)
+                .setHeader(PARKED_REASON_HEADER,
+                        cause.getClass().getSimpleName() + ": " + cause.getMessage())
+                .setHeader(PARKED_AT_HEADER, Instant.now().toString()).build();
+        sendConfirmed(RabbitMQConfig.PARKING_EXCHANGE_NAME,
+                RabbitMQConfig.parkingQueueName(stage.queue()), parked);
+        log.error("[{}] Parked message after {} attempt(s): {}", stage.name(), attempt + 1,
+                cause.getMessage(), failure);
+    }
+
+    private void sendConfirmed(String exchange, String routingKey, Message message) {
+        CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+        rabbitTemplate.send(exchange, routingKey, message, correlation);
+        awaitConfirm(correlation, confirmTimeout);
+    }
+
+    /**
+     * Blocks until the broker confirms a correlated publish. Throws when it nacks or returns the
+     * message, or when no confirm arrives within the timeout, so the caller can keep the source
+     * delivery unacknowledged.
+     */
+    public static void awaitConfirm(CorrelationData correlation, Duration timeout) {
+        CorrelationData.Confirm confirm;
+        try {
+            confirm = correlation.getFuture().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException("Interrupted waiting for the confirm of " + correlation.getId(),
+                    e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new AmqpException("No publisher confirm for " + correlation.getId(), e);
+        }
+        if (!confirm.isAck()) {
+            throw new AmqpException(
+                    "Broker nacked " + correlation.getId() + ": " + confirm.getReason());
+        }
+        ReturnedMessage returned = correlation.getReturned();
+        if (returned != null) {
+            throw new AmqpException(
+                    "Broker returned " + correlation.getId() + ": " + returned.getReplyText());
+        }
+    }
+
+    private static int attemptOf(Message message) {
+        Object header = message.getMessageProperties().getHeaders().get(ATTEMPT_HEADER);
+        return header instanceof Number ? ((Number) header).intValue() : 0;
+    }
+
+    private static Throwable rootCause(Throwable failure) {
+        Throwable cause = failure;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /** True when any exception in the cause chain points at an outage a later attempt can outlive. */
+    public static boolean isTransient(@Nullable Throwable failure) {
+        for (Throwable e = failure; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (e instanceof TransientStageException || e instanceof GeminiUnavailableException
+                    || e instanceof FirestoreInteractionException || e instanceof IOException
+                    || e instanceof TimeoutException || e instanceof ResourceAccessException
+                    || e instanceof HttpServerErrorException
+                    || e instanceof WebClientRequestException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -29,7 +29,7 @@ public class WebConfig implements WebMvcConfigurer {
                         "https://localhost:8080", "https://it342-g3-audioscholar.onrender.com")
                 .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")
                 .allowedHeaders("Authorization", "Cache-Control", "Content-Type",
-                        "X-Requested-With", "Accept", "X-CSRF-TOKEN")
+                        "X-Requested-With", "Accept", "X-CSRF-TOKEN", "Content-Range")
                 .allowCredentials(true).exposedHeaders("Authorization").maxAge(3600);
     }
 }
@@ -1,13 +1,20 @@
 package edu.cit.audioscholar.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -16,14 +23,25 @@ import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import edu.cit.audioscholar.dto.UploadSessionRequest;
 import edu.cit.audioscholar.exception.FirestoreInteractionException;
 import edu.cit.audioscholar.exception.InvalidAudioFileException;
+import edu.cit.audioscholar.exception.InvalidUploadRangeException;
 import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.UploadSession;
 import edu.cit.audioscholar.service.AudioProcessingService;
+import edu.cit.audioscholar.service.ChunkedUploadService;
+import edu.cit.audioscholar.service.StageTimelineService;
+import edu.cit.audioscholar.service.TranscriptSegmentStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/audio")
@@ -31,6 +49,9 @@ public class AudioController {
 
     private static final Logger log = LoggerFactory.getLogger(AudioController.class);
     private final AudioProcessingService audioProcessingService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final TranscriptSegmentStore transcriptSegmentStore;
+    private final StageTimelineService stageTimelineService;
 
     private static final Set<String> ALLOWED_AUDIO_TYPES = Set.of("audio/mpeg", "audio/mp3",
             "audio/wav", "audio/x-wav", "audio/aac", "audio/x-aac", "audio/ogg", "audio/flac",
@@ -39,9 +60,17 @@ public class AudioController {
             "application/vnd.openxmlformats-officedocument.presentationml.presentation",
             "application/vnd.ms-powerpoint");
     private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final Pattern CONTENT_RANGE_PATTERN =
+            Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+)");
 
-    public AudioController(AudioProcessingService audioProcessingService) {
+    public AudioController(AudioProcessingService audioProcessingService,
+            ChunkedUploadService chunkedUploadService,
+            TranscriptSegmentStore transcriptSegmentStore,
+            StageTimelineService stageTimelineService) {
         this.audioProcessingService = audioProcessingService;
+        this.chunkedUploadService = chunkedUploadService;
+        this.transcriptSegmentStore = transcriptSegmentStore;
+        this.stageTimelineService = stageTimelineService;
     }
 
     @PostMapping("/upload")
@@ -125,6 +154,146 @@ public class AudioController {
         }
     }
 
+    @PostMapping("/uploads")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> createUploadSession(@Valid @RequestBody UploadSessionRequest request) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        boolean isAudio = "audio".equals(request.getFileType());
+        if (isAudio ? !isAllowedAudioType(request.getContentType())
+                : !isAllowedPowerpointType(request.getContentType())) {
+            log.warn("Upload session rejected for user {}: Invalid {} content type '{}'", userId,
+                    request.getFileType(), request.getContentType());
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+                    .body("Invalid file type. Allowed types: "
+                            + (isAudio ? ALLOWED_AUDIO_TYPES : ALLOWED_POWERPOINT_TYPES));
+        }
+
+        try {
+            UploadSession session = chunkedUploadService.createSession(userId,
+                    request.getFileType(), request.getFileName(), request.getContentType(),
+                    request.getTotalSize());
+            return ResponseEntity.status(HttpStatus.CREATED).body(session);
+        } catch (InvalidAudioFileException e) {
+            log.warn("Upload session rejected for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("IOException creating upload session for user {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error creating upload session.");
+        }
+    }
+
+    @GetMapping("/uploads/{sessionId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getUploadSession(@PathVariable String sessionId) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        UploadSession session = chunkedUploadService.getSession(sessionId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(session);
+    }
+
+    @PutMapping(value = "/uploads/{sessionId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> uploadChunk(@PathVariable String sessionId,
+            @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+            HttpServletRequest request) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        UploadSession session = chunkedUploadService.getSession(sessionId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Matcher matcher = CONTENT_RANGE_PATTERN.matcher(contentRange.trim());
+        if (!matcher.matches()) {
+            return ResponseEntity.badRequest()
+                    .body("Content-Range must look like 'bytes <start>-<end>/<total>'.");
+        }
+
+        try (InputStream body = request.getInputStream()) {
+            UploadSession updated = chunkedUploadService.writeChunk(session,
+                    Long.parseLong(matcher.group(1)), Long.parseLong(matcher.group(2)),
+                    Long.parseLong(matcher.group(3)), body);
+            return ResponseEntity.ok(updated);
+        } catch (InvalidUploadRangeException e) {
+            log.warn("Rejected chunk for upload session {}: {}", sessionId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .body(session);
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().body("Content-Range values are out of range.");
+        } catch (IOException e) {
+            log.error("IOException writing chunk for upload session {}", sessionId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error writing chunk.");
+        }
+    }
+
+    @PostMapping("/uploads/{sessionId}/complete")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> completeUploadSession(@PathVariable String sessionId,
+            @RequestParam(value = "powerpointSessionId", required = false) String powerpointSessionId,
+            @RequestParam(value = "title", required = false) String title,
+            @RequestParam(value = "description", required = false) String description) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        UploadSession audioSession = chunkedUploadService.getSession(sessionId, userId);
+        if (audioSession == null || !"audio".equals(audioSession.getFileType())) {
+            return ResponseEntity.notFound().build();
+        }
+        UploadSession powerpointSession = null;
+        if (powerpointSessionId != null && !powerpointSessionId.isBlank()) {
+            powerpointSession = chunkedUploadService.getSession(powerpointSessionId, userId);
+            if (powerpointSession == null
+                    || !"powerpoint".equals(powerpointSession.getFileType())) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+
+        try {
+            AudioMetadata initialMetadata = chunkedUploadService.completeUpload(audioSession,
+                    powerpointSession,
+                    Optional.ofNullable(title).filter(s -> !s.isBlank()).orElse(null),
+                    Optional.ofNullable(description).filter(s -> !s.isBlank()).orElse(null),
+                    userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(initialMetadata);
+        } catch (InvalidUploadRangeException e) {
+            log.warn("Upload session {} completed early by user {}: {}", sessionId, userId,
+                    e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (InvalidAudioFileException e) {
+            log.warn("Upload failed due to invalid file for user {}: {}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            log.error("IOException during chunked upload completion for user {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error processing file(s).");
+        } catch (FirestoreInteractionException e) {
+            log.error("Firestore error during initial metadata save for user {}: {}", userId,
+                    e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error saving initial request.");
+        } catch (RuntimeException e) {
+            log.error("RuntimeException during chunked upload completion for user {}", userId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("An unexpected error occurred during upload queueing.");
+        }
+    }
+
+    @DeleteMapping("/uploads/{sessionId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> cancelUploadSession(@PathVariable String sessionId) {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        UploadSession session = chunkedUploadService.getSession(sessionId, userId);
+        if (session == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!chunkedUploadService.discardSession(session)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Upload session is being completed and can no longer be cancelled.");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     private boolean isAllowedAudioType(String contentType) {
         if (contentType == null)
             return false;
@@ -167,6 +336,73 @@ public class AudioController {
         }
     }
 
+    @GetMapping("/metadata/{id}/transcript/segments")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getTranscriptSegments(@PathVariable String id,
+            @RequestParam(value = "after", defaultValue = "-1") int afterSequence) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userId = authentication.getName();
+
+        try {
+            AudioMetadata metadata = audioProcessingService.getAudioMetadataById(id);
+            if (metadata == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (metadata.getUserId() == null || !metadata.getUserId().equals(userId)) {
+                log.warn("User {} attempted to read transcript segments of metadata {} owned by user {}",
+                        userId, id, metadata.getUserId());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body("You do not have permission to access this resource.");
+            }
+
+            List<Map<String, Object>> segments = transcriptSegmentStore.getSegments(id, afterSequence);
+            Map<String, Object> body = new HashMap<>();
+            body.put("metadataId", id);
+            body.put("segments", segments);
+            body.put("lastSequence", segments.isEmpty() ? afterSequence
+                    : segments.get(segments.size() - 1).get("sequence"));
+            return ResponseEntity.ok(body);
+        } catch (FirestoreInteractionException e) {
+            log.error("Firestore error retrieving transcript segments for {}: {}", id,
+                    e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving transcript segments.");
+        }
+    }
+
+    @GetMapping("/metadata/{id}/timeline")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getProcessingTimeline(@PathVariable String id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String userId = authentication.getName();
+        boolean isAdmin = authentication.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+
+        try {
+            AudioMetadata metadata = audioProcessingService.getAudioMetadataById(id);
+            if (metadata == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (!isAdmin && (metadata.getUserId() == null || !metadata.getUserId().equals(userId))) {
+                log.warn("User {} attempted to read the processing timeline of metadata {} owned by user {}",
+                        userId, id, metadata.getUserId());
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                        .body("You do not have permission to access this resource.");
+            }
+
+            Map<String, Object> body = new HashMap<>();
+            body.put("metadataId", id);
+            body.put("status", metadata.getStatus());
+            body.put("stages", stageTimelineService.getTimeline(id));
+            return ResponseEntity.ok(body);
+        } catch (FirestoreInteractionException e) {
+            log.error("Firestore error retrieving processing timeline for {}: {}", id,
+                    e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Error retrieving processing timeline.");
+        }
+    }
+
     @DeleteMapping("/metadata/{id}")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<?> deleteMetadata(@PathVariable String id) {
@@ -193,8 +429,8 @@ public class AudioController {
 
             boolean success = audioProcessingService.deleteAudioMetadata(id);
             if (success) {
-                log.info("Successfully deleted metadata {} by user {}", id, userId);
-                return ResponseEntity.noContent().build();
+                log.info("Metadata {} tombstoned for deletion by user {}", id, userId);
+                return ResponseEntity.accepted().build();
             } else {
                 log.error(
                         "Service reported failure to delete metadata {} by user {} after authorization check.",
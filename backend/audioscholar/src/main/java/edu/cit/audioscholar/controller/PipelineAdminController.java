@@ -0,0 +1,64 @@
+package edu.cit.audioscholar.controller;
+
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.service.ParkedMessageService;
+
+@RestController
+@RequestMapping("/api/admin/pipeline")
+@PreAuthorize("hasRole('ADMIN')")
+public class PipelineAdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineAdminController.class);
+    private static final int MAX_REPLAY = 1000;
+
+    private final ParkedMessageService parkedMessageService;
+
+    public PipelineAdminController(ParkedMessageService parkedMessageService) {
+        this.parkedMessageService = parkedMessageService;
+    }
+
+    @GetMapping("/parked")
+    public ResponseEntity<?> getParkedCounts() {
+        try {
+            return ResponseEntity.ok(parkedMessageService.parkedCounts());
+        } catch (AmqpException e) {
+            log.error("Failed to read parking queue depths: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Message broker unavailable."));
+        }
+    }
+
+    @PostMapping("/parked/{stage}/replay")
+    public ResponseEntity<?> replayParked(@PathVariable String stage,
+            @RequestParam(defaultValue = "100") int limit) {
+        RabbitMQConfig.PipelineStage pipelineStage = RabbitMQConfig.stageByName(stage);
+        if (pipelineStage == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Unknown stage: " + stage));
+        }
+        if (limit < 1 || limit > MAX_REPLAY) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "limit must be between 1 and " + MAX_REPLAY));
+        }
+        try {
+            int replayed = parkedMessageService.replay(pipelineStage, limit);
+            return ResponseEntity.ok(Map.of("stage", pipelineStage.name(), "replayed", replayed));
+        } catch (AmqpException e) {
+            log.error("Failed to replay parked {} messages: {}", stage, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("message", "Message broker unavailable."));
+        }
+    }
+}
@@ -6,11 +6,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class AudioProcessingMessage implements Serializable {
 
-    private static final long serialVersionUID = 2L;
+    private static final long serialVersionUID = 3L;
 
     private String recordingId;
     private String userId;
     private String metadataId;
+    private String tier;
+    private Long enqueuedAt;
 
     public AudioProcessingMessage() {}
 
@@ -46,9 +48,26 @@ public class AudioProcessingMessage implements Serializable {
         this.metadataId = metadataId;
     }
 
+    public String getTier() {
+        return tier;
+    }
+
+    public void setTier(String tier) {
+        this.tier = tier;
+    }
+
+    public Long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(Long enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
     @Override
     public String toString() {
         return "AudioProcessingMessage{" + "recordingId='" + recordingId + '\'' + ", userId='"
-                + userId + '\'' + ", metadataId='" + metadataId + '\'' + '}';
+                + userId + '\'' + ", metadataId='" + metadataId + '\'' + ", tier='" + tier
+                + '\'' + '}';
     }
 }
@@ -5,27 +5,43 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class NhostUploadMessage implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 3L;
 
     private String metadataId;
     private String fileType;
     private String tempFilePath;
     private String originalFilename;
     private String originalContentType;
+    private String nhostFileId;
+    private String contentHash;
+    private Long contentLength;
+    private Long enqueuedAt;
 
     public NhostUploadMessage() {}
 
+    public NhostUploadMessage(String metadataId, String fileType, String tempFilePath,
+            String originalFilename, String originalContentType) {
+        this(metadataId, fileType, tempFilePath, originalFilename, originalContentType, null, null,
+                null);
+    }
+
     @JsonCreator
     public NhostUploadMessage(@JsonProperty("metadataId") String metadataId,
             @JsonProperty("fileType") String fileType,
             @JsonProperty("tempFilePath") String tempFilePath,
             @JsonProperty("originalFilename") String originalFilename,
-            @JsonProperty("originalContentType") String originalContentType) {
+            @JsonProperty("originalContentType") String originalContentType,
+            @JsonProperty("nhostFileId") String nhostFileId,
+            @JsonProperty("contentHash") String contentHash,
+            @JsonProperty("contentLength") Long contentLength) {
         this.metadataId = metadataId;
         this.fileType = fileType;
         this.tempFilePath = tempFilePath;
         this.originalFilename = originalFilename;
         this.originalContentType = originalContentType;
+        this.nhostFileId = nhostFileId;
+        this.contentHash = contentHash;
+        this.contentLength = contentLength;
     }
 
     public String getMetadataId() {
@@ -48,6 +64,18 @@ public class NhostUploadMessage implements Serializable {
         return originalContentType;
     }
 
+    public String getNhostFileId() {
+        return nhostFileId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+
     public void setMetadataId(String metadataId) {
         this.metadataId = metadataId;
     }
@@ -68,11 +96,33 @@ public class NhostUploadMessage implements Serializable {
         this.originalContentType = originalContentType;
     }
 
+    public void setNhostFileId(String nhostFileId) {
+        this.nhostFileId = nhostFileId;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public void setContentLength(Long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    public Long getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(Long enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
     @Override
     public String toString() {
         return "NhostUploadMessage{" + "metadataId='" + metadataId + '\'' + ", fileType='"
                 + fileType + '\'' + ", tempFilePath='" + tempFilePath + '\''
                 + ", originalFilename='" + originalFilename + '\'' + ", originalContentType='"
-                + originalContentType + '\'' + '}';
+                + originalContentType + '\'' + ", nhostFileId='" + nhostFileId + '\''
+                + ", contentHash='" + contentHash + '\'' + ", contentLength=" + contentLength
+                + ", enqueuedAt=" + enqueuedAt + '}';
     }
 }
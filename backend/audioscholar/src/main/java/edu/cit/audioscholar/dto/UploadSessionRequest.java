@@ -0,0 +1,56 @@
+package edu.cit.audioscholar.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public class UploadSessionRequest {
+
+    @NotBlank(message = "File type cannot be blank")
+    @Pattern(regexp = "^(audio|powerpoint)$",
+            message = "File type must be either 'audio' or 'powerpoint'")
+    private String fileType;
+
+    @NotBlank(message = "File name cannot be blank")
+    private String fileName;
+
+    @NotBlank(message = "Content type cannot be blank")
+    private String contentType;
+
+    @Positive(message = "Total size must be greater than zero")
+    private long totalSize;
+
+    public UploadSessionRequest() {}
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+}
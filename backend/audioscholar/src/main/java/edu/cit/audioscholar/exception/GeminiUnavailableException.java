@@ -0,0 +1,8 @@
+package edu.cit.audioscholar.exception;
+
+public class GeminiUnavailableException extends RuntimeException {
+
+    public GeminiUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package edu.cit.audioscholar.exception;
+
+public class InvalidUploadRangeException extends RuntimeException {
+
+    private final long expectedOffset;
+
+    public InvalidUploadRangeException(String message, long expectedOffset) {
+        super(message);
+        this.expectedOffset = expectedOffset;
+    }
+
+    public long getExpectedOffset() {
+        return expectedOffset;
+    }
+}
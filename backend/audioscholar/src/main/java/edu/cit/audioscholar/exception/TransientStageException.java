@@ -0,0 +1,12 @@
+package edu.cit.audioscholar.exception;
+
+public class TransientStageException extends RuntimeException {
+
+    public TransientStageException(String message) {
+        super(message);
+    }
+
+    public TransientStageException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
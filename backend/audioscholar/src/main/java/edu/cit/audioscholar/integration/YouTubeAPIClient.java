@@ -30,6 +30,9 @@ public class YouTubeAPIClient {
     @Value("${youtube.api.key}")
     private String apiKey;
 
+    @Value("${youtube.api.root-url:}")
+    private String rootUrl;
+
     private static final String APPLICATION_NAME = "AudioScholarApp";
     private static final JsonFactory JSON_FACTORY = GsonFactory.getDefaultInstance();
 
@@ -44,8 +47,13 @@ public class YouTubeAPIClient {
     private void initialize() {
         try {
             HttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-            youtubeService = new YouTube.Builder(httpTransport, JSON_FACTORY, null)
-                    .setApplicationName(APPLICATION_NAME).build();
+            YouTube.Builder builder = new YouTube.Builder(httpTransport, JSON_FACTORY, null)
+                    .setApplicationName(APPLICATION_NAME);
+            if (rootUrl != null && !rootUrl.isBlank()) {
+                builder.setRootUrl(rootUrl);
+                log.info("Using YouTube Data API root URL override: {}", rootUrl);
+            }
+            youtubeService = builder.build();
             log.info("YouTube Data API service initialized successfully.");
         } catch (GeneralSecurityException | IOException e) {
             log.error("Failed to initialize YouTube Data API service", e);
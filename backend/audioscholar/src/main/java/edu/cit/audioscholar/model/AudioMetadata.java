@@ -51,6 +51,16 @@ public class AudioMetadata {
 
     @JsonProperty("waitingForPdf")
     private Boolean waitingForPdf;
+    private String contentHash;
+    private String pptxContentHash;
+    private long modelCalls;
+    private long modelPromptTokens;
+    private long modelOutputTokens;
+    private long modelRetries;
+    private long modelLatencyMillis;
+    private long stageBits;
+    private long stageVersion;
+    private Timestamp deletionRequestedAt;
 
     public AudioMetadata() {}
 
@@ -350,6 +360,86 @@ public class AudioMetadata {
         this.waitingForPdf = waitingForPdf;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getPptxContentHash() {
+        return pptxContentHash;
+    }
+
+    public void setPptxContentHash(String pptxContentHash) {
+        this.pptxContentHash = pptxContentHash;
+    }
+
+    public long getModelCalls() {
+        return modelCalls;
+    }
+
+    public void setModelCalls(long modelCalls) {
+        this.modelCalls = modelCalls;
+    }
+
+    public long getModelPromptTokens() {
+        return modelPromptTokens;
+    }
+
+    public void setModelPromptTokens(long modelPromptTokens) {
+        this.modelPromptTokens = modelPromptTokens;
+    }
+
+    public long getModelOutputTokens() {
+        return modelOutputTokens;
+    }
+
+    public void setModelOutputTokens(long modelOutputTokens) {
+        this.modelOutputTokens = modelOutputTokens;
+    }
+
+    public long getModelRetries() {
+        return modelRetries;
+    }
+
+    public void setModelRetries(long modelRetries) {
+        this.modelRetries = modelRetries;
+    }
+
+    public long getModelLatencyMillis() {
+        return modelLatencyMillis;
+    }
+
+    public void setModelLatencyMillis(long modelLatencyMillis) {
+        this.modelLatencyMillis = modelLatencyMillis;
+    }
+
+    public long getStageBits() {
+        return stageBits;
+    }
+
+    public void setStageBits(long stageBits) {
+        this.stageBits = stageBits;
+    }
+
+    public long getStageVersion() {
+        return stageVersion;
+    }
+
+    public void setStageVersion(long stageVersion) {
+        this.stageVersion = stageVersion;
+    }
+
+    public Timestamp getDeletionRequestedAt() {
+        return deletionRequestedAt;
+    }
+
+    public void setDeletionRequestedAt(Timestamp deletionRequestedAt) {
+        this.deletionRequestedAt = deletionRequestedAt;
+    }
+
     public Map<String, Object> toMap() {
         Map<String, Object> map = new HashMap<>();
         if (id != null)
@@ -419,6 +509,15 @@ public class AudioMetadata {
             map.put("gptSummary", gptSummary);
         if (waitingForPdf != null)
             map.put("waitingForPdf", waitingForPdf);
+        if (contentHash != null)
+            map.put("contentHash", contentHash);
+        if (pptxContentHash != null)
+            map.put("pptxContentHash", pptxContentHash);
+        if (deletionRequestedAt != null)
+            map.put("deletionRequestedAt", deletionRequestedAt);
+        // The model usage counters (FieldValue.increment in GeminiUsageRecorder) and the stage
+        // bits (transactional in StageCompletionService) are left out on purpose: this map is
+        // written back over whole documents, and a stale copy would reset concurrent updates.
 
         return map;
     }
@@ -498,6 +597,23 @@ public class AudioMetadata {
 
         meta.setGptSummary((String) map.get("gptSummary"));
         meta.setWaitingForPdf((Boolean) map.get("waitingForPdf"));
+        meta.setContentHash((String) map.get("contentHash"));
+        meta.setPptxContentHash((String) map.get("pptxContentHash"));
+        if (map.get("modelCalls") instanceof Number)
+            meta.setModelCalls(((Number) map.get("modelCalls")).longValue());
+        if (map.get("modelPromptTokens") instanceof Number)
+            meta.setModelPromptTokens(((Number) map.get("modelPromptTokens")).longValue());
+        if (map.get("modelOutputTokens") instanceof Number)
+            meta.setModelOutputTokens(((Number) map.get("modelOutputTokens")).longValue());
+        if (map.get("modelRetries") instanceof Number)
+            meta.setModelRetries(((Number) map.get("modelRetries")).longValue());
+        if (map.get("modelLatencyMillis") instanceof Number)
+            meta.setModelLatencyMillis(((Number) map.get("modelLatencyMillis")).longValue());
+        if (map.get("stageBits") instanceof Number)
+            meta.setStageBits(((Number) map.get("stageBits")).longValue());
+        if (map.get("stageVersion") instanceof Number)
+            meta.setStageVersion(((Number) map.get("stageVersion")).longValue());
+        meta.setDeletionRequestedAt((Timestamp) map.get("deletionRequestedAt"));
 
         return meta;
     }
@@ -537,7 +653,9 @@ public class AudioMetadata {
                 && pdfConversionComplete == that.pdfConversionComplete
                 && audioOnly == that.audioOnly && audioUploadComplete == that.audioUploadComplete
                 && Objects.equals(gptSummary, that.gptSummary)
-                && Objects.equals(waitingForPdf, that.waitingForPdf);
+                && Objects.equals(waitingForPdf, that.waitingForPdf)
+                && Objects.equals(contentHash, that.contentHash)
+                && Objects.equals(pptxContentHash, that.pptxContentHash);
     }
 
     @Override
@@ -548,7 +666,7 @@ public class AudioMetadata {
                 lastUpdated, originalPptxFileName, pptxFileSize, pptxContentType, nhostPptxFileId,
                 pptxNhostUrl, generatedPdfNhostFileId, generatedPdfUrl, googleFilesApiPdfUri,
                 convertApiPdfUrl, transcriptionComplete, pdfConversionComplete, audioOnly,
-                audioUploadComplete, gptSummary, waitingForPdf);
+                audioUploadComplete, gptSummary, waitingForPdf, contentHash, pptxContentHash);
     }
 
     @Override
@@ -571,6 +689,8 @@ public class AudioMetadata {
                 + ", transcriptionComplete=" + transcriptionComplete + ", pdfConversionComplete="
                 + pdfConversionComplete + ", audioOnly=" + audioOnly + ", audioUploadComplete="
                 + audioUploadComplete + ", gptSummary='" + gptSummary + '\'' + ", waitingForPdf="
-                + waitingForPdf + '}';
+                + waitingForPdf
+                + ", contentHash='" + contentHash + '\''
+                + ", pptxContentHash='" + pptxContentHash + '\'' + '}';
     }
 }
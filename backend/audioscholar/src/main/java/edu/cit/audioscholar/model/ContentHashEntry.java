@@ -0,0 +1,172 @@
+package edu.cit.audioscholar.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.google.cloud.Timestamp;
+
+public class ContentHashEntry {
+
+    private String id;
+    private String sha256;
+    private String fileType;
+    private String nhostFileId;
+    private String metadataId;
+    private long size;
+    private Timestamp createdAt;
+    private String transcriptMetadataId;
+    private String pdfUrl;
+    private Timestamp pdfConvertedAt;
+    private List<String> references;
+
+    public ContentHashEntry() {}
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getNhostFileId() {
+        return nhostFileId;
+    }
+
+    public void setNhostFileId(String nhostFileId) {
+        this.nhostFileId = nhostFileId;
+    }
+
+    public String getMetadataId() {
+        return metadataId;
+    }
+
+    public void setMetadataId(String metadataId) {
+        this.metadataId = metadataId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public String getTranscriptMetadataId() {
+        return transcriptMetadataId;
+    }
+
+    public void setTranscriptMetadataId(String transcriptMetadataId) {
+        this.transcriptMetadataId = transcriptMetadataId;
+    }
+
+    public String getPdfUrl() {
+        return pdfUrl;
+    }
+
+    public void setPdfUrl(String pdfUrl) {
+        this.pdfUrl = pdfUrl;
+    }
+
+    public Timestamp getPdfConvertedAt() {
+        return pdfConvertedAt;
+    }
+
+    public void setPdfConvertedAt(Timestamp pdfConvertedAt) {
+        this.pdfConvertedAt = pdfConvertedAt;
+    }
+
+    /**
+     * IDs of the metadata documents sharing {@link #getNhostFileId()}, or null for entries
+     * written before references were tracked.
+     */
+    public List<String> getReferences() {
+        return references;
+    }
+
+    public void setReferences(List<String> references) {
+        this.references = references;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        if (sha256 != null)
+            map.put("sha256", sha256);
+        if (fileType != null)
+            map.put("fileType", fileType);
+        if (nhostFileId != null)
+            map.put("nhostFileId", nhostFileId);
+        if (metadataId != null)
+            map.put("metadataId", metadataId);
+        map.put("size", size);
+        if (createdAt != null)
+            map.put("createdAt", createdAt);
+        if (transcriptMetadataId != null)
+            map.put("transcriptMetadataId", transcriptMetadataId);
+        if (pdfUrl != null)
+            map.put("pdfUrl", pdfUrl);
+        if (pdfConvertedAt != null)
+            map.put("pdfConvertedAt", pdfConvertedAt);
+        if (references != null)
+            map.put("references", references);
+        return map;
+    }
+
+    public static ContentHashEntry fromMap(String id, Map<String, Object> map) {
+        if (map == null)
+            return null;
+        ContentHashEntry entry = new ContentHashEntry();
+        entry.setId(id);
+        entry.setSha256((String) map.get("sha256"));
+        entry.setFileType((String) map.get("fileType"));
+        entry.setNhostFileId((String) map.get("nhostFileId"));
+        entry.setMetadataId((String) map.get("metadataId"));
+        Object size = map.get("size");
+        if (size instanceof Number)
+            entry.setSize(((Number) size).longValue());
+        entry.setCreatedAt((Timestamp) map.get("createdAt"));
+        entry.setTranscriptMetadataId((String) map.get("transcriptMetadataId"));
+        entry.setPdfUrl((String) map.get("pdfUrl"));
+        entry.setPdfConvertedAt((Timestamp) map.get("pdfConvertedAt"));
+        if (map.get("references") instanceof List<?> references) {
+            List<String> ids = new ArrayList<>(references.size());
+            references.forEach(ref -> ids.add(String.valueOf(ref)));
+            entry.setReferences(ids);
+        }
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return "ContentHashEntry{" + "id='" + id + '\'' + ", fileType='" + fileType + '\''
+                + ", nhostFileId='" + nhostFileId + '\'' + ", metadataId='" + metadataId + '\''
+                + ", size=" + size + ", references=" + references + ", transcriptMetadataId='" + transcriptMetadataId + '\''
+                + ", pdfUrl='" + pdfUrl + '\'' + '}';
+    }
+}
@@ -22,5 +22,6 @@ public enum ProcessingStatus {
     RECOMMENDATIONS_QUEUED, // Message sent to recommendations queue
     GENERATING_RECOMMENDATIONS, // Generating learning recommendations
     COMPLETE, // Process finished successfully, all steps done
-    FAILED // An error occurred at some stage
+    FAILED, // An error occurred at some stage
+    DELETING // Tombstoned by a delete request; the deletion worker is removing its data
 }
@@ -0,0 +1,199 @@
+package edu.cit.audioscholar.model;
+
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class UploadSession {
+
+    public enum State {
+        OPEN, COMPLETING, COMPLETED
+    }
+
+    private String sessionId;
+    private String userId;
+    private String fileType;
+    private String fileName;
+    private String contentType;
+    private long totalSize;
+    private long receivedBytes;
+    private Instant createdAt;
+    private Instant expiresAt;
+
+    @JsonIgnore
+    private Path partFilePath;
+
+    @JsonIgnore
+    private final AtomicReference<State> state = new AtomicReference<>(State.OPEN);
+
+    @JsonIgnore
+    private volatile AudioMetadata completedMetadata;
+
+    @JsonIgnore
+    private MessageDigest digest;
+
+    @JsonIgnore
+    private long hashedBytes;
+
+    @JsonIgnore
+    private String contentHash;
+
+    public UploadSession() {}
+
+    public UploadSession(String sessionId, String userId, String fileType, String fileName,
+            String contentType, long totalSize, Path partFilePath, Instant createdAt,
+            Instant expiresAt) {
+        this.sessionId = sessionId;
+        this.userId = userId;
+        this.fileType = fileType;
+        this.fileName = fileName;
+        this.contentType = contentType;
+        this.totalSize = totalSize;
+        this.partFilePath = partFilePath;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getFileType() {
+        return fileType;
+    }
+
+    public void setFileType(String fileType) {
+        this.fileType = fileType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    public void setReceivedBytes(long receivedBytes) {
+        this.receivedBytes = receivedBytes;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public Path getPartFilePath() {
+        return partFilePath;
+    }
+
+    public void setPartFilePath(Path partFilePath) {
+        this.partFilePath = partFilePath;
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public boolean compareAndSetState(State expected, State next) {
+        return state.compareAndSet(expected, next);
+    }
+
+    @JsonIgnore
+    public AudioMetadata getCompletedMetadata() {
+        return completedMetadata;
+    }
+
+    public void setCompletedMetadata(AudioMetadata completedMetadata) {
+        this.completedMetadata = completedMetadata;
+    }
+
+    @JsonIgnore
+    public MessageDigest getDigest() {
+        return digest;
+    }
+
+    public void setDigest(MessageDigest digest) {
+        this.digest = digest;
+    }
+
+    @JsonIgnore
+    public long getHashedBytes() {
+        return hashedBytes;
+    }
+
+    public void setHashedBytes(long hashedBytes) {
+        this.hashedBytes = hashedBytes;
+    }
+
+    @JsonIgnore
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public boolean isComplete() {
+        return receivedBytes >= totalSize;
+    }
+
+    @JsonIgnore
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && now.isAfter(expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSession{" + "sessionId='" + sessionId + '\'' + ", userId='" + userId + '\''
+                + ", fileType='" + fileType + '\'' + ", fileName='" + fileName + '\''
+                + ", totalSize=" + totalSize + ", receivedBytes=" + receivedBytes
+                + ", state=" + state.get() + ", expiresAt=" + expiresAt + '}';
+    }
+}
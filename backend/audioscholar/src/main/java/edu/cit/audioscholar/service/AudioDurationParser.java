@@ -0,0 +1,343 @@
+package edu.cit.audioscholar.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AudioDurationParser {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioDurationParser.class);
+
+    static final int[] ADTS_SAMPLE_RATES = {96000, 88200, 64000, 48000, 44100, 32000,
+            24000, 22050, 16000, 12000, 11025, 8000, 7350};
+    private static final int[][] MP3_BITRATES_KBPS = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}};
+    private static final int[][] MP3_SAMPLE_RATES =
+            {{44100, 48000, 32000}, {22050, 24000, 16000}, {11025, 12000, 8000}};
+    private static final int MP3_SYNC_SCAN_BYTES = 64 * 1024;
+    private static final int ADTS_SAMPLE_BYTES = 1024 * 1024;
+    private static final int MAX_BOX_DEPTH = 6;
+
+    @Nullable
+    public Double parseDurationSeconds(Path audioFilePath) {
+        try (FileChannel channel = FileChannel.open(audioFilePath, StandardOpenOption.READ)) {
+            ByteBuffer head = read(channel, 0, 12);
+            if (head.remaining() < 12) {
+                return null;
+            }
+            Double duration;
+            if (matches(head, 4, "ftyp")) {
+                duration = parseMp4(channel);
+            } else if (matches(head, 0, "RIFF") && matches(head, 8, "WAVE")) {
+                duration = parseWav(channel);
+            } else {
+                long audioStart = skipId3v2(channel, head);
+                ByteBuffer frame = read(channel, audioStart, 2);
+                if (frame.remaining() == 2 && (frame.get(0) & 0xFF) == 0xFF
+                        && (frame.get(1) & 0xF6) == 0xF0) {
+                    duration = parseAdts(channel, audioStart);
+                } else {
+                    duration = parseMp3(channel, audioStart);
+                }
+            }
+            if (duration != null) {
+                log.debug("Parsed container duration of {}: {} s", audioFilePath.getFileName(),
+                        duration);
+            }
+            return duration;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to parse container duration of {}: {}", audioFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private Double parseMp4(FileChannel channel) throws IOException {
+        long[] moov = findBox(channel, 0, channel.size(), "moov");
+        if (moov == null) {
+            return null;
+        }
+        long[] mvhd = findBox(channel, moov[0], moov[1], "mvhd");
+        Double duration = mvhd != null ? parseMediaHeader(channel, mvhd[0]) : null;
+        if (duration != null && duration > 0) {
+            return duration;
+        }
+        long[] mdhd = findNestedBox(channel, moov[0], moov[1], "mdhd", 0);
+        return mdhd != null ? parseMediaHeader(channel, mdhd[0]) : null;
+    }
+
+    // mvhd and mdhd share the version/timescale/duration layout
+    @Nullable
+    private Double parseMediaHeader(FileChannel channel, long contentStart) throws IOException {
+        ByteBuffer header = read(channel, contentStart, 32);
+        if (header.remaining() < 24) {
+            return null;
+        }
+        int version = header.get(0) & 0xFF;
+        long timescale;
+        long duration;
+        if (version == 1) {
+            timescale = Integer.toUnsignedLong(header.getInt(20));
+            duration = header.remaining() >= 32 ? header.getLong(24) : 0;
+        } else {
+            timescale = Integer.toUnsignedLong(header.getInt(12));
+            duration = Integer.toUnsignedLong(header.getInt(16));
+        }
+        if (timescale == 0 || duration <= 0 || duration == 0xFFFFFFFFL) {
+            return null;
+        }
+        return (double) duration / timescale;
+    }
+
+    @Nullable
+    private long[] findNestedBox(FileChannel channel, long start, long end, String type,
+            int depth) throws IOException {
+        if (depth > MAX_BOX_DEPTH) {
+            return null;
+        }
+        long position = start;
+        while (position + 8 <= end) {
+            long[] box = readBoxHeader(channel, position, end);
+            if (box == null) {
+                return null;
+            }
+            String boxType = readType(channel, position + 4);
+            if (type.equals(boxType)) {
+                return new long[] {box[0], box[1]};
+            }
+            if ("trak".equals(boxType) || "mdia".equals(boxType)) {
+                long[] nested = findNestedBox(channel, box[0], box[1], type, depth + 1);
+                if (nested != null) {
+                    return nested;
+                }
+            }
+            position = box[1];
+        }
+        return null;
+    }
+
+    @Nullable
+    private long[] findBox(FileChannel channel, long start, long end, String type)
+            throws IOException {
+        long position = start;
+        while (position + 8 <= end) {
+            long[] box = readBoxHeader(channel, position, end);
+            if (box == null) {
+                return null;
+            }
+            if (type.equals(readType(channel, position + 4))) {
+                return box;
+            }
+            position = box[1];
+        }
+        return null;
+    }
+
+    // Returns {contentStart, boxEnd}
+    @Nullable
+    private long[] readBoxHeader(FileChannel channel, long position, long end) throws IOException {
+        ByteBuffer header = read(channel, position, 16);
+        if (header.remaining() < 8) {
+            return null;
+        }
+        long size = Integer.toUnsignedLong(header.getInt(0));
+        long headerSize = 8;
+        if (size == 1) {
+            if (header.remaining() < 16) {
+                return null;
+            }
+            size = header.getLong(8);
+            headerSize = 16;
+        } else if (size == 0) {
+            size = end - position;
+        }
+        if (size < headerSize || position + size > end) {
+            return null;
+        }
+        return new long[] {position + headerSize, position + size};
+    }
+
+    private String readType(FileChannel channel, long position) throws IOException {
+        ByteBuffer type = read(channel, position, 4);
+        return StandardCharsets.ISO_8859_1.decode(type).toString();
+    }
+
+    @Nullable
+    private Double parseWav(FileChannel channel) throws IOException {
+        long position = 12;
+        long byteRate = 0;
+        long size = channel.size();
+        while (position + 8 <= size) {
+            ByteBuffer chunk = read(channel, position, 8).order(ByteOrder.LITTLE_ENDIAN);
+            String id = StandardCharsets.ISO_8859_1.decode(chunk.duplicate().limit(4)).toString();
+            long chunkSize = Integer.toUnsignedLong(chunk.getInt(4));
+            if ("fmt ".equals(id)) {
+                ByteBuffer fmt = read(channel, position + 8, 16).order(ByteOrder.LITTLE_ENDIAN);
+                byteRate = Integer.toUnsignedLong(fmt.getInt(8));
+            } else if ("data".equals(id)) {
+                long dataSize = Math.min(chunkSize, size - position - 8);
+                return byteRate > 0 ? (double) dataSize / byteRate : null;
+            }
+            position += 8 + chunkSize + (chunkSize & 1);
+        }
+        return null;
+    }
+
+    /**
+     * ADTS has no header carrying the stream length, so an exact duration needs every frame
+     * header; on a long lecture that is tens of thousands of reads. Instead this walks the frames
+     * in the first {@link #ADTS_SAMPLE_BYTES} and extrapolates the rest of the file from the
+     * bitrate seen there. Streams that fit in the sample get an exact duration; for longer ones
+     * the error is the bitrate drift between the sample and the rest of the recording.
+     */
+    @Nullable
+    private Double parseAdts(FileChannel channel, long start) throws IOException {
+        long size = channel.size();
+        ByteBuffer sample = read(channel, start, (int) Math.min(ADTS_SAMPLE_BYTES, size - start));
+        int position = 0;
+        long samples = 0;
+        int sampleRate = 0;
+        boolean endOfStream = false;
+        while (position + 7 <= sample.remaining()) {
+            if ((sample.get(position) & 0xFF) != 0xFF
+                    || (sample.get(position + 1) & 0xF6) != 0xF0) {
+                endOfStream = true;
+                break;
+            }
+            int rateIndex = (sample.get(position + 2) >> 2) & 0x0F;
+            int frameLength = ((sample.get(position + 3) & 0x03) << 11)
+                    | ((sample.get(position + 4) & 0xFF) << 3)
+                    | ((sample.get(position + 5) & 0xE0) >> 5);
+            if (rateIndex >= ADTS_SAMPLE_RATES.length || frameLength < 7) {
+                endOfStream = true;
+                break;
+            }
+            if (position + frameLength > sample.remaining()) {
+                break;
+            }
+            sampleRate = ADTS_SAMPLE_RATES[rateIndex];
+            samples += 1024L * ((sample.get(position + 6) & 0x03) + 1);
+            position += frameLength;
+        }
+        if (sampleRate == 0 || samples == 0) {
+            return null;
+        }
+        double seconds = (double) samples / sampleRate;
+        long unread = size - start - position;
+        if (!endOfStream && unread > 0) {
+            seconds += unread * seconds / position;
+        }
+        return seconds;
+    }
+
+    @Nullable
+    private Double parseMp3(FileChannel channel, long audioStart) throws IOException {
+        ByteBuffer scan = read(channel, audioStart, MP3_SYNC_SCAN_BYTES);
+        int offset = -1;
+        for (int i = 0; i + 4 <= scan.remaining(); i++) {
+            if ((scan.get(i) & 0xFF) == 0xFF && (scan.get(i + 1) & 0xE0) == 0xE0
+                    && parseMp3Header(scan.getInt(i)) != null) {
+                offset = i;
+                break;
+            }
+        }
+        if (offset < 0) {
+            return null;
+        }
+        int[] frame = parseMp3Header(scan.getInt(offset));
+        int versionIndex = frame[0];
+        int layer = frame[1];
+        int bitrate = frame[2];
+        int sampleRate = frame[3];
+        boolean mono = frame[4] == 3;
+        int samplesPerFrame = layer == 1 ? 384 : (layer == 3 && versionIndex != 0) ? 576 : 1152;
+
+        int sideInfo = versionIndex == 0 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+        ByteBuffer tag = read(channel, audioStart + offset + 4 + sideInfo, 12);
+        if (tag.remaining() >= 12 && (matches(tag, 0, "Xing") || matches(tag, 0, "Info"))
+                && (tag.getInt(4) & 0x1) != 0) {
+            long frames = Integer.toUnsignedLong(tag.getInt(8));
+            return (double) frames * samplesPerFrame / sampleRate;
+        }
+        ByteBuffer vbri = read(channel, audioStart + offset + 4 + 32, 18);
+        if (vbri.remaining() >= 18 && matches(vbri, 0, "VBRI")) {
+            long frames = Integer.toUnsignedLong(vbri.getInt(14));
+            return (double) frames * samplesPerFrame / sampleRate;
+        }
+        long audioBytes = channel.size() - audioStart - offset;
+        return bitrate > 0 ? audioBytes * 8.0 / (bitrate * 1000.0) : null;
+    }
+
+    // Returns {versionIndex (0 = MPEG1, 1 = MPEG2, 2 = MPEG2.5), layer, kbps, sampleRate,
+    // channelMode} or null for an invalid header
+    @Nullable
+    static int[] parseMp3Header(int header) {
+        if ((header & 0xFFE00000) != 0xFFE00000) {
+            return null;
+        }
+        int versionBits = (header >> 19) & 0x3;
+        int layerBits = (header >> 17) & 0x3;
+        int bitrateIndex = (header >> 12) & 0xF;
+        int sampleRateIndex = (header >> 10) & 0x3;
+        if (versionBits == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15
+                || sampleRateIndex == 3) {
+            return null;
+        }
+        int versionIndex = versionBits == 3 ? 0 : versionBits == 2 ? 1 : 2;
+        int layer = 4 - layerBits;
+        int table = versionIndex == 0 ? layer - 1 : (layer == 1 ? 3 : 4);
+        return new int[] {versionIndex, layer, MP3_BITRATES_KBPS[table][bitrateIndex],
+                MP3_SAMPLE_RATES[versionIndex][sampleRateIndex], (header >> 6) & 0x3};
+    }
+
+    static long skipId3v2(FileChannel channel, ByteBuffer head) throws IOException {
+        long position = 0;
+        while (true) {
+            ByteBuffer id3 = position == 0 ? head : read(channel, position, 10);
+            if (id3.remaining() < 10 || !matches(id3, 0, "ID3")) {
+                return position;
+            }
+            int tagSize = ((id3.get(6) & 0x7F) << 21) | ((id3.get(7) & 0x7F) << 14)
+                    | ((id3.get(8) & 0x7F) << 7) | (id3.get(9) & 0x7F);
+            boolean footer = (id3.get(5) & 0x10) != 0;
+            position += 10 + tagSize + (footer ? 10 : 0);
+        }
+    }
+
+    static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static boolean matches(ByteBuffer buffer, int offset, String ascii) {
+        if (buffer.remaining() < offset + ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (buffer.get(offset + i) != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,125 @@
+package edu.cit.audioscholar.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AudioEnergyAnalyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioEnergyAnalyzer.class);
+
+    public static final int DEFAULT_FRAME_MILLIS = 30;
+
+    @Nullable
+    public EnergyProfile analyze(Path audioFilePath, int frameMillis) {
+        try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(audioFilePath));
+                AudioInputStream source = AudioSystem.getAudioInputStream(fileStream);
+                AudioInputStream pcm = toPcm16(source)) {
+            AudioFormat format = pcm.getFormat();
+            int channels = format.getChannels();
+            int frameSize = format.getFrameSize();
+            int samplesPerFrame = Math.max(1, (int) (format.getSampleRate() * frameMillis / 1000));
+            boolean bigEndian = format.isBigEndian();
+
+            byte[] buffer = new byte[samplesPerFrame * frameSize];
+            double[] rms = new double[1024];
+            int frames = 0;
+            int read;
+            while ((read = pcm.readNBytes(buffer, 0, buffer.length)) > 0) {
+                int samples = read / frameSize;
+                double sumSquares = 0;
+                for (int i = 0; i < samples; i++) {
+                    double mixed = 0;
+                    for (int c = 0; c < channels; c++) {
+                        int offset = i * frameSize + c * 2;
+                        int lo = bigEndian ? buffer[offset + 1] : buffer[offset];
+                        int hi = bigEndian ? buffer[offset] : buffer[offset + 1];
+                        mixed += (short) ((hi << 8) | (lo & 0xFF)) / 32768.0;
+                    }
+                    mixed /= channels;
+                    sumSquares += mixed * mixed;
+                }
+                if (frames == rms.length) {
+                    rms = Arrays.copyOf(rms, rms.length * 2);
+                }
+                rms[frames++] = samples > 0 ? Math.sqrt(sumSquares / samples) : 0;
+            }
+            log.debug("Computed {} energy frames of {} ms for {}", frames, frameMillis,
+                    audioFilePath.getFileName());
+            return new EnergyProfile(frameMillis, Arrays.copyOf(rms, frames));
+        } catch (UnsupportedAudioFileException | IllegalArgumentException e) {
+            log.debug("No PCM decoder available for {}: {}", audioFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        } catch (IOException e) {
+            log.warn("Failed to read {} for energy analysis: {}", audioFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    static AudioInputStream toPcm16(AudioInputStream source) {
+        AudioFormat format = source.getFormat();
+        if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED
+                && format.getSampleSizeInBits() == 16) {
+            return source;
+        }
+        AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED,
+                format.getSampleRate(), 16, format.getChannels(), format.getChannels() * 2,
+                format.getSampleRate(), false);
+        return AudioSystem.getAudioInputStream(target, source);
+    }
+
+    public static class EnergyProfile {
+        private final int frameMillis;
+        private final double[] rms;
+
+        public EnergyProfile(int frameMillis, double[] rms) {
+            this.frameMillis = frameMillis;
+            this.rms = rms;
+        }
+
+        public int getFrameMillis() {
+            return frameMillis;
+        }
+
+        public double[] getRms() {
+            return rms;
+        }
+
+        public int getFrameCount() {
+            return rms.length;
+        }
+
+        public double getDurationSeconds() {
+            return rms.length * frameMillis / 1000.0;
+        }
+
+        public double quietestSecondBetween(double fromSeconds, double toSeconds) {
+            int from = Math.max(0, (int) (fromSeconds * 1000 / frameMillis));
+            int to = Math.min(rms.length - 1, (int) (toSeconds * 1000 / frameMillis));
+            if (from > to) {
+                return fromSeconds;
+            }
+            int quietest = from;
+            for (int i = from + 1; i <= to; i++) {
+                if (rms[i] < rms[quietest]) {
+                    quietest = i;
+                }
+            }
+            return quietest * frameMillis / 1000.0;
+        }
+    }
+}
@@ -1,11 +1,10 @@
 package edu.cit.audioscholar.service;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -15,7 +14,6 @@ import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.AmqpException;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
@@ -28,12 +26,15 @@ import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
 import com.google.cloud.firestore.FieldValue;
 import edu.cit.audioscholar.config.RabbitMQConfig;
 import edu.cit.audioscholar.dto.NhostUploadMessage;
 import edu.cit.audioscholar.exception.FirestoreInteractionException;
 import edu.cit.audioscholar.exception.InvalidAudioFileException;
 import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ContentHashEntry;
 import edu.cit.audioscholar.model.ProcessingStatus;
 
 @Service
@@ -44,27 +45,26 @@ public class AudioProcessingService {
         private static final String CACHE_METADATA_BY_USER = "audioMetadataByUser";
 
         private final FirebaseService firebaseService;
-        private final RabbitTemplate rabbitTemplate;
+        private final PipelineTransport pipelineTransport;
         private final NhostStorageService nhostStorageService;
-        private final LearningMaterialRecommenderService learningMaterialRecommenderService;
-        private final RecordingService recordingService;
         private final String maxFileSizeValue;
         private final Path tempFileDir;
         private final CacheManager cacheManager;
         private final ObjectMapper objectMapper;
+        private final ContentHashIndexService contentHashIndexService;
+        private final RecordingDeletionService recordingDeletionService;
 
         public AudioProcessingService(FirebaseService firebaseService,
-                        RabbitTemplate rabbitTemplate, NhostStorageService nhostStorageService,
-                        LearningMaterialRecommenderService learningMaterialRecommenderService,
-                        RecordingService recordingService,
+                        PipelineTransport pipelineTransport,
+                        NhostStorageService nhostStorageService,
                         @Value("${spring.servlet.multipart.max-file-size}") String maxFileSizeValue,
                         @Value("${app.temp-file-dir}") String tempFileDirStr,
-                        CacheManager cacheManager, ObjectMapper objectMapper) {
+                        CacheManager cacheManager, ObjectMapper objectMapper,
+                        ContentHashIndexService contentHashIndexService,
+                        RecordingDeletionService recordingDeletionService) {
                 this.firebaseService = firebaseService;
-                this.rabbitTemplate = rabbitTemplate;
+                this.pipelineTransport = pipelineTransport;
                 this.nhostStorageService = nhostStorageService;
-                this.learningMaterialRecommenderService = learningMaterialRecommenderService;
-                this.recordingService = recordingService;
                 this.maxFileSizeValue = maxFileSizeValue;
 
                 this.tempFileDir = Paths.get(tempFileDirStr);
@@ -81,6 +81,8 @@ public class AudioProcessingService {
 
                 this.cacheManager = cacheManager;
                 this.objectMapper = objectMapper;
+                this.contentHashIndexService = contentHashIndexService;
+                this.recordingDeletionService = recordingDeletionService;
         }
 
         private long getMaxFileSizeInBytes() {
@@ -120,15 +122,6 @@ public class AudioProcessingService {
                 AudioMetadata initialMetadata = null;
 
                 try {
-                        tempAudioPath = saveTemporaryFile(audioFile, "audio");
-                        log.info("Audio file saved temporarily to: {}",
-                                        tempAudioPath.toAbsolutePath());
-
-                        if (powerpointFile != null) {
-                                tempPptxPath = saveTemporaryFile(powerpointFile, "pptx");
-                                log.info("PowerPoint file saved temporarily to: {}",
-                                                tempPptxPath.toAbsolutePath());
-                        }
 
                         String metadataId = UUID.randomUUID().toString();
                         log.info("Generated metadataId: {} for upload by user {}", metadataId,
@@ -151,7 +144,9 @@ public class AudioProcessingService {
                         initialMetadata.setFileName(originalAudioFilename);
                         initialMetadata.setFileSize(audioFile.getSize());
                         initialMetadata.setContentType(originalAudioContentType);
-                        initialMetadata.setTempFilePath(tempAudioPath.toAbsolutePath().toString());
+                        initialMetadata.setTempFilePath(tempAudioPath != null
+                                        ? tempAudioPath.toAbsolutePath().toString()
+                                        : null);
 
                         initialMetadata.setTitle(
                                         StringUtils.hasText(title) ? title : originalAudioFilename);
@@ -166,8 +161,9 @@ public class AudioProcessingService {
                                 initialMetadata.setOriginalPptxFileName(originalPptxFilename);
                                 initialMetadata.setPptxFileSize(powerpointFile.getSize());
                                 initialMetadata.setPptxContentType(originalPptxContentType);
-                                initialMetadata.setTempPptxFilePath(
-                                                tempPptxPath.toAbsolutePath().toString());
+                                initialMetadata.setTempPptxFilePath(tempPptxPath != null
+                                                ? tempPptxPath.toAbsolutePath().toString()
+                                                : null);
                                 initialMetadata.setAudioOnly(false);
                         } else {
                                 initialMetadata.setAudioOnly(true);
@@ -205,22 +201,33 @@ public class AudioProcessingService {
                         }
 
                         try {
-                                initialMetadata = updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.UPLOAD_IN_PROGRESS, null, true);
-
-                                String audioTempPathStr = tempAudioPath.toAbsolutePath().toString();
-                                sendUploadMessage(metadataId, "audio", audioTempPathStr,
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.UPLOAD_IN_PROGRESS, null, true)) {
+                                        throw new FirestoreInteractionException(
+                                                        "Recording " + metadataId
+                                                                        + " was deleted before its upload was queued.");
+                                }
+                                initialMetadata.setStatus(ProcessingStatus.UPLOAD_IN_PROGRESS);
+                                initialMetadata.setLastUpdated(Timestamp.now());
+
+                                // Both upload messages go out in one batch; transcription waits
+                                // for the PDF conversion anyway, so holding the audio message
+                                // until the PPTX is staged costs nothing end to end.
+                                List<PipelineTransport.Outgoing> uploads = new ArrayList<>(2);
+                                tempAudioPath = dispatchUpload(metadataId, "audio", "audio",
+                                                audioFile, tempAudioPath,
                                                 RabbitMQConfig.UPLOAD_AUDIO_ROUTING_KEY,
-                                                originalAudioFilename, originalAudioContentType);
+                                                originalAudioFilename, originalAudioContentType,
+                                                uploads);
 
-                                String pptxTempPathStr = null;
-                                if (powerpointFile != null && tempPptxPath != null) {
-                                        pptxTempPathStr = tempPptxPath.toAbsolutePath().toString();
-                                        sendUploadMessage(metadataId, "powerpoint", pptxTempPathStr,
+                                if (powerpointFile != null) {
+                                        tempPptxPath = dispatchUpload(metadataId, "powerpoint",
+                                                        "pptx", powerpointFile, tempPptxPath,
                                                         RabbitMQConfig.UPLOAD_PPTX_ROUTING_KEY,
                                                         originalPptxFilename,
-                                                        originalPptxContentType);
+                                                        originalPptxContentType, uploads);
                                 }
+                                sendUploadMessages(metadataId, uploads);
 
                                 try {
                                         Map<String, Object> updates = new HashMap<>();
@@ -229,9 +236,8 @@ public class AudioProcessingService {
                                         updates.put("tempFilePath", null);
                                         updates.put("tempPptxFilePath", null);
 
-                                        firebaseService.updateData(firebaseService
-                                                        .getAudioMetadataCollectionName(),
-                                                        metadataId, updates);
+                                        firebaseService.updateLiveAudioMetadata(metadataId,
+                                                        updates);
                                         log.info("Updated metadata {} status to UPLOAD_IN_PROGRESS and cleared temp paths.",
                                                         metadataId);
 
@@ -254,8 +260,7 @@ public class AudioProcessingService {
                                                                 Timestamp.of(new Date()));
                                                 failureUpdates.put("tempFilePath", null);
                                                 failureUpdates.put("tempPptxFilePath", null);
-                                                firebaseService.updateData(firebaseService
-                                                                .getAudioMetadataCollectionName(),
+                                                firebaseService.updateLiveAudioMetadata(
                                                                 metadataId, failureUpdates);
                                         } catch (Exception finalFailEx) {
                                                 log.error("CRITICAL: Failed even to update metadata {} status to FAILED after UPLOAD_IN_PROGRESS update failure: {}",
@@ -273,7 +278,7 @@ public class AudioProcessingService {
                                                 initialMetadata.getStatus(), userId);
                                 return initialMetadata;
 
-                        } catch (AmqpException | FirestoreInteractionException e) {
+                        } catch (AmqpException | FirestoreInteractionException | IOException e) {
                                 log.error("Error during file processing trigger for user {}: {}",
                                                 userId, e.getMessage(), e);
                                 if (initialMetadata != null && initialMetadata.getId() != null
@@ -291,8 +296,7 @@ public class AudioProcessingService {
                                                                 Timestamp.of(new Date()));
                                                 failureUpdates.put("tempFilePath", null);
                                                 failureUpdates.put("tempPptxFilePath", null);
-                                                firebaseService.updateData(firebaseService
-                                                                .getAudioMetadataCollectionName(),
+                                                firebaseService.updateLiveAudioMetadata(
                                                                 initialMetadata.getId(),
                                                                 failureUpdates);
                                                 log.warn("Updated metadata {} status to FAILED due to trigger error: {}",
@@ -308,6 +312,8 @@ public class AudioProcessingService {
                                 deleteTemporaryFile(tempPptxPath);
                                 if (e instanceof FirestoreInteractionException)
                                         throw (FirestoreInteractionException) e;
+                                if (e instanceof IOException)
+                                        throw (IOException) e;
                                 if (e instanceof AmqpException)
                                         throw new RuntimeException(
                                                         "Failed to send message to upload queue.",
@@ -352,8 +358,9 @@ public class AudioProcessingService {
                                 + (fileExtension != null ? "." + fileExtension : "");
                 Path tempFilePath = this.tempFileDir.resolve(tempFilename);
 
-                try (InputStream inputStream = file.getInputStream()) {
-                        Files.copy(inputStream, tempFilePath, StandardCopyOption.REPLACE_EXISTING);
+                try {
+                        // Moves a part the container already spooled to disk instead of copying it.
+                        file.transferTo(tempFilePath.toAbsolutePath().toFile());
                         return tempFilePath;
                 } catch (IOException e) {
                         log.error("Failed to save uploaded file temporarily to {}: {}",
@@ -362,20 +369,74 @@ public class AudioProcessingService {
                 }
         }
 
-        private void sendUploadMessage(String metadataId, String fileType, String tempFilePath,
-                        String routingKey, String originalFilename, String originalContentType) {
+        /**
+         * Queues one file for the upload listener, which streams it to Nhost (hashing it on the
+         * way) off the request thread. Content already in the index is queued by reference;
+         * anything else is kept in the temp directory until the listener has sent it, since the
+         * multipart part is discarded when the request ends.
+         */
+        private Path dispatchUpload(String metadataId, String fileType, String tempPrefix,
+                        MultipartFile file, @Nullable Path tempPath, String routingKey,
+                        String originalFilename, String originalContentType,
+                        List<PipelineTransport.Outgoing> uploads) throws IOException {
+                if (tryReuseIndexedFile(metadataId, fileType, file, routingKey, originalFilename,
+                                originalContentType, uploads)) {
+                        deleteTemporaryFile(tempPath);
+                        return null;
+                }
+                if (tempPath == null) {
+                        tempPath = saveTemporaryFile(file, tempPrefix);
+                        log.info("[{}] {} file saved temporarily to: {}", metadataId, fileType,
+                                        tempPath.toAbsolutePath());
+                }
+                queueUploadMessage(new NhostUploadMessage(metadataId, fileType,
+                                tempPath.toAbsolutePath().toString(), originalFilename,
+                                originalContentType), routingKey, uploads);
+                return tempPath;
+        }
+
+        private boolean tryReuseIndexedFile(String metadataId, String fileType,
+                        MultipartFile file, String routingKey, String originalFilename,
+                        String originalContentType, List<PipelineTransport.Outgoing> uploads) {
+                // Plain multipart uploads are hashed while they stream to Nhost and deduplicated
+                // by the upload listener; only chunked sessions know their hash up front.
+                if (!(file instanceof ContentHashIndexService.HashedUpload hashed)) {
+                        return false;
+                }
+                String contentHash = hashed.getContentHash();
+                ContentHashEntry entry =
+                                contentHashIndexService.claim(fileType, contentHash, metadataId);
+                if (entry == null || !StringUtils.hasText(entry.getNhostFileId())) {
+                        return false;
+                }
+                log.info("[{}] {} upload matches content hash {}; reusing Nhost file {} from metadata {}.",
+                                metadataId, fileType, contentHash, entry.getNhostFileId(),
+                                entry.getMetadataId());
+                queueUploadMessage(new NhostUploadMessage(metadataId, fileType, null,
+                                originalFilename, originalContentType, entry.getNhostFileId(),
+                                contentHash, file.getSize()), routingKey, uploads);
+                return true;
+        }
+
+        private void queueUploadMessage(NhostUploadMessage message, String routingKey,
+                        List<PipelineTransport.Outgoing> uploads) {
+                message.setEnqueuedAt(System.currentTimeMillis());
+                uploads.add(new PipelineTransport.Outgoing(routingKey, message));
+        }
+
+        private void sendUploadMessages(String metadataId,
+                        List<PipelineTransport.Outgoing> uploads) {
+                if (uploads.isEmpty()) {
+                        return;
+                }
                 try {
-                        NhostUploadMessage message = new NhostUploadMessage(metadataId, fileType,
-                                        tempFilePath, originalFilename, originalContentType);
-
-                        rabbitTemplate.convertAndSend(RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                        routingKey, message);
-                        log.info("Sent {} upload message for metadataId {} to exchange '{}' with routing key '{}'",
-                                        fileType, metadataId,
-                                        RabbitMQConfig.PROCESSING_EXCHANGE_NAME, routingKey);
+                        pipelineTransport.sendAll(uploads);
+                        log.info("Sent {} upload message(s) for metadataId {} to exchange '{}'",
+                                        uploads.size(), metadataId,
+                                        RabbitMQConfig.PROCESSING_EXCHANGE_NAME);
                 } catch (Exception e) {
-                        log.error("Failed to send {} upload message for metadataId {} to queue. Error: {}",
-                                        fileType, metadataId, e.getMessage(), e);
+                        log.error("Failed to send upload messages for metadataId {} to queue. Error: {}",
+                                        metadataId, e.getMessage(), e);
                         updateMetadataStatus(metadataId, null, ProcessingStatus.FAILED,
                                         "Failed to queue file for upload: " + e.getMessage(), true);
                 }
@@ -409,7 +470,11 @@ public class AudioProcessingService {
                                 userId, pageSize, lastDocumentId);
                 try {
                         List<AudioMetadata> userMetadata = firebaseService
-                                        .getAudioMetadataByUserId(userId, pageSize, lastDocumentId);
+                                        .getAudioMetadataByUserId(userId, pageSize, lastDocumentId)
+                                        .stream()
+                                        .filter(metadata -> metadata
+                                                        .getDeletionRequestedAt() == null)
+                                        .toList();
                         log.info("Retrieved {} audio metadata records for user {} (page)",
                                         userMetadata.size(), userId);
                         return userMetadata;
@@ -449,176 +514,55 @@ public class AudioProcessingService {
                 }
         }
 
+        /**
+         * Tombstones the recording (deletionRequestedAt, status DELETING) and hands the cascade to
+         * the deletion worker. Returns false when the metadata does not exist. Repeated calls keep
+         * the original request time.
+         */
         @Caching(evict = {@CacheEvict(value = CACHE_METADATA_BY_ID, key = "#metadataId"),
                         @CacheEvict(value = CACHE_METADATA_BY_USER, allEntries = true)})
         public boolean deleteAudioMetadata(String metadataId) {
-                log.info("Initiating cascading delete for AudioMetadata ID: {}", metadataId);
-                AudioMetadata metadata = null;
+                log.info("Tombstoning AudioMetadata ID {} for deletion", metadataId);
+                DocumentReference docRef = firebaseService.getDocumentReference(
+                                firebaseService.getAudioMetadataCollectionName(), metadataId);
+                boolean exists;
                 try {
-                        metadata = getAudioMetadataById(metadataId);
-
-                        if (metadata == null) {
-                                log.warn("AudioMetadata not found for ID: {}. Cannot perform deletion.",
-                                                metadataId);
-                                return false;
-                        }
-
-                        String nhostFileId = metadata.getNhostFileId();
-                        String recordingId = metadata.getRecordingId();
-
-                        if (StringUtils.hasText(nhostFileId)) {
-                                try {
-                                        log.info("Attempting to delete Nhost file ID: {} associated with metadata {}",
-                                                        nhostFileId, metadataId);
-                                        nhostStorageService.deleteFile(nhostFileId);
-                                        log.info("Successfully requested deletion of Nhost file ID: {}",
-                                                        nhostFileId);
-                                } catch (Exception e) {
-                                        log.error("Failed to delete Nhost file ID {} for metadata {}. Error: {}",
-                                                        nhostFileId, metadataId, e.getMessage());
-                                }
-                        } else {
-                                log.warn("No NhostFileId found in metadata {} to delete.",
-                                                metadataId);
-                        }
-
-                        String nhostPptxFileId = metadata.getNhostPptxFileId();
-                        if (StringUtils.hasText(nhostPptxFileId)) {
-                                try {
-                                        log.info("Attempting to delete PowerPoint Nhost file ID: {} associated with metadata {}",
-                                                        nhostPptxFileId, metadataId);
-                                        nhostStorageService.deleteFile(nhostPptxFileId);
-                                        log.info("Successfully requested deletion of PowerPoint Nhost file ID: {}",
-                                                        nhostPptxFileId);
-                                } catch (Exception e) {
-                                        log.error("Failed to delete PowerPoint Nhost file ID {} for metadata {}. Error: {}",
-                                                        nhostPptxFileId, metadataId,
-                                                        e.getMessage());
-                                }
-                        } else {
-                                log.debug("No NhostPptxFileId found in metadata {} to delete.",
-                                                metadataId);
-                        }
-
-                        String generatedPdfNhostFileId = metadata.getGeneratedPdfNhostFileId();
-                        if (StringUtils.hasText(generatedPdfNhostFileId)) {
-                                try {
-                                        log.info("Attempting to delete generated PDF Nhost file ID: {} associated with metadata {}",
-                                                        generatedPdfNhostFileId, metadataId);
-                                        nhostStorageService.deleteFile(generatedPdfNhostFileId);
-                                        log.info("Successfully requested deletion of generated PDF Nhost file ID: {}",
-                                                        generatedPdfNhostFileId);
-                                } catch (Exception e) {
-                                        log.error("Failed to delete generated PDF Nhost file ID {} for metadata {}. Error: {}",
-                                                        generatedPdfNhostFileId, metadataId,
-                                                        e.getMessage());
-                                }
-                        } else {
-                                log.debug("No generatedPdfNhostFileId found in metadata {} to delete.",
-                                                metadataId);
-                        }
-
-                        if (StringUtils.hasText(recordingId)) {
-                                try {
-                                        log.info("Attempting to delete Learning Recommendations for Recording ID: {} associated with metadata {}",
-                                                        recordingId, metadataId);
-                                        learningMaterialRecommenderService
-                                                        .deleteRecommendationsByRecordingId(
-                                                                        recordingId);
-                                        log.info("Successfully initiated deletion for Learning Recommendations for Recording ID: {}",
-                                                        recordingId);
-                                } catch (Exception e) {
-                                        log.error("Failed to delete Learning Recommendations for Recording ID {} for metadata {}. Error: {}",
-                                                        recordingId, metadataId, e.getMessage());
+                        exists = firebaseService.runTransaction(transaction -> {
+                                DocumentSnapshot snapshot = transaction.get(docRef).get();
+                                if (!snapshot.exists()) {
+                                        return false;
                                 }
-
-                                try {
-                                        log.info("Attempting to delete Recording ID: {} and its related Summary associated with metadata {}",
-                                                        recordingId, metadataId);
-                                        recordingService.deleteRecording(recordingId);
-                                        log.info("Successfully initiated deletion for Recording ID: {}",
-                                                        recordingId);
-                                } catch (Exception e) {
-                                        log.error("Failed to delete Recording ID {} (and potentially related data) for metadata {}. Error: {}",
-                                                        recordingId, metadataId, e.getMessage());
+                                Map<String, Object> updates = new HashMap<>();
+                                if (snapshot.get("deletionRequestedAt") == null) {
+                                        updates.put("deletionRequestedAt", Timestamp.now());
                                 }
-                        } else {
-                                log.warn("No RecordingId found in metadata {}. Cannot delete associated Recording, Summary, or Recommendations.",
-                                                metadataId);
-                        }
-
-                        log.info("Attempting to delete AudioMetadata document ID: {}", metadataId);
-                        firebaseService.deleteData(firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId);
-                        log.info("Successfully deleted AudioMetadata document ID: {}", metadataId);
-
-                        if (metadata.getTempFilePath() != null
-                                        && !metadata.getTempFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(Paths.get(metadata.getTempFilePath()));
-                                        log.info("Deleted associated temporary file: {}",
-                                                        metadata.getTempFilePath());
-                                } catch (IOException e) {
-                                        log.warn("Could not delete temporary file {} for metadata {}",
-                                                        metadata.getTempFilePath(), metadataId, e);
+                                if (!ProcessingStatus.DELETING.name()
+                                                .equals(snapshot.getString("status"))) {
+                                        updates.put("status", ProcessingStatus.DELETING.name());
                                 }
-                        }
-
-                        if (metadata.getTempPptxFilePath() != null
-                                        && !metadata.getTempPptxFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(
-                                                        Paths.get(metadata.getTempPptxFilePath()));
-                                        log.info("Deleted associated temporary PowerPoint file: {}",
-                                                        metadata.getTempPptxFilePath());
-                                } catch (IOException e) {
-                                        log.warn("Could not delete temporary PowerPoint file {} for metadata {}",
-                                                        metadata.getTempPptxFilePath(), metadataId,
-                                                        e);
+                                if (!updates.isEmpty()) {
+                                        updates.put("lastUpdated", Timestamp.now());
+                                        transaction.update(docRef, updates);
                                 }
-                        }
-
-                        return true;
-
+                                return true;
+                        });
                 } catch (FirestoreInteractionException e) {
-                        log.error("Firestore error during cascading delete process for metadata ID {}: {}",
-                                        metadataId, e.getMessage(), e);
-                        if (metadata != null && metadata.getTempFilePath() != null
-                                        && !metadata.getTempFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(Paths.get(metadata.getTempFilePath()));
-                                } catch (IOException ignored) {
-                                }
-                        }
-                        if (metadata != null && metadata.getTempPptxFilePath() != null
-                                        && !metadata.getTempPptxFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(
-                                                        Paths.get(metadata.getTempPptxFilePath()));
-                                } catch (IOException ignored) {
-                                }
-                        }
+                        log.error("Firestore error tombstoning metadata ID {}: {}", metadataId,
+                                        e.getMessage(), e);
                         return false;
-                } catch (Exception e) {
-                        log.error("Unexpected error during cascading delete for metadata ID {}: {}",
-                                        metadataId, e.getMessage(), e);
-                        if (metadata != null && metadata.getTempFilePath() != null
-                                        && !metadata.getTempFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(Paths.get(metadata.getTempFilePath()));
-                                } catch (IOException ignored) {
-                                }
-                        }
-                        if (metadata != null && metadata.getTempPptxFilePath() != null
-                                        && !metadata.getTempPptxFilePath().isBlank()) {
-                                try {
-                                        Files.deleteIfExists(
-                                                        Paths.get(metadata.getTempPptxFilePath()));
-                                } catch (IOException ignored) {
-                                }
-                        }
+                }
+                if (!exists) {
+                        log.warn("AudioMetadata not found for ID: {}. Cannot perform deletion.",
+                                        metadataId);
                         return false;
                 }
+                try {
+                        recordingDeletionService.enqueue(metadataId);
+                } catch (AmqpException e) {
+                        log.warn("Could not enqueue deletion of {}; the tombstone sweep will pick it up: {}",
+                                        metadataId, e.getMessage());
+                }
+                return true;
         }
 
         @Caching(evict = {@CacheEvict(value = CACHE_METADATA_BY_ID, key = "#metadataId"),
@@ -631,9 +575,10 @@ public class AudioProcessingService {
                         updates.put("lastUpdated", Timestamp.of(new Date()));
                 }
                 try {
-                        firebaseService.updateData(firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
-                        log.info("Successfully updated AudioMetadata for ID: {}", metadataId);
+                        if (firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                log.info("Successfully updated AudioMetadata for ID: {}",
+                                                metadataId);
+                        }
                 } catch (FirestoreInteractionException e) {
                         log.error("Firestore error updating metadata for ID {}: {}", metadataId,
                                         e.getMessage(), e);
@@ -667,7 +612,8 @@ public class AudioProcessingService {
                 }
         }
 
-        private AudioMetadata updateMetadataStatus(String metadataId, String userId,
+        /** Returns false when the recording is deleted or being deleted and nothing was written. */
+        private boolean updateMetadataStatus(String metadataId, String userId,
                         @Nullable ProcessingStatus status, @Nullable String failureReason,
                         boolean clearTempPaths) {
                 log.info("Updating status for metadata ID: {} to {} (FailureReason: {})",
@@ -687,22 +633,14 @@ public class AudioProcessingService {
                 updates.put("lastUpdated", Timestamp.now());
 
                 try {
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                return false;
+                        }
                         log.info("Updated metadata {} with fields: {}. Status now might be {}",
                                         metadataId, updates.keySet(),
                                         status != null ? status : "(unchanged)");
                         invalidateUserCache(userId);
-
-                        AudioMetadata metadata = getAudioMetadataById(metadataId);
-                        if (metadata != null) {
-                                metadata.setStatus(status != null ? status : metadata.getStatus());
-                                metadata.setFailureReason(failureReason);
-                                metadata.setLastUpdated(Timestamp.of(new Date()));
-                                updateAudioMetadata(metadataId, metadata.toMap());
-                        }
-                        return metadata;
+                        return true;
                 } catch (FirestoreInteractionException e) {
                         log.error("CRITICAL: Failed to update metadata status/paths for {}. Error: {}",
                                         metadataId, e.getMessage(), e);
@@ -0,0 +1,307 @@
+package edu.cit.audioscholar.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cuts a recording into standalone audio files by time range, so each transcription segment
+ * uploads only its own audio. ADTS (.aac) and MP3 streams are cut on frame boundaries without
+ * re-encoding; anything javax.sound can decode is written out as WAV. MP4/M4A cannot be cut
+ * without remuxing, so {@link #plan} returns null for it and callers keep a single request.
+ */
+@Component
+public class AudioSegmentCutter {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioSegmentCutter.class);
+
+    private static final int WINDOW_BYTES = 256 * 1024;
+
+    /** A source file indexed for cutting. */
+    public interface Plan {
+        /** File extension (without the dot) of the cut files. */
+        String extension();
+
+        void write(double startSeconds, double endSeconds, Path target) throws IOException;
+    }
+
+    @Nullable
+    public Plan plan(Path audioFilePath) {
+        try (FileChannel channel = FileChannel.open(audioFilePath, StandardOpenOption.READ)) {
+            ByteBuffer head = AudioDurationParser.read(channel, 0, 12);
+            if (head.remaining() < 12 || AudioDurationParser.matches(head, 4, "ftyp")) {
+                return null;
+            }
+            if (!(AudioDurationParser.matches(head, 0, "RIFF")
+                    && AudioDurationParser.matches(head, 8, "WAVE"))) {
+                long audioStart = AudioDurationParser.skipId3v2(channel, head);
+                ByteBuffer sync = AudioDurationParser.read(channel, audioStart, 2);
+                if (sync.remaining() == 2 && (sync.get(0) & 0xFF) == 0xFF) {
+                    FrameIndex index = (sync.get(1) & 0xF6) == 0xF0
+                            ? indexAdts(channel, audioStart)
+                            : indexMp3(channel, audioStart);
+                    if (index != null) {
+                        return new FramedPlan(audioFilePath, index);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to index {} for cutting: {}", audioFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+        return pcmPlan(audioFilePath);
+    }
+
+    @Nullable
+    private Plan pcmPlan(Path audioFilePath) {
+        try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(audioFilePath));
+                AudioInputStream source = AudioSystem.getAudioInputStream(fileStream)) {
+            return new PcmPlan(audioFilePath);
+        } catch (UnsupportedAudioFileException | IOException | IllegalArgumentException e) {
+            log.debug("No frame index or PCM decoder for {}: {}", audioFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    static FrameIndex indexAdts(FileChannel channel, long position) throws IOException {
+        FrameIndex index = new FrameIndex("aac");
+        Window window = new Window(channel);
+        long size = channel.size();
+        double time = 0;
+        while (position + 7 <= size && window.load(position, 7)) {
+            ByteBuffer header = window.buffer;
+            int at = window.offset(position);
+            if ((header.get(at) & 0xFF) != 0xFF || (header.get(at + 1) & 0xF6) != 0xF0) {
+                break;
+            }
+            int rateIndex = (header.get(at + 2) >> 2) & 0x0F;
+            if (rateIndex >= AudioDurationParser.ADTS_SAMPLE_RATES.length) {
+                break;
+            }
+            int frameLength = ((header.get(at + 3) & 0x03) << 11)
+                    | ((header.get(at + 4) & 0xFF) << 3) | ((header.get(at + 5) & 0xE0) >> 5);
+            if (frameLength < 7 || position + frameLength > size) {
+                break;
+            }
+            index.add(position, time);
+            time += 1024.0 * ((header.get(at + 6) & 0x03) + 1)
+                    / AudioDurationParser.ADTS_SAMPLE_RATES[rateIndex];
+            position += frameLength;
+        }
+        return index.finish(position, time);
+    }
+
+    @Nullable
+    static FrameIndex indexMp3(FileChannel channel, long position) throws IOException {
+        FrameIndex index = new FrameIndex("mp3");
+        Window window = new Window(channel);
+        long size = channel.size();
+        double time = 0;
+        boolean first = true;
+        while (position + 4 <= size && window.load(position, 4)) {
+            int header = window.buffer.getInt(window.offset(position));
+            int[] frame = AudioDurationParser.parseMp3Header(header);
+            if (frame == null) {
+                break;
+            }
+            int versionIndex = frame[0];
+            int layer = frame[1];
+            int sampleRate = frame[3];
+            int padding = (header >> 9) & 0x1;
+            int frameLength = layer == 1 ? (12 * frame[2] * 1000 / sampleRate + padding) * 4
+                    : (layer == 3 && versionIndex != 0 ? 72 : 144) * frame[2] * 1000 / sampleRate
+                            + padding;
+            if (frameLength < 4 || position + frameLength > size) {
+                break;
+            }
+            int samplesPerFrame =
+                    layer == 1 ? 384 : (layer == 3 && versionIndex != 0) ? 576 : 1152;
+            // A leading Xing/Info/VBRI frame carries the whole file's frame count and would
+            // make a cut look as long as the original, so leave it out of every cut.
+            if (!(first && isVbrHeaderFrame(channel, position, versionIndex, frame[4]))) {
+                index.add(position, time);
+                time += (double) samplesPerFrame / sampleRate;
+            }
+            first = false;
+            position += frameLength;
+        }
+        return index.finish(position, time);
+    }
+
+    private static boolean isVbrHeaderFrame(FileChannel channel, long position, int versionIndex,
+            int channelMode) throws IOException {
+        boolean mono = channelMode == 3;
+        int sideInfo = versionIndex == 0 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+        ByteBuffer tag = AudioDurationParser.read(channel, position + 4 + sideInfo, 4);
+        ByteBuffer vbri = AudioDurationParser.read(channel, position + 4 + 32, 4);
+        return AudioDurationParser.matches(tag, 0, "Xing")
+                || AudioDurationParser.matches(tag, 0, "Info")
+                || AudioDurationParser.matches(vbri, 0, "VBRI");
+    }
+
+    /** Byte offsets and start times of each frame, plus the end of the last frame. */
+    static final class FrameIndex {
+        private final String extension;
+        private long[] offsets = new long[4096];
+        private double[] times = new double[4096];
+        private int count;
+        private long endOffset;
+        private double duration;
+
+        FrameIndex(String extension) {
+            this.extension = extension;
+        }
+
+        void add(long offset, double time) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                times = Arrays.copyOf(times, count * 2);
+            }
+            offsets[count] = offset;
+            times[count] = time;
+            count++;
+        }
+
+        @Nullable
+        FrameIndex finish(long endOffset, double duration) {
+            this.endOffset = endOffset;
+            this.duration = duration;
+            return count > 0 ? this : null;
+        }
+
+        int frameCount() {
+            return count;
+        }
+
+        double duration() {
+            return duration;
+        }
+
+        /** Byte range {start, end} of the frames that overlap [startSeconds, endSeconds). */
+        long[] byteRange(double startSeconds, double endSeconds) {
+            int first = Math.max(0, floorFrame(startSeconds));
+            int last = Math.max(first, ceilFrame(endSeconds));
+            return new long[] {offsets[first], last < count ? offsets[last] : endOffset};
+        }
+
+        private int floorFrame(double seconds) {
+            int found = Arrays.binarySearch(times, 0, count, seconds);
+            return found >= 0 ? found : -found - 2;
+        }
+
+        private int ceilFrame(double seconds) {
+            int found = Arrays.binarySearch(times, 0, count, seconds);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+
+    private static final class FramedPlan implements Plan {
+        private final Path source;
+        private final FrameIndex index;
+
+        FramedPlan(Path source, FrameIndex index) {
+            this.source = source;
+            this.index = index;
+        }
+
+        @Override
+        public String extension() {
+            return index.extension;
+        }
+
+        @Override
+        public void write(double startSeconds, double endSeconds, Path target) throws IOException {
+            long[] range = index.byteRange(startSeconds, endSeconds);
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position = range[0];
+                while (position < range[1]) {
+                    long copied = in.transferTo(position, range[1] - position, out);
+                    if (copied <= 0) {
+                        break;
+                    }
+                    position += copied;
+                }
+            }
+        }
+    }
+
+    private static final class PcmPlan implements Plan {
+        private final Path source;
+
+        PcmPlan(Path source) {
+            this.source = source;
+        }
+
+        @Override
+        public String extension() {
+            return "wav";
+        }
+
+        @Override
+        public void write(double startSeconds, double endSeconds, Path target) throws IOException {
+            try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(source));
+                    AudioInputStream decoded = AudioSystem.getAudioInputStream(fileStream);
+                    AudioInputStream pcm = AudioEnergyAnalyzer.toPcm16(decoded)) {
+                AudioFormat format = pcm.getFormat();
+                long startFrame = (long) (startSeconds * format.getFrameRate());
+                long frames = (long) ((endSeconds - startSeconds) * format.getFrameRate());
+                pcm.skipNBytes(startFrame * format.getFrameSize());
+                try (AudioInputStream slice = new AudioInputStream(pcm, format, frames)) {
+                    AudioSystem.write(slice, AudioFileFormat.Type.WAVE, target.toFile());
+                }
+            } catch (UnsupportedAudioFileException e) {
+                throw new IOException("Cannot decode " + source.getFileName(), e);
+            }
+        }
+    }
+
+    /** Sequential positional reads through one reusable buffer. */
+    private static final class Window {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(WINDOW_BYTES);
+        private long start = -1;
+
+        Window(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        boolean load(long position, int length) throws IOException {
+            if (start >= 0 && position >= start && position + length <= start + buffer.limit()) {
+                return true;
+            }
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            start = position;
+            return buffer.limit() >= length;
+        }
+
+        int offset(long position) {
+            return (int) (position - start);
+        }
+    }
+}
@@ -5,12 +5,11 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
 import org.jaudiotagger.audio.AudioHeader;
@@ -21,21 +20,23 @@ import org.jaudiotagger.tag.TagException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StringUtils;
 import com.google.cloud.Timestamp;
 import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
 import edu.cit.audioscholar.dto.AudioProcessingMessage;
 import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.TransientStageException;
 import edu.cit.audioscholar.model.AudioMetadata;
 import edu.cit.audioscholar.model.ProcessingStatus;
 import edu.cit.audioscholar.model.Recording;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class AudioTranscriptionListenerService {
@@ -49,20 +50,48 @@ public class AudioTranscriptionListenerService {
     private final RecordingService recordingService;
     private final CacheManager cacheManager;
     private final Path tempFileDir;
-    private final RabbitTemplate rabbitTemplate;
-    private final Map<String, ReentrantLock> metadataLocks = new ConcurrentHashMap<>();
+    private final PipelineTransport pipelineTransport;
+    private final ContentHashIndexService contentHashIndexService;
+    private final SegmentedTranscriptionService segmentedTranscriptionService;
+    private final AudioDurationParser audioDurationParser;
+    private final StageCompletionService stageCompletionService;
+    private final LeaseService leaseService;
+    private final LeaseHeartbeat leaseHeartbeat;
+    private final GeminiRateGovernor geminiRateGovernor;
+    private final ProcessingLaneRouter processingLaneRouter;
+    private final StageTimelineService stageTimelineService;
+    private final Duration leaseTtl;
 
     public AudioTranscriptionListenerService(FirebaseService firebaseService,
             NhostStorageService nhostStorageService, GeminiService geminiService,
             @Lazy RecordingService recordingService, CacheManager cacheManager,
-            @Value("${app.temp-file-dir}") String tempFileDirStr, RabbitTemplate rabbitTemplate) {
+            @Value("${app.temp-file-dir}") String tempFileDirStr,
+            PipelineTransport pipelineTransport,
+            ContentHashIndexService contentHashIndexService,
+            SegmentedTranscriptionService segmentedTranscriptionService,
+            AudioDurationParser audioDurationParser,
+            StageCompletionService stageCompletionService, LeaseService leaseService,
+            LeaseHeartbeat leaseHeartbeat, GeminiRateGovernor geminiRateGovernor,
+            @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes,
+            ProcessingLaneRouter processingLaneRouter,
+            StageTimelineService stageTimelineService) {
         this.firebaseService = firebaseService;
         this.nhostStorageService = nhostStorageService;
         this.geminiService = geminiService;
         this.recordingService = recordingService;
         this.cacheManager = cacheManager;
         this.tempFileDir = Paths.get(tempFileDirStr);
-        this.rabbitTemplate = rabbitTemplate;
+        this.pipelineTransport = pipelineTransport;
+        this.contentHashIndexService = contentHashIndexService;
+        this.segmentedTranscriptionService = segmentedTranscriptionService;
+        this.audioDurationParser = audioDurationParser;
+        this.stageCompletionService = stageCompletionService;
+        this.leaseService = leaseService;
+        this.leaseHeartbeat = leaseHeartbeat;
+        this.geminiRateGovernor = geminiRateGovernor;
+        this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+        this.processingLaneRouter = processingLaneRouter;
+        this.stageTimelineService = stageTimelineService;
         try {
             Files.createDirectories(this.tempFileDir);
         } catch (IOException e) {
@@ -71,27 +100,57 @@ public class AudioTranscriptionListenerService {
         }
     }
 
-    @RabbitListener(queues = RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME)
-    public void handleAudioTranscriptionRequest(AudioProcessingMessage message) {
+    @PostConstruct
+    void registerInProcessConsumers() {
+        pipelineTransport.register(RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY,
+                AudioProcessingMessage.class, this::processTranscriptionRequest);
+        pipelineTransport.register(RabbitMQConfig.TRANSCRIPTION_PREMIUM_ROUTING_KEY,
+                AudioProcessingMessage.class, this::processTranscriptionRequest);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME,
+            containerFactory = RabbitMQConfig.TRANSCRIPTION_LISTENER_FACTORY)
+    public void handleAudioTranscriptionRequest(AudioProcessingMessage message,
+            @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                    required = false) @Nullable Integer attempt) {
+        processTranscriptionRequest(message, attempt);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.TRANSCRIPTION_PREMIUM_QUEUE_NAME,
+            containerFactory = RabbitMQConfig.TRANSCRIPTION_PREMIUM_LISTENER_FACTORY)
+    public void handlePremiumTranscriptionRequest(AudioProcessingMessage message,
+            @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                    required = false) @Nullable Integer attempt) {
+        processTranscriptionRequest(message, attempt);
+    }
+
+    private void processTranscriptionRequest(AudioProcessingMessage message,
+            @Nullable Integer attempt) {
         String metadataId = message.getMetadataId();
         String userId = message.getUserId();
+        String tier = processingLaneRouter.resolveTier(message.getTier(), userId);
         log.info(
-                "[{}] Received transcription request for metadata ID from queue. Initial User ID: {}",
-                metadataId, userId);
+                "[{}] Received transcription request for metadata ID from queue. Initial User ID: {}, tier: {}",
+                metadataId, userId, tier);
 
         if (metadataId == null || metadataId.isEmpty()) {
             log.error("Invalid transcription message: metadataId is null or empty. Aborting.");
             return;
         }
 
-        Lock metadataLock = metadataLocks.computeIfAbsent(metadataId, id -> new ReentrantLock());
-        if (!metadataLock.tryLock()) {
+        LeaseService.Lease lease = leaseService.tryAcquire("transcription:" + metadataId, leaseTtl);
+        if (lease == null) {
             log.info(
-                    "[{}] Another thread is already processing this metadata ID. Skipping duplicate processing.",
+                    "[{}] Another listener holds the transcription lease. Deferring message to a delayed retry.",
                     metadataId);
-            return;
+            throw new TransientStageException(
+                    "Transcription lease busy for metadataId " + metadataId);
         }
 
+        LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+        GeminiRateGovernor.Priority priority = geminiRateGovernor.prioritize(metadataId, tier);
+        StageTimelineService.Span span = stageTimelineService.start(metadataId,
+                ProcessingLaneRouter.STAGE_TRANSCRIPTION, tier, message.getEnqueuedAt(), attempt);
         try {
             log.debug("[{}] Fetching AudioMetadata document...", metadataId);
             Map<String, Object> metadataMap;
@@ -104,6 +163,11 @@ public class AudioTranscriptionListenerService {
             }
 
             AudioMetadata metadata = AudioMetadata.fromMap(metadataMap);
+            if (metadata == null) {
+                log.info("[{}] Metadata is gone (recording deleted); dropping transcription.",
+                        metadataId);
+                return;
+            }
             log.info("[{}] Found metadata. Current status: {}, User: {}", metadataId,
                     metadata.getStatus(), userId);
 
@@ -113,7 +177,7 @@ public class AudioTranscriptionListenerService {
                 log.info("[{}] Skipping transcription as it is already marked as complete.",
                         metadataId);
 
-                checkCompletionAndTriggerSummarization(metadataId, userId);
+                checkCompletionAndTriggerSummarization(metadataId, userId, tier, lease);
                 return;
             }
 
@@ -127,7 +191,13 @@ public class AudioTranscriptionListenerService {
                 return;
             }
 
-            updateMetadataStatus(metadataId, userId, ProcessingStatus.TRANSCRIBING, null);
+            if (reuseIndexedTranscript(metadataId, metadata, userId, tier, lease)) {
+                return;
+            }
+
+            if (!updateMetadataStatus(metadataId, userId, ProcessingStatus.TRANSCRIBING, null)) {
+                return;
+            }
 
             try {
                 log.debug("[{}] Fetching Recording document {}...", metadataId, metadataId);
@@ -177,23 +247,49 @@ public class AudioTranscriptionListenerService {
                     log.info(
                             "[{}] Transcription was completed by another process while we were preparing. Skipping API call.",
                             metadataId);
-                    checkCompletionAndTriggerSummarization(metadataId, userId);
+                    checkCompletionAndTriggerSummarization(metadataId, userId, tier, lease);
                     return;
                 }
 
                 log.info(
                         "[{}] Calling Gemini API for transcription... Original Filename: {}, ContentType: {}",
                         metadataId, originalFileName, metadata.getContentType());
-                String transcript =
-                        geminiService.callGeminiTranscriptionAPI(tempFilePath, originalFileName);
+                String transcript = segmentedTranscriptionService.transcribe(tempFilePath,
+                        originalFileName, durationSeconds, metadataId, metadata.getContentHash());
+
+                if (geminiService.isErrorResponse(transcript)) {
+                    deleteTempFile(tempFilePath, metadataId);
+                    if (geminiService.isTransientErrorResponse(transcript)) {
+                        throw new TransientStageException(
+                                "Transcription unavailable: " + transcript);
+                    }
+                    updateMetadataStatusToFailed(metadataId, userId,
+                            "Transcription failed: " + transcript);
+                    return;
+                }
+
+                if (transcript != null
+                        && SegmentedTranscriptionService.NO_SPEECH_MARKER.equals(transcript.trim())) {
+                    log.info("[{}] Gemini reported no speech. Halting processing.", metadataId);
+                    haltNoSpeech(metadataId, userId, "No speech detected in the recording.");
+                    deleteTempFile(tempFilePath, metadataId);
+                    return;
+                }
 
                 metadataMap = firebaseService
                         .getData(firebaseService.getAudioMetadataCollectionName(), metadataId);
                 metadata = AudioMetadata.fromMap(metadataMap);
+                if (metadata == null) {
+                    log.info("[{}] Recording was deleted while we were transcribing. Skipping update.",
+                            metadataId);
+                    deleteTempFile(tempFilePath, metadataId);
+                    return;
+                }
                 if (metadata.isTranscriptionComplete()) {
                     log.info(
                             "[{}] Transcription was completed by another process while we were transcribing. Skipping update.",
                             metadataId);
+                    deleteTempFile(tempFilePath, metadataId);
                     return;
                 }
 
@@ -204,37 +300,28 @@ public class AudioTranscriptionListenerService {
                 updates.put("transcriptText", transcript);
                 updates.put("transcriptionComplete", true);
                 updates.put("status", ProcessingStatus.TRANSCRIPTION_COMPLETE.name());
-                updates.put("lastUpdated", Timestamp.now());
 
                 log.info("[{}] Saving transcript with size: {} characters", metadataId,
                         transcript != null ? transcript.length() : 0);
 
-                firebaseService.updateDataWithMap(firebaseService.getAudioMetadataCollectionName(),
-                        metadataId, updates);
+                PipelineTransport.Staged summarization = stageCompletionService.completeAndStage(
+                        metadataId, StageCompletionService.STAGE_TRANSCRIPTION, updates, lease,
+                        List.of(summarizationMessage(metadataId, tier)));
                 log.info(
                         "[{}] Successfully saved transcript, set transcriptionComplete=true, and status=TRANSCRIPTION_COMPLETE.",
                         metadataId);
                 invalidateCache(userId);
-
-                try {
-                    log.debug(
-                            "[{}] Adding a short delay to ensure Firestore consistency before summarization...",
-                            metadataId);
-                    Thread.sleep(3000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    log.warn("[{}] Delay before summarization was interrupted", metadataId);
+                contentHashIndexService.recordTranscript(metadata.getContentHash(), metadataId);
+                if (summarization != null) {
+                    publishSummarization(metadataId, tier, summarization);
                 }
 
-                checkCompletionAndTriggerSummarization(metadataId, userId);
-
-                try {
-                    Files.deleteIfExists(tempFilePath);
-                    log.debug("[{}] Deleted temporary audio file: {}", metadataId, tempFilePath);
-                } catch (IOException e) {
-                    log.warn("[{}] Failed to delete temporary audio file: {}", metadataId,
-                            e.getMessage());
-                }
+                deleteTempFile(tempFilePath, metadataId);
+            } catch (TransientStageException e) {
+                log.warn("[{}] Transient transcription failure; handing back for delayed retry: {}",
+                        metadataId, e.getMessage());
+                updateMetadataStatus(metadataId, userId, ProcessingStatus.PROCESSING_QUEUED, null);
+                throw e;
             } catch (Exception e) {
                 log.error("[{}] Error during transcription process: {}", metadataId, e.getMessage(),
                         e);
@@ -242,13 +329,68 @@ public class AudioTranscriptionListenerService {
                         "Error during transcription: " + e.getMessage());
             }
         } finally {
-            metadataLock.unlock();
-            if (metadataLock instanceof ReentrantLock) {
-                ReentrantLock reentrantLock = (ReentrantLock) metadataLock;
-                if (!reentrantLock.isLocked() && !reentrantLock.hasQueuedThreads()) {
-                    metadataLocks.remove(metadataId);
-                }
-            }
+            stageTimelineService.finish(span);
+            priority.close();
+            renewal.close();
+            leaseService.release(lease);
+        }
+    }
+
+    private boolean reuseIndexedTranscript(String metadataId, AudioMetadata metadata,
+            String userId, String tier, LeaseService.Lease lease) {
+        AudioMetadata source =
+                contentHashIndexService.findTranscriptSource(metadata.getContentHash(), metadataId);
+        if (source == null) {
+            return false;
+        }
+        log.info("[{}] Audio content matches recording {}; reusing its transcript ({} characters).",
+                metadataId, source.getId(), source.getTranscriptText().length());
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("transcriptText", source.getTranscriptText());
+        updates.put("transcriptionComplete", true);
+        updates.put("status", ProcessingStatus.TRANSCRIPTION_COMPLETE.name());
+        if ((metadata.getDurationSeconds() == null || metadata.getDurationSeconds() <= 0)
+                && source.getDurationSeconds() != null) {
+            updates.put("durationSeconds", source.getDurationSeconds());
+        }
+        PipelineTransport.Staged summarization;
+        try {
+            summarization = stageCompletionService.completeAndStage(metadataId,
+                    StageCompletionService.STAGE_TRANSCRIPTION, updates, lease,
+                    List.of(summarizationMessage(metadataId, tier)));
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to copy transcript from {}; transcribing instead: {}",
+                    metadataId, source.getId(), e.getMessage());
+            return false;
+        }
+        invalidateCache(userId);
+        if (summarization != null) {
+            publishSummarization(metadataId, tier, summarization);
+        }
+        return true;
+    }
+
+    private void haltNoSpeech(String metadataId, @Nullable String userId, String reason) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("transcriptText", SegmentedTranscriptionService.NO_SPEECH_MARKER);
+        updates.put("status", ProcessingStatus.PROCESSING_HALTED_NO_SPEECH.name());
+        updates.put("failureReason", reason);
+        updates.put("lastUpdated", Timestamp.now());
+        try {
+            firebaseService.updateLiveAudioMetadata(metadataId, updates);
+        } catch (FirestoreInteractionException e) {
+            log.error("[{}] Failed to mark metadata as halted (no speech): {}", metadataId,
+                    e.getMessage(), e);
+        }
+        invalidateCache(userId);
+    }
+
+    private void deleteTempFile(Path path, String metadataId) {
+        try {
+            Files.deleteIfExists(path);
+            log.debug("[{}] Deleted temporary audio file: {}", metadataId, path);
+        } catch (IOException e) {
+            log.warn("[{}] Failed to delete temporary audio file: {}", metadataId, e.getMessage());
         }
     }
 
@@ -286,9 +428,8 @@ public class AudioTranscriptionListenerService {
         } catch (IOException e) {
             log.error("[{}] Failed to download audio file from Nhost (ID: {}). Error: {}",
                     metadataId, nhostId, e.getMessage(), e);
-            updateMetadataStatusToFailed(metadataId, recording.getUserId(),
-                    "Failed to download audio file: " + e.getMessage());
-            return null;
+            throw new TransientStageException("Failed to download audio file: " + e.getMessage(),
+                    e);
         } catch (Exception e) {
             log.error("[{}] Unexpected error downloading audio file from Nhost (ID: {}). Error: {}",
                     metadataId, nhostId, e.getMessage(), e);
@@ -302,13 +443,12 @@ public class AudioTranscriptionListenerService {
         Integer durationSec = null;
         try {
             File audioFile = audioFilePath.toFile();
-            String fileName = audioFilePath.getFileName().toString().toLowerCase();
-
-            if (fileName.endsWith(".aac") || fileName.endsWith(".m4a")) {
-                log.info(
-                        "[{}] AAC file detected: {}. JAudioTagger cannot reliably read AAC duration. Setting a default duration.",
-                        metadataId, audioFilePath.getFileName());
-                return 600;
+            Double parsedSeconds = audioDurationParser.parseDurationSeconds(audioFilePath);
+            if (parsedSeconds != null && parsedSeconds > 0) {
+                durationSec = (int) Math.ceil(parsedSeconds);
+                log.info("[{}] Calculated audio duration from container headers: {} seconds.",
+                        metadataId, durationSec);
+                return durationSec;
             }
 
             if (audioFile.exists() && audioFile.length() > 0) {
@@ -345,128 +485,38 @@ public class AudioTranscriptionListenerService {
 
 
     private void checkCompletionAndTriggerSummarization(String metadataId,
-            @Nullable String userId) {
-        Lock lock = null;
+            @Nullable String userId, String tier, LeaseService.Lease lease) {
         try {
-            lock = metadataLocks.computeIfAbsent(metadataId, k -> new ReentrantLock());
-            lock.lock();
-            log.debug("[{}] Acquired lock for trigger summarization check", metadataId);
-
-            log.info(
-                    "[{}] Checking if both transcription and PDF conversion are complete to trigger summarization...",
-                    metadataId);
-
-            Map<String, Object> latestMetadataMap = firebaseService
-                    .getData(firebaseService.getAudioMetadataCollectionName(), metadataId);
-
-            if (latestMetadataMap == null) {
-                log.error(
-                        "[{}] Failed to re-fetch metadata after transcription update. Cannot check for summarization trigger.",
-                        metadataId);
-                return;
-            }
-
-            AudioMetadata latestMetadata = AudioMetadata.fromMap(latestMetadataMap);
-
-            ProcessingStatus currentStatus = latestMetadata.getStatus();
-            if (currentStatus == ProcessingStatus.SUMMARIZATION_QUEUED
-                    || currentStatus == ProcessingStatus.SUMMARIZING
-                    || currentStatus == ProcessingStatus.SUMMARY_COMPLETE
-                    || currentStatus == ProcessingStatus.RECOMMENDATIONS_QUEUED
-                    || currentStatus == ProcessingStatus.GENERATING_RECOMMENDATIONS
-                    || currentStatus == ProcessingStatus.COMPLETE
-                    || currentStatus == ProcessingStatus.FAILED) {
-
-                log.info(
-                        "[{}] Summarization already triggered or completed (current status: {}). Skipping duplicate trigger.",
-                        metadataId, currentStatus);
-                return;
-            }
-
-            boolean statusChangeInProgress = false;
-            try {
-                Map<String, Object> latestStatusCheck = firebaseService
-                        .getData(firebaseService.getAudioMetadataCollectionName(), metadataId);
-
-                if (latestStatusCheck != null) {
-                    AudioMetadata checkMetadata = AudioMetadata.fromMap(latestStatusCheck);
-                    ProcessingStatus checkStatus = checkMetadata.getStatus();
-
-                    if (checkStatus != currentStatus) {
-                        log.info(
-                                "[{}] Status changed from {} to {} while processing. Likely another service triggered summarization. Skipping.",
-                                metadataId, currentStatus, checkStatus);
-                        statusChangeInProgress = true;
-                    }
-                }
-            } catch (Exception e) {
-                log.warn(
-                        "[{}] Error during additional status check: {}. Proceeding with normal flow.",
-                        metadataId, e.getMessage());
-            }
-
-            if (statusChangeInProgress) {
-                return;
-            }
-
-            boolean transcriptionDone = latestMetadata.isTranscriptionComplete();
-            boolean pdfDone = latestMetadata.isPdfConversionComplete();
-            boolean isAudioOnly = latestMetadata.isAudioOnly();
-            boolean hasPptx = StringUtils.hasText(latestMetadata.getNhostPptxFileId());
-
-            log.debug(
-                    "[{}] Completion status check: TranscriptionDone={}, PdfConversionDone={}, AudioOnly={}, HasPptx={}",
-                    metadataId, transcriptionDone, pdfDone, isAudioOnly, hasPptx);
-
-            boolean readyForSummarization =
-                    transcriptionDone && (pdfDone || isAudioOnly || !hasPptx);
-
-            if (readyForSummarization) {
-                log.info(
-                        "[{}] Conditions met for summarization: AudioOnly={}, TranscriptionDone={}, PdfDone={}, HasPptx={}. Sending message to summarization queue.",
-                        metadataId, isAudioOnly, transcriptionDone, pdfDone, hasPptx);
-
-                boolean statusUpdated = updateMetadataStatus(metadataId, userId,
-                        ProcessingStatus.SUMMARIZATION_QUEUED, null);
-
-                if (!statusUpdated) {
-                    log.warn(
-                            "[{}] Failed to update status to SUMMARIZATION_QUEUED. Another process may have already claimed this task.",
-                            metadataId);
-                    return;
-                }
-
-                String messageId = UUID.randomUUID().toString();
-                Map<String, String> messagePayload = new HashMap<>();
-                messagePayload.put("metadataId", metadataId);
-                messagePayload.put("messageId", messageId);
-
-                rabbitTemplate.convertAndSend(RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                        RabbitMQConfig.SUMMARIZATION_ROUTING_KEY, messagePayload);
-
-                log.info(
-                        "[{}] Message (ID: {}) sent successfully to queue '{}' with routing key '{}'.",
-                        metadataId, messageId, RabbitMQConfig.SUMMARIZATION_QUEUE_NAME,
-                        RabbitMQConfig.SUMMARIZATION_ROUTING_KEY);
-
-            } else {
-                log.info(
-                        "[{}] Conditions not yet met for final summarization (Transcription: {}, PDF: {}, Audio-only: {}, Has PPTX: {}). Waiting for other process.",
-                        metadataId, transcriptionDone, pdfDone, isAudioOnly, hasPptx);
+            PipelineTransport.Staged summarization = stageCompletionService.completeAndStage(
+                    metadataId, StageCompletionService.STAGE_TRANSCRIPTION, Map.of(), lease,
+                    List.of(summarizationMessage(metadataId, tier)));
+            if (summarization != null) {
+                invalidateCache(userId);
+                publishSummarization(metadataId, tier, summarization);
             }
-
         } catch (FirestoreInteractionException e) {
-            log.error(
-                    "[{}] Failed to re-fetch metadata or update status for summarization check. Error: {}",
+            log.error("[{}] Failed to record transcription stage for summarization check. Error: {}",
                     metadataId, e.getMessage(), e);
-        } finally {
-            if (lock != null) {
-                lock.unlock();
-                log.debug("[{}] Released lock for trigger summarization check", metadataId);
-            }
         }
     }
 
+    private PipelineTransport.Outgoing summarizationMessage(String metadataId, String tier) {
+        Map<String, String> messagePayload = new HashMap<>();
+        messagePayload.put("metadataId", metadataId);
+        messagePayload.put("messageId", UUID.randomUUID().toString());
+        messagePayload.put("tier", tier);
+        messagePayload.put("enqueuedAt", String.valueOf(System.currentTimeMillis()));
+        return new PipelineTransport.Outgoing(processingLaneRouter.summarizationRoutingKey(tier),
+                messagePayload);
+    }
+
+    private void publishSummarization(String metadataId, String tier,
+            PipelineTransport.Staged summarization) {
+        summarization.publish();
+        log.info("[{}] Summarization message published to the {} summarization lane.", metadataId,
+                tier);
+    }
+
     private void updateMetadataStatusToFailed(String metadataId, @Nullable String userId,
             String reason) {
         updateMetadataStatus(metadataId, userId, ProcessingStatus.FAILED, reason);
@@ -483,8 +533,9 @@ public class AudioTranscriptionListenerService {
                 updates.put("failureReason", reason);
             }
 
-            firebaseService.updateDataWithMap(firebaseService.getAudioMetadataCollectionName(),
-                    metadataId, updates);
+            if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                return false;
+            }
             log.info("[{}] Metadata status updated to {}.", metadataId, status);
             if (status == ProcessingStatus.FAILED
                     || status == ProcessingStatus.TRANSCRIPTION_COMPLETE
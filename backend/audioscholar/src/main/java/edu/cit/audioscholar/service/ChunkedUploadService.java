@@ -0,0 +1,356 @@
+package edu.cit.audioscholar.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.InvalidAudioFileException;
+import edu.cit.audioscholar.exception.InvalidUploadRangeException;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.UploadSession;
+
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final AudioProcessingService audioProcessingService;
+    private final Path sessionDir;
+    private final Duration sessionTtl;
+    private final String maxFileSizeValue;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(AudioProcessingService audioProcessingService,
+            @Value("${app.temp-file-dir}") String tempFileDirStr,
+            @Value("${app.upload.session-ttl-minutes:1440}") long sessionTtlMinutes,
+            @Value("${spring.servlet.multipart.max-file-size}") String maxFileSizeValue) {
+        this.audioProcessingService = audioProcessingService;
+        this.sessionDir = Paths.get(tempFileDirStr).resolve("upload-sessions");
+        this.sessionTtl = Duration.ofMinutes(sessionTtlMinutes);
+        this.maxFileSizeValue = maxFileSizeValue;
+        try {
+            Files.createDirectories(this.sessionDir);
+        } catch (IOException e) {
+            log.error("Could not create upload session directory: {}",
+                    this.sessionDir.toAbsolutePath(), e);
+        }
+    }
+
+    public UploadSession createSession(String userId, String fileType, String fileName,
+            String contentType, long totalSize) throws IOException {
+        if (totalSize <= 0) {
+            throw new InvalidAudioFileException("Upload size must be greater than zero.");
+        }
+        long maxBytes = DataSize.parse(maxFileSizeValue).toBytes();
+        if (totalSize > maxBytes) {
+            throw new InvalidAudioFileException(
+                    "File size exceeds the maximum allowed limit (" + maxFileSizeValue + ").");
+        }
+        if (!StringUtils.hasText(fileName)) {
+            throw new InvalidAudioFileException("File name is required.");
+        }
+
+        String sessionId = UUID.randomUUID().toString();
+        Path partFile = sessionDir.resolve(sessionId + ".part");
+        Files.createFile(partFile);
+
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession(sessionId, userId, fileType,
+                StringUtils.cleanPath(fileName), contentType, totalSize, partFile, now,
+                now.plus(sessionTtl));
+        session.setDigest(newDigest());
+        sessions.put(sessionId, session);
+        log.info("Created {} upload session {} for user {} ({} bytes)", fileType, sessionId,
+                userId, totalSize);
+        return session;
+    }
+
+    @Nullable
+    public UploadSession getSession(String sessionId, String userId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null || !session.getUserId().equals(userId)
+                || session.isExpired(Instant.now())) {
+            return null;
+        }
+        return session;
+    }
+
+    public UploadSession writeChunk(UploadSession session, long start, long end, long total,
+            InputStream body) throws IOException {
+        synchronized (session) {
+            if (session.getState() != UploadSession.State.OPEN) {
+                throw new InvalidUploadRangeException("Upload session " + session.getSessionId()
+                        + " no longer accepts chunks (" + session.getState() + ")",
+                        session.getReceivedBytes());
+            }
+            if (total != session.getTotalSize()) {
+                throw new InvalidUploadRangeException("Declared total " + total
+                        + " does not match session size " + session.getTotalSize(),
+                        session.getReceivedBytes());
+            }
+            if (start < 0 || end < start || end >= session.getTotalSize()) {
+                throw new InvalidUploadRangeException(
+                        "Invalid byte range " + start + "-" + end + "/" + total,
+                        session.getReceivedBytes());
+            }
+            if (start > session.getReceivedBytes()) {
+                throw new InvalidUploadRangeException("Chunk starts at " + start
+                        + " but only " + session.getReceivedBytes() + " bytes were received",
+                        session.getReceivedBytes());
+            }
+
+            long expected = end - start + 1;
+            long written = 0;
+            // The hash follows the file only while chunks arrive back to back; a rewrite of
+            // bytes already hashed, or a failed chunk, leaves hashing to the upload listener.
+            MessageDigest digest = start == session.getHashedBytes() ? session.getDigest() : null;
+            session.setDigest(null);
+            try (FileChannel channel =
+                    FileChannel.open(session.getPartFilePath(), StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+                byte[] chunk = buffer.array();
+                int read;
+                while (written < expected && (read = body.read(chunk, 0,
+                        (int) Math.min(chunk.length, expected - written))) != -1) {
+                    if (digest != null) {
+                        digest.update(chunk, 0, read);
+                    }
+                    buffer.clear().limit(read);
+                    while (buffer.hasRemaining()) {
+                        written += channel.write(buffer, start + written);
+                    }
+                }
+                if (written == expected) {
+                    channel.force(false);
+                }
+            }
+            if (written != expected) {
+                throw new InvalidUploadRangeException("Chunk body had " + written
+                        + " bytes but the range declared " + expected,
+                        session.getReceivedBytes());
+            }
+            if (digest != null) {
+                session.setHashedBytes(end + 1);
+                if (end + 1 == session.getTotalSize()) {
+                    session.setContentHash(HexFormat.of().formatHex(digest.digest()));
+                } else {
+                    session.setDigest(digest);
+                }
+            }
+
+            session.setReceivedBytes(Math.max(session.getReceivedBytes(), end + 1));
+            session.setExpiresAt(Instant.now().plus(sessionTtl));
+            log.debug("Session {} received bytes {}-{} ({} of {})", session.getSessionId(),
+                    start, end, session.getReceivedBytes(), session.getTotalSize());
+            return session;
+        }
+    }
+
+    public AudioMetadata completeUpload(UploadSession audioSession,
+            @Nullable UploadSession powerpointSession, @Nullable String title,
+            @Nullable String description, String userId)
+            throws IOException, InvalidAudioFileException, FirestoreInteractionException {
+        if (!audioSession.compareAndSetState(UploadSession.State.OPEN,
+                UploadSession.State.COMPLETING)) {
+            return alreadyCompleted(audioSession);
+        }
+        if (powerpointSession != null && !powerpointSession
+                .compareAndSetState(UploadSession.State.OPEN, UploadSession.State.COMPLETING)) {
+            audioSession.compareAndSetState(UploadSession.State.COMPLETING,
+                    UploadSession.State.OPEN);
+            throw new InvalidUploadRangeException("Upload session "
+                    + powerpointSession.getSessionId() + " is already being completed",
+                    powerpointSession.getReceivedBytes());
+        }
+
+        AudioMetadata metadata;
+        try {
+            requireComplete(audioSession);
+            if (powerpointSession != null) {
+                requireComplete(powerpointSession);
+            }
+            metadata = audioProcessingService.queueFilesForUpload(
+                    new SessionMultipartFile(audioSession),
+                    powerpointSession != null ? new SessionMultipartFile(powerpointSession)
+                            : null,
+                    title, description, userId);
+        } catch (IOException | RuntimeException e) {
+            reopen(audioSession);
+            if (powerpointSession != null) {
+                reopen(powerpointSession);
+            }
+            throw e;
+        }
+
+        markCompleted(audioSession, metadata);
+        if (powerpointSession != null) {
+            markCompleted(powerpointSession, metadata);
+        }
+        log.info("Completed chunked upload session {} as metadata {}",
+                audioSession.getSessionId(), metadata.getId());
+        return metadata;
+    }
+
+    /**
+     * Discards an open or completed session. A session that is being completed is left alone,
+     * since its part file is still being read by the upload hand-off.
+     *
+     * @return {@code false} if the session is mid-completion and was not discarded
+     */
+    public boolean discardSession(UploadSession session) {
+        synchronized (session) {
+            if (session.getState() == UploadSession.State.COMPLETING) {
+                return false;
+            }
+            sessions.remove(session.getSessionId());
+            deletePartFile(session);
+            return true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.session-cleanup-interval-ms:600000}")
+    public void expireSessions() {
+        Instant now = Instant.now();
+        sessions.values().stream().filter(session -> session.isExpired(now)).toList()
+                .forEach(session -> {
+                    if (discardSession(session)) {
+                        log.info(
+                                "Upload session {} for user {} expired in state {} with {} of {} bytes received",
+                                session.getSessionId(), session.getUserId(), session.getState(),
+                                session.getReceivedBytes(), session.getTotalSize());
+                    }
+                });
+    }
+
+    private AudioMetadata alreadyCompleted(UploadSession session) {
+        AudioMetadata completed = session.getCompletedMetadata();
+        if (session.getState() == UploadSession.State.COMPLETED && completed != null) {
+            log.info("Upload session {} was already completed as metadata {}",
+                    session.getSessionId(), completed.getId());
+            return completed;
+        }
+        throw new InvalidUploadRangeException(
+                "Upload session " + session.getSessionId() + " is already being completed",
+                session.getReceivedBytes());
+    }
+
+    private void reopen(UploadSession session) {
+        session.compareAndSetState(UploadSession.State.COMPLETING, UploadSession.State.OPEN);
+    }
+
+    private void markCompleted(UploadSession session, AudioMetadata metadata) {
+        synchronized (session) {
+            session.setCompletedMetadata(metadata);
+            session.compareAndSetState(UploadSession.State.COMPLETING,
+                    UploadSession.State.COMPLETED);
+            session.setExpiresAt(Instant.now().plus(sessionTtl));
+            deletePartFile(session);
+        }
+    }
+
+    private void deletePartFile(UploadSession session) {
+        try {
+            Files.deleteIfExists(session.getPartFilePath());
+        } catch (IOException e) {
+            log.warn("Could not delete part file {} for upload session {}: {}",
+                    session.getPartFilePath(), session.getSessionId(), e.getMessage());
+        }
+    }
+
+    private void requireComplete(UploadSession session) {
+        if (!session.isComplete()) {
+            throw new InvalidUploadRangeException("Upload session " + session.getSessionId()
+                    + " is incomplete (" + session.getReceivedBytes() + " of "
+                    + session.getTotalSize() + " bytes)", session.getReceivedBytes());
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static class SessionMultipartFile
+            implements MultipartFile, ContentHashIndexService.HashedUpload {
+        private final UploadSession session;
+
+        SessionMultipartFile(UploadSession session) {
+            this.session = session;
+        }
+
+        @Override
+        @Nullable
+        public String getContentHash() {
+            return session.getContentHash();
+        }
+
+        @Override
+        public String getName() {
+            return session.getFileType();
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return session.getFileName();
+        }
+
+        @Override
+        public String getContentType() {
+            return session.getContentType();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return session.getTotalSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return session.getTotalSize();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(session.getPartFilePath());
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(session.getPartFilePath());
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(session.getPartFilePath(), dest.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
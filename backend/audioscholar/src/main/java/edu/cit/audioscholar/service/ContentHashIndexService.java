@@ -0,0 +1,310 @@
+package edu.cit.audioscholar.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Transaction;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ContentHashEntry;
+
+@Service
+public class ContentHashIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentHashIndexService.class);
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * An upload whose SHA-256 was computed while its bytes arrived, so the index can be checked
+     * before anything is sent to Nhost.
+     */
+    public interface HashedUpload {
+        @Nullable
+        String getContentHash();
+    }
+
+    private final FirebaseService firebaseService;
+    private final String collectionName;
+    private final boolean enabled;
+    private final Duration pdfReuseWindow;
+
+    public ContentHashIndexService(FirebaseService firebaseService,
+            @Value("${firebase.firestore.collection.contenthashes:content_hashes}") String collectionName,
+            @Value("${app.upload.dedup-enabled:true}") boolean enabled,
+            @Value("${app.upload.dedup-pdf-reuse-minutes:120}") long pdfReuseMinutes) {
+        this.firebaseService = firebaseService;
+        this.collectionName = collectionName;
+        this.enabled = enabled;
+        this.pdfReuseWindow = Duration.ofMinutes(pdfReuseMinutes);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String sha256(InputStream inputStream) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @Nullable
+    public ContentHashEntry find(String fileType, @Nullable String contentHash) {
+        if (!enabled || !StringUtils.hasText(contentHash)) {
+            return null;
+        }
+        String docId = documentId(fileType, contentHash);
+        try {
+            return ContentHashEntry.fromMap(docId, firebaseService.getData(collectionName, docId));
+        } catch (FirestoreInteractionException e) {
+            log.warn("Content hash lookup failed for {}: {}", docId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adds {@code metadataId} as a reference to the Nhost file already indexed for this content,
+     * in the same transaction that reads the entry, so a concurrent release cannot delete the file
+     * between the lookup and the new recording pointing at it.
+     *
+     * @return the indexed entry, or null when there is nothing to reuse
+     */
+    @Nullable
+    public ContentHashEntry claim(String fileType, @Nullable String contentHash,
+            String metadataId) {
+        if (!enabled || !StringUtils.hasText(contentHash)) {
+            return null;
+        }
+        String docId = documentId(fileType, contentHash);
+        DocumentReference docRef = firebaseService.getDocumentReference(collectionName, docId);
+        try {
+            return firebaseService.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(docRef).get();
+                ContentHashEntry entry = ContentHashEntry.fromMap(docId, snapshot.getData());
+                if (entry == null || !StringUtils.hasText(entry.getNhostFileId())) {
+                    return null;
+                }
+                addReference(transaction, docRef, entry, metadataId);
+                return entry;
+            });
+        } catch (FirestoreInteractionException e) {
+            log.warn("Content hash claim failed for {}: {}", docId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Indexes a freshly uploaded Nhost file under its content hash. When the content was already
+     * indexed, the recording is added as a reference to the existing file instead, and that
+     * file's ID is returned so the caller can drop its duplicate upload.
+     *
+     * @return the Nhost file ID the recording should use
+     */
+    public String register(String fileType, @Nullable String contentHash, String nhostFileId,
+            String metadataId, long size) {
+        if (!enabled || !StringUtils.hasText(contentHash) || !StringUtils.hasText(nhostFileId)) {
+            return nhostFileId;
+        }
+        String docId = documentId(fileType, contentHash);
+        DocumentReference docRef = firebaseService.getDocumentReference(collectionName, docId);
+        try {
+            String canonical = firebaseService.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(docRef).get();
+                ContentHashEntry existing = ContentHashEntry.fromMap(docId, snapshot.getData());
+                if (existing != null && StringUtils.hasText(existing.getNhostFileId())) {
+                    addReference(transaction, docRef, existing, metadataId);
+                    return existing.getNhostFileId();
+                }
+                ContentHashEntry entry = new ContentHashEntry();
+                entry.setSha256(contentHash);
+                entry.setFileType(fileType);
+                entry.setNhostFileId(nhostFileId);
+                entry.setMetadataId(metadataId);
+                entry.setSize(size);
+                entry.setCreatedAt(Timestamp.now());
+                entry.setReferences(List.of(metadataId));
+                transaction.set(docRef, entry.toMap());
+                return nhostFileId;
+            });
+            if (nhostFileId.equals(canonical)) {
+                log.info("Indexed {} content hash {} -> Nhost file {} (metadata {})", fileType,
+                        contentHash, nhostFileId, metadataId);
+            } else {
+                log.info("{} content hash {} already indexed to Nhost file {}; metadata {} shares it.",
+                        fileType, contentHash, canonical, metadataId);
+            }
+            return canonical;
+        } catch (FirestoreInteractionException e) {
+            log.warn("Failed to index content hash {} for metadata {}: {}", docId, metadataId,
+                    e.getMessage());
+            return nhostFileId;
+        }
+    }
+
+    public void recordTranscript(@Nullable String contentHash, String metadataId) {
+        recordFields(documentId("audio", contentHash), contentHash,
+                Map.of("transcriptMetadataId", metadataId));
+    }
+
+    public void recordPdf(@Nullable String pptxContentHash, String pdfUrl) {
+        recordFields(documentId("powerpoint", pptxContentHash), pptxContentHash,
+                Map.of("pdfUrl", pdfUrl, "pdfConvertedAt", Timestamp.now()));
+    }
+
+    @Nullable
+    public AudioMetadata findTranscriptSource(@Nullable String contentHash,
+            String excludeMetadataId) {
+        ContentHashEntry entry = find("audio", contentHash);
+        if (entry == null || !StringUtils.hasText(entry.getTranscriptMetadataId())
+                || entry.getTranscriptMetadataId().equals(excludeMetadataId)) {
+            return null;
+        }
+        try {
+            AudioMetadata source =
+                    firebaseService.getAudioMetadataById(entry.getTranscriptMetadataId());
+            if (source == null || !source.isTranscriptionComplete()
+                    || !StringUtils.hasText(source.getTranscriptText())
+                    || !Objects.equals(contentHash, source.getContentHash())) {
+                log.debug("Indexed transcript source {} for hash {} is no longer usable.",
+                        entry.getTranscriptMetadataId(), contentHash);
+                return null;
+            }
+            return source;
+        } catch (FirestoreInteractionException e) {
+            log.warn("Failed to load transcript source {} for hash {}: {}",
+                    entry.getTranscriptMetadataId(), contentHash, e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    public String findReusablePdfUrl(@Nullable String pptxContentHash) {
+        ContentHashEntry entry = find("powerpoint", pptxContentHash);
+        if (entry == null || !StringUtils.hasText(entry.getPdfUrl())
+                || entry.getPdfConvertedAt() == null) {
+            return null;
+        }
+        Instant convertedAt = entry.getPdfConvertedAt().toDate().toInstant();
+        if (convertedAt.plus(pdfReuseWindow).isBefore(Instant.now())) {
+            log.debug("Cached PDF for hash {} is older than {} and may have expired upstream.",
+                    pptxContentHash, pdfReuseWindow);
+            return null;
+        }
+        return entry.getPdfUrl();
+    }
+
+    /**
+     * Drops {@code metadataId}'s reference to an Nhost file. The reference count and the removal
+     * of the index entry happen in one transaction on the entry, which {@link #claim} and
+     * {@link #register} also go through, so a file is only reported as deletable once no
+     * recording can still pick it up.
+     *
+     * @return true if nothing references the file any more and it may be deleted
+     */
+    public boolean releaseNhostFile(String field, String nhostFileId, String metadataId,
+            String fileType, @Nullable String contentHash) {
+        try {
+            if (enabled && StringUtils.hasText(contentHash)) {
+                String docId = documentId(fileType, contentHash);
+                DocumentReference docRef =
+                        firebaseService.getDocumentReference(collectionName, docId);
+                Boolean released = firebaseService.runTransaction(transaction -> {
+                    DocumentSnapshot snapshot = transaction.get(docRef).get();
+                    ContentHashEntry entry = ContentHashEntry.fromMap(docId, snapshot.getData());
+                    if (entry == null || !nhostFileId.equals(entry.getNhostFileId())) {
+                        return null;
+                    }
+                    Set<String> references = new LinkedHashSet<>();
+                    if (entry.getReferences() != null) {
+                        references.addAll(entry.getReferences());
+                    }
+                    references.remove(metadataId);
+                    if (references.isEmpty()) {
+                        transaction.delete(docRef);
+                        return true;
+                    }
+                    transaction.update(docRef, "references", new ArrayList<>(references));
+                    return false;
+                });
+                if (released != null) {
+                    if (!released) {
+                        log.info("Nhost file {} is still referenced by other recordings; keeping it.",
+                                nhostFileId);
+                    }
+                    return released;
+                }
+            }
+
+            // Not in the index, so no upload can start sharing it; the stored references are
+            // final.
+            List<Map<String, Object>> refs = firebaseService
+                    .queryCollection(firebaseService.getAudioMetadataCollectionName(), field,
+                            nhostFileId);
+            boolean shared = refs.stream().anyMatch(ref -> !metadataId.equals(ref.get("id")));
+            if (shared) {
+                log.info("Nhost file {} is still referenced by other recordings; keeping it.",
+                        nhostFileId);
+                return false;
+            }
+            return true;
+        } catch (FirestoreInteractionException e) {
+            log.warn("Could not verify references to Nhost file {}; keeping it: {}", nhostFileId,
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private void addReference(Transaction transaction, DocumentReference docRef,
+            ContentHashEntry entry, String metadataId) {
+        if (entry.getReferences() == null || !entry.getReferences().contains(metadataId)) {
+            transaction.update(docRef, "references", FieldValue.arrayUnion(metadataId));
+        }
+    }
+
+    private void recordFields(String docId, @Nullable String contentHash,
+            Map<String, Object> fields) {
+        if (!enabled || !StringUtils.hasText(contentHash)) {
+            return;
+        }
+        try {
+            firebaseService.updateData(collectionName, docId, new HashMap<>(fields));
+            log.debug("Updated content hash entry {} with {}", docId, fields.keySet());
+        } catch (FirestoreInteractionException e) {
+            log.warn("Failed to update content hash entry {}: {}", docId, e.getMessage());
+        }
+    }
+
+    private String documentId(String fileType, @Nullable String contentHash) {
+        return fileType + "-" + contentHash;
+    }
+}
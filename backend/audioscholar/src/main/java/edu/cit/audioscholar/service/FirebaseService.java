@@ -3,6 +3,7 @@ package edu.cit.audioscholar.service;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -28,14 +29,17 @@ import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.gson.GsonFactory;
 import com.google.api.core.ApiFuture;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
 import com.google.cloud.firestore.CollectionReference;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
 import com.google.cloud.firestore.Firestore;
 import com.google.cloud.firestore.Query;
 import com.google.cloud.firestore.QueryDocumentSnapshot;
 import com.google.cloud.firestore.QuerySnapshot;
 import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
 import com.google.cloud.firestore.WriteBatch;
 import com.google.cloud.firestore.WriteResult;
 import com.google.firebase.FirebaseApp;
@@ -372,6 +376,23 @@ public class FirebaseService {
         }
     }
 
+    public DocumentReference getDocumentReference(String collection, String document) {
+        return getFirestore().collection(collection).document(document);
+    }
+
+    public <T> T runTransaction(Transaction.Function<T> function) {
+        try {
+            return getFirestore().runTransaction(function).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Firestore transaction interrupted", e);
+            throw new FirestoreInteractionException("Firestore transaction interrupted", e);
+        } catch (ExecutionException e) {
+            log.error("Firestore transaction failed: {}", e.getMessage(), e);
+            throw new FirestoreInteractionException("Firestore transaction failed", e.getCause());
+        }
+    }
+
     public String deleteData(String collection, String document) {
         try {
             Firestore firestore = getFirestore();
@@ -387,6 +408,112 @@ public class FirebaseService {
         }
     }
 
+    /** Writes (replaces) several documents of one collection in a single batch commit. */
+    public void setDocuments(String collection, Map<String, Map<String, Object>> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            Firestore firestore = getFirestore();
+            WriteBatch batch = firestore.batch();
+            documents.forEach((document, data) -> batch
+                    .set(firestore.collection(collection).document(document), data));
+            batch.commit().get();
+            log.debug("Batch-wrote {} document(s) to {}", documents.size(), collection);
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error batch-writing {} document(s) to {}", documents.size(), collection, e);
+            throw new FirestoreInteractionException("Error batch-writing data to Firestore", e);
+        }
+    }
+
+    public void deleteDocuments(String collection, Collection<String> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        try {
+            Firestore firestore = getFirestore();
+            WriteBatch batch = firestore.batch();
+            documents.forEach(
+                    document -> batch.delete(firestore.collection(collection).document(document)));
+            batch.commit().get();
+            log.debug("Batch-deleted {} document(s) from {}", documents.size(), collection);
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error batch-deleting {} document(s) from {}", documents.size(), collection,
+                    e);
+            throw new FirestoreInteractionException("Error batch-deleting data from Firestore", e);
+        }
+    }
+
+    /** References to the documents where {@code field} equals {@code value}, without their data. */
+    public List<DocumentReference> findDocumentReferences(String collection, String field,
+            Object value) {
+        try {
+            List<QueryDocumentSnapshot> documents = getFirestore().collection(collection)
+                    .whereEqualTo(field, value).select(FieldPath.documentId()).get().get()
+                    .getDocuments();
+            List<DocumentReference> results = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                results.add(document.getReference());
+            }
+            return results;
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error querying collection '{}' where '{}' == '{}'", collection, field, value,
+                    e);
+            throw new FirestoreInteractionException("Error querying collection in Firestore", e);
+        }
+    }
+
+    /** A BulkWriter (parallel, self-throttling, retries transient errors); callers must close it. */
+    public BulkWriter newBulkWriter() {
+        return getFirestore().bulkWriter();
+    }
+
+    /** Documents whose {@code field} timestamp is before {@code before}, oldest first. */
+    public List<Map<String, Object>> findDocumentsBefore(String collection, String field,
+            Timestamp before, int limit) {
+        try {
+            List<QueryDocumentSnapshot> documents = getFirestore().collection(collection)
+                    .whereLessThan(field, before).orderBy(field).limit(limit).get().get()
+                    .getDocuments();
+            List<Map<String, Object>> results = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                results.add(document.getData());
+            }
+            return results;
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error querying collection '{}' where '{}' < {}", collection, field, before,
+                    e);
+            throw new FirestoreInteractionException("Error querying collection in Firestore", e);
+        }
+    }
+
+    /**
+     * Documents where {@code field == value} and {@code orderField > after}, ordered by
+     * {@code orderField}. Needs a (field, orderField) composite index.
+     */
+    public List<Map<String, Object>> findDocumentsAfter(String collection, String field,
+            Object value, String orderField, Object after) {
+        try {
+            List<QueryDocumentSnapshot> documents = getFirestore().collection(collection)
+                    .whereEqualTo(field, value).whereGreaterThan(orderField, after)
+                    .orderBy(orderField).get().get().getDocuments();
+            List<Map<String, Object>> results = new ArrayList<>(documents.size());
+            for (QueryDocumentSnapshot document : documents) {
+                results.add(document.getData());
+            }
+            return results;
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Error querying collection '{}' where '{}' == '{}' and '{}' > {}",
+                    collection, field, value, orderField, after, e);
+            throw new FirestoreInteractionException("Error querying collection in Firestore", e);
+        }
+    }
+
     public List<Map<String, Object>> queryCollection(String collection, String field,
             Object value) {
         try {
@@ -571,6 +698,107 @@ public class FirebaseService {
         }
     }
 
+    public long countAudioMetadataByStatus(ProcessingStatus status) {
+        try {
+            return getFirestore().collection(audioMetadataCollectionName)
+                    .whereEqualTo("status", status.name()).count().get().get().getCount();
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Failed to count {} metadata", status, e);
+            throw new FirestoreInteractionException("Failed to count " + status + " metadata", e);
+        }
+    }
+
+    /**
+     * Pages through recordings in {@code status} whose {@code lastUpdated} is older than
+     * {@code updatedBefore}, oldest first. Backed by the (status, lastUpdated) composite index; pass
+     * the last item of the previous page as {@code after} to continue.
+     */
+    public List<AudioMetadata> findAudioMetadataByStatusUpdatedBefore(ProcessingStatus status,
+            Timestamp updatedBefore, int pageSize, @Nullable AudioMetadata after) {
+        Query query = getFirestore().collection(audioMetadataCollectionName)
+                .whereEqualTo("status", status.name())
+                .whereLessThan("lastUpdated", updatedBefore).orderBy("lastUpdated")
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE);
+        if (after != null && after.getLastUpdated() != null && after.getId() != null) {
+            query = query.startAfter(after.getLastUpdated(), after.getId());
+        }
+        List<QueryDocumentSnapshot> documents;
+        try {
+            documents = query.get().get().getDocuments();
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Failed to query {} metadata updated before {}", status, updatedBefore, e);
+            throw new FirestoreInteractionException(
+                    "Failed to query " + status + " metadata updated before " + updatedBefore, e);
+        }
+        List<AudioMetadata> results = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            AudioMetadata metadata = fromDocumentSnapshot(document);
+            if (metadata != null) {
+                results.add(metadata);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Tombstoned recordings whose deletion was requested before {@code requestedBefore}, oldest
+     * first. Keyed on {@code deletionRequestedAt} rather than the status, so a tombstone is still
+     * found if something wrote over its DELETING status.
+     */
+    public List<AudioMetadata> findAudioMetadataDeletionRequestedBefore(Timestamp requestedBefore,
+            int pageSize) {
+        List<QueryDocumentSnapshot> documents;
+        try {
+            documents = getFirestore().collection(audioMetadataCollectionName)
+                    .whereLessThan("deletionRequestedAt", requestedBefore)
+                    .orderBy("deletionRequestedAt")
+                    .limit(pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE).get().get()
+                    .getDocuments();
+        } catch (ExecutionException | InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Failed to query metadata with deletion requested before {}",
+                    requestedBefore, e);
+            throw new FirestoreInteractionException(
+                    "Failed to query metadata with deletion requested before " + requestedBefore,
+                    e);
+        }
+        List<AudioMetadata> results = new ArrayList<>(documents.size());
+        for (QueryDocumentSnapshot document : documents) {
+            AudioMetadata metadata = fromDocumentSnapshot(document);
+            if (metadata != null) {
+                results.add(metadata);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Applies {@code updates} to a recording's metadata in a transaction, unless the document is
+     * gone or tombstoned ({@code deletionRequestedAt} set). Pipeline stages write through this so
+     * a late write can neither replace DELETING nor recreate a deleted recording. Returns false
+     * when the write was skipped.
+     */
+    public boolean updateLiveAudioMetadata(String metadataId, Map<String, Object> updates) {
+        DocumentReference docRef =
+                getDocumentReference(getAudioMetadataCollectionName(), metadataId);
+        boolean written = runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            if (!snapshot.exists() || snapshot.get("deletionRequestedAt") != null) {
+                return false;
+            }
+            transaction.update(docRef, updates);
+            return true;
+        });
+        if (!written) {
+            log.info("Skipped writing {} to metadata {}: the recording is (being) deleted.",
+                    updates.keySet(), metadataId);
+        }
+        return written;
+    }
+
     @Cacheable(value = CACHE_METADATA_BY_ID, key = "#metadataId", unless = "#result == null")
     public AudioMetadata getAudioMetadataById(String metadataId) {
         if (!StringUtils.hasText(metadataId)) {
@@ -762,6 +990,10 @@ public class FirebaseService {
             metadata.setGoogleFilesApiPdfUri(
                     getString(data, "googleFilesApiPdfUri", document.getId()));
             metadata.setGptSummary(getString(data, "gptSummary", document.getId()));
+            metadata.setContentHash(getString(data, "contentHash", document.getId()));
+            metadata.setPptxContentHash(getString(data, "pptxContentHash", document.getId()));
+            metadata.setDeletionRequestedAt(
+                    getTimestamp(data, "deletionRequestedAt", document.getId()));
 
             return metadata;
         } catch (Exception e) {
@@ -0,0 +1,161 @@
+package edu.cit.audioscholar.service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+
+@Service
+@ConditionalOnProperty(name = "app.lease.store", havingValue = "firestore", matchIfMissing = true)
+public class FirestoreLeaseService implements LeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(FirestoreLeaseService.class);
+
+    private final FirebaseService firebaseService;
+    private final String leaseCollection;
+    private final String processedCollection;
+    private final String owner;
+
+    public FirestoreLeaseService(FirebaseService firebaseService,
+            @Value("${firebase.firestore.collection.leases:processing_leases}") String leaseCollection,
+            @Value("${firebase.firestore.collection.processedmessages:processed_messages}") String processedCollection) {
+        this.firebaseService = firebaseService;
+        this.leaseCollection = leaseCollection;
+        this.processedCollection = processedCollection;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + "/"
+                + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    @Nullable
+    public Lease tryAcquire(String key, Duration ttl) {
+        DocumentReference docRef = firebaseService.getDocumentReference(leaseCollection, key);
+        Lease lease = firebaseService.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            Instant now = Instant.now();
+            long previousToken = 0L;
+            if (snapshot.exists()) {
+                Long storedToken = snapshot.getLong("fencingToken");
+                previousToken = storedToken != null ? storedToken : 0L;
+                Timestamp expiresAt = snapshot.getTimestamp("expiresAt");
+                if (expiresAt != null && expiresAt.toDate().toInstant().isAfter(now)) {
+                    return null;
+                }
+            }
+            Instant expiresAt = now.plus(ttl);
+            long fencingToken = previousToken + 1;
+            Map<String, Object> data = new HashMap<>();
+            data.put("owner", owner);
+            data.put("fencingToken", fencingToken);
+            data.put("acquiredAt", Timestamp.now());
+            data.put("expiresAt", toTimestamp(expiresAt));
+            transaction.set(docRef, data);
+            return new Lease(key, owner, fencingToken, expiresAt);
+        });
+        if (lease == null) {
+            log.info("Lease '{}' is held by another node; skipping.", key);
+        } else {
+            log.debug("Acquired lease '{}' with fencing token {}.", key, lease.fencingToken());
+        }
+        return lease;
+    }
+
+    @Override
+    @Nullable
+    public Lease renew(Lease lease, Duration ttl) {
+        DocumentReference docRef =
+                firebaseService.getDocumentReference(leaseCollection, lease.key());
+        return firebaseService.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            Instant now = Instant.now();
+            if (!holds(snapshot, lease)) {
+                return null;
+            }
+            Timestamp storedExpiry = snapshot.getTimestamp("expiresAt");
+            if (storedExpiry == null || !storedExpiry.toDate().toInstant().isAfter(now)) {
+                return null;
+            }
+            Instant expiresAt = now.plus(ttl);
+            transaction.update(docRef, "expiresAt", toTimestamp(expiresAt));
+            return new Lease(lease.key(), lease.owner(), lease.fencingToken(), expiresAt);
+        });
+    }
+
+    @Override
+    public void release(Lease lease) {
+        DocumentReference docRef =
+                firebaseService.getDocumentReference(leaseCollection, lease.key());
+        try {
+            firebaseService.runTransaction(transaction -> {
+                DocumentSnapshot snapshot = transaction.get(docRef).get();
+                if (holds(snapshot, lease)) {
+                    // Keep the document so the next grant continues the fencing sequence.
+                    transaction.update(docRef, "expiresAt", Timestamp.now());
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to release lease '{}'; it will lapse at {}: {}", lease.key(),
+                    lease.expiresAt(), e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean isHeld(String key) {
+        Map<String, Object> data = firebaseService.getData(leaseCollection, key);
+        return data != null && data.get("expiresAt") instanceof Timestamp expiresAt
+                && expiresAt.toDate().toInstant().isAfter(Instant.now());
+    }
+
+    @Override
+    public boolean markProcessed(String messageKey, Duration ttl) {
+        DocumentReference docRef =
+                firebaseService.getDocumentReference(processedCollection, messageKey);
+        return firebaseService.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            if (snapshot.exists()) {
+                Timestamp expiresAt = snapshot.getTimestamp("expiresAt");
+                if (expiresAt == null || expiresAt.toDate().toInstant().isAfter(Instant.now())) {
+                    return false;
+                }
+            }
+            Map<String, Object> data = new HashMap<>();
+            data.put("owner", owner);
+            data.put("processedAt", Timestamp.now());
+            data.put("expiresAt", toTimestamp(Instant.now().plus(ttl)));
+            transaction.set(docRef, data);
+            return true;
+        });
+    }
+
+    @Override
+    public boolean isProcessed(String messageKey) {
+        Map<String, Object> data = firebaseService.getData(processedCollection, messageKey);
+        if (data == null) {
+            return false;
+        }
+        return !(data.get("expiresAt") instanceof Timestamp expiresAt)
+                || expiresAt.toDate().toInstant().isAfter(Instant.now());
+    }
+
+    private static boolean holds(DocumentSnapshot snapshot, Lease lease) {
+        Long storedToken = snapshot.getLong("fencingToken");
+        return snapshot.exists() && storedToken != null && storedToken == lease.fencingToken()
+                && lease.owner().equals(snapshot.getString("owner"));
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.ofTimeSecondsAndNanos(instant.getEpochSecond(), instant.getNano());
+    }
+}
@@ -0,0 +1,191 @@
+package edu.cit.audioscholar.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+
+@Service
+public class GeminiFileCacheService {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiFileCacheService.class);
+
+    private final FirebaseService firebaseService;
+    private final ContentHashIndexService contentHashIndexService;
+    private final String collectionName;
+    private final boolean enabled;
+    private final Duration fileTtl;
+    private final Cache<String, CachedFile> localCache;
+
+    public GeminiFileCacheService(FirebaseService firebaseService,
+            ContentHashIndexService contentHashIndexService,
+            @Value("${firebase.firestore.collection.geminifiles:gemini_files}") String collectionName,
+            @Value("${app.gemini.file-cache.enabled:true}") boolean enabled,
+            @Value("${app.gemini.file-cache.ttl-hours:46}") long ttlHours,
+            @Value("${app.gemini.file-cache.max-entries:1000}") long maxEntries) {
+        this.firebaseService = firebaseService;
+        this.contentHashIndexService = contentHashIndexService;
+        this.collectionName = collectionName;
+        this.enabled = enabled;
+        this.fileTtl = Duration.ofHours(ttlHours);
+        this.localCache = Caffeine.newBuilder().maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, CachedFile>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedFile value, long currentTime) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedFile value, long currentTime,
+                            long currentDuration) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedFile value, long currentTime,
+                            long currentDuration) {
+                        return currentDuration;
+                    }
+                }).recordStats().build();
+    }
+
+    @Nullable
+    public String hash(Path filePath) {
+        if (!enabled) {
+            return null;
+        }
+        try (InputStream inputStream = Files.newInputStream(filePath)) {
+            return contentHashIndexService.sha256(inputStream);
+        } catch (IOException e) {
+            log.warn("Could not hash {} for the Gemini file cache: {}", filePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    public String getFileUri(@Nullable String contentHash) {
+        if (!enabled || !StringUtils.hasText(contentHash)) {
+            return null;
+        }
+        CachedFile cached = localCache.getIfPresent(contentHash);
+        if (cached != null) {
+            return cached.fileUri();
+        }
+        try {
+            Map<String, Object> data = firebaseService.getData(collectionName, contentHash);
+            if (data == null) {
+                return null;
+            }
+            String fileUri = (String) data.get("fileUri");
+            Timestamp expiresAt = (Timestamp) data.get("expiresAt");
+            if (!StringUtils.hasText(fileUri) || expiresAt == null) {
+                return null;
+            }
+            CachedFile stored = new CachedFile(fileUri, expiresAt.toDate().toInstant());
+            if (!stored.expiresAt().isAfter(Instant.now())) {
+                log.debug("Gemini file {} for hash {} has expired.", fileUri, contentHash);
+                return null;
+            }
+            localCache.put(contentHash, stored);
+            return fileUri;
+        } catch (FirestoreInteractionException | ClassCastException e) {
+            log.warn("Gemini file cache lookup failed for {}: {}", contentHash, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(@Nullable String contentHash, String fileUri, String mimeType, long sizeBytes) {
+        if (!enabled || !StringUtils.hasText(contentHash) || !StringUtils.hasText(fileUri)) {
+            return;
+        }
+        Instant expiresAt = Instant.now().plus(fileTtl);
+        localCache.put(contentHash, new CachedFile(fileUri, expiresAt));
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("contentHash", contentHash);
+        data.put("fileUri", fileUri);
+        data.put("mimeType", mimeType);
+        data.put("sizeBytes", sizeBytes);
+        data.put("createdAt", Timestamp.now());
+        data.put("expiresAt", Timestamp.ofTimeSecondsAndNanos(expiresAt.getEpochSecond(),
+                expiresAt.getNano()));
+        try {
+            firebaseService.saveData(collectionName, contentHash, data);
+            log.debug("Cached Gemini file {} for hash {} until {}", fileUri, contentHash,
+                    expiresAt);
+        } catch (FirestoreInteractionException e) {
+            log.warn("Failed to persist Gemini file cache entry for {}: {}", contentHash,
+                    e.getMessage());
+        }
+    }
+
+    @Nullable
+    public String findContentHash(@Nullable String fileUri) {
+        if (!enabled || !StringUtils.hasText(fileUri)) {
+            return null;
+        }
+        for (Map.Entry<String, CachedFile> entry : localCache.asMap().entrySet()) {
+            if (fileUri.equals(entry.getValue().fileUri())) {
+                return entry.getKey();
+            }
+        }
+        try {
+            List<Map<String, Object>> entries =
+                    firebaseService.queryCollection(collectionName, "fileUri", fileUri);
+            for (Map<String, Object> entry : entries) {
+                Object hash = entry.get("contentHash");
+                if (hash instanceof String) {
+                    return (String) hash;
+                }
+            }
+        } catch (FirestoreInteractionException e) {
+            log.warn("Gemini file cache reverse lookup failed for {}: {}", fileUri, e.getMessage());
+        }
+        return null;
+    }
+
+    public void evictFileUri(@Nullable String fileUri) {
+        if (!enabled || !StringUtils.hasText(fileUri)) {
+            return;
+        }
+        localCache.asMap().entrySet().removeIf(entry -> fileUri.equals(entry.getValue().fileUri()));
+        try {
+            List<Map<String, Object>> entries =
+                    firebaseService.queryCollection(collectionName, "fileUri", fileUri);
+            for (Map<String, Object> entry : entries) {
+                Object hash = entry.get("contentHash");
+                if (hash instanceof String) {
+                    firebaseService.deleteData(collectionName, (String) hash);
+                }
+            }
+            log.info("Evicted Gemini file {} from the file cache.", fileUri);
+        } catch (FirestoreInteractionException e) {
+            log.warn("Failed to evict Gemini file {} from the file cache: {}", fileUri,
+                    e.getMessage());
+        }
+    }
+
+    private static long remainingNanos(CachedFile value) {
+        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+    }
+
+    private record CachedFile(String fileUri, Instant expiresAt) {
+    }
+}
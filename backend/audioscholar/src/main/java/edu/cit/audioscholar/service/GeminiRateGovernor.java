@@ -0,0 +1,446 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import edu.cit.audioscholar.exception.GeminiUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.retry.Retry;
+
+/**
+ * Outbound governor shared by every Gemini call. Each model gets an AIMD concurrency limit, a wait
+ * queue, a Retry-After aware cool-down and a consecutive-failure circuit breaker. Calls made for a
+ * recording registered through {@link #prioritize} wait in a separate queue that is served first,
+ * and a few permits of the limit are held back for them.
+ */
+@Component
+public class GeminiRateGovernor {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiRateGovernor.class);
+
+    private static final Pattern RETRY_DELAY_PATTERN =
+            Pattern.compile("\"retryDelay\"\\s*:\\s*\"(\\d+(?:\\.\\d+)?)s\"");
+    private static final double DECREASE_FACTOR = 0.5;
+
+    enum Outcome {
+        SUCCESS, THROTTLED, FAILURE, IGNORED
+    }
+
+    enum CircuitState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final double initialLimit;
+    private final double minLimit;
+    private final double maxLimit;
+    private final int maxQueue;
+    private final int maxAttempts;
+    private final long backoffBaseMillis;
+    private final long backoffMaxMillis;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final int premiumReserved;
+    private final Map<String, ModelLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Integer> premiumRecordings = new ConcurrentHashMap<>();
+
+    public GeminiRateGovernor(MeterRegistry meterRegistry,
+            @Value("${app.gemini.limiter.initial-limit:4}") double initialLimit,
+            @Value("${app.gemini.limiter.min-limit:1}") double minLimit,
+            @Value("${app.gemini.limiter.max-limit:32}") double maxLimit,
+            @Value("${app.gemini.limiter.max-queue:500}") int maxQueue,
+            @Value("${app.gemini.retry.max-attempts:4}") int maxAttempts,
+            @Value("${app.gemini.retry.backoff-base-millis:1000}") long backoffBaseMillis,
+            @Value("${app.gemini.retry.backoff-max-millis:60000}") long backoffMaxMillis,
+            @Value("${app.gemini.circuit.failure-threshold:8}") int failureThreshold,
+            @Value("${app.gemini.circuit.open-seconds:30}") long openSeconds,
+            @Value("${app.gemini.limiter.premium-reserved:1}") int premiumReserved) {
+        this.meterRegistry = meterRegistry;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.initialLimit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxQueue = maxQueue;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseMillis = backoffBaseMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = Duration.ofSeconds(openSeconds);
+        this.premiumReserved = Math.max(0, premiumReserved);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Marks a recording's Gemini calls as premium until the returned handle is closed. Standard
+     * tiers get a no-op handle, so callers can close it unconditionally.
+     */
+    public Priority prioritize(String metadataId, @Nullable String tier) {
+        if (!ProcessingLaneRouter.TIER_PREMIUM.equals(tier)) {
+            return () -> {
+            };
+        }
+        premiumRecordings.merge(metadataId, 1, Integer::sum);
+        AtomicBoolean closed = new AtomicBoolean();
+        return () -> {
+            if (closed.compareAndSet(false, true)) {
+                premiumRecordings.computeIfPresent(metadataId,
+                        (id, count) -> count > 1 ? count - 1 : null);
+            }
+        };
+    }
+
+    public <T> Mono<T> execute(String model, Mono<T> call) {
+        return execute(model, null, call);
+    }
+
+    public <T> Mono<T> execute(String model, @Nullable String metadataId, Mono<T> call) {
+        ModelLimiter limiter = limiters.computeIfAbsent(model, this::createLimiter);
+        return limiter.acquire(isPremium(metadataId)).flatMap(permit -> call
+                .doOnSuccess(result -> permit.release(Outcome.SUCCESS, null))
+                .doOnError(e -> permit.release(classify(e), e))
+                .doOnCancel(() -> permit.release(Outcome.IGNORED, null)));
+    }
+
+    public <T> Flux<T> executeStream(String model, Flux<T> call) {
+        return executeStream(model, null, call);
+    }
+
+    public <T> Flux<T> executeStream(String model, @Nullable String metadataId, Flux<T> call) {
+        ModelLimiter limiter = limiters.computeIfAbsent(model, this::createLimiter);
+        return limiter.acquire(isPremium(metadataId)).flatMapMany(permit -> call
+                .doOnComplete(() -> permit.release(Outcome.SUCCESS, null))
+                .doOnError(e -> permit.release(classify(e), e))
+                .doOnCancel(() -> permit.release(Outcome.IGNORED, null)));
+    }
+
+    private boolean isPremium(@Nullable String metadataId) {
+        return metadataId != null && premiumRecordings.containsKey(metadataId);
+    }
+
+    public Retry retryPolicy(String apiName, Predicate<Throwable> retryable) {
+        return Retry.from(signals -> signals.concatMap(signal -> {
+            Throwable failure = signal.failure();
+            long attempt = signal.totalRetries() + 1;
+            if (!retryable.test(failure) || attempt >= maxAttempts) {
+                return Mono.error(failure);
+            }
+            Duration delay = backoffDelay(attempt, failure);
+            log.warn("{} call failed on attempt {}/{} with retryable error: {}. Retrying in {} ms...",
+                    apiName, attempt, maxAttempts, failure.getMessage(), delay.toMillis());
+            return Mono.delay(delay);
+        }));
+    }
+
+    public boolean isThrottled(Throwable e) {
+        return classify(e) == Outcome.THROTTLED;
+    }
+
+    Duration backoffDelay(long attempt, Throwable failure) {
+        long ceiling = Math.min(backoffMaxMillis,
+                backoffBaseMillis * (1L << Math.min(attempt - 1, 20)));
+        long jittered = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        Duration retryAfter = retryAfter(failure);
+        if (retryAfter != null && retryAfter.toMillis() >= jittered) {
+            return retryAfter.plusMillis(ThreadLocalRandom.current().nextLong(backoffBaseMillis + 1));
+        }
+        return Duration.ofMillis(jittered);
+    }
+
+    private Outcome classify(Throwable e) {
+        if (e instanceof HttpStatusCodeException) {
+            int status = ((HttpStatusCodeException) e).getStatusCode().value();
+            if (status == 429 || status == 503) {
+                return Outcome.THROTTLED;
+            }
+            return status >= 500 ? Outcome.FAILURE : Outcome.IGNORED;
+        }
+        if (e instanceof ResourceAccessException) {
+            return Outcome.FAILURE;
+        }
+        return Outcome.IGNORED;
+    }
+
+    @Nullable
+    static Duration retryAfter(Throwable e) {
+        if (!(e instanceof HttpStatusCodeException)) {
+            return null;
+        }
+        HttpStatusCodeException statusException = (HttpStatusCodeException) e;
+        HttpHeaders headers = statusException.getResponseHeaders();
+        String header = headers != null ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (header != null && !header.isBlank()) {
+            try {
+                return Duration.ofSeconds(Math.max(0, Long.parseLong(header.trim())));
+            } catch (NumberFormatException notSeconds) {
+                try {
+                    Instant at = ZonedDateTime.parse(header.trim(),
+                            DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                    Duration untilThen = Duration.between(Instant.now(), at);
+                    return untilThen.isNegative() ? Duration.ZERO : untilThen;
+                } catch (DateTimeParseException notDate) {
+                    log.debug("Ignoring unparseable Retry-After header: {}", header);
+                }
+            }
+        }
+        Matcher matcher = RETRY_DELAY_PATTERN.matcher(statusException.getResponseBodyAsString());
+        if (matcher.find()) {
+            return Duration.ofMillis((long) (Double.parseDouble(matcher.group(1)) * 1000));
+        }
+        return null;
+    }
+
+    private ModelLimiter createLimiter(String model) {
+        ModelLimiter limiter = new ModelLimiter(model);
+        Gauge.builder("gemini.limiter.limit", limiter, ModelLimiter::getLimit)
+                .description("Current adaptive concurrency limit").tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("gemini.limiter.in_flight", limiter, ModelLimiter::getInFlight)
+                .description("Gemini requests currently in flight").tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("gemini.limiter.queue_depth", limiter, ModelLimiter::getQueueDepth)
+                .description("Gemini requests waiting for a permit").tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("gemini.limiter.premium_queue_depth", limiter,
+                ModelLimiter::getPremiumQueueDepth)
+                .description("Premium Gemini requests waiting for a permit").tag("model", model)
+                .register(meterRegistry);
+        Gauge.builder("gemini.circuit.state", limiter, l -> l.getCircuitState().ordinal())
+                .description("Circuit state: 0 closed, 1 half-open, 2 open").tag("model", model)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private final class ModelLimiter {
+        private final String model;
+        private final Deque<Waiter> premiumWaiters = new ArrayDeque<>();
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+        private final Counter rejected;
+        private double limit = initialLimit;
+        private int inFlight;
+        private Instant throttledUntil = Instant.EPOCH;
+        private CircuitState circuitState = CircuitState.CLOSED;
+        private Instant openUntil = Instant.EPOCH;
+        private boolean probeInFlight;
+        private int consecutiveFailures;
+
+        ModelLimiter(String model) {
+            this.model = model;
+            this.rejected = Counter.builder("gemini.limiter.rejected")
+                    .description("Gemini requests rejected by the queue bound or circuit breaker")
+                    .tag("model", model).register(meterRegistry);
+        }
+
+        Mono<Permit> acquire(boolean premium) {
+            return Mono.defer(() -> {
+                Duration coolDown;
+                synchronized (this) {
+                    coolDown = Duration.between(Instant.now(), throttledUntil);
+                }
+                Mono<Permit> permit = Mono.create(sink -> enqueue(sink, premium));
+                return coolDown.isNegative() || coolDown.isZero() ? permit
+                        : Mono.delay(coolDown).then(permit);
+            });
+        }
+
+        private void enqueue(MonoSink<Permit> sink, boolean premium) {
+            Waiter waiter = new Waiter(sink);
+            String rejection = null;
+            synchronized (this) {
+                if (circuitState == CircuitState.OPEN && Instant.now().isAfter(openUntil)) {
+                    circuitState = CircuitState.HALF_OPEN;
+                    log.info("Gemini circuit for {} is half-open; sending a probe request.", model);
+                }
+                if (circuitState == CircuitState.OPEN
+                        || (circuitState == CircuitState.HALF_OPEN && probeInFlight)) {
+                    rejection = "Gemini circuit for " + model + " is open";
+                } else if (circuitState == CircuitState.HALF_OPEN) {
+                    probeInFlight = true;
+                    inFlight++;
+                } else if (premium ? inFlight < (int) limit && premiumWaiters.isEmpty()
+                        : inFlight < standardLimit() && premiumWaiters.isEmpty()
+                                && waiters.isEmpty()) {
+                    inFlight++;
+                } else if (premiumWaiters.size() + waiters.size() >= maxQueue) {
+                    rejection = "Gemini request queue for " + model + " is full (" + maxQueue + ")";
+                } else {
+                    (premium ? premiumWaiters : waiters).addLast(waiter);
+                    sink.onCancel(() -> {
+                        waiter.cancelled.set(true);
+                        cancel(waiter);
+                    });
+                    return;
+                }
+            }
+            if (rejection != null) {
+                rejected.increment();
+                sink.error(new GeminiUnavailableException(rejection));
+            } else {
+                sink.success(new Permit(this));
+            }
+        }
+
+        private synchronized void cancel(Waiter waiter) {
+            if (!premiumWaiters.remove(waiter)) {
+                waiters.remove(waiter);
+            }
+        }
+
+        /** Standard requests leave the reserved permits free, but always get at least one. */
+        private int standardLimit() {
+            return Math.max(1, (int) limit - premiumReserved);
+        }
+
+        void release(Outcome outcome, @Nullable Throwable failure) {
+            synchronized (this) {
+                inFlight--;
+                boolean probe = circuitState == CircuitState.HALF_OPEN && probeInFlight;
+                if (probe) {
+                    probeInFlight = false;
+                }
+                switch (outcome) {
+                    case SUCCESS -> {
+                        limit = Math.min(maxLimit, limit + 1.0 / limit);
+                        consecutiveFailures = 0;
+                        if (probe) {
+                            circuitState = CircuitState.CLOSED;
+                            log.info("Gemini circuit for {} closed after a successful probe.", model);
+                        }
+                    }
+                    case THROTTLED, FAILURE -> {
+                        if (outcome == Outcome.THROTTLED) {
+                            limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+                            Duration retryAfter = retryAfter(failure);
+                            if (retryAfter != null) {
+                                Instant until = Instant.now().plus(retryAfter);
+                                if (until.isAfter(throttledUntil)) {
+                                    throttledUntil = until;
+                                }
+                            }
+                        }
+                        consecutiveFailures++;
+                        if (probe || (circuitState == CircuitState.CLOSED
+                                && consecutiveFailures >= failureThreshold)) {
+                            circuitState = CircuitState.OPEN;
+                            openUntil = Instant.now().plus(openDuration);
+                            log.warn("Gemini circuit for {} opened for {} s after {} consecutive failures.",
+                                    model, openDuration.toSeconds(), consecutiveFailures);
+                        }
+                    }
+                    case IGNORED -> {
+                    }
+                }
+            }
+            drain();
+        }
+
+        private void drain() {
+            while (true) {
+                Waiter next;
+                boolean reject;
+                synchronized (this) {
+                    if (premiumWaiters.isEmpty() && waiters.isEmpty()) {
+                        return;
+                    }
+                    reject = circuitState == CircuitState.OPEN;
+                    if (!reject && (circuitState != CircuitState.CLOSED || inFlight >= (int) limit
+                            || (premiumWaiters.isEmpty() && inFlight >= standardLimit()))) {
+                        return;
+                    }
+                    next = !premiumWaiters.isEmpty() ? premiumWaiters.pollFirst()
+                            : waiters.pollFirst();
+                    if (!reject) {
+                        inFlight++;
+                    }
+                }
+                if (reject) {
+                    rejected.increment();
+                    next.sink.error(new GeminiUnavailableException(
+                            "Gemini circuit for " + model + " is open"));
+                } else {
+                    Permit permit = new Permit(this);
+                    next.sink.success(permit);
+                    if (next.cancelled.get()) {
+                        permit.release(Outcome.IGNORED, null);
+                    }
+                }
+            }
+        }
+
+        synchronized double getLimit() {
+            return limit;
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized int getQueueDepth() {
+            return premiumWaiters.size() + waiters.size();
+        }
+
+        synchronized int getPremiumQueueDepth() {
+            return premiumWaiters.size();
+        }
+
+        synchronized CircuitState getCircuitState() {
+            return circuitState;
+        }
+    }
+
+    /** Handle returned by {@link #prioritize}; closing it ends the premium treatment. */
+    @FunctionalInterface
+    public interface Priority extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+
+    private static final class Permit {
+        private final ModelLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(ModelLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        void release(Outcome outcome, @Nullable Throwable failure) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(outcome, failure);
+            }
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package edu.cit.audioscholar.service;
 
 import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -10,30 +13,46 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.FileSystemResource;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriComponentsBuilder;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-
+import edu.cit.audioscholar.exception.GeminiUnavailableException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Gemini calls over a pooled reactive WebClient. Each pipeline (upload, rate governor, retries,
+ * map-reduce fan-out) is exposed as a {@code *Async} Mono for reactive callers, and as a blocking
+ * method that delegates to it for the stage listeners, which run on virtual threads. Streaming
+ * transcription returns a Flux.
+ */
 @Service
 public class GeminiService {
         private static final Logger log = LoggerFactory.getLogger(GeminiService.class);
@@ -41,21 +60,55 @@ public class GeminiService {
         @Value("${google.ai.api.key}")
         private String apiKey;
 
-        private static final String API_BASE_URL = "https://generativelanguage.googleapis.com";
+        @Value("${app.gemini.api-base-url:https://generativelanguage.googleapis.com}")
+        private String apiBaseUrl;
+
         private static final String FILES_API_UPLOAD_PATH = "/upload/v1beta/files";
-        private static final String FILES_API_BASE_URL = API_BASE_URL;
         private static final String TRANSCRIPTION_MODEL_NAME = "gemini-2.0-flash";
         private static final String SUMMARIZATION_MODEL_NAME = "gemini-2.5-flash";
+        // Bump whenever a summary prompt or SUMMARY_RESPONSE_SCHEMA changes so cached summaries
+        // produced by the old prompt are no longer reused.
+        public static final String SUMMARY_PROMPT_VERSION = "summary-v2";
         private static final String GENERATE_CONTENT_PATH =
                         "/v1beta/models/{modelName}:generateContent";
+        private static final String STREAM_GENERATE_CONTENT_PATH =
+                        "/v1beta/models/{modelName}:streamGenerateContent";
+        private static final ParameterizedTypeReference<ServerSentEvent<String>> SSE_EVENT_TYPE =
+                        new ParameterizedTypeReference<>() {};
+
+        private static final String ERROR_SERVER_OR_NETWORK = "API Request Failed (Server/Network)";
+        private static final String ERROR_UNAVAILABLE = "API Unavailable";
+        private static final String ERROR_CLIENT_PREFIX = "API Client Error: ";
 
-        private static final int MAX_RETRIES = 3;
-        private static final long RETRY_DELAY_MS = 1000;
         private static final int MAX_OUTPUT_TOKENS_TRANSCRIPTION = 32768;
         private static final int MAX_OUTPUT_TOKENS_SUMMARIZATION = 65536;
-
-        private final RestTemplate restTemplate = new RestTemplate();
+        private static final int MAX_OUTPUT_TOKENS_CHUNK_NOTES = 8192;
+        private static final int MAX_MAP_REDUCE_DEPTH = 3;
+        private static final String CHUNK_NOTES_PROMPT = """
+                        You are given part %d of %d of a long lecture transcript.
+                        Write dense, faithful section notes for this part in Markdown: the main points, arguments, findings, definitions, examples and conclusions, in the order they are discussed.
+                        List every important term, concept, acronym, proper noun and piece of technical vocabulary with a one-line definition in context.
+                        Stay strictly within what is said in this part. Do not add external information. Output only the notes.
+                        """;
+        private static final String TRANSCRIPTION_PROMPT =
+                        "Transcribe the following audio content accurately. If the audio contains no speech or only silence, output the exact text '[NO SPEECH DETECTED]' in the transcript field. Otherwise, output only the spoken text. Maintain original punctuation, capitalization, and paragraph breaks as best as possible. For numbers, spell them as digits if they represent quantities or measurements, and as words if they are part of natural speech. Include any hesitations, repetitions, or fillers that are meaningful to the content.";
+
+        private final WebClient geminiWebClient;
         private final ObjectMapper objectMapper = new ObjectMapper();
+        private static final String STREAMING_TRANSCRIPTION_PROMPT =
+                        "Transcribe the following audio content accurately as plain text. If the audio contains no speech or only silence, output only the exact text '[NO SPEECH DETECTED]'. Otherwise, output only the spoken text. Maintain original punctuation, capitalization, and paragraph breaks as best as possible. For numbers, spell them as digits if they represent quantities or measurements, and as words if they are part of natural speech. Include any hesitations, repetitions, or fillers that are meaningful to the content.";
+
+        private final GeminiFileCacheService geminiFileCacheService;
+        private final GeminiRateGovernor geminiRateGovernor;
+        private final GeminiUsageRecorder geminiUsageRecorder;
+        private final Duration transcriptionTimeout;
+        private final Duration summarizationTimeout;
+        private final Duration textTimeout;
+        private final Duration uploadTimeout;
+        private final Duration streamIdleTimeout;
+        private final TranscriptChunker transcriptChunker;
+        private final boolean mapReduceEnabled;
+        private final int maxConcurrentChunks;
 
         private static final Map<String, Object> SUMMARY_RESPONSE_SCHEMA = createSummarySchema();
         private static final Map<String, Object> TRANSCRIPT_RESPONSE_SCHEMA =
@@ -63,6 +116,31 @@ public class GeminiService {
         private static final Map<String, Object> RECOMMENDATIONS_RESPONSE_SCHEMA =
                         createRecommendationsSchema();
 
+        public GeminiService(GeminiFileCacheService geminiFileCacheService,
+                        WebClient geminiWebClient, GeminiRateGovernor geminiRateGovernor,
+                        GeminiUsageRecorder geminiUsageRecorder,
+                        @Value("${app.gemini.http.transcription-timeout-seconds:600}") long transcriptionTimeoutSeconds,
+                        @Value("${app.gemini.http.summarization-timeout-seconds:300}") long summarizationTimeoutSeconds,
+                        @Value("${app.gemini.http.text-timeout-seconds:120}") long textTimeoutSeconds,
+                        @Value("${app.gemini.http.upload-timeout-seconds:300}") long uploadTimeoutSeconds,
+                        @Value("${app.gemini.http.stream-idle-timeout-seconds:120}") long streamIdleTimeoutSeconds,
+                        TranscriptChunker transcriptChunker,
+                        @Value("${app.summarization.map-reduce.enabled:true}") boolean mapReduceEnabled,
+                        @Value("${app.summarization.map-reduce.max-concurrent-chunks:4}") int maxConcurrentChunks) {
+                this.geminiFileCacheService = geminiFileCacheService;
+                this.geminiWebClient = geminiWebClient;
+                this.geminiRateGovernor = geminiRateGovernor;
+                this.geminiUsageRecorder = geminiUsageRecorder;
+                this.transcriptionTimeout = Duration.ofSeconds(transcriptionTimeoutSeconds);
+                this.summarizationTimeout = Duration.ofSeconds(summarizationTimeoutSeconds);
+                this.textTimeout = Duration.ofSeconds(textTimeoutSeconds);
+                this.uploadTimeout = Duration.ofSeconds(uploadTimeoutSeconds);
+                this.streamIdleTimeout = Duration.ofSeconds(streamIdleTimeoutSeconds);
+                this.transcriptChunker = transcriptChunker;
+                this.mapReduceEnabled = mapReduceEnabled;
+                this.maxConcurrentChunks = Math.max(1, maxConcurrentChunks);
+        }
+
         private static Map<String, Object> createSummarySchema() {
                 Map<String, Object> schema = new LinkedHashMap<>();
                 schema.put("type", "OBJECT");
@@ -136,296 +214,370 @@ public class GeminiService {
                 return Collections.unmodifiableMap(schema);
         }
 
-        public String callGeminiTranscriptionAPI(Path audioFilePath, String fileName)
+        /**
+         * Transcribes {@code audioFilePath}. {@code contentHash} is the file's SHA-256 when the
+         * caller already knows it (the upload hash of an original recording); otherwise the file
+         * is hashed here for the Gemini file cache.
+         */
+        public String callGeminiTranscriptionAPI(Path audioFilePath, String fileName,
+                        @Nullable String metadataId, @Nullable String contentHash)
                         throws IOException {
+                return blockWithIOException(callGeminiTranscriptionAPIAsync(audioFilePath,
+                                fileName, metadataId, contentHash));
+        }
+
+        public Mono<String> callGeminiTranscriptionAPIAsync(Path audioFilePath, String fileName,
+                        @Nullable String metadataId, @Nullable String contentHash) {
                 if (audioFilePath == null || !Files.exists(audioFilePath)) {
                         log.error("Audio file path is null or does not exist: {}", audioFilePath);
-                        throw new IOException("Audio file path is null or does not exist: "
-                                        + audioFilePath);
+                        return Mono.error(new IOException(
+                                        "Audio file path is null or does not exist: " + audioFilePath));
                 }
 
                 String mimeType = getAudioMimeType(fileName);
-                long fileSize = Files.size(audioFilePath);
-                String displayName = fileName;
+                return withUploadedFile(audioFilePath, mimeType, fileName, contentHash,
+                                fileUri -> requestTranscription(fileUri, mimeType,
+                                                TRANSCRIPTION_PROMPT, metadataId))
+                                .doOnError(IOException.class, e -> log.error(
+                                                "IOException during file handling or upload: {}",
+                                                e.getMessage(), e))
+                                .onErrorResume(e -> !(e instanceof IOException), e -> {
+                                        if (e instanceof ApiException) {
+                                                log.error("File Upload API call failed: {}",
+                                                                e.getMessage(), e);
+                                                return Mono.just(createErrorResponse(
+                                                                "File Upload Failed", e.getMessage()));
+                                        }
+                                        log.error("Unexpected error during transcription process: {}",
+                                                        e.getMessage(), e);
+                                        return Mono.just(createErrorResponse(
+                                                        "Unexpected Transcription Error",
+                                                        e.getMessage()));
+                                });
+        }
 
-                try {
-                        String fileUri = uploadFile(audioFilePath, mimeType, fileSize, displayName);
-                        log.info("File uploaded successfully. URI: {}", fileUri);
+        public Flux<String> streamTranscriptionAsync(Path audioFilePath, String fileName,
+                        @Nullable String metadataId, @Nullable String contentHash) {
+                if (audioFilePath == null || !Files.exists(audioFilePath)) {
+                        return Flux.error(new IOException(
+                                        "Audio file path is null or does not exist: " + audioFilePath));
+                }
 
-                        HttpHeaders generateHeaders = new HttpHeaders();
-                        generateHeaders.setContentType(MediaType.APPLICATION_JSON);
+                String mimeType = getAudioMimeType(fileName);
+                return uploadFile(audioFilePath, mimeType, fileName, contentHash, false)
+                                .flatMapMany(uploaded -> streamTranscription(uploaded.fileUri(),
+                                                mimeType, metadataId)
+                                                .onErrorResume(e -> uploaded.reused()
+                                                                && isRejectedFile(e), e -> {
+                                                        log.warn("Gemini rejected reused file {} for {}; uploading it again.",
+                                                                        uploaded.fileUri(), fileName);
+                                                        geminiFileCacheService.evictFileUri(
+                                                                        uploaded.fileUri());
+                                                        return uploadFile(audioFilePath, mimeType,
+                                                                        fileName, contentHash, true)
+                                                                        .flatMapMany(fresh -> streamTranscription(
+                                                                                        fresh.fileUri(),
+                                                                                        mimeType,
+                                                                                        metadataId));
+                                                }));
+        }
 
-                        String promptText =
-                                        "Transcribe the following audio content accurately. If the audio contains no speech or only silence, output the exact text '[NO SPEECH DETECTED]' in the transcript field. Otherwise, output only the spoken text. Maintain original punctuation, capitalization, and paragraph breaks as best as possible. For numbers, spell them as digits if they represent quantities or measurements, and as words if they are part of natural speech. Include any hesitations, repetitions, or fillers that are meaningful to the content.";
-                        Map<String, Object> textPart = Map.of("text", promptText);
-                        Map<String, Object> fileDataPart = Map.of("file_data",
-                                        Map.of("mime_type", mimeType, "file_uri", fileUri));
+        private Flux<String> streamTranscription(String fileUri, String mimeType,
+                        @Nullable String metadataId) {
+                Map<String, Object> textPart = Map.of("text", STREAMING_TRANSCRIPTION_PROMPT);
+                Map<String, Object> fileDataPart = Map.of("file_data",
+                                Map.of("mime_type", mimeType, "file_uri", fileUri));
+                List<Object> contents =
+                                List.of(Map.of("parts", List.of(textPart, fileDataPart)));
 
-                        List<Object> parts = List.of(textPart, fileDataPart);
-                        Map<String, Object> content = Map.of("parts", parts);
-                        List<Object> contents = List.of(content);
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.2);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_TRANSCRIPTION);
 
-                        Map<String, Object> generationConfig = new HashMap<>();
-                        generationConfig.put("temperature", 0.2);
-                        generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_TRANSCRIPTION);
-                        generationConfig.put("response_mime_type", "application/json");
-                        generationConfig.put("response_schema", TRANSCRIPT_RESPONSE_SCHEMA);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
 
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("contents", contents);
-                        requestBody.put("generationConfig", generationConfig);
+                log.info("Streaming Gemini Transcription API (Model: {}) using file URI: {}",
+                                TRANSCRIPTION_MODEL_NAME, fileUri);
+                return streamGenerateContent(TRANSCRIPTION_MODEL_NAME, requestBody, metadataId);
+        }
 
-                        HttpEntity<Map<String, Object>> requestEntity =
-                                        new HttpEntity<>(requestBody, generateHeaders);
+        public boolean isErrorResponse(String response) {
+                if (response == null || !response.startsWith("{")) {
+                        return false;
+                }
+                try {
+                        JsonNode node = objectMapper.readTree(response);
+                        return node.has("error") && node.has("details");
+                } catch (JsonProcessingException e) {
+                        return false;
+                }
+        }
 
-                        String generateContentUrl = UriComponentsBuilder
-                                        .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                        .queryParam("key", apiKey)
-                                        .buildAndExpand(TRANSCRIPTION_MODEL_NAME).toUriString();
+        /**
+         * True for error responses a later attempt can cure: network and 5xx failures, an open
+         * circuit or exhausted limiter, and 429 throttling.
+         */
+        public boolean isTransientErrorResponse(String response) {
+                if (!isErrorResponse(response)) {
+                        return false;
+                }
+                try {
+                        String title = objectMapper.readTree(response).path("error").asText("");
+                        return ERROR_SERVER_OR_NETWORK.equals(title) || ERROR_UNAVAILABLE.equals(title)
+                                        || title.startsWith(ERROR_CLIENT_PREFIX + "429");
+                } catch (JsonProcessingException e) {
+                        return false;
+                }
+        }
 
-                        log.info("Calling Gemini Transcription API (Model: {}) using file URI: {}",
-                                        TRANSCRIPTION_MODEL_NAME, fileUri);
+        private Mono<String> requestTranscription(String fileUri, String mimeType,
+                        String promptText, @Nullable String metadataId) {
+                Map<String, Object> textPart = Map.of("text", promptText);
+                Map<String, Object> fileDataPart = Map.of("file_data",
+                                Map.of("mime_type", mimeType, "file_uri", fileUri));
 
-                        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                                try {
-                                        ResponseEntity<String> response = restTemplate.exchange(
-                                                        generateContentUrl, HttpMethod.POST,
-                                                        requestEntity, String.class);
-                                        log.info("Gemini Transcription API (generateContent) call successful on attempt {} using model {}. Status: {}",
-                                                        attempt, TRANSCRIPTION_MODEL_NAME,
-                                                        response.getStatusCode());
-
-                                        String responseBody = response.getBody();
-                                        if (responseBody == null || responseBody.isBlank()) {
-                                                log.warn("Gemini Transcription API (generateContent) returned successful status ({}) but empty body.",
-                                                                response.getStatusCode());
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse("Empty Response",
-                                                                        "API returned success status but no content after retries.");
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
-                                        }
+                List<Object> parts = List.of(textPart, fileDataPart);
+                Map<String, Object> content = Map.of("parts", parts);
+                List<Object> contents = List.of(content);
 
-                                        try {
-                                                JsonNode responseNode =
-                                                                objectMapper.readTree(responseBody);
-
-                                                if (responseNode.has("candidates")
-                                                                && responseNode.path("candidates")
-                                                                                .isArray()
-                                                                && !responseNode.path("candidates")
-                                                                                .isEmpty()) {
-                                                        JsonNode firstCandidate = responseNode
-                                                                        .path("candidates").get(0);
-
-                                                        if (firstCandidate.has("content")
-                                                                        && firstCandidate.path(
-                                                                                        "content")
-                                                                                        .has("parts")
-                                                                        && firstCandidate.path(
-                                                                                        "content")
-                                                                                        .path("parts")
-                                                                                        .isArray()
-                                                                        && !firstCandidate.path(
-                                                                                        "content")
-                                                                                        .path("parts")
-                                                                                        .isEmpty()) {
-
-                                                                JsonNode firstPart = firstCandidate
-                                                                                .path("content")
-                                                                                .path("parts")
-                                                                                .get(0);
-                                                                if (firstPart.has("text")) {
-                                                                        String jsonResponse =
-                                                                                        firstPart.path("text")
-                                                                                                        .asText();
-
-                                                                        String transcript =
-                                                                                        extractTranscriptFromJsonResponse(
-                                                                                                        jsonResponse);
-                                                                        if (transcript != null) {
-                                                                                return transcript;
-                                                                        }
-                                                                }
-                                                        }
-                                                }
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.2);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_TRANSCRIPTION);
+                generationConfig.put("response_mime_type", "application/json");
+                generationConfig.put("response_schema", TRANSCRIPT_RESPONSE_SCHEMA);
 
-                                                log.warn("Could not extract structured JSON transcript, falling back to standard extraction.");
-                                                String extractedText =
-                                                                extractTextFromStandardResponse(
-                                                                                responseBody);
-                                                log.info("Successfully extracted transcript text (length: {}).",
-                                                                extractedText.length());
-                                                return extractedText;
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
 
-                                        } catch (JsonProcessingException e) {
-                                                log.warn("Error parsing transcript JSON response, falling back to standard extraction: {}",
-                                                                e.getMessage());
-                                                String extractedText =
-                                                                extractTextFromStandardResponse(
-                                                                                responseBody);
-                                                log.info("Successfully extracted transcript text (length: {}).",
-                                                                extractedText.length());
-                                                return extractedText;
-                                        }
+                log.info("Calling Gemini Transcription API (Model: {}) using file URI: {}",
+                                TRANSCRIPTION_MODEL_NAME, fileUri);
 
-                                } catch (ApiException e) {
-                                        log.error("Gemini Transcription API Error on attempt {}: {}",
-                                                        attempt, e.getMessage(), e);
-                                        return createErrorResponse("Transcription API Error",
-                                                        e.getMessage());
-                                } catch (HttpServerErrorException | ResourceAccessException e) {
-                                        log.warn("Gemini Transcription API (generateContent) call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                        attempt, MAX_RETRIES, e.getMessage());
-                                        if (attempt == MAX_RETRIES) {
-                                                log.error("Gemini Transcription API (generateContent) call failed after {} attempts.",
-                                                                MAX_RETRIES, e);
-                                                return createErrorResponse(
-                                                                "API Request Failed (Server/Network)",
-                                                                e.getMessage());
+                return generateContent("Gemini Transcription API", "Transcription",
+                                GeminiUsageRecorder.OPERATION_TRANSCRIBE, metadataId,
+                                TRANSCRIPTION_MODEL_NAME, requestBody, transcriptionTimeout, fileUri,
+                                this::extractTranscript);
+        }
+
+        private String extractTranscript(String responseBody)
+                        throws JsonProcessingException, ApiException {
+                try {
+                        JsonNode responseNode = objectMapper.readTree(responseBody);
+
+                        if (responseNode.has("candidates") && responseNode.path("candidates").isArray()
+                                        && !responseNode.path("candidates").isEmpty()) {
+                                JsonNode firstCandidate = responseNode.path("candidates").get(0);
+
+                                if (firstCandidate.has("content")
+                                                && firstCandidate.path("content").has("parts")
+                                                && firstCandidate.path("content").path("parts")
+                                                                .isArray()
+                                                && !firstCandidate.path("content").path("parts")
+                                                                .isEmpty()) {
+
+                                        JsonNode firstPart = firstCandidate.path("content")
+                                                        .path("parts").get(0);
+                                        if (firstPart.has("text")) {
+                                                String jsonResponse = firstPart.path("text").asText();
+
+                                                String transcript = extractTranscriptFromJsonResponse(
+                                                                jsonResponse);
+                                                if (transcript != null) {
+                                                        return transcript;
+                                                }
                                         }
-                                        sleepForRetry(attempt);
-                                } catch (HttpClientErrorException e) {
-                                        log.error("Gemini Transcription API (generateContent) client error: {} - {}",
-                                                        e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        String details = parseErrorDetails(e);
-                                        return createErrorResponse(
-                                                        "API Client Error: " + e.getStatusCode(),
-                                                        details);
-                                } catch (RestClientResponseException e) {
-                                        log.error("Gemini Transcription API (generateContent) REST client error: Status {}, Body: {}",
-                                                        e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (REST Client)",
-                                                        e.getMessage());
-                                } catch (RuntimeException e) {
-                                        log.error("Unexpected runtime error during Gemini Transcription API (generateContent) processing on attempt {}: {}",
-                                                        attempt, e.getMessage(), e);
-                                        return createErrorResponse("Transcription Processing Error",
-                                                        e.getMessage());
                                 }
                         }
-                        return createErrorResponse("API Request Failed",
-                                        "Max retries reached for generateContent or unexpected flow.");
 
-                } catch (IOException e) {
-                        log.error("IOException during file handling or upload: {}", e.getMessage(),
-                                        e);
-                        throw e;
-                } catch (ApiException e) {
-                        log.error("File Upload API call failed: {}", e.getMessage(), e);
-                        return createErrorResponse("File Upload Failed", e.getMessage());
-                } catch (Exception e) {
-                        log.error("Unexpected error during transcription process: {}",
-                                        e.getMessage(), e);
-                        return createErrorResponse("Unexpected Transcription Error",
+                        log.warn("Could not extract structured JSON transcript, falling back to standard extraction.");
+                } catch (JsonProcessingException e) {
+                        log.warn("Error parsing transcript JSON response, falling back to standard extraction: {}",
                                         e.getMessage());
                 }
+                String extractedText = extractTextFromStandardResponse(responseBody);
+                log.info("Successfully extracted transcript text (length: {}).",
+                                extractedText.length());
+                return extractedText;
+        }
+
+        /**
+         * Uploads {@code filePath} and runs {@code request} against its URI. A reused URI that
+         * Gemini rejects with 400/403/404 has expired or been deleted early; the failed call
+         * evicts it, so the file is uploaded again and the request retried once.
+         */
+        private Mono<String> withUploadedFile(Path filePath, String mimeType, String displayName,
+                        @Nullable String contentHash, Function<String, Mono<String>> request) {
+                return uploadFile(filePath, mimeType, displayName, contentHash, false)
+                                .flatMap(uploaded -> request.apply(uploaded.fileUri())
+                                                .flatMap(response -> {
+                                                        if (!uploaded.reused()
+                                                                        || !isRejectedFileResponse(response)) {
+                                                                return Mono.just(response);
+                                                        }
+                                                        log.warn("Gemini rejected reused file {} for {}; uploading it again.",
+                                                                        uploaded.fileUri(), displayName);
+                                                        return uploadFile(filePath, mimeType,
+                                                                        displayName, contentHash, true)
+                                                                        .flatMap(fresh -> request.apply(
+                                                                                        fresh.fileUri()));
+                                                }));
+        }
+
+        private Mono<UploadedFile> uploadFile(Path filePath, String mimeType, String displayName,
+                        @Nullable String knownContentHash, boolean skipCache) {
+                return Mono.fromCallable(() -> {
+                        long fileSize = Files.size(filePath);
+                        String contentHash = knownContentHash != null ? knownContentHash
+                                        : geminiFileCacheService.hash(filePath);
+                        return new PendingUpload(fileSize, contentHash,
+                                        skipCache ? null : geminiFileCacheService.getFileUri(contentHash));
+                }).subscribeOn(Schedulers.boundedElastic()).flatMap(pending -> {
+                        if (pending.cachedFileUri() != null) {
+                                log.info("Reusing Gemini file {} for {} (content hash {}); skipping upload.",
+                                                pending.cachedFileUri(), displayName,
+                                                pending.contentHash());
+                                return Mono.just(new UploadedFile(pending.cachedFileUri(), true));
+                        }
+                        return uploadFileBytes(filePath, mimeType, pending.fileSize(), displayName)
+                                        .doOnNext(fileUri -> log.info("File {} uploaded. URI: {}",
+                                                        displayName, fileUri))
+                                        .publishOn(Schedulers.boundedElastic())
+                                        .doOnNext(fileUri -> geminiFileCacheService.put(
+                                                        pending.contentHash(), fileUri, mimeType,
+                                                        pending.fileSize()))
+                                        .map(fileUri -> new UploadedFile(fileUri, false));
+                });
+        }
+
+        private boolean isRejectedFileResponse(String response) {
+                if (!isErrorResponse(response)) {
+                        return false;
+                }
+                try {
+                        String title = objectMapper.readTree(response).path("error").asText("");
+                        return title.startsWith(ERROR_CLIENT_PREFIX + "400")
+                                        || title.startsWith(ERROR_CLIENT_PREFIX + "403")
+                                        || title.startsWith(ERROR_CLIENT_PREFIX + "404");
+                } catch (JsonProcessingException e) {
+                        return false;
+                }
+        }
+
+        private static boolean isRejectedFile(Throwable e) {
+                if (!(e instanceof HttpClientErrorException)) {
+                        return false;
+                }
+                int status = ((HttpClientErrorException) e).getStatusCode().value();
+                return status == 400 || status == 403 || status == 404;
         }
 
-        private String uploadFile(Path filePath, String mimeType, long fileSize, String displayName)
-                        throws IOException, ApiException {
+        private Mono<String> uploadFileBytes(Path filePath, String mimeType, long fileSize,
+                        String displayName) {
                 String initiateUrl = UriComponentsBuilder
-                                .fromUriString(FILES_API_BASE_URL + FILES_API_UPLOAD_PATH)
+                                .fromUriString(apiBaseUrl + FILES_API_UPLOAD_PATH)
                                 .queryParam("key", apiKey).toUriString();
 
-                HttpHeaders initiateHeaders = new HttpHeaders();
-                initiateHeaders.set("X-Goog-Upload-Protocol", "resumable");
-                initiateHeaders.set("X-Goog-Upload-Command", "start");
-                initiateHeaders.set("X-Goog-Upload-Header-Content-Length",
-                                String.valueOf(fileSize));
-                initiateHeaders.set("X-Goog-Upload-Header-Content-Type", mimeType);
-                initiateHeaders.setContentType(MediaType.APPLICATION_JSON);
-
                 Map<String, Object> fileMetadata =
                                 Map.of("display_name", displayName != null ? displayName
                                                 : "audio_file_" + UUID.randomUUID());
                 Map<String, Object> initiateBodyMap = Map.of("file", fileMetadata);
-                HttpEntity<Map<String, Object>> initiateRequestEntity =
-                                new HttpEntity<>(initiateBodyMap, initiateHeaders);
-                String uploadUrl;
 
                 log.info("Initiating file upload for: {}", displayName);
-                try {
-                        ResponseEntity<String> initiateResponse = restTemplate.exchange(initiateUrl,
-                                        HttpMethod.POST, initiateRequestEntity, String.class);
-                        uploadUrl = initiateResponse.getHeaders().getFirst("X-Goog-Upload-Url");
-
-                        if (uploadUrl == null || uploadUrl.isBlank()) {
-                                log.error("Failed to get upload URL from initiation response. Status: {}, Body: {}",
-                                                initiateResponse.getStatusCode(),
-                                                initiateResponse.getBody());
-                                throw new ApiException(
-                                                "Failed to get upload URL from initiation response.");
-                        }
-                        log.info("Upload initiated. Got upload URL.");
-                        log.debug("Upload URL: {}", uploadUrl);
-
-                } catch (RestClientException e) {
-                        log.error("Error initiating file upload: {}", e.getMessage(), e);
-                        throw new ApiException("Error initiating file upload: " + e.getMessage(),
-                                        e);
-                }
-
-                HttpHeaders uploadHeaders = new HttpHeaders();
-                uploadHeaders.setContentType(MediaType.parseMediaType(mimeType));
-                uploadHeaders.set("X-Goog-Upload-Offset", "0");
-                uploadHeaders.set("X-Goog-Upload-Command", "upload, finalize");
-
-                FileSystemResource fileResource = new FileSystemResource(filePath);
-                HttpEntity<FileSystemResource> uploadRequestEntity =
-                                new HttpEntity<>(fileResource, uploadHeaders);
+                return geminiWebClient.post().uri(URI.create(initiateUrl))
+                                .header("X-Goog-Upload-Protocol", "resumable")
+                                .header("X-Goog-Upload-Command", "start")
+                                .header("X-Goog-Upload-Header-Content-Length",
+                                                String.valueOf(fileSize))
+                                .header("X-Goog-Upload-Header-Content-Type", mimeType)
+                                .contentType(MediaType.APPLICATION_JSON).bodyValue(initiateBodyMap)
+                                .retrieve().toEntity(String.class).timeout(uploadTimeout)
+                                .onErrorMap(e -> {
+                                        log.error("Error initiating file upload: {}", e.getMessage(),
+                                                        e);
+                                        return new ApiException("Error initiating file upload: "
+                                                        + e.getMessage(), e);
+                                }).flatMap(initiateResponse -> {
+                                        String uploadUrl = initiateResponse.getHeaders()
+                                                        .getFirst("X-Goog-Upload-Url");
+                                        if (uploadUrl == null || uploadUrl.isBlank()) {
+                                                log.error("Failed to get upload URL from initiation response. Status: {}, Body: {}",
+                                                                initiateResponse.getStatusCode(),
+                                                                initiateResponse.getBody());
+                                                return Mono.error(new ApiException(
+                                                                "Failed to get upload URL from initiation response."));
+                                        }
+                                        log.info("Upload initiated. Got upload URL.");
+                                        log.debug("Upload URL: {}", uploadUrl);
+                                        return uploadFileContent(uploadUrl, filePath, mimeType);
+                                });
+        }
 
+        private Mono<String> uploadFileContent(String uploadUrl, Path filePath, String mimeType) {
                 log.info("Uploading file bytes to: {}", uploadUrl);
-                try {
-                        ResponseEntity<String> uploadResponse = restTemplate.exchange(uploadUrl,
-                                        HttpMethod.POST, uploadRequestEntity, String.class);
-
-                        log.info("File upload completed. Status: {}",
-                                        uploadResponse.getStatusCode());
-                        String responseBody = uploadResponse.getBody();
-
-                        if (responseBody == null) {
-                                throw new ApiException(
-                                                "Upload completed but received null response body.");
-                        }
-
-                        JsonNode responseNode = objectMapper.readTree(responseBody);
-                        if (responseNode.has("file") && responseNode.get("file").has("uri")) {
-                                String fileUri = responseNode.get("file").get("uri").asText();
-                                if (fileUri != null && !fileUri.isBlank()) {
-                                        log.debug("Extracted file URI: {}", fileUri);
-                                        return fileUri;
-                                }
-                        }
-                        log.error("Upload response did not contain expected file URI. Body: {}",
-                                        responseBody);
-                        throw new ApiException(
-                                        "Upload response did not contain expected file URI.");
-
-                } catch (RestClientException e) {
-                        log.error("Error uploading file bytes: {}", e.getMessage(), e);
-                        if (e instanceof HttpStatusCodeException) {
-                                String errorBody = ((HttpStatusCodeException) e)
-                                                .getResponseBodyAsString();
-                                log.error("API Error Response Body: {}", errorBody);
-                                throw new ApiException("Error uploading file bytes: "
-                                                + parseErrorDetailsFromString(errorBody), e);
-                        }
-                        throw new ApiException("Error uploading file bytes: " + e.getMessage(), e);
-                } catch (JsonProcessingException e) {
-                        log.error("Error parsing upload response JSON: {}", e.getMessage(), e);
-                        throw new ApiException("Error parsing upload response JSON", e);
-                }
+                return geminiWebClient.post().uri(URI.create(uploadUrl))
+                                .contentType(MediaType.parseMediaType(mimeType))
+                                .header("X-Goog-Upload-Offset", "0")
+                                .header("X-Goog-Upload-Command", "upload, finalize")
+                                .body(BodyInserters.fromResource(new FileSystemResource(filePath)))
+                                .retrieve().toEntity(String.class).timeout(uploadTimeout)
+                                .onErrorMap(e -> {
+                                        log.error("Error uploading file bytes: {}", e.getMessage(), e);
+                                        if (e instanceof WebClientResponseException) {
+                                                String errorBody = ((WebClientResponseException) e)
+                                                                .getResponseBodyAsString();
+                                                log.error("API Error Response Body: {}", errorBody);
+                                                return new ApiException("Error uploading file bytes: "
+                                                                + parseErrorDetailsFromString(errorBody),
+                                                                e);
+                                        }
+                                        return new ApiException(
+                                                        "Error uploading file bytes: " + e.getMessage(),
+                                                        e);
+                                }).flatMap(uploadResponse -> {
+                                        log.info("File upload completed. Status: {}",
+                                                        uploadResponse.getStatusCode());
+                                        String responseBody = uploadResponse.getBody();
+                                        if (responseBody == null) {
+                                                return Mono.error(new ApiException(
+                                                                "Upload completed but received null response body."));
+                                        }
+                                        try {
+                                                JsonNode responseNode = objectMapper.readTree(responseBody);
+                                                if (responseNode.has("file")
+                                                                && responseNode.get("file").has("uri")) {
+                                                        String fileUri = responseNode.get("file").get("uri")
+                                                                        .asText();
+                                                        if (fileUri != null && !fileUri.isBlank()) {
+                                                                log.debug("Extracted file URI: {}", fileUri);
+                                                                return Mono.just(fileUri);
+                                                        }
+                                                }
+                                        } catch (JsonProcessingException e) {
+                                                log.error("Error parsing upload response JSON: {}",
+                                                                e.getMessage(), e);
+                                                return Mono.error(new ApiException(
+                                                                "Error parsing upload response JSON", e));
+                                        }
+                                        log.error("Upload response did not contain expected file URI. Body: {}",
+                                                        responseBody);
+                                        return Mono.error(new ApiException(
+                                                        "Upload response did not contain expected file URI."));
+                                });
         }
 
         public String callGeminiSummarizationAPI(String promptText, String transcriptText) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
+                return callGeminiSummarizationAPIAsync(promptText, transcriptText).block();
+        }
+
+        public Mono<String> callGeminiSummarizationAPIAsync(String promptText,
+                        String transcriptText) {
+                return withTranscriptBudget(transcriptText, null,
+                                text -> summarizeWithPrompt(promptText, text));
+        }
 
+        private Mono<String> summarizeWithPrompt(String promptText, String transcriptText) {
                 String updatedPromptText =
                                 promptText + """
 
@@ -462,420 +614,267 @@ public class GeminiService {
                 requestBody.put("contents", contents);
                 requestBody.put("generationConfig", generationConfig);
 
-                HttpEntity<Map<String, Object>> requestEntity =
-                                new HttpEntity<>(requestBody, headers);
-
-                String summarizationUrl = UriComponentsBuilder
-                                .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                .queryParam("key", apiKey).buildAndExpand(SUMMARIZATION_MODEL_NAME)
-                                .toUriString();
-
                 log.info("Calling Gemini Summarization API (Model: {}, JSON Schema Mode)",
                                 SUMMARIZATION_MODEL_NAME);
                 log.trace("Summarization prompt text length: {}", updatedPromptText.length());
                 log.trace("Summarization transcript text length: {}", transcriptText.length());
 
-                for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                        try {
-                                ResponseEntity<String> response = restTemplate.exchange(
-                                                summarizationUrl, HttpMethod.POST, requestEntity,
-                                                String.class);
-                                log.info("Gemini Summarization API call successful on attempt {} using model {}. Status: {}",
-                                                attempt, SUMMARIZATION_MODEL_NAME,
-                                                response.getStatusCode());
-
-                                String responseBody = response.getBody();
-                                if (responseBody == null || responseBody.isBlank()) {
-                                        log.warn("Gemini Summarization API returned successful status ({}) but empty body.",
-                                                        response.getStatusCode());
-                                        if (attempt == MAX_RETRIES) {
-                                                return createErrorResponse("Empty Response",
-                                                                "API returned success status but no content after retries.");
-                                        }
-                                        sleepForRetry(attempt);
-                                        continue;
-                                }
+                return generateContent("Gemini Summarization API", "Summarization",
+                                GeminiUsageRecorder.OPERATION_SUMMARIZE, null,
+                                SUMMARIZATION_MODEL_NAME, requestBody, summarizationTimeout, null,
+                                this::extractTextFromStandardResponse);
+        }
 
-                                String extractedJsonText =
-                                                extractTextFromStandardResponse(responseBody);
-                                log.debug("Successfully extracted JSON text from standard response structure (length: {}).",
-                                                extractedJsonText.length());
-                                return extractedJsonText;
-
-                        } catch (ApiException e) {
-                                log.error("Gemini Summarization API Error on attempt {}: {}",
-                                                attempt, e.getMessage(), e);
-                                return createErrorResponse("Summarization API Error",
-                                                e.getMessage());
-                        } catch (HttpServerErrorException | ResourceAccessException e) {
-                                log.warn("Gemini Summarization API call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                attempt, MAX_RETRIES, e.getMessage());
-                                if (attempt == MAX_RETRIES) {
-                                        log.error("Gemini Summarization API call failed after {} attempts.",
-                                                        MAX_RETRIES, e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (Server/Network)",
-                                                        e.getMessage());
-                                }
-                                sleepForRetry(attempt);
-                        } catch (HttpClientErrorException e) {
-                                log.error("Gemini Summarization API client error: {} - {}",
-                                                e.getStatusCode(), e.getResponseBodyAsString(), e);
-                                String details = parseErrorDetails(e);
-                                return createErrorResponse("API Client Error: " + e.getStatusCode(),
-                                                details);
-                        } catch (RestClientResponseException e) {
-                                log.error("Gemini Summarization API REST client error: Status {}, Body: {}",
-                                                e.getStatusCode(), e.getResponseBodyAsString(), e);
-                                return createErrorResponse("API Request Failed (REST Client)",
-                                                e.getMessage());
-                        } catch (JsonProcessingException e) {
-                                log.error("Error parsing successful Gemini Summarization response JSON on attempt {}: {}",
-                                                attempt, e.getMessage(), e);
-                                return createErrorResponse("Response Parsing Error",
-                                                e.getMessage());
-                        } catch (RuntimeException e) {
-                                log.error("Unexpected runtime error during Gemini Summarization API processing on attempt {}: {}",
-                                                attempt, e.getMessage(), e);
-                                return createErrorResponse("Summarization Processing Error",
-                                                e.getMessage());
-                        }
-                }
-                return createErrorResponse("API Request Failed",
-                                "Max retries reached for summarization or unexpected flow.");
+        public String getSummarizationModelName() {
+                return SUMMARIZATION_MODEL_NAME;
         }
 
         public String generateSummaryWithPdfContext(String transcriptText, Path pdfFilePath,
                         String metadataId) {
+                return generateSummaryWithPdfContextAsync(transcriptText, pdfFilePath, metadataId)
+                                .block();
+        }
+
+        public Mono<String> generateSummaryWithPdfContextAsync(String transcriptText,
+                        Path pdfFilePath, String metadataId) {
                 log.info("[{}] Starting combined summarization with PDF context.", metadataId);
 
                 if (transcriptText == null || transcriptText.isBlank()) {
                         log.error("[{}] Transcript text is null or blank. Cannot generate summary.",
                                         metadataId);
-                        return createErrorResponse("Input Error", "Transcript text is missing.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "Transcript text is missing."));
                 }
                 if (pdfFilePath == null || !Files.exists(pdfFilePath)) {
                         log.error("[{}] PDF file path is null or file doesn't exist: {}",
                                         metadataId, pdfFilePath);
-                        return createErrorResponse("Input Error",
-                                        "PDF file is missing or invalid.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "PDF file is missing or invalid."));
                 }
 
-                String pdfFileUri = null;
-
-                try {
-                        log.info("[{}] Using local PDF file: {}", metadataId,
-                                        pdfFilePath.getFileName());
-
-                        long pdfSize = Files.size(pdfFilePath);
-                        String pdfDisplayName = "context_" + metadataId + ".pdf";
-                        log.info("[{}] Uploading PDF ({}) to Google Files API...", metadataId,
-                                        pdfDisplayName);
-
-                        pdfFileUri = uploadFile(pdfFilePath, "application/pdf", pdfSize,
-                                        pdfDisplayName);
-                        log.info("[{}] PDF uploaded successfully to Google Files API. URI: {}",
-                                        metadataId, pdfFileUri);
-
-                        HttpHeaders generateHeaders = new HttpHeaders();
-                        generateHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-                        String prompt = """
-                                        Analyze the provided lecture transcript and the accompanying PDF document.
-                                        Generate a comprehensive, concise, well-structured summary incorporating information from BOTH sources, using Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in either the transcript or the document.
-                                        Identify the main key points or action items discussed across both sources and list them as distinct strings in the `keyPoints` array.
-                                        List the 3-5 most important topics or keywords suitable for searching related content based on both sources in the `topics` array.
-                                        Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in either the transcript or the document. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
-                                        Ensure the entire output strictly adheres to the provided JSON schema. Output only the JSON object.
-                                        """;
-
-                        Map<String, Object> promptPart = Map.of("text", prompt);
-                        Map<String, Object> transcriptPart = Map.of("text", transcriptText);
-                        Map<String, Object> pdfPart = Map.of("file_data", Map.of("mime_type",
-                                        "application/pdf", "file_uri", pdfFileUri));
-
-                        List<Object> parts = List.of(promptPart, transcriptPart, pdfPart);
-                        Map<String, Object> content = Map.of("parts", parts);
-                        List<Object> contents = List.of(content);
-
-                        Map<String, Object> generationConfig = new HashMap<>();
-                        generationConfig.put("temperature", 0.4);
-                        generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
-                        generationConfig.put("response_mime_type", "application/json");
-                        generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
-
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("contents", contents);
-                        requestBody.put("generationConfig", generationConfig);
-
-                        HttpEntity<Map<String, Object>> requestEntity =
-                                        new HttpEntity<>(requestBody, generateHeaders);
-
-                        String generateContentUrl = UriComponentsBuilder
-                                        .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                        .queryParam("key", apiKey)
-                                        .buildAndExpand(SUMMARIZATION_MODEL_NAME).toUriString();
-
-                        log.info("[{}] Calling Gemini Summarization API (Model: {}) with transcript and PDF context (URI: {})...",
-                                        metadataId, SUMMARIZATION_MODEL_NAME, pdfFileUri);
-
-                        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                                try {
-                                        ResponseEntity<String> response = restTemplate.exchange(
-                                                        generateContentUrl, HttpMethod.POST,
-                                                        requestEntity, String.class);
-                                        log.info("[{}] Gemini Summarization API (generateContent with PDF) call successful on attempt {}. Status: {}",
-                                                        metadataId, attempt,
-                                                        response.getStatusCode());
-
-                                        String responseBody = response.getBody();
-                                        if (responseBody == null || responseBody.isBlank()) {
-                                                log.warn("[{}] Gemini Summarization API (with PDF) returned successful status ({}) but empty body on attempt {}.",
-                                                                metadataId,
-                                                                response.getStatusCode(), attempt);
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse("Empty Response",
-                                                                        "API returned success status but no content after retries.");
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
+                log.info("[{}] Using local PDF file: {}", metadataId, pdfFilePath.getFileName());
+                String pdfDisplayName = "context_" + metadataId + ".pdf";
+                log.info("[{}] Uploading PDF ({}) to Google Files API...", metadataId,
+                                pdfDisplayName);
+
+                return withUploadedFile(pdfFilePath, "application/pdf", pdfDisplayName, null,
+                                pdfFileUri -> withTranscriptBudget(transcriptText, metadataId,
+                                                text -> summarizeWithPdfUri(text, pdfFileUri,
+                                                                metadataId)))
+                                .onErrorResume(e -> {
+                                        if (e instanceof IOException) {
+                                                log.error("[{}] IOException during PDF upload: {}",
+                                                                metadataId, e.getMessage(), e);
+                                                return Mono.just(createErrorResponse(
+                                                                "File Handling Error",
+                                                                "Error processing PDF file: "
+                                                                                + e.getMessage()));
                                         }
-
-                                        try {
-                                                objectMapper.readTree(responseBody);
-                                                log.info("[{}] Successfully received JSON summary response (Length: {}).",
-                                                                metadataId, responseBody.length());
-                                                return responseBody;
-                                        } catch (JsonProcessingException jsonEx) {
-                                                log.error("[{}] Gemini Summarization API (with PDF) response was not valid JSON on attempt {}. Body: {}. Error: {}",
-                                                                metadataId, attempt,
-                                                                responseBody.substring(0, Math.min(
-                                                                                responseBody.length(),
-                                                                                500)),
-                                                                jsonEx.getMessage());
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse(
-                                                                        "Invalid JSON Response",
-                                                                        "API response was not valid JSON: "
-                                                                                        + jsonEx.getMessage());
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
+                                        if (e instanceof ApiException) {
+                                                log.error("[{}] Google Files API Upload Error for PDF: {}",
+                                                                metadataId, e.getMessage(), e);
+                                                return Mono.just(createErrorResponse(
+                                                                "PDF Upload Failed", e.getMessage()));
                                         }
+                                        log.error("[{}] Unexpected error during combined summarization setup: {}",
+                                                        metadataId, e.getMessage(), e);
+                                        return Mono.just(createErrorResponse(
+                                                        "Unexpected Summarization Setup Error",
+                                                        e.getMessage()));
+                                });
+        }
 
-                                } catch (HttpServerErrorException | ResourceAccessException e) {
-                                        log.warn("[{}] Gemini Summarization API (with PDF) call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                        metadataId, attempt, MAX_RETRIES,
-                                                        e.getMessage());
-                                        if (attempt == MAX_RETRIES) {
-                                                log.error("[{}] Gemini Summarization API (with PDF) call failed after {} attempts.",
-                                                                metadataId, MAX_RETRIES, e);
-                                                return createErrorResponse(
-                                                                "API Request Failed (Server/Network)",
-                                                                e.getMessage());
-                                        }
-                                        sleepForRetry(attempt);
-                                } catch (HttpClientErrorException e) {
-                                        log.error("[{}] Gemini Summarization API (with PDF) client error: {} - {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        String details = parseErrorDetails(e);
-                                        return createErrorResponse(
-                                                        "API Client Error: " + e.getStatusCode(),
-                                                        details);
-                                } catch (RestClientResponseException e) {
-                                        log.error("[{}] Gemini Summarization API (with PDF) REST client error: Status {}, Body: {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (REST Client)",
-                                                        e.getMessage());
-                                } catch (RuntimeException e) {
-                                        log.error("[{}] Unexpected runtime error during Gemini Summarization (with PDF) processing on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("Summarization Processing Error",
-                                                        e.getMessage());
-                                }
-                        }
-                        return createErrorResponse("API Request Failed",
-                                        "Max retries reached for summarization or unexpected flow.");
-
-                } catch (IOException e) {
-                        log.error("[{}] IOException during PDF upload: {}", metadataId,
-                                        e.getMessage(), e);
-                        return createErrorResponse("File Handling Error",
-                                        "Error processing PDF file: " + e.getMessage());
-                } catch (ApiException e) {
-                        log.error("[{}] Google Files API Upload Error for PDF: {}", metadataId,
-                                        e.getMessage(), e);
-                        return createErrorResponse("PDF Upload Failed", e.getMessage());
-                } catch (Exception e) {
-                        log.error("[{}] Unexpected error during combined summarization setup: {}",
-                                        metadataId, e.getMessage(), e);
-                        return createErrorResponse("Unexpected Summarization Setup Error",
-                                        e.getMessage());
-                }
+        private Mono<String> summarizeWithPdfUri(String transcriptText, String pdfFileUri,
+                        String metadataId) {
+                String prompt = """
+                                Analyze the provided lecture transcript and the accompanying PDF document.
+                                Generate a comprehensive, concise, well-structured summary incorporating information from BOTH sources, using Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in either the transcript or the document.
+                                Identify the main key points or action items discussed across both sources and list them as distinct strings in the `keyPoints` array.
+                                List the 3-5 most important topics or keywords suitable for searching related content based on both sources in the `topics` array.
+                                Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in either the transcript or the document. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
+                                Ensure the entire output strictly adheres to the provided JSON schema. Output only the JSON object.
+                                """;
+
+                Map<String, Object> promptPart = Map.of("text", prompt);
+                Map<String, Object> transcriptPart = Map.of("text", transcriptText);
+                Map<String, Object> pdfPart = Map.of("file_data",
+                                Map.of("mime_type", "application/pdf", "file_uri", pdfFileUri));
+
+                List<Object> parts = List.of(promptPart, transcriptPart, pdfPart);
+                Map<String, Object> content = Map.of("parts", parts);
+                List<Object> contents = List.of(content);
+
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.4);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
+                generationConfig.put("response_mime_type", "application/json");
+                generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
+
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
+
+                log.info("[{}] Calling Gemini Summarization API (Model: {}) with transcript and PDF context (URI: {})...",
+                                metadataId, SUMMARIZATION_MODEL_NAME, pdfFileUri);
+
+                return generateContent("[" + metadataId + "] Gemini Summarization API (with PDF)",
+                                "Summarization", GeminiUsageRecorder.OPERATION_SUMMARIZE,
+                                metadataId, SUMMARIZATION_MODEL_NAME, requestBody,
+                                summarizationTimeout, pdfFileUri,
+                                responseBody -> validatedJson(responseBody, metadataId));
         }
 
         public String generateSummaryWithGoogleFileUri(String transcriptText, String googleFileUri,
                         String metadataId) {
+                return generateSummaryWithGoogleFileUriAsync(transcriptText, googleFileUri,
+                                metadataId).block();
+        }
+
+        public Mono<String> generateSummaryWithGoogleFileUriAsync(String transcriptText,
+                        String googleFileUri, String metadataId) {
                 log.info("[{}] Starting combined summarization with direct Google Files API URI.",
                                 metadataId);
 
                 if (transcriptText == null || transcriptText.isBlank()) {
                         log.error("[{}] Transcript text is null or blank. Cannot generate summary.",
                                         metadataId);
-                        return createErrorResponse("Input Error", "Transcript text is missing.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "Transcript text is missing."));
                 }
                 if (googleFileUri == null || googleFileUri.isBlank()) {
                         log.error("[{}] Google Files API URI is null or blank.", metadataId);
-                        return createErrorResponse("Input Error",
-                                        "Google Files API URI is missing.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "Google Files API URI is missing."));
                 }
 
-                try {
-                        log.info("[{}] Using Google Files API URI directly: {}", metadataId,
-                                        googleFileUri);
-
-                        HttpHeaders generateHeaders = new HttpHeaders();
-                        generateHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-                        String prompt = """
-                                        Analyze the provided lecture transcript and the accompanying PDF document.
-                                        Generate a comprehensive, concise, well-structured summary incorporating information from BOTH sources, using Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in either the transcript or the document.
-                                        Identify the main key points or action items discussed across both sources and list them as distinct strings in the `keyPoints` array.
-                                        List the 3-5 most important topics or keywords suitable for searching related content based on both sources in the `topics` array.
-                                        Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in either the transcript or the document. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
-                                        YOU MUST RETURN VALID JSON that strictly adheres to the provided schema. Do not include any explanatory text before or after the JSON. The JSON structure must include:
-                                        {
-                                          "summaryText": "Your markdown summary here",
-                                          "keyPoints": ["key point 1", "key point 2", ...],
-                                          "topics": ["topic 1", "topic 2", ...],
-                                          "glossary": [
-                                            {"term": "term1", "definition": "definition1"},
-                                            {"term": "term2", "definition": "definition2"},
-                                            ...
-                                          ]
-                                        }
-                                        """;
+                log.info("[{}] Using Google Files API URI directly: {}", metadataId, googleFileUri);
+
+                return withTranscriptBudget(transcriptText, metadataId,
+                                text -> summarizeWithGoogleFileUri(text, googleFileUri, metadataId));
+        }
+
+        private Mono<String> summarizeWithGoogleFileUri(String transcriptText, String googleFileUri,
+                        String metadataId) {
+                String prompt = """
+                                Analyze the provided lecture transcript and the accompanying PDF document.
+                                Generate a comprehensive, concise, well-structured summary incorporating information from BOTH sources, using Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in either the transcript or the document.
+                                Identify the main key points or action items discussed across both sources and list them as distinct strings in the `keyPoints` array.
+                                List the 3-5 most important topics or keywords suitable for searching related content based on both sources in the `topics` array.
+                                Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in either the transcript or the document. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
+                                YOU MUST RETURN VALID JSON that strictly adheres to the provided schema. Do not include any explanatory text before or after the JSON. The JSON structure must include:
+                                {
+                                  "summaryText": "Your markdown summary here",
+                                  "keyPoints": ["key point 1", "key point 2", ...],
+                                  "topics": ["topic 1", "topic 2", ...],
+                                  "glossary": [
+                                    {"term": "term1", "definition": "definition1"},
+                                    {"term": "term2", "definition": "definition2"},
+                                    ...
+                                  ]
+                                }
+                                """;
 
-                        Map<String, Object> promptPart = Map.of("text", prompt);
-                        Map<String, Object> transcriptPart = Map.of("text", transcriptText);
-                        Map<String, Object> pdfPart = Map.of("file_data", Map.of("mime_type",
-                                        "application/pdf", "file_uri", googleFileUri));
+                Map<String, Object> promptPart = Map.of("text", prompt);
+                Map<String, Object> transcriptPart = Map.of("text", transcriptText);
+                Map<String, Object> pdfPart = Map.of("file_data",
+                                Map.of("mime_type", "application/pdf", "file_uri", googleFileUri));
 
-                        List<Object> parts = List.of(promptPart, transcriptPart, pdfPart);
-                        Map<String, Object> content = Map.of("parts", parts);
-                        List<Object> contents = List.of(content);
+                List<Object> parts = List.of(promptPart, transcriptPart, pdfPart);
+                Map<String, Object> content = Map.of("parts", parts);
+                List<Object> contents = List.of(content);
 
-                        Map<String, Object> generationConfig = new HashMap<>();
-                        generationConfig.put("temperature", 0.4);
-                        generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
-                        generationConfig.put("response_mime_type", "application/json");
-                        generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.4);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
+                generationConfig.put("response_mime_type", "application/json");
+                generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
 
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("contents", contents);
-                        requestBody.put("generationConfig", generationConfig);
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
 
-                        HttpEntity<Map<String, Object>> requestEntity =
-                                        new HttpEntity<>(requestBody, generateHeaders);
+                log.info("[{}] Calling Gemini Summarization API (Model: {}) with transcript and direct PDF context (URI: {})...",
+                                metadataId, SUMMARIZATION_MODEL_NAME, googleFileUri);
 
-                        String generateContentUrl = UriComponentsBuilder
-                                        .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                        .queryParam("key", apiKey)
-                                        .buildAndExpand(SUMMARIZATION_MODEL_NAME).toUriString();
+                return generateContent(
+                                "[" + metadataId + "] Gemini Summarization API (with direct PDF)",
+                                "Summarization", GeminiUsageRecorder.OPERATION_SUMMARIZE,
+                                metadataId, SUMMARIZATION_MODEL_NAME, requestBody,
+                                summarizationTimeout, googleFileUri,
+                                responseBody -> validatedJson(responseBody, metadataId));
+        }
 
-                        log.info("[{}] Calling Gemini Summarization API (Model: {}) with transcript and direct PDF context (URI: {})...",
-                                        metadataId, SUMMARIZATION_MODEL_NAME, googleFileUri);
+        private Mono<String> withTranscriptBudget(String transcriptText, String metadataId,
+                        Function<String, Mono<String>> summarize) {
+                return withTranscriptBudget(transcriptText, metadataId, summarize, 0);
+        }
 
-                        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                                try {
-                                        ResponseEntity<String> response = restTemplate.exchange(
-                                                        generateContentUrl, HttpMethod.POST,
-                                                        requestEntity, String.class);
-                                        log.info("[{}] Gemini Summarization API (generateContent with direct PDF) call successful on attempt {}. Status: {}",
-                                                        metadataId, attempt,
-                                                        response.getStatusCode());
-
-                                        String responseBody = response.getBody();
-                                        if (responseBody == null || responseBody.isBlank()) {
-                                                log.warn("[{}] Gemini Summarization API (with direct PDF) returned successful status ({}) but empty body on attempt {}.",
-                                                                metadataId,
-                                                                response.getStatusCode(), attempt);
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse("Empty Response",
-                                                                        "API returned success status but no content after retries.");
+        private Mono<String> withTranscriptBudget(String transcriptText, String metadataId,
+                        Function<String, Mono<String>> summarize, int depth) {
+                if (!mapReduceEnabled || depth >= MAX_MAP_REDUCE_DEPTH
+                                || !transcriptChunker.exceedsBudget(transcriptText)) {
+                        return summarize.apply(transcriptText);
+                }
+                List<String> chunks = transcriptChunker.split(transcriptText);
+                log.info("[{}] Transcript of ~{} tokens exceeds the summarization budget; condensing {} chunks (level {}).",
+                                metadataId, transcriptChunker.estimateTokens(transcriptText),
+                                chunks.size(), depth + 1);
+
+                return Flux.range(0, chunks.size())
+                                .flatMapSequential(i -> summarizeTranscriptChunk(chunks.get(i), i,
+                                                chunks.size(), metadataId), maxConcurrentChunks)
+                                .collectList()
+                                .flatMap(notes -> {
+                                        StringBuilder condensed = new StringBuilder(
+                                                        "Sequential section notes condensed from a long lecture transcript.");
+                                        for (int i = 0; i < notes.size(); i++) {
+                                                if (isErrorResponse(notes.get(i))) {
+                                                        log.error("[{}] Chunk {} of {} failed to condense: {}",
+                                                                        metadataId, i + 1, notes.size(),
+                                                                        notes.get(i));
+                                                        return Mono.just(notes.get(i));
                                                 }
-                                                sleepForRetry(attempt);
-                                                continue;
+                                                condensed.append("\n\n### Part ").append(i + 1)
+                                                                .append(" of ").append(notes.size())
+                                                                .append("\n\n").append(notes.get(i).trim());
                                         }
+                                        log.info("[{}] Condensed transcript to ~{} tokens.", metadataId,
+                                                        transcriptChunker.estimateTokens(
+                                                                        condensed.toString()));
+                                        return withTranscriptBudget(condensed.toString(), metadataId,
+                                                        summarize, depth + 1);
+                                });
+        }
 
-                                        try {
-                                                objectMapper.readTree(responseBody);
-                                                log.info("[{}] Successfully received JSON summary response (Length: {}).",
-                                                                metadataId, responseBody.length());
-                                                return responseBody;
-                                        } catch (JsonProcessingException jsonEx) {
-                                                log.error("[{}] Gemini Summarization API (with direct PDF) response was not valid JSON on attempt {}. Body: {}. Error: {}",
-                                                                metadataId, attempt,
-                                                                responseBody.substring(0, Math.min(
-                                                                                responseBody.length(),
-                                                                                500)),
-                                                                jsonEx.getMessage());
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse(
-                                                                        "Invalid JSON Response",
-                                                                        "API response was not valid JSON: "
-                                                                                        + jsonEx.getMessage());
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
-                                        }
+        private Mono<String> summarizeTranscriptChunk(String chunkText, int index, int total,
+                        String metadataId) {
+                Map<String, Object> promptPart =
+                                Map.of("text", String.format(CHUNK_NOTES_PROMPT, index + 1, total));
+                Map<String, Object> transcriptPart = Map.of("text", chunkText);
+                Map<String, Object> content =
+                                Map.of("parts", List.of(promptPart, transcriptPart));
 
-                                } catch (HttpServerErrorException | ResourceAccessException e) {
-                                        log.warn("[{}] Gemini Summarization API (with direct PDF) call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                        metadataId, attempt, MAX_RETRIES,
-                                                        e.getMessage());
-                                        if (attempt == MAX_RETRIES) {
-                                                log.error("[{}] Gemini Summarization API (with direct PDF) call failed after {} attempts.",
-                                                                metadataId, MAX_RETRIES, e);
-                                                return createErrorResponse(
-                                                                "API Request Failed (Server/Network)",
-                                                                e.getMessage());
-                                        }
-                                        sleepForRetry(attempt);
-                                } catch (HttpClientErrorException e) {
-                                        log.error("[{}] Gemini Summarization API (with direct PDF) client error: {} - {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        String details = parseErrorDetails(e);
-                                        return createErrorResponse(
-                                                        "API Client Error: " + e.getStatusCode(),
-                                                        details);
-                                } catch (RestClientResponseException e) {
-                                        log.error("[{}] Gemini Summarization API (with direct PDF) REST client error: Status {}, Body: {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (REST Client)",
-                                                        e.getMessage());
-                                } catch (RuntimeException e) {
-                                        log.error("[{}] Unexpected runtime error during Gemini Summarization (with direct PDF) processing on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("Summarization Processing Error",
-                                                        e.getMessage());
-                                }
-                        }
-                        return createErrorResponse("API Request Failed",
-                                        "Max retries reached for summarization or unexpected flow.");
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.3);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_CHUNK_NOTES);
 
-                } catch (Exception e) {
-                        log.error("[{}] Unexpected error during combined summarization setup: {}",
-                                        metadataId, e.getMessage(), e);
-                        return createErrorResponse("Unexpected Summarization Setup Error",
-                                        e.getMessage());
-                }
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", List.of(content));
+                requestBody.put("generationConfig", generationConfig);
+
+                return generateContent("[" + metadataId + "] Gemini Chunk Notes API (" + (index + 1)
+                                + "/" + total + ")", "Summarization",
+                                GeminiUsageRecorder.OPERATION_SUMMARIZE, metadataId,
+                                SUMMARIZATION_MODEL_NAME, requestBody, summarizationTimeout, null,
+                                this::extractTextFromStandardResponse);
+        }
+
+        private String validatedJson(String responseBody, String metadataId)
+                        throws JsonProcessingException {
+                objectMapper.readTree(responseBody);
+                log.info("[{}] Successfully received JSON summary response (Length: {}).",
+                                metadataId, responseBody.length());
+                return responseBody;
         }
 
         private String extractTextFromStandardResponse(String rawResponse)
@@ -963,6 +962,12 @@ public class GeminiService {
                 throw new ApiException("No valid candidates found in Gemini response.");
         }
 
+        private void evictRejectedFileUri(HttpClientErrorException e, String fileUri) {
+                if (isRejectedFile(e)) {
+                        geminiFileCacheService.evictFileUri(fileUri);
+                }
+        }
+
         private String parseErrorDetails(HttpClientErrorException e) {
                 return parseErrorDetailsFromString(e.getResponseBodyAsString());
         }
@@ -994,9 +999,10 @@ public class GeminiService {
         }
 
         public String callSimpleTextAPI(String promptText) {
-                HttpHeaders headers = new HttpHeaders();
-                headers.setContentType(MediaType.APPLICATION_JSON);
+                return callSimpleTextAPIAsync(promptText).block();
+        }
 
+        public Mono<String> callSimpleTextAPIAsync(String promptText) {
                 Map<String, Object> textPart = Map.of("text", promptText);
                 List<Object> parts = List.of(textPart);
                 Map<String, Object> content = Map.of("parts", parts);
@@ -1010,83 +1016,11 @@ public class GeminiService {
                 requestBody.put("contents", contents);
                 requestBody.put("generationConfig", generationConfig);
 
-                HttpEntity<Map<String, Object>> requestEntity =
-                                new HttpEntity<>(requestBody, headers);
-
-                String simpleTextUrl = UriComponentsBuilder
-                                .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                .queryParam("key", apiKey).buildAndExpand(TRANSCRIPTION_MODEL_NAME)
-                                .toUriString();
-
                 log.info("Calling Gemini Simple Text API (Model: {})", TRANSCRIPTION_MODEL_NAME);
 
-                for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                        try {
-                                ResponseEntity<String> response = restTemplate.exchange(
-                                                simpleTextUrl, HttpMethod.POST, requestEntity,
-                                                String.class);
-                                log.info("Gemini Simple Text API call successful on attempt {} using model {}. Status: {}",
-                                                attempt, TRANSCRIPTION_MODEL_NAME,
-                                                response.getStatusCode());
-
-                                String responseBody = response.getBody();
-                                if (responseBody == null || responseBody.isBlank()) {
-                                        log.warn("Gemini Simple Text API returned successful status ({}) but empty body.",
-                                                        response.getStatusCode());
-                                        if (attempt == MAX_RETRIES) {
-                                                return createErrorResponse("Empty Response",
-                                                                "API returned success status but no content after retries.");
-                                        }
-                                        sleepForRetry(attempt);
-                                        continue;
-                                }
-
-                                String extractedText =
-                                                extractTextFromStandardResponse(responseBody);
-                                log.info("Successfully extracted simple text response (length: {}).",
-                                                extractedText.length());
-                                return extractedText;
-
-                        } catch (ApiException e) {
-                                log.error("Gemini Simple Text API Error on attempt {}: {}", attempt,
-                                                e.getMessage(), e);
-                                return createErrorResponse("Simple Text API Error", e.getMessage());
-                        } catch (HttpServerErrorException | ResourceAccessException e) {
-                                log.warn("Gemini Simple Text API call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                attempt, MAX_RETRIES, e.getMessage());
-                                if (attempt == MAX_RETRIES) {
-                                        log.error("Gemini Simple Text API call failed after {} attempts.",
-                                                        MAX_RETRIES, e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (Server/Network)",
-                                                        e.getMessage());
-                                }
-                                sleepForRetry(attempt);
-                        } catch (HttpClientErrorException e) {
-                                log.error("Gemini Simple Text API client error: {} - {}",
-                                                e.getStatusCode(), e.getResponseBodyAsString(), e);
-                                String details = parseErrorDetails(e);
-                                return createErrorResponse("API Client Error: " + e.getStatusCode(),
-                                                details);
-                        } catch (RestClientResponseException e) {
-                                log.error("Gemini Simple Text API REST client error: Status {}, Body: {}",
-                                                e.getStatusCode(), e.getResponseBodyAsString(), e);
-                                return createErrorResponse("API Request Failed (REST Client)",
-                                                e.getMessage());
-                        } catch (JsonProcessingException e) {
-                                log.error("Error parsing successful Gemini Simple Text response JSON on attempt {}: {}",
-                                                attempt, e.getMessage(), e);
-                                return createErrorResponse("Response Parsing Error",
-                                                e.getMessage());
-                        } catch (RuntimeException e) {
-                                log.error("Unexpected runtime error during Gemini Simple Text API processing on attempt {}: {}",
-                                                attempt, e.getMessage(), e);
-                                return createErrorResponse("Simple Text Processing Error",
-                                                e.getMessage());
-                        }
-                }
-                return createErrorResponse("API Request Failed",
-                                "Max retries reached for simple text or unexpected flow.");
+                return generateContent("Gemini Simple Text API", "Simple Text",
+                                GeminiUsageRecorder.OPERATION_TEXT, null, TRANSCRIPTION_MODEL_NAME, requestBody, textTimeout, null,
+                                this::extractTextFromStandardResponse);
         }
 
         private String getAudioMimeType(String fileName) {
@@ -1120,334 +1054,384 @@ public class GeminiService {
                 return "audio/mpeg";
         }
 
-        private void sleepForRetry(int attempt) {
-                try {
-                        TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS * attempt);
-                } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        log.error("API call interrupted during retry wait.", ie);
-                        throw new RuntimeException("API call interrupted during retry wait.", ie);
-                }
+        public String generateTranscriptOnlySummary(String transcriptText, String metadataId) {
+                return generateTranscriptOnlySummaryAsync(transcriptText, metadataId).block();
         }
 
-        public String generateTranscriptOnlySummary(String transcriptText, String metadataId) {
+        public Mono<String> generateTranscriptOnlySummaryAsync(String transcriptText,
+                        String metadataId) {
                 log.info("[{}] Starting transcript-only summarization.", metadataId);
 
                 if (transcriptText == null || transcriptText.isBlank()) {
                         log.error("[{}] Transcript text is null or blank. Cannot generate summary.",
                                         metadataId);
-                        return createErrorResponse("Input Error", "Transcript text is missing.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "Transcript text is missing."));
                 }
 
-                try {
-                        HttpHeaders generateHeaders = new HttpHeaders();
-                        generateHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-                        String prompt = """
-                                        Analyze the provided lecture transcript carefully.
-                                        Generate a comprehensive, concise, well-structured summary in Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in the transcript.
-                                        Identify the main key points or action items discussed and list them as distinct strings in the `keyPoints` array.
-                                        List the 3-5 most important topics or keywords suitable for searching related content in the `topics` array.
-                                        Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in the transcript. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
-                                        Stay strictly within the boundaries of what is explicitly mentioned in the transcript. Do not add external information, assumptions, or hallucinations.
-                                        Ensure the entire output strictly adheres to the provided JSON schema. Output only the JSON object.
-                                        """;
-
-                        Map<String, Object> promptPart = Map.of("text", prompt);
-                        Map<String, Object> transcriptPart = Map.of("text", transcriptText);
-
-                        List<Object> parts = List.of(promptPart, transcriptPart);
-                        Map<String, Object> content = Map.of("parts", parts);
-                        List<Object> contents = List.of(content);
-
-                        Map<String, Object> generationConfig = new HashMap<>();
-                        generationConfig.put("temperature", 0.3);
-                        generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
-                        generationConfig.put("response_mime_type", "application/json");
-                        generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
-
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("contents", contents);
-                        requestBody.put("generationConfig", generationConfig);
-
-                        HttpEntity<Map<String, Object>> requestEntity =
-                                        new HttpEntity<>(requestBody, generateHeaders);
-
-                        String generateContentUrl = UriComponentsBuilder
-                                        .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                        .queryParam("key", apiKey)
-                                        .buildAndExpand(SUMMARIZATION_MODEL_NAME).toUriString();
-
-                        log.info("[{}] Calling Gemini Summarization API (Model: {}) for transcript-only summary...",
-                                        metadataId, SUMMARIZATION_MODEL_NAME);
-
-                        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-                                try {
-                                        ResponseEntity<String> response = restTemplate.exchange(
-                                                        generateContentUrl, HttpMethod.POST,
-                                                        requestEntity, String.class);
-                                        log.info("[{}] Gemini Summarization API call for transcript-only summary successful on attempt {}. Status: {}",
-                                                        metadataId, attempt,
-                                                        response.getStatusCode());
-
-                                        String responseBody = response.getBody();
-                                        if (responseBody == null || responseBody.isBlank()) {
-                                                log.warn("[{}] Gemini Summarization API returned successful status ({}) but empty body on attempt {}.",
-                                                                metadataId,
-                                                                response.getStatusCode(), attempt);
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse("Empty Response",
-                                                                        "API returned success status but no content after retries.");
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
-                                        }
+                return withTranscriptBudget(transcriptText, metadataId,
+                                text -> summarizeTranscriptOnly(text, metadataId));
+        }
 
-                                        try {
-                                                String extractedJsonText =
-                                                                extractTextFromStandardResponse(
-                                                                                responseBody);
-                                                log.info("[{}] Successfully received and extracted JSON summary response for transcript-only summary (Length: {}).",
-                                                                metadataId,
-                                                                extractedJsonText.length());
-                                                return extractedJsonText;
-                                        } catch (JsonProcessingException jsonEx) {
-                                                log.error("[{}] Gemini Summarization API response was not valid JSON on attempt {}. Error: {}",
-                                                                metadataId, attempt,
-                                                                jsonEx.getMessage());
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse(
-                                                                        "Invalid JSON Response",
-                                                                        "API response was not valid JSON: "
-                                                                                        + jsonEx.getMessage());
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
-                                        }
+        private Mono<String> summarizeTranscriptOnly(String transcriptText, String metadataId) {
+                String prompt = """
+                                Analyze the provided lecture transcript carefully.
+                                Generate a comprehensive, concise, well-structured summary in Markdown in the `summaryText` field. Use headings (##) for main sections and bullet points (* or -) for details. Focus on core arguments, findings, definitions, and conclusions presented in the transcript.
+                                Identify the main key points or action items discussed and list them as distinct strings in the `keyPoints` array.
+                                List the 3-5 most important topics or keywords suitable for searching related content in the `topics` array.
+                                Identify important **terms, concepts, acronyms, proper nouns (people, places, organizations mentioned), and technical vocabulary** discussed in the transcript. For each, provide a concise definition relevant to the context. Structure this as an array of objects in the `glossary` field, where each object has a `term` (string) and a `definition` (string). Aim for comprehensive coverage of potentially unfamiliar items for a learner.
+                                Stay strictly within the boundaries of what is explicitly mentioned in the transcript. Do not add external information, assumptions, or hallucinations.
+                                Ensure the entire output strictly adheres to the provided JSON schema. Output only the JSON object.
+                                """;
+
+                Map<String, Object> promptPart = Map.of("text", prompt);
+                Map<String, Object> transcriptPart = Map.of("text", transcriptText);
 
-                                } catch (ApiException e) {
-                                        log.error("[{}] Gemini Summarization API Error on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("Summarization API Error",
-                                                        e.getMessage());
-                                } catch (HttpServerErrorException | ResourceAccessException e) {
-                                        log.warn("[{}] Gemini Summarization API call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                        metadataId, attempt, MAX_RETRIES,
-                                                        e.getMessage());
-                                        if (attempt == MAX_RETRIES) {
-                                                log.error("[{}] Gemini Summarization API call failed after {} attempts.",
-                                                                metadataId, MAX_RETRIES, e);
-                                                return createErrorResponse(
-                                                                "API Request Failed (Server/Network)",
-                                                                e.getMessage());
-                                        }
-                                        sleepForRetry(attempt);
-                                } catch (HttpClientErrorException e) {
-                                        log.error("[{}] Gemini Summarization API client error: {} - {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        String details = parseErrorDetails(e);
-                                        return createErrorResponse(
-                                                        "API Client Error: " + e.getStatusCode(),
-                                                        details);
-                                } catch (RestClientResponseException e) {
-                                        log.error("[{}] Gemini Summarization API REST client error: Status {}, Body: {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (REST Client)",
-                                                        e.getMessage());
-                                } catch (RuntimeException e) {
-                                        log.error("[{}] Unexpected runtime error during Gemini Summarization processing on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("Summarization Processing Error",
-                                                        e.getMessage());
-                                }
-                        }
-                        return createErrorResponse("API Request Failed",
-                                        "Max retries reached for transcript-only summarization or unexpected flow.");
+                List<Object> parts = List.of(promptPart, transcriptPart);
+                Map<String, Object> content = Map.of("parts", parts);
+                List<Object> contents = List.of(content);
 
-                } catch (Exception e) {
-                        log.error("[{}] Unexpected error during transcript-only summarization: {}",
-                                        metadataId, e.getMessage(), e);
-                        return createErrorResponse("Summarization Error",
-                                        "Unexpected error: " + e.getMessage());
-                }
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.3);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
+                generationConfig.put("response_mime_type", "application/json");
+                generationConfig.put("response_schema", SUMMARY_RESPONSE_SCHEMA);
+
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
+
+                log.info("[{}] Calling Gemini Summarization API (Model: {}) for transcript-only summary...",
+                                metadataId, SUMMARIZATION_MODEL_NAME);
+
+                return generateContent("[" + metadataId + "] Gemini Summarization API",
+                                "Summarization", GeminiUsageRecorder.OPERATION_SUMMARIZE,
+                                metadataId, SUMMARIZATION_MODEL_NAME, requestBody,
+                                summarizationTimeout, null, responseBody -> {
+                                        String extractedJsonText =
+                                                        extractTextFromStandardResponse(responseBody);
+                                        log.info("[{}] Successfully received and extracted JSON summary response for transcript-only summary (Length: {}).",
+                                                        metadataId, extractedJsonText.length());
+                                        return extractedJsonText;
+                                });
         }
 
         public String generateRecommendationsAudioOnly(String summaryText, String transcriptText,
                         String metadataId) {
+                return generateRecommendationsAudioOnlyAsync(summaryText, transcriptText, metadataId)
+                                .block();
+        }
+
+        public Mono<String> generateRecommendationsAudioOnlyAsync(String summaryText,
+                        String transcriptText, String metadataId) {
                 log.info("[{}] Starting recommendation generation for audio-only recording",
                                 metadataId);
 
                 if (summaryText == null || summaryText.isBlank()) {
                         log.error("[{}] Summary text is null or blank. Cannot generate recommendations.",
                                         metadataId);
-                        return createErrorResponse("Input Error", "Summary text is missing.");
+                        return Mono.just(createErrorResponse("Input Error",
+                                        "Summary text is missing."));
                 }
 
-                try {
-                        HttpHeaders generateHeaders = new HttpHeaders();
-                        generateHeaders.setContentType(MediaType.APPLICATION_JSON);
-
-                        String prompt = """
-                                                You are an expert educational content recommender.
-
-                                                Based on the provided lecture summary and transcript (if available), recommend high-quality learning resources that would complement the lecture content.
-
-                                                For each recommendation:
-                                                1. Use the `title` field to provide a descriptive title that clearly indicates the content (e.g. "Introduction to Neural Networks")
-                                                2. Use the `description` field to explain why this resource is relevant and how it relates to the lecture (2-3 sentences)
-                                                3. Use the `url` field to provide a direct link to the resource (prefer YouTube videos, official documentation, academic papers)
-                                                4. Use the `type` field to specify the type (e.g. "Video", "Article", "Tutorial", "Documentation", "Tool", "Book", "Course")
-                                                5. Use the `audience` field to specify the target audience level ("Beginner", "Intermediate", "Advanced")
-
-                                                Generate 5-7 diverse, high-quality recommendations that cover different aspects of the material.
-                                                Focus on resources that either:
-                                                - Clarify complex concepts from the lecture
-                                                - Expand on key topics mentioned
-                                                - Provide practical applications of the content
-                                                - Offer visual explanations for better understanding
-
-                                                Ensure recommendations are closely related to the lecture content. Do not include general or loosely related resources.
-                                        YOUR RESPONSE MUST STRICTLY ADHERE TO THE JSON SCHEMA PROVIDED. Return only the array of recommendation objects.
-                                        """;
-
-                        Map<String, Object> promptPart = Map.of("text", prompt);
-                        Map<String, Object> transcriptPart =
-                                        Map.of("text", "LECTURE TRANSCRIPT: " + transcriptText);
-                        Map<String, Object> summaryPart =
-                                        Map.of("text", "LECTURE SUMMARY: " + summaryText);
-
-                        List<Object> parts = new ArrayList<>();
-                        parts.add(promptPart);
-                        parts.add(summaryPart);
-
-                        if (transcriptText != null && !transcriptText.isBlank()) {
-                                parts.add(transcriptPart);
-                                log.info("[{}] Including transcript in recommendation generation request",
-                                                metadataId);
-                        } else {
-                                log.info("[{}] No transcript available, generating recommendations based on summary only",
-                                                metadataId);
-                        }
-
-                        Map<String, Object> content = Map.of("parts", parts);
-                        List<Object> contents = List.of(content);
-
-                        Map<String, Object> generationConfig = new HashMap<>();
-                        generationConfig.put("temperature", 0.3);
-                        generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
-                        generationConfig.put("response_mime_type", "application/json");
-                        generationConfig.put("response_schema", RECOMMENDATIONS_RESPONSE_SCHEMA);
+                String prompt = """
+                                        You are an expert educational content recommender.
+
+                                        Based on the provided lecture summary and transcript (if available), recommend high-quality learning resources that would complement the lecture content.
+
+                                        For each recommendation:
+                                        1. Use the `title` field to provide a descriptive title that clearly indicates the content (e.g. "Introduction to Neural Networks")
+                                        2. Use the `description` field to explain why this resource is relevant and how it relates to the lecture (2-3 sentences)
+                                        3. Use the `url` field to provide a direct link to the resource (prefer YouTube videos, official documentation, academic papers)
+                                        4. Use the `type` field to specify the type (e.g. "Video", "Article", "Tutorial", "Documentation", "Tool", "Book", "Course")
+                                        5. Use the `audience` field to specify the target audience level ("Beginner", "Intermediate", "Advanced")
+
+                                        Generate 5-7 diverse, high-quality recommendations that cover different aspects of the material.
+                                        Focus on resources that either:
+                                        - Clarify complex concepts from the lecture
+                                        - Expand on key topics mentioned
+                                        - Provide practical applications of the content
+                                        - Offer visual explanations for better understanding
+
+                                        Ensure recommendations are closely related to the lecture content. Do not include general or loosely related resources.
+                                YOUR RESPONSE MUST STRICTLY ADHERE TO THE JSON SCHEMA PROVIDED. Return only the array of recommendation objects.
+                                """;
+
+                Map<String, Object> promptPart = Map.of("text", prompt);
+                Map<String, Object> transcriptPart =
+                                Map.of("text", "LECTURE TRANSCRIPT: " + transcriptText);
+                Map<String, Object> summaryPart = Map.of("text", "LECTURE SUMMARY: " + summaryText);
+
+                List<Object> parts = new ArrayList<>();
+                parts.add(promptPart);
+                parts.add(summaryPart);
+
+                if (transcriptText != null && !transcriptText.isBlank()) {
+                        parts.add(transcriptPart);
+                        log.info("[{}] Including transcript in recommendation generation request",
+                                        metadataId);
+                } else {
+                        log.info("[{}] No transcript available, generating recommendations based on summary only",
+                                        metadataId);
+                }
 
-                        Map<String, Object> requestBody = new HashMap<>();
-                        requestBody.put("contents", contents);
-                        requestBody.put("generationConfig", generationConfig);
+                Map<String, Object> content = Map.of("parts", parts);
+                List<Object> contents = List.of(content);
 
-                        HttpEntity<Map<String, Object>> requestEntity =
-                                        new HttpEntity<>(requestBody, generateHeaders);
+                Map<String, Object> generationConfig = new HashMap<>();
+                generationConfig.put("temperature", 0.3);
+                generationConfig.put("maxOutputTokens", MAX_OUTPUT_TOKENS_SUMMARIZATION);
+                generationConfig.put("response_mime_type", "application/json");
+                generationConfig.put("response_schema", RECOMMENDATIONS_RESPONSE_SCHEMA);
 
-                        String generateContentUrl = UriComponentsBuilder
-                                        .fromUriString(API_BASE_URL + GENERATE_CONTENT_PATH)
-                                        .queryParam("key", apiKey)
-                                        .buildAndExpand(SUMMARIZATION_MODEL_NAME).toUriString();
+                Map<String, Object> requestBody = new HashMap<>();
+                requestBody.put("contents", contents);
+                requestBody.put("generationConfig", generationConfig);
 
-                        log.info("[{}] Calling Gemini API (Model: {}) for audio-only recommendations with schema...",
-                                        metadataId, SUMMARIZATION_MODEL_NAME);
+                log.info("[{}] Calling Gemini API (Model: {}) for audio-only recommendations with schema...",
+                                metadataId, SUMMARIZATION_MODEL_NAME);
+
+                return generateContent("[" + metadataId + "] Gemini Recommendations API",
+                                "Recommendations", GeminiUsageRecorder.OPERATION_RECOMMEND,
+                                metadataId, SUMMARIZATION_MODEL_NAME, requestBody,
+                                summarizationTimeout, null, responseBody -> {
+                                        String extractedJsonText =
+                                                        extractTextFromStandardResponse(responseBody);
+                                        objectMapper.readTree(extractedJsonText);
+                                        log.info("[{}] Successfully received and extracted JSON recommendations response (Length: {}).",
+                                                        metadataId, extractedJsonText.length());
+                                        return extractedJsonText;
+                                });
+        }
 
-                        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
+        private Mono<String> generateContent(String apiName, String errorPrefix, String operation,
+                        @Nullable String metadataId, String modelName,
+                        Map<String, Object> requestBody, Duration timeout, @Nullable String fileUri,
+                        ResponseHandler responseHandler) {
+                String generateContentUrl = UriComponentsBuilder
+                                .fromUriString(apiBaseUrl + GENERATE_CONTENT_PATH)
+                                .queryParam("key", apiKey).buildAndExpand(modelName).toUriString();
+                AtomicInteger attempts = new AtomicInteger();
+                AtomicReference<JsonNode> usageMetadata = new AtomicReference<>();
+
+                Mono<String> result = Mono.defer(() -> {
+                        int attempt = attempts.incrementAndGet();
+                        Mono<String> call = geminiRateGovernor.execute(modelName, metadataId,
+                                        postJson(generateContentUrl, requestBody, timeout));
+                        return call.map(responseBody -> {
+                                log.info("{} call successful on attempt {} using model {}.", apiName,
+                                                attempt, modelName);
+                                if (responseBody.isBlank()) {
+                                        log.warn("{} returned successful status but empty body on attempt {}.",
+                                                        apiName, attempt);
+                                        throw new RetryableResponseException("Empty Response",
+                                                        "API returned success status but no content after retries.");
+                                }
                                 try {
-                                        ResponseEntity<String> response = restTemplate.exchange(
-                                                        generateContentUrl, HttpMethod.POST,
-                                                        requestEntity, String.class);
-                                        log.info("[{}] Gemini API call for audio-only recommendations successful on attempt {}. Status: {}",
-                                                        metadataId, attempt,
-                                                        response.getStatusCode());
-
-                                        String responseBody = response.getBody();
-                                        if (responseBody == null || responseBody.isBlank()) {
-                                                log.warn("[{}] Gemini API returned successful status but empty body on attempt {}.",
-                                                                metadataId, attempt);
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse("Empty Response",
-                                                                        "API returned success status but no content after retries.");
-                                                }
-                                                sleepForRetry(attempt);
-                                                continue;
-                                        }
+                                        usageMetadata.set(readUsageMetadata(responseBody));
+                                        return responseHandler.handle(responseBody);
+                                } catch (JsonProcessingException e) {
+                                        log.error("{} response was not valid JSON on attempt {}. Error: {}",
+                                                        apiName, attempt, e.getMessage());
+                                        throw new RetryableResponseException("Invalid JSON Response",
+                                                        "API response was not valid JSON: "
+                                                                        + e.getMessage());
+                                } catch (ApiException e) {
+                                        throw Exceptions.propagate(e);
+                                }
+                        });
+                }).retryWhen(geminiRateGovernor.retryPolicy(apiName, this::isRetryable))
+                                .onErrorResume(e -> Mono
+                                                .fromCallable(() -> toErrorResponse(apiName, errorPrefix,
+                                                                Exceptions.unwrap(e), attempts.get(),
+                                                                fileUri))
+                                                .subscribeOn(Schedulers.boundedElastic()));
+
+                return Mono.defer(() -> {
+                        long startNanos = System.nanoTime();
+                        return result.doOnNext(response -> geminiUsageRecorder.record(modelName,
+                                        operation, metadataId, usageMetadata.get(),
+                                        System.nanoTime() - startNanos,
+                                        Math.max(0, attempts.get() - 1),
+                                        !isErrorResponse(response)));
+                });
+        }
+
+        @Nullable
+        private JsonNode readUsageMetadata(String responseBody) {
+                try {
+                        return objectMapper.readTree(responseBody).get("usageMetadata");
+                } catch (JsonProcessingException e) {
+                        return null;
+                }
+        }
 
+        private Flux<String> streamGenerateContent(String modelName,
+                        Map<String, Object> requestBody, @Nullable String metadataId) {
+                String streamUrl = UriComponentsBuilder
+                                .fromUriString(apiBaseUrl + STREAM_GENERATE_CONTENT_PATH)
+                                .queryParam("alt", "sse").queryParam("key", apiKey)
+                                .buildAndExpand(modelName).toUriString();
+
+                AtomicReference<JsonNode> usageMetadata = new AtomicReference<>();
+                Flux<String> chunks = geminiWebClient.post().uri(URI.create(streamUrl))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .accept(MediaType.TEXT_EVENT_STREAM).bodyValue(requestBody)
+                                .retrieve().bodyToFlux(SSE_EVENT_TYPE).timeout(streamIdleTimeout)
+                                .onErrorMap(this::toRestClientException)
+                                .mapNotNull(ServerSentEvent::data)
+                                .handle((data, sink) -> {
                                         try {
-                                                String extractedJsonText =
-                                                                extractTextFromStandardResponse(
-                                                                                responseBody);
-
-                                                objectMapper.readTree(extractedJsonText);
-
-                                                log.info("[{}] Successfully received and extracted JSON recommendations response (Length: {}).",
-                                                                metadataId,
-                                                                extractedJsonText.length());
-                                                return extractedJsonText;
-                                        } catch (JsonProcessingException jsonEx) {
-                                                log.error("[{}] Gemini API recommendations response was not valid JSON on attempt {}. Error: {}",
-                                                                metadataId, attempt,
-                                                                jsonEx.getMessage());
-                                                if (attempt == MAX_RETRIES) {
-                                                        return createErrorResponse(
-                                                                        "Invalid JSON Response",
-                                                                        "API response was not valid JSON: "
-                                                                                        + jsonEx.getMessage());
+                                                JsonNode chunk = objectMapper.readTree(data);
+                                                if (chunk.has("usageMetadata")) {
+                                                        usageMetadata.set(chunk.get("usageMetadata"));
                                                 }
-                                                sleepForRetry(attempt);
-                                                continue;
+                                                String text = extractStreamChunkText(chunk);
+                                                if (!text.isEmpty()) {
+                                                        sink.next(text);
+                                                }
+                                        } catch (JsonProcessingException | ApiException e) {
+                                                sink.error(e);
                                         }
+                                });
+                // Failures before the first chunk (connect errors, 429, 5xx) are retried like any
+                // other call; once text has been emitted a restart would repeat it, so later
+                // failures go to the caller.
+                return Flux.defer(() -> {
+                        long startNanos = System.nanoTime();
+                        AtomicInteger attempts = new AtomicInteger();
+                        AtomicBoolean emitted = new AtomicBoolean();
+                        return Flux.defer(() -> {
+                                attempts.incrementAndGet();
+                                return geminiRateGovernor.executeStream(modelName, metadataId,
+                                                chunks);
+                        }).doOnNext(text -> emitted.set(true))
+                                        .retryWhen(geminiRateGovernor.retryPolicy(
+                                                        "Gemini Streaming Transcription API",
+                                                        e -> !emitted.get() && isRetryable(e)))
+                                        .doFinally(signal -> geminiUsageRecorder.record(modelName,
+                                                        GeminiUsageRecorder.OPERATION_TRANSCRIBE,
+                                                        metadataId, usageMetadata.get(),
+                                                        System.nanoTime() - startNanos,
+                                                        Math.max(0, attempts.get() - 1),
+                                                        signal == SignalType.ON_COMPLETE));
+                });
+        }
 
-                                } catch (ApiException e) {
-                                        log.error("[{}] Gemini API Error on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("API Error", e.getMessage());
-                                } catch (HttpServerErrorException | ResourceAccessException e) {
-                                        log.warn("[{}] Gemini API call failed on attempt {}/{} with retryable error: {}. Retrying...",
-                                                        metadataId, attempt, MAX_RETRIES,
-                                                        e.getMessage());
-                                        if (attempt == MAX_RETRIES) {
-                                                log.error("[{}] Gemini API call failed after {} attempts.",
-                                                                metadataId, MAX_RETRIES, e);
-                                                return createErrorResponse(
-                                                                "API Request Failed (Server/Network)",
-                                                                e.getMessage());
-                                        }
-                                        sleepForRetry(attempt);
-                                } catch (HttpClientErrorException e) {
-                                        log.error("[{}] Gemini API client error: {} - {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        String details = parseErrorDetails(e);
-                                        return createErrorResponse(
-                                                        "API Client Error: " + e.getStatusCode(),
-                                                        details);
-                                } catch (RestClientResponseException e) {
-                                        log.error("[{}] Gemini API REST client error: Status {}, Body: {}",
-                                                        metadataId, e.getStatusCode(),
-                                                        e.getResponseBodyAsString(), e);
-                                        return createErrorResponse(
-                                                        "API Request Failed (REST Client)",
-                                                        e.getMessage());
-                                } catch (RuntimeException e) {
-                                        log.error("[{}] Unexpected runtime error during Gemini processing on attempt {}: {}",
-                                                        metadataId, attempt, e.getMessage(), e);
-                                        return createErrorResponse("Processing Error",
-                                                        e.getMessage());
-                                }
+        private String extractStreamChunkText(JsonNode chunk) throws ApiException {
+                if (chunk.has("error")) {
+                        throw new ApiException("Gemini API Error: "
+                                        + chunk.path("error").path("message").asText("Unknown API error"));
+                }
+                JsonNode candidate = chunk.path("candidates").path(0);
+                String finishReason = candidate.path("finishReason").asText("");
+                if ("SAFETY".equals(finishReason) || "RECITATION".equals(finishReason)) {
+                        throw new ApiException(
+                                        "Gemini API Error: Content Blocked (Finish Reason) - " + finishReason);
+                }
+                StringBuilder text = new StringBuilder();
+                for (JsonNode part : candidate.path("content").path("parts")) {
+                        text.append(part.path("text").asText(""));
+                }
+                return text.toString();
+        }
+
+        private Mono<String> postJson(String url, Object body, Duration timeout) {
+                return geminiWebClient.post().uri(URI.create(url))
+                                .contentType(MediaType.APPLICATION_JSON).bodyValue(body).retrieve()
+                                .toEntity(String.class).timeout(timeout)
+                                .map(response -> response.getBody() != null ? response.getBody() : "")
+                                .onErrorMap(this::toRestClientException);
+        }
+
+        private Throwable toRestClientException(Throwable e) {
+                if (e instanceof WebClientResponseException) {
+                        WebClientResponseException response = (WebClientResponseException) e;
+                        if (response.getStatusCode().is4xxClientError()) {
+                                return HttpClientErrorException.create(response.getStatusCode(),
+                                                response.getStatusText(), response.getHeaders(),
+                                                response.getResponseBodyAsByteArray(),
+                                                StandardCharsets.UTF_8);
+                        }
+                        if (response.getStatusCode().is5xxServerError()) {
+                                return HttpServerErrorException.create(response.getStatusCode(),
+                                                response.getStatusText(), response.getHeaders(),
+                                                response.getResponseBodyAsByteArray(),
+                                                StandardCharsets.UTF_8);
                         }
-                        return createErrorResponse("API Request Failed",
-                                        "Max retries reached for recommendations or unexpected flow.");
+                        return new RestClientResponseException(response.getMessage(),
+                                        response.getStatusCode(), response.getStatusText(),
+                                        response.getHeaders(), response.getResponseBodyAsByteArray(),
+                                        StandardCharsets.UTF_8);
+                }
+                if (e instanceof WebClientRequestException || e instanceof TimeoutException) {
+                        ResourceAccessException accessException = new ResourceAccessException(
+                                        "I/O error on Gemini API request: " + e.getMessage());
+                        accessException.initCause(e);
+                        return accessException;
+                }
+                return e;
+        }
 
-                } catch (Exception e) {
-                        log.error("[{}] Unexpected error during recommendation generation: {}",
-                                        metadataId, e.getMessage(), e);
-                        return createErrorResponse("Recommendation Error",
-                                        "Unexpected error: " + e.getMessage());
+        private boolean isRetryable(Throwable e) {
+                return e instanceof HttpServerErrorException || e instanceof ResourceAccessException
+                                || e instanceof RetryableResponseException
+                                || geminiRateGovernor.isThrottled(e);
+        }
+
+        private String toErrorResponse(String apiName, String errorPrefix, Throwable e, int attempts,
+                        @Nullable String fileUri) {
+                if (e instanceof RetryableResponseException) {
+                        log.error("{} returned no usable content after {} attempts: {}", apiName,
+                                        attempts, e.getMessage());
+                        return createErrorResponse(((RetryableResponseException) e).getTitle(),
+                                        e.getMessage());
+                }
+                if (e instanceof HttpServerErrorException || e instanceof ResourceAccessException) {
+                        log.error("{} call failed after {} attempts.", apiName, attempts, e);
+                        return createErrorResponse(ERROR_SERVER_OR_NETWORK,
+                                        e.getMessage());
+                }
+                if (e instanceof GeminiUnavailableException) {
+                        log.error("{} not attempted: {}", apiName, e.getMessage());
+                        return createErrorResponse(ERROR_UNAVAILABLE, e.getMessage());
+                }
+                if (e instanceof HttpClientErrorException) {
+                        HttpClientErrorException clientError = (HttpClientErrorException) e;
+                        log.error("{} client error: {} - {}", apiName, clientError.getStatusCode(),
+                                        clientError.getResponseBodyAsString(), e);
+                        if (fileUri != null) {
+                                evictRejectedFileUri(clientError, fileUri);
+                        }
+                        return createErrorResponse(ERROR_CLIENT_PREFIX + clientError.getStatusCode(),
+                                        parseErrorDetails(clientError));
+                }
+                if (e instanceof RestClientResponseException) {
+                        RestClientResponseException responseError = (RestClientResponseException) e;
+                        log.error("{} REST client error: Status {}, Body: {}", apiName,
+                                        responseError.getStatusCode(),
+                                        responseError.getResponseBodyAsString(), e);
+                        return createErrorResponse("API Request Failed (REST Client)",
+                                        e.getMessage());
+                }
+                if (e instanceof ApiException) {
+                        log.error("{} Error on attempt {}: {}", apiName, attempts, e.getMessage(), e);
+                        return createErrorResponse(errorPrefix + " API Error", e.getMessage());
+                }
+                log.error("Unexpected runtime error during {} processing on attempt {}: {}", apiName,
+                                attempts, e.getMessage(), e);
+                return createErrorResponse(errorPrefix + " Processing Error", e.getMessage());
+        }
+
+        private String blockWithIOException(Mono<String> call) throws IOException {
+                try {
+                        return call.block();
+                } catch (RuntimeException e) {
+                        Throwable cause = Exceptions.unwrap(e);
+                        if (cause instanceof IOException) {
+                                throw (IOException) cause;
+                        }
+                        throw e;
                 }
         }
 
@@ -1546,4 +1530,29 @@ public class GeminiService {
                         super(message, cause);
                 }
         }
+
+        @FunctionalInterface
+        private interface ResponseHandler {
+                String handle(String responseBody) throws JsonProcessingException, ApiException;
+        }
+
+        private record PendingUpload(long fileSize, @Nullable String contentHash,
+                        @Nullable String cachedFileUri) {
+        }
+
+        private record UploadedFile(String fileUri, boolean reused) {
+        }
+
+        private static class RetryableResponseException extends RuntimeException {
+                private final String title;
+
+                public RetryableResponseException(String title, String message) {
+                        super(message);
+                        this.title = title;
+                }
+
+                public String getTitle() {
+                        return title;
+                }
+        }
 }
@@ -0,0 +1,145 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.cloud.firestore.FieldValue;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+public class GeminiUsageRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(GeminiUsageRecorder.class);
+
+    public static final String OPERATION_TRANSCRIBE = "transcribe";
+    public static final String OPERATION_SUMMARIZE = "summarize";
+    public static final String OPERATION_RECOMMEND = "recommend";
+    public static final String OPERATION_TEXT = "text";
+
+    private final MeterRegistry meterRegistry;
+    private final FirebaseService firebaseService;
+    private final Map<String, UsageTotals> totals = new ConcurrentHashMap<>();
+    private final Instant startedAt = Instant.now();
+
+    public GeminiUsageRecorder(MeterRegistry meterRegistry, FirebaseService firebaseService) {
+        this.meterRegistry = meterRegistry;
+        this.firebaseService = firebaseService;
+    }
+
+    public void record(String model, String operation, @Nullable String metadataId,
+            @Nullable JsonNode usageMetadata, long elapsedNanos, int retries, boolean success) {
+        long promptTokens = tokenCount(usageMetadata, "promptTokenCount");
+        long outputTokens = tokenCount(usageMetadata, "candidatesTokenCount")
+                + tokenCount(usageMetadata, "thoughtsTokenCount");
+        String outcome = success ? "success" : "error";
+
+        Timer.builder("gemini.call.latency").description("Gemini call latency including retries")
+                .tags("model", model, "operation", operation, "outcome", outcome)
+                .publishPercentileHistogram().register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (promptTokens > 0) {
+            tokenCounter(model, operation, "prompt").increment(promptTokens);
+        }
+        if (outputTokens > 0) {
+            tokenCounter(model, operation, "output").increment(outputTokens);
+        }
+        if (retries > 0) {
+            Counter.builder("gemini.call.retries").tags("model", model, "operation", operation)
+                    .register(meterRegistry).increment(retries);
+        }
+
+        UsageTotals usage = totals.computeIfAbsent(model + "/" + operation, k -> new UsageTotals());
+        usage.calls.increment();
+        if (!success) {
+            usage.errors.increment();
+        }
+        usage.retries.add(retries);
+        usage.promptTokens.add(promptTokens);
+        usage.outputTokens.add(outputTokens);
+        usage.latencyMillis.add(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        if (metadataId != null) {
+            long latencyMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+            Schedulers.boundedElastic().schedule(() -> persistRecordingUsage(metadataId,
+                    promptTokens, outputTokens, retries, latencyMillis));
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        double uptimeMinutes =
+                Math.max(1.0, Duration.between(startedAt, Instant.now()).toSeconds() / 60.0);
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        long allTokens = 0;
+        for (Map.Entry<String, UsageTotals> entry : totals.entrySet()) {
+            UsageTotals usage = entry.getValue();
+            long calls = usage.calls.sum();
+            long tokens = usage.promptTokens.sum() + usage.outputTokens.sum();
+            allTokens += tokens;
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("calls", calls);
+            view.put("errors", usage.errors.sum());
+            view.put("retries", usage.retries.sum());
+            view.put("promptTokens", usage.promptTokens.sum());
+            view.put("outputTokens", usage.outputTokens.sum());
+            view.put("tokensPerMinute", Math.round(tokens / uptimeMinutes));
+            view.put("averageLatencyMillis", calls > 0 ? usage.latencyMillis.sum() / calls : 0);
+            byOperation.put(entry.getKey(), view);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("since", startedAt.toString());
+        result.put("totalTokens", allTokens);
+        result.put("tokensPerMinute", Math.round(allTokens / uptimeMinutes));
+        result.put("byModelAndOperation", byOperation);
+        return result;
+    }
+
+    private Counter tokenCounter(String model, String operation, String type) {
+        return Counter.builder("gemini.tokens").baseUnit("tokens")
+                .tags("model", model, "operation", operation, "type", type)
+                .register(meterRegistry);
+    }
+
+    private void persistRecordingUsage(String metadataId, long promptTokens, long outputTokens,
+            int retries, long latencyMillis) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("modelCalls", FieldValue.increment(1));
+        update.put("modelPromptTokens", FieldValue.increment(promptTokens));
+        update.put("modelOutputTokens", FieldValue.increment(outputTokens));
+        update.put("modelRetries", FieldValue.increment(retries));
+        update.put("modelLatencyMillis", FieldValue.increment(latencyMillis));
+        try {
+            firebaseService.updateDataWithMap(firebaseService.getAudioMetadataCollectionName(),
+                    metadataId, update);
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to record Gemini usage on metadata: {}", metadataId,
+                    e.getMessage());
+        }
+    }
+
+    private static long tokenCount(@Nullable JsonNode usageMetadata, String field) {
+        return usageMetadata == null ? 0 : usageMetadata.path(field).asLong(0);
+    }
+
+    private static class UsageTotals {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+        private final LongAdder latencyMillis = new LongAdder();
+    }
+}
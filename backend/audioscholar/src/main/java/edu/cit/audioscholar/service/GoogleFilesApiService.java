@@ -30,18 +30,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 @Service
 public class GoogleFilesApiService {
     private static final Logger log = LoggerFactory.getLogger(GoogleFilesApiService.class);
-    private static final String API_BASE_URL = "https://generativelanguage.googleapis.com";
     private static final String FILES_API_UPLOAD_PATH = "/upload/v1beta/files";
 
     @Value("${google.ai.api.key}")
     private String apiKey;
+
+    @Value("${app.gemini.api-base-url:https://generativelanguage.googleapis.com}")
+    private String apiBaseUrl;
     
     private final RestTemplate restTemplate;
     private final ObjectMapper objectMapper;
+    private final GeminiFileCacheService geminiFileCacheService;
     
-    public GoogleFilesApiService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public GoogleFilesApiService(RestTemplate restTemplate, ObjectMapper objectMapper,
+            GeminiFileCacheService geminiFileCacheService) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
+        this.geminiFileCacheService = geminiFileCacheService;
     }
     
     public static class ApiException extends Exception {
@@ -55,7 +60,8 @@ public class GoogleFilesApiService {
     }
     
     /**
-     * Uploads a file to Google Files API.
+     * Uploads a file to Google Files API, or returns the URI of an earlier upload of the same
+     * content that has not expired yet.
      * 
      * @param filePath The path to the file to upload
      * @param mimeType The MIME type of the file
@@ -67,8 +73,21 @@ public class GoogleFilesApiService {
      */
     public String uploadFile(Path filePath, String mimeType, long fileSize, String displayName)
             throws IOException, ApiException {
+        String contentHash = geminiFileCacheService.hash(filePath);
+        String cachedFileUri = geminiFileCacheService.getFileUri(contentHash);
+        if (cachedFileUri != null) {
+            log.info("Reusing Google Files API URI {} for {}", cachedFileUri, displayName);
+            return cachedFileUri;
+        }
+        String fileUri = uploadFileBytes(filePath, mimeType, fileSize, displayName);
+        geminiFileCacheService.put(contentHash, fileUri, mimeType, fileSize);
+        return fileUri;
+    }
+
+    private String uploadFileBytes(Path filePath, String mimeType, long fileSize,
+            String displayName) throws IOException, ApiException {
         String initiateUrl = UriComponentsBuilder
-                .fromUriString(API_BASE_URL + FILES_API_UPLOAD_PATH)
+                .fromUriString(apiBaseUrl + FILES_API_UPLOAD_PATH)
                 .queryParam("key", apiKey).toUriString();
 
         HttpHeaders initiateHeaders = new HttpHeaders();
@@ -0,0 +1,87 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Single-JVM lease store for tests and local runs (app.lease.store=memory). Same contract as
+ * {@link FirestoreLeaseService}, but only coordinates listeners inside this process.
+ */
+@Service
+@ConditionalOnProperty(name = "app.lease.store", havingValue = "memory")
+public class InMemoryLeaseService implements LeaseService {
+
+    private final String owner = "local/" + UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+    private final Map<String, Long> fencingTokens = new ConcurrentHashMap<>();
+    private final Map<String, Instant> processed = new ConcurrentHashMap<>();
+
+    @Override
+    @Nullable
+    public Lease tryAcquire(String key, Duration ttl) {
+        AtomicReference<Lease> granted = new AtomicReference<>();
+        leases.compute(key, (k, current) -> {
+            Instant now = Instant.now();
+            if (current != null && current.expiresAt().isAfter(now)) {
+                return current;
+            }
+            long token = fencingTokens.merge(k, 1L, Long::sum);
+            Lease lease = new Lease(k, owner, token, now.plus(ttl));
+            granted.set(lease);
+            return lease;
+        });
+        return granted.get();
+    }
+
+    @Override
+    @Nullable
+    public Lease renew(Lease lease, Duration ttl) {
+        AtomicReference<Lease> renewed = new AtomicReference<>();
+        leases.computeIfPresent(lease.key(), (k, current) -> {
+            Instant now = Instant.now();
+            if (!holds(current, lease) || !current.expiresAt().isAfter(now)) {
+                return current;
+            }
+            Lease extended = new Lease(k, owner, current.fencingToken(), now.plus(ttl));
+            renewed.set(extended);
+            return extended;
+        });
+        return renewed.get();
+    }
+
+    @Override
+    public void release(Lease lease) {
+        leases.computeIfPresent(lease.key(), (k, current) -> holds(current, lease) ? null : current);
+    }
+
+    @Override
+    public boolean isHeld(String key) {
+        Lease current = leases.get(key);
+        return current != null && current.expiresAt().isAfter(Instant.now());
+    }
+
+    @Override
+    public boolean markProcessed(String messageKey, Duration ttl) {
+        Instant now = Instant.now();
+        processed.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        return processed.putIfAbsent(messageKey, now.plus(ttl)) == null;
+    }
+
+    @Override
+    public boolean isProcessed(String messageKey) {
+        Instant expiresAt = processed.get(messageKey);
+        return expiresAt != null && expiresAt.isAfter(Instant.now());
+    }
+
+    private static boolean holds(Lease current, Lease lease) {
+        return current.fencingToken() == lease.fencingToken()
+                && current.owner().equals(lease.owner());
+    }
+}
@@ -0,0 +1,203 @@
+package edu.cit.audioscholar.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.audioscholar.config.StageRetryAdvice;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Single-JVM transport for one-node deployments and local load tests
+ * (app.pipeline.transport=memory).
+ * Each routing key gets a bounded queue drained by virtual-thread workers, so stage hops skip the
+ * broker and JSON round trip. Producers block while a lane is full and fail once the offer times
+ * out. Sending to a routing key nothing registered for throws, like an unroutable mandatory
+ * publish on the broker. Transient failures are retried on the same delay tiers as the RabbitMQ
+ * transport; there is no parking queue, so anything else is logged and dropped for the reconciler
+ * to pick up.
+ */
+@Service
+@ConditionalOnProperty(name = "app.pipeline.transport", havingValue = "memory")
+public class InMemoryPipelineTransport implements PipelineTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryPipelineTransport.class);
+
+    private static final long REQUEUE_DELAY_MS = 1000L;
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final int laneCapacity;
+    private final int workersPerLane;
+    private final long offerTimeoutMs;
+    private final List<Integer> delaysSeconds;
+    private final Map<String, Lane<?>> lanes = new ConcurrentHashMap<>();
+    private final VirtualThreadTaskExecutor executor =
+            new VirtualThreadTaskExecutor("pipeline-memory-");
+    private final ScheduledExecutorService retryScheduler = Executors
+            .newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("pipeline-memory-retry").daemon().factory());
+
+    private volatile boolean running = true;
+
+    public InMemoryPipelineTransport(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${app.pipeline.memory.lane-capacity:256}") int laneCapacity,
+            @Value("${app.pipeline.memory.workers-per-lane:4}") int workersPerLane,
+            @Value("${app.pipeline.memory.offer-timeout-ms:5000}") long offerTimeoutMs,
+            @Value("${app.rabbit.retry.delays-seconds:10,60,300}") List<Integer> delaysSeconds) {
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.laneCapacity = Math.max(1, laneCapacity);
+        this.workersPerLane = Math.max(1, workersPerLane);
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.delaysSeconds = List.copyOf(delaysSeconds);
+    }
+
+    @Override
+    public void send(String routingKey, Object payload) {
+        Lane<?> lane = lanes.get(routingKey);
+        if (lane == null) {
+            throw new AmqpException("No in-process consumer for routing key '" + routingKey + "'");
+        }
+        enqueue(lane, lane.convert(payload, objectMapper), 0);
+    }
+
+    @Override
+    public <T> void register(String routingKey, Class<T> payloadType, StageHandler<T> handler) {
+        Lane<T> lane = new Lane<>(routingKey, payloadType, handler,
+                new ArrayBlockingQueue<>(laneCapacity));
+        if (lanes.putIfAbsent(routingKey, lane) != null) {
+            throw new IllegalStateException("Routing key already has a consumer: " + routingKey);
+        }
+        meterRegistry.gauge("pipeline.memory.lane.depth", Tags.of("lane", routingKey),
+                lane.queue(), BlockingQueue::size);
+        for (int i = 0; i < workersPerLane; i++) {
+            executor.execute(() -> drain(lane));
+        }
+        log.info("In-process lane '{}' started with {} worker(s), capacity {}.", routingKey,
+                workersPerLane, laneCapacity);
+    }
+
+    @Override
+    public Map<String, LaneBacklog> laneBacklog() {
+        Map<String, LaneBacklog> backlog = new LinkedHashMap<>();
+        lanes.forEach((key, lane) -> {
+            Envelope head = lane.queue().peek();
+            backlog.put(key, new LaneBacklog(lane.queue().size(), workersPerLane,
+                    head != null ? head.enqueuedAtMillis() : 0));
+        });
+        return backlog;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        retryScheduler.shutdownNow();
+        lanes.forEach((key, lane) -> {
+            if (!lane.queue().isEmpty()) {
+                log.warn("Discarding {} undelivered in-process message(s) on lane '{}'.",
+                        lane.queue().size(), key);
+            }
+        });
+    }
+
+    private void enqueue(Lane<?> lane, Object payload, int attempt) {
+        try {
+            if (!lane.queue().offer(new Envelope(payload, attempt, System.currentTimeMillis()),
+                    offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new AmqpException("In-process lane '" + lane.routingKey() + "' is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmqpException(
+                    "Interrupted while enqueuing on lane '" + lane.routingKey() + "'", e);
+        }
+    }
+
+    private <T> void drain(Lane<T> lane) {
+        while (running) {
+            Envelope envelope;
+            try {
+                envelope = lane.queue().poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (envelope != null) {
+                dispatch(lane, envelope);
+            }
+        }
+    }
+
+    private <T> void dispatch(Lane<T> lane, Envelope envelope) {
+        int attempt = envelope.attempt();
+        try {
+            lane.handler().handle(lane.payloadType().cast(envelope.payload()),
+                    attempt == 0 ? null : attempt);
+        } catch (ImmediateRequeueAmqpException e) {
+            schedule(lane, envelope.payload(), attempt, REQUEUE_DELAY_MS);
+        } catch (Exception e) {
+            if (StageRetryAdvice.isTransient(e) && attempt < delaysSeconds.size()) {
+                int delay = delaysSeconds.get(attempt);
+                log.warn("[{}] Transient failure on attempt {} ({}); redelivering in {}s.",
+                        lane.routingKey(), attempt + 1, e.getMessage(), delay);
+                schedule(lane, envelope.payload(), attempt + 1, TimeUnit.SECONDS.toMillis(delay));
+            } else {
+                log.error("[{}] Dropping in-process message after {} attempt(s): {}",
+                        lane.routingKey(), attempt + 1, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void schedule(Lane<?> lane, Object payload, int attempt, long delayMs) {
+        if (!running) {
+            return;
+        }
+        retryScheduler.schedule(() -> executor.execute(() -> {
+            try {
+                enqueue(lane, payload, attempt);
+            } catch (AmqpException e) {
+                log.error("[{}] Could not requeue in-process message: {}", lane.routingKey(),
+                        e.getMessage());
+            }
+        }), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private record Envelope(Object payload, int attempt, long enqueuedAtMillis) {
+    }
+
+    private record Lane<T>(String routingKey, Class<T> payloadType, StageHandler<T> handler,
+            BlockingQueue<Envelope> queue) {
+
+        T convert(Object payload, ObjectMapper objectMapper) {
+            if (payloadType.isInstance(payload)) {
+                return payloadType.cast(payload);
+            }
+            try {
+                return objectMapper.convertValue(payload, payloadType);
+            } catch (IllegalArgumentException e) {
+                throw new MessageConversionException(
+                        "Cannot convert " + payload.getClass().getSimpleName() + " for lane '"
+                                + routingKey + "'",
+                        e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Renews stage leases while their work runs, so a lease TTL only has to cover a crashed holder
+ * rather than the longest job. Renewal happens every third of the TTL; once a renewal fails the
+ * lease is treated as lost and the fencing token keeps the late holder's writes out. The
+ * scheduler thread only ticks; each renewal is a blocking Firestore transaction and runs on its
+ * own virtual thread, so many held leases do not queue behind one another.
+ */
+@Component
+public class LeaseHeartbeat {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaseHeartbeat.class);
+
+    private final LeaseService leaseService;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("lease-heartbeat").daemon().factory());
+    private final ExecutorService renewals = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("lease-renewal-", 0).factory());
+
+    public LeaseHeartbeat(LeaseService leaseService) {
+        this.leaseService = leaseService;
+    }
+
+    /** Starts renewing the lease; close the returned handle before releasing it. */
+    public Renewal keepAlive(LeaseService.Lease lease, Duration ttl) {
+        Renewal renewal = new Renewal(lease, ttl);
+        long periodMillis = Math.max(1000L, ttl.toMillis() / 3);
+        renewal.future = scheduler.scheduleAtFixedRate(renewal::beat, periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+        return renewal;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        renewals.shutdownNow();
+    }
+
+    public final class Renewal implements AutoCloseable {
+
+        private final Duration ttl;
+        private volatile LeaseService.Lease lease;
+        private volatile boolean lost;
+        private volatile ScheduledFuture<?> future;
+        private final AtomicBoolean renewing = new AtomicBoolean();
+
+        private Renewal(LeaseService.Lease lease, Duration ttl) {
+            this.lease = lease;
+            this.ttl = ttl;
+        }
+
+        /** False once a renewal found the lease expired or held by someone else. */
+        public boolean isHeld() {
+            return !lost;
+        }
+
+        /** Hands the renewal to a virtual thread unless the previous one is still running. */
+        private void beat() {
+            if (!renewing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                renewals.execute(this::renew);
+            } catch (RejectedExecutionException e) {
+                renewing.set(false);
+            }
+        }
+
+        private void renew() {
+            try {
+                LeaseService.Lease renewed = leaseService.renew(lease, ttl);
+                if (renewed == null) {
+                    lost = true;
+                    log.warn("Lease '{}' (token {}) was lost before its work finished.",
+                            lease.key(), lease.fencingToken());
+                    future.cancel(false);
+                    return;
+                }
+                lease = renewed;
+            } catch (RuntimeException e) {
+                log.warn("Could not renew lease '{}'; retrying on the next beat: {}", lease.key(),
+                        e.getMessage());
+            } finally {
+                renewing.set(false);
+            }
+        }
+
+        @Override
+        public void close() {
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
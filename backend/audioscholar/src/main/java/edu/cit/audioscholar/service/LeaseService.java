@@ -0,0 +1,42 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.springframework.lang.Nullable;
+
+/**
+ * Cluster-wide leases and message de-duplication for the queue listeners. A lease grants one
+ * node exclusive work on a key until it is released or its TTL lapses; every grant carries a
+ * fencing token that is strictly greater than any earlier grant for the same key, so writes made
+ * under an expired lease can be rejected.
+ */
+public interface LeaseService {
+
+    /** Returns the lease, or null when another owner holds an unexpired lease on the key. */
+    @Nullable
+    Lease tryAcquire(String key, Duration ttl);
+
+    /**
+     * Extends a held lease to now + ttl, keeping its fencing token. Returns the renewed lease, or
+     * null when the lease has lapsed or been taken over by another owner.
+     */
+    @Nullable
+    Lease renew(Lease lease, Duration ttl);
+
+    void release(Lease lease);
+
+    /** True while some owner holds an unexpired lease on the key. */
+    boolean isHeld(String key);
+
+    /**
+     * Records a message key as handled. Returns true for the first caller within the TTL and false
+     * for every duplicate delivery.
+     */
+    boolean markProcessed(String messageKey, Duration ttl);
+
+    /** True while a {@link #markProcessed} marker for the key is unexpired. */
+    boolean isProcessed(String messageKey);
+
+    record Lease(String key, String owner, long fencingToken, Instant expiresAt) {
+    }
+}
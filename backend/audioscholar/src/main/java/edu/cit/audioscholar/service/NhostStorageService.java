@@ -8,12 +8,17 @@ import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
@@ -64,28 +69,148 @@ public class NhostStorageService {
         public String error;
     }
 
+    public static class StreamedUpload {
+        private final String fileId;
+        private final long size;
+        private final String sha256;
+
+        public StreamedUpload(String fileId, long size, String sha256) {
+            this.fileId = fileId;
+            this.size = size;
+            this.sha256 = sha256;
+        }
+
+        public String getFileId() {
+            return fileId;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getSha256() {
+            return sha256;
+        }
+    }
+
+    private static class CountingDigestInputStream extends DigestInputStream {
+        private long count;
+
+        CountingDigestInputStream(InputStream stream, MessageDigest digest) {
+            super(stream, digest);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
     public String uploadFile(File file, String originalFilename, String contentType)
             throws IOException {
         if (file == null || !file.exists() || !file.canRead()) {
             throw new IOException("File is null, does not exist, or cannot be read: "
                     + (file != null ? file.getAbsolutePath() : "null"));
         }
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
-        headers.set("x-hasura-admin-secret", nhostAdminSecret);
-
         MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
         FileSystemResource resource = new FileSystemResource(file);
         body.add("file", resource);
 
-        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
-
         String filenameToLog =
                 StringUtils.hasText(originalFilename) ? originalFilename : file.getName();
         LOGGER.log(Level.INFO, "Uploading file {0} ({1} bytes) from path {2} to Nhost URL: {3}",
                 new Object[] {filenameToLog, file.length(), file.getAbsolutePath(),
                         nhostStorageUrl});
 
+        return postMultipart(body);
+    }
+
+    public StreamedUpload uploadStream(InputStream inputStream, long contentLength,
+            String originalFilename, String contentType) throws IOException {
+        if (inputStream == null) {
+            throw new IOException("Input stream is null for upload of: " + originalFilename);
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 digest is not available.", e);
+        }
+        CountingDigestInputStream source = new CountingDigestInputStream(inputStream, digest);
+        String filename = StringUtils.hasText(originalFilename) ? originalFilename : "upload";
+
+        // Known length lets the converter send a sized part; the body is still streamed.
+        InputStreamResource resource = new InputStreamResource(source) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+        };
+
+        HttpHeaders partHeaders = new HttpHeaders();
+        if (StringUtils.hasText(contentType)) {
+            try {
+                partHeaders.setContentType(MediaType.parseMediaType(contentType));
+            } catch (InvalidMediaTypeException e) {
+                partHeaders.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+            }
+        }
+        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
+        body.add("file", new HttpEntity<>(resource, partHeaders));
+
+        LOGGER.log(Level.INFO, "Streaming upload of {0} ({1} bytes) to Nhost URL: {2}",
+                new Object[] {filename, contentLength, nhostStorageUrl});
+
+        String fileId = postMultipart(body);
+        long bytesSent = source.getCount();
+        if (contentLength >= 0 && bytesSent != contentLength) {
+            // A short or overlong stream leaves a truncated or padded file behind; never keep it.
+            LOGGER.log(Level.SEVERE,
+                    "Streamed {0} bytes for {1} but {2} bytes were declared; deleting Nhost file {3}.",
+                    new Object[] {bytesSent, filename, contentLength, fileId});
+            try {
+                deleteFile(fileId);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Could not delete incomplete Nhost file " + fileId, e);
+            }
+            throw new IOException("Streamed " + bytesSent + " bytes for " + filename + " but "
+                    + contentLength + " bytes were declared.");
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        LOGGER.log(Level.INFO, "Streamed {0} bytes for {1} to Nhost. File ID: {2}, SHA-256: {3}",
+                new Object[] {bytesSent, filename, fileId, sha256});
+        return new StreamedUpload(fileId, bytesSent, sha256);
+    }
+
+    private String postMultipart(MultiValueMap<String, Object> body) throws IOException {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.set("x-hasura-admin-secret", nhostAdminSecret);
+
+        HttpEntity<MultiValueMap<String, Object>> requestEntity = new HttpEntity<>(body, headers);
+
         try {
             ResponseEntity<String> rawResponse = restTemplate.exchange(nhostStorageUrl,
                     HttpMethod.POST, requestEntity, String.class);
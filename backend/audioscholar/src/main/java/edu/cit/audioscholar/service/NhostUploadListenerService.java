@@ -1,32 +1,36 @@
 package edu.cit.audioscholar.service;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
 import edu.cit.audioscholar.config.RabbitMQConfig;
 import edu.cit.audioscholar.dto.AudioProcessingMessage;
 import edu.cit.audioscholar.dto.NhostUploadMessage;
 import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.TransientStageException;
 import edu.cit.audioscholar.model.AudioMetadata;
 import edu.cit.audioscholar.model.ProcessingStatus;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class NhostUploadListenerService {
@@ -35,24 +39,52 @@ public class NhostUploadListenerService {
 
         private final FirebaseService firebaseService;
         private final NhostStorageService nhostStorageService;
-        private final RabbitTemplate rabbitTemplate;
+        private final PipelineTransport pipelineTransport;
         private final ObjectMapper objectMapper;
-        private final Map<String, Lock> metadataLocks = new HashMap<>();
+        private final ContentHashIndexService contentHashIndexService;
+        private final LeaseService leaseService;
+        private final LeaseHeartbeat leaseHeartbeat;
+        private final ProcessingLaneRouter processingLaneRouter;
+        private final StageTimelineService stageTimelineService;
+        private final Duration leaseTtl;
 
         public NhostUploadListenerService(FirebaseService firebaseService,
-                        NhostStorageService nhostStorageService, RabbitTemplate rabbitTemplate,
-                        ObjectMapper objectMapper) {
+                        NhostStorageService nhostStorageService,
+                        PipelineTransport pipelineTransport,
+                        ObjectMapper objectMapper, ContentHashIndexService contentHashIndexService,
+                        LeaseService leaseService, LeaseHeartbeat leaseHeartbeat,
+                        ProcessingLaneRouter processingLaneRouter,
+                        @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes,
+                        StageTimelineService stageTimelineService) {
                 this.firebaseService = firebaseService;
                 this.nhostStorageService = nhostStorageService;
-                this.rabbitTemplate = rabbitTemplate;
+                this.pipelineTransport = pipelineTransport;
                 this.objectMapper = objectMapper;
+                this.contentHashIndexService = contentHashIndexService;
+                this.leaseService = leaseService;
+                this.leaseHeartbeat = leaseHeartbeat;
+                this.processingLaneRouter = processingLaneRouter;
+                this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+                this.stageTimelineService = stageTimelineService;
         }
 
-        @RabbitListener(queues = RabbitMQConfig.UPLOAD_QUEUE_NAME)
+        @PostConstruct
+        void registerInProcessConsumers() {
+                pipelineTransport.register(RabbitMQConfig.UPLOAD_AUDIO_ROUTING_KEY,
+                                NhostUploadMessage.class,
+                                (message, attempt) -> handleNhostUploadRequest(message));
+                pipelineTransport.register(RabbitMQConfig.UPLOAD_PPTX_ROUTING_KEY,
+                                NhostUploadMessage.class,
+                                (message, attempt) -> handleNhostUploadRequest(message));
+        }
+
+        @RabbitListener(queues = RabbitMQConfig.UPLOAD_QUEUE_NAME,
+                        containerFactory = RabbitMQConfig.UPLOAD_LISTENER_FACTORY)
         public void handleNhostUploadRequest(NhostUploadMessage message) {
                 if (message == null || message.getMetadataId() == null
                                 || message.getFileType() == null
-                                || message.getTempFilePath() == null
+                                || (message.getTempFilePath() == null
+                                                && message.getNhostFileId() == null)
                                 || message.getOriginalFilename() == null
                                 || message.getOriginalContentType() == null) {
                         log.error("[Nhost Upload Listener] Received invalid message (null or missing fields): {}",
@@ -67,6 +99,11 @@ public class NhostUploadListenerService {
                 String originalContentType = message.getOriginalContentType();
                 Path tempFilePath = null;
 
+                if (StringUtils.hasText(message.getNhostFileId())) {
+                        handleStreamedUpload(message);
+                        return;
+                }
+
                 if (!StringUtils.hasText(tempFilePathStr)) {
                         log.error("[Nhost Upload Listener] Received message for metadata {} ({}) with missing tempFilePath. Cannot process.",
                                         metadataId, fileType);
@@ -98,9 +135,10 @@ public class NhostUploadListenerService {
                         return;
                 }
 
-                Lock lock = metadataLocks.computeIfAbsent(metadataId, k -> new ReentrantLock());
-                lock.lock();
-                log.debug("Acquired lock for metadataId {}", metadataId);
+                LeaseService.Lease lease = acquireUploadLease(metadataId);
+                log.debug("Acquired upload lease for metadataId {}", metadataId);
+                LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+                StageTimelineService.Span span = startUploadSpan(message);
 
                 try {
                         metadata = firebaseService.getAudioMetadataById(metadataId);
@@ -134,16 +172,23 @@ public class NhostUploadListenerService {
                                 return;
                         }
 
-                        File fileToUpload = tempFilePath.toFile();
                         String nhostFileId = null;
+                        String contentHash = null;
+                        long uploadedSize = 0;
                         String publicUrl = null;
 
-                        try {
+                        try (InputStream inputStream = Files.newInputStream(tempFilePath)) {
                                 log.info("[{}] Attempting to upload file {} to Nhost Storage with content type {}...",
                                                 metadataId, originalFilename, originalContentType);
                                 Instant uploadStart = Instant.now();
-                                nhostFileId = nhostStorageService.uploadFile(fileToUpload,
-                                                originalFilename, originalContentType);
+                                NhostStorageService.StreamedUpload upload =
+                                                nhostStorageService.uploadStream(inputStream,
+                                                                Files.size(tempFilePath),
+                                                                originalFilename,
+                                                                originalContentType);
+                                nhostFileId = upload.getFileId();
+                                contentHash = upload.getSha256();
+                                uploadedSize = upload.getSize();
                                 Instant uploadEnd = Instant.now();
                                 log.info("[{}] File uploaded successfully to Nhost. File ID: {}. Duration: {} ms",
                                                 metadataId, nhostFileId,
@@ -166,7 +211,8 @@ public class NhostUploadListenerService {
                                 return;
                         }
 
-                        updateMetadataAfterUpload(metadata, nhostFileId, isAudio);
+                        updateMetadataAfterUpload(metadata, nhostFileId, contentHash, uploadedSize,
+                                        isAudio);
 
                         checkUploadCompletionAndTriggerProcessing(metadata);
 
@@ -182,40 +228,148 @@ public class NhostUploadListenerService {
                                 deleteTempFileHelper(tempFilePathStr, metadataId, fileType);
                         }
                 } finally {
-                        lock.unlock();
-                        log.debug("Released lock for metadataId {}", metadataId);
+                        stageTimelineService.finish(span);
+                        renewal.close();
+                        leaseService.release(lease);
+                        log.debug("Released upload lease for metadataId {}", metadataId);
                 }
         }
 
-        private boolean triggerParallelProcessing(String metadataId, boolean pptxExpected) {
+        private void handleStreamedUpload(NhostUploadMessage message) {
+                String metadataId = message.getMetadataId();
+                String fileType = message.getFileType();
+                boolean isAudio = fileType.equalsIgnoreCase("audio");
+                if (!isAudio && !fileType.equalsIgnoreCase("powerpoint")) {
+                        log.error("[Nhost Upload Listener] Received streamed upload for metadataId: {} with unknown fileType: {}. Discarding.",
+                                        metadataId, fileType);
+                        return;
+                }
+
+                log.info("[Nhost Upload Listener] Received streamed {} upload for metadataId: {}, Nhost ID: {}, size: {}",
+                                fileType, metadataId, message.getNhostFileId(),
+                                message.getContentLength());
+
                 String userId = null;
-                AudioMetadata metadata = firebaseService.getAudioMetadataById(metadataId);
-                if (metadata == null) {
-                        log.error("Cannot trigger processing, metadata {} not found.", metadataId);
-                        return false;
+                LeaseService.Lease lease = acquireUploadLease(metadataId);
+                LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+                StageTimelineService.Span span = startUploadSpan(message);
+                try {
+                        AudioMetadata metadata = firebaseService.getAudioMetadataById(metadataId);
+                        if (metadata == null) {
+                                log.error("[Nhost Upload Listener] Metadata not found for ID: {}. Cannot record streamed upload.",
+                                                metadataId);
+                                return;
+                        }
+                        userId = metadata.getUserId();
+
+                        if (metadata.getStatus() != ProcessingStatus.UPLOAD_IN_PROGRESS) {
+                                log.warn("[{}] Metadata status is not UPLOAD_IN_PROGRESS (it's {}). Ignoring streamed {} upload.",
+                                                metadataId, metadata.getStatus(), fileType);
+                                return;
+                        }
+                        String existingId = isAudio ? metadata.getNhostFileId()
+                                        : metadata.getNhostPptxFileId();
+                        if (StringUtils.hasText(existingId)) {
+                                log.warn("[{}] {} Nhost ID {} already recorded. Skipping duplicate message.",
+                                                metadataId, fileType, existingId);
+                                return;
+                        }
+
+                        updateMetadataAfterUpload(metadata, message.getNhostFileId(),
+                                        message.getContentHash(),
+                                        message.getContentLength() != null
+                                                        ? message.getContentLength()
+                                                        : 0L,
+                                        isAudio);
+
+                        checkUploadCompletionAndTriggerProcessing(metadata);
+                } catch (Exception e) {
+                        log.error("[Nhost Upload Listener] Unexpected error recording streamed upload for metadataId {}: {}",
+                                        metadataId, e.getMessage(), e);
+                        updateStatus(metadataId, userId, ProcessingStatus.FAILED,
+                                        "Unexpected error during upload handling: "
+                                                        + e.getMessage());
+                } finally {
+                        stageTimelineService.finish(span);
+                        renewal.close();
+                        leaseService.release(lease);
                 }
-                userId = metadata.getUserId();
+        }
 
-                boolean transcriptionSent = false;
-                boolean pptxConversionSent = false;
+        private StageTimelineService.Span startUploadSpan(NhostUploadMessage message) {
+                String stage = "audio".equalsIgnoreCase(message.getFileType())
+                                ? StageTimelineService.STAGE_UPLOAD_AUDIO
+                                : StageTimelineService.STAGE_UPLOAD_PPTX;
+                return stageTimelineService.start(message.getMetadataId(), stage, null,
+                                message.getEnqueuedAt(), null);
+        }
+
+        /**
+         * Audio and PowerPoint uploads of one recording are serialized per metadataId. A busy lease
+         * hands the message back to the delayed retry tiers instead of holding the consumer thread.
+         */
+        private LeaseService.Lease acquireUploadLease(String metadataId) {
+                LeaseService.Lease lease = leaseService.tryAcquire("upload:" + metadataId, leaseTtl);
+                if (lease == null) {
+                        log.info("[{}] Upload lease held by another listener. Deferring message to a delayed retry.",
+                                        metadataId);
+                        throw new TransientStageException(
+                                        "Upload lease busy for metadataId " + metadataId);
+                }
+                return lease;
+        }
 
+        /**
+         * Moves the recording to PROCESSING_QUEUED and stages the transcription message in the same
+         * transaction, then publishes it. The PPTX conversion is queued by the PPTX upload itself.
+         * Returns false without sending if the recording already left the upload statuses.
+         */
+        private boolean triggerParallelProcessing(AudioMetadata metadata) {
+                String metadataId = metadata.getId();
+                String userId = metadata.getUserId();
                 AudioProcessingMessage transcriptionMessage =
                                 new AudioProcessingMessage(metadataId, userId, metadataId);
-                sendMessage(metadataId, RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY, transcriptionMessage,
-                                "transcription queue");
-                transcriptionSent = true;
-
-                if (pptxExpected) {
-                        AudioProcessingMessage pptxMessage =
-                                        new AudioProcessingMessage(metadataId, userId, metadataId);
-                        sendMessage(metadataId, RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                        RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY, pptxMessage,
-                                        "PPTX conversion queue");
-                        pptxConversionSent = true;
+                String tier = stampTier(transcriptionMessage);
+                List<PipelineTransport.Outgoing> messages = List.of(new PipelineTransport.Outgoing(
+                                processingLaneRouter.transcriptionRoutingKey(tier),
+                                transcriptionMessage));
+
+                DocumentReference docRef = firebaseService.getDocumentReference(
+                                firebaseService.getAudioMetadataCollectionName(), metadataId);
+                PipelineTransport.Staged staged = firebaseService.runTransaction(transaction -> {
+                        DocumentSnapshot snapshot = transaction.get(docRef).get();
+                        String status = snapshot.exists() ? snapshot.getString("status") : null;
+                        if (!ProcessingStatus.UPLOAD_IN_PROGRESS.name().equals(status)
+                                        && !ProcessingStatus.UPLOAD_PENDING.name().equals(status)) {
+                                return null;
+                        }
+                        Map<String, Object> updates = new HashMap<>();
+                        updates.put("status", ProcessingStatus.PROCESSING_QUEUED.name());
+                        updates.put("lastUpdated", Timestamp.now());
+                        updates.put("failureReason", null);
+                        transaction.update(docRef, updates);
+                        return pipelineTransport.stageAll(transaction, messages);
+                });
+                if (staged == null) {
+                        log.info("[{}] Recording already left the upload statuses; not queuing processing.",
+                                        metadataId);
+                        return false;
                 }
+                log.info("[{}] Metadata status updated to {}.", metadataId,
+                                ProcessingStatus.PROCESSING_QUEUED);
+                invalidateUserCache(userId);
+                staged.publish();
+                log.info("[{}] Queued {} message(s) on exchange '{}' ({} lane).", metadataId,
+                                messages.size(), RabbitMQConfig.PROCESSING_EXCHANGE_NAME, tier);
+                return true;
+        }
 
-                return transcriptionSent && (!pptxExpected || pptxConversionSent);
+        private String stampTier(AudioProcessingMessage message) {
+                String tier = processingLaneRouter.resolveTier(message.getTier(),
+                                message.getUserId());
+                message.setTier(tier);
+                message.setEnqueuedAt(System.currentTimeMillis());
+                return tier;
         }
 
         private void updateStatus(String metadataId, @Nullable String userId,
@@ -232,9 +386,9 @@ public class NhostUploadListenerService {
                         } else {
                                 updates.put("failureReason", null);
                         }
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                return;
+                        }
                         log.info("[{}] Metadata status updated to {}.", metadataId, status);
 
                         if (status == ProcessingStatus.FAILED
@@ -248,20 +402,6 @@ public class NhostUploadListenerService {
                 }
         }
 
-        private void sendMessage(String metadataId, String exchange, String routingKey,
-                        Object messagePayload, String messageDescription) {
-                try {
-                        rabbitTemplate.convertAndSend(exchange, routingKey, messagePayload);
-                        log.info("Sent message ({}) for metadataId {} to exchange '{}' with key '{}'",
-                                        messageDescription, metadataId, exchange, routingKey);
-                } catch (AmqpException e) {
-                        log.error("Failed to send message ({}) for metadataId {} to exchange '{}' key '{}': {}",
-                                        messageDescription, metadataId, exchange, routingKey,
-                                        e.getMessage(), e);
-                        throw e;
-                }
-        }
-
         private void deleteTempFileHelper(@Nullable String tempFilePathStr, String metadataId,
                         String fileType) {
                 if (!StringUtils.hasText(tempFilePathStr))
@@ -280,12 +420,30 @@ public class NhostUploadListenerService {
         }
 
         private void updateMetadataAfterUpload(AudioMetadata metadata, String nhostFileId,
-                        boolean isAudio) {
+                        @Nullable String contentHash, long size, boolean isAudio) {
                 String metadataId = metadata.getId();
                 String userId = metadata.getUserId();
+                // Registering first takes this recording's reference on the indexed file in the
+                // same transaction that finds it, so the hash is checked on the bytes the upload
+                // already streamed instead of in a separate pass.
+                String indexedFileId = contentHashIndexService.register(
+                                isAudio ? "audio" : "powerpoint", contentHash, nhostFileId,
+                                metadataId, size);
+                if (!nhostFileId.equals(indexedFileId)) {
+                        dropDuplicateUpload(metadataId, nhostFileId, indexedFileId);
+                        nhostFileId = indexedFileId;
+                }
                 Map<String, Object> updates = new HashMap<>();
                 String fieldName = isAudio ? "nhostFileId" : "nhostPptxFileId";
                 updates.put(fieldName, nhostFileId);
+                if (contentHash != null) {
+                        updates.put(isAudio ? "contentHash" : "pptxContentHash", contentHash);
+                        if (isAudio) {
+                                metadata.setContentHash(contentHash);
+                        } else {
+                                metadata.setPptxContentHash(contentHash);
+                        }
+                }
 
                 if (isAudio) {
                         updates.put("audioUploadComplete", true);
@@ -348,36 +506,66 @@ public class NhostUploadListenerService {
                 updates.put("lastUpdated", Timestamp.now());
                 metadata.setLastUpdated(Timestamp.now());
 
+                List<PipelineTransport.Outgoing> messages = new ArrayList<>();
+                if (!isAudio) {
+                        AudioProcessingMessage conversionMessage = new AudioProcessingMessage();
+                        conversionMessage.setMetadataId(metadataId);
+                        conversionMessage.setUserId(userId);
+                        conversionMessage.setEnqueuedAt(System.currentTimeMillis());
+                        messages.add(new PipelineTransport.Outgoing(
+                                        RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY,
+                                        conversionMessage));
+                }
+
                 try {
-                        firebaseService.updateDataWithMap(
+                        // The PPTX conversion message commits with the metadata that points at
+                        // the uploaded file, so neither can exist without the other.
+                        DocumentReference docRef = firebaseService.getDocumentReference(
                                         firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                                        metadataId);
+                        PipelineTransport.Staged staged =
+                                        firebaseService.runTransaction(transaction -> {
+                                                DocumentSnapshot snapshot =
+                                                                transaction.get(docRef).get();
+                                                if (!snapshot.exists() || snapshot.get(
+                                                                "deletionRequestedAt") != null) {
+                                                        return null;
+                                                }
+                                                transaction.update(docRef, updates);
+                                                return pipelineTransport.stageAll(transaction,
+                                                                messages);
+                                        });
+                        if (staged == null) {
+                                log.info("[{}] Recording was deleted during the {} upload; releasing file {}.",
+                                                metadataId, isAudio ? "audio" : "PowerPoint",
+                                                nhostFileId);
+                                try {
+                                        if (contentHashIndexService.releaseNhostFile(fieldName,
+                                                        nhostFileId, metadataId,
+                                                        isAudio ? "audio" : "powerpoint",
+                                                        contentHash)) {
+                                                nhostStorageService.deleteFile(nhostFileId);
+                                        }
+                                } catch (RuntimeException e) {
+                                        log.warn("[{}] Could not release Nhost file {}: {}",
+                                                        metadataId, nhostFileId, e.getMessage());
+                                }
+                                return;
+                        }
                         log.info("[{}] Successfully updated metadata for {} file upload.",
                                         metadataId, isAudio ? "audio" : "PowerPoint");
-
-                        if (!isAudio) {
-                                log.info("[{}] PowerPoint metadata updated. Sending message to PPTX conversion queue.",
-                                                metadataId);
-                                AudioProcessingMessage conversionMessage =
-                                                new AudioProcessingMessage();
-                                conversionMessage.setMetadataId(metadataId);
-                                conversionMessage.setUserId(userId);
-
-                                try {
-                                        rabbitTemplate.convertAndSend(
-                                                        RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                                        RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY,
-                                                        conversionMessage);
+                        try {
+                                staged.publish();
+                                if (!isAudio) {
                                         log.info("[{}] Message sent to queue {} with routing key {}",
                                                         metadataId,
                                                         RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME,
                                                         RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY);
-                                } catch (Exception e) {
-                                        log.error("[{}] Failed to send message to PPTX conversion queue: {}",
-                                                        metadataId, e.getMessage(), e);
                                 }
+                        } catch (AmqpException e) {
+                                log.error("[{}] Failed to send message to PPTX conversion queue: {}",
+                                                metadataId, e.getMessage(), e);
                         }
-
                 } catch (FirestoreInteractionException e) {
                         log.error("[{}] Failed to update metadata for {} file upload: {}",
                                         metadataId, isAudio ? "audio" : "PowerPoint",
@@ -387,6 +575,18 @@ public class NhostUploadListenerService {
                 }
         }
 
+        private void dropDuplicateUpload(String metadataId, String duplicateFileId,
+                        String indexedFileId) {
+                log.info("[{}] Upload matches indexed Nhost file {}; deleting duplicate {}.",
+                                metadataId, indexedFileId, duplicateFileId);
+                try {
+                        nhostStorageService.deleteFile(duplicateFileId);
+                } catch (RuntimeException e) {
+                        log.warn("[{}] Could not delete duplicate Nhost file {}: {}", metadataId,
+                                        duplicateFileId, e.getMessage());
+                }
+        }
+
         private void checkUploadCompletionAndTriggerProcessing(AudioMetadata latestMetadata) {
                 if (latestMetadata == null) {
                         log.error("[Completion Check] Received null metadata. Cannot proceed.");
@@ -418,21 +618,8 @@ public class NhostUploadListenerService {
                         log.info("[Completion Check - {}] All required uploads/conversions complete. Triggering next steps (Transcription) and setting status to PROCESSING_QUEUED.",
                                         metadataId);
 
-                        updateStatus(metadataId, latestMetadata.getUserId(),
-                                        ProcessingStatus.PROCESSING_QUEUED, null);
-
-                        AudioProcessingMessage transcriptionMessage = new AudioProcessingMessage();
-                        transcriptionMessage.setMetadataId(metadataId);
-                        transcriptionMessage.setUserId(latestMetadata.getUserId());
-
                         try {
-                                rabbitTemplate.convertAndSend(
-                                                RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY,
-                                                transcriptionMessage);
-                                log.info("Sent message (transcription queue) for metadataId {} to exchange '{}' with key '{}'",
-                                                metadataId, RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY);
+                                triggerParallelProcessing(latestMetadata);
                         } catch (Exception e) {
                                 log.error("[{}] Failed to send message to transcription queue: {}",
                                                 metadataId, e.getMessage(), e);
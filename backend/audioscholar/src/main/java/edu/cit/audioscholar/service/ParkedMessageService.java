@@ -0,0 +1,106 @@
+package edu.cit.audioscholar.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.DefaultMessagePropertiesConverter;
+import org.springframework.amqp.rabbit.support.MessagePropertiesConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import com.rabbitmq.client.GetResponse;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
+
+@Service
+public class ParkedMessageService {
+
+    private static final Logger log = LoggerFactory.getLogger(ParkedMessageService.class);
+
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final Duration confirmTimeout;
+    private final MessagePropertiesConverter propertiesConverter =
+            new DefaultMessagePropertiesConverter();
+
+    public ParkedMessageService(RabbitTemplate rabbitTemplate, AmqpAdmin amqpAdmin,
+            @Value("${app.rabbit.retry.confirm-timeout-ms:5000}") long confirmTimeoutMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.amqpAdmin = amqpAdmin;
+        this.confirmTimeout = Duration.ofMillis(confirmTimeoutMs);
+    }
+
+    public Map<String, Integer> parkedCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (RabbitMQConfig.PipelineStage stage : RabbitMQConfig.RETRYABLE_STAGES) {
+            Properties properties = amqpAdmin
+                    .getQueueProperties(RabbitMQConfig.parkingQueueName(stage.queue()));
+            Object count = properties != null
+                    ? properties.get(RabbitAdmin.QUEUE_MESSAGE_COUNT)
+                    : null;
+            counts.put(stage.name(), count instanceof Number ? ((Number) count).intValue() : 0);
+        }
+        return counts;
+    }
+
+    /**
+     * Moves up to {@code limit} parked messages back onto the stage's routing key with the attempt
+     * counter reset. Each message is acknowledged only after the broker has confirmed its
+     * republished copy; a nack, return or missing confirm requeues it and stops the replay.
+     */
+    public int replay(RabbitMQConfig.PipelineStage stage, int limit) {
+        String parkingQueue = RabbitMQConfig.parkingQueueName(stage.queue());
+        // invoke() keeps one channel for the whole scope, so the ack reaches the channel that
+        // fetched the message.
+        Integer replayed = rabbitTemplate.invoke(operations -> {
+            int count = 0;
+            while (count < limit) {
+                GetResponse response =
+                        operations.execute(channel -> channel.basicGet(parkingQueue, false));
+                if (response == null) {
+                    break;
+                }
+                long deliveryTag = response.getEnvelope().getDeliveryTag();
+                MessageProperties properties = propertiesConverter.toMessageProperties(
+                        response.getProps(), response.getEnvelope(), StandardCharsets.UTF_8.name());
+                properties.setHeader(StageRetryAdvice.ATTEMPT_HEADER, 0);
+                properties.getHeaders().remove(StageRetryAdvice.PARKED_REASON_HEADER);
+                properties.getHeaders().remove(StageRetryAdvice.PARKED_AT_HEADER);
+                CorrelationData correlation = new CorrelationData(UUID.randomUUID().toString());
+                try {
+                    operations.send(RabbitMQConfig.PROCESSING_EXCHANGE_NAME, stage.routingKey(),
+                            new Message(response.getBody(), properties), correlation);
+                    StageRetryAdvice.awaitConfirm(correlation, confirmTimeout);
+                } catch (AmqpException e) {
+                    log.warn("Stopping {} replay; message left parked: {}", stage.name(),
+                            e.getMessage());
+                    operations.execute(channel -> {
+                        channel.basicNack(deliveryTag, false, true);
+                        return null;
+                    });
+                    break;
+                }
+                operations.execute(channel -> {
+                    channel.basicAck(deliveryTag, false);
+                    return null;
+                });
+                count++;
+            }
+            return count;
+        });
+        int total = replayed != null ? replayed : 0;
+        log.info("Replayed {} parked {} message(s) from {}.", total, stage.name(), parkingQueue);
+        return total;
+    }
+}
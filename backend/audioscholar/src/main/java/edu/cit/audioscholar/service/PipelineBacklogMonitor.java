@@ -0,0 +1,328 @@
+package edu.cit.audioscholar.service;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Samples the backlog of every work queue and the number of recordings per non-terminal status,
+ * and publishes them as gauges for autoscaling. Queue figures come from the RabbitMQ management
+ * API when app.rabbit.management.url is set, from passive declares otherwise, and from the lanes
+ * themselves with the in-process transport. Passive declares give depth and consumers only, so
+ * the drain rate is estimated from how fast the depth falls between samples, and when the head
+ * message's timestamp is unknown its age is estimated from the wait of the last message the
+ * listeners consumed from that queue, or failing that from how long the queue has been non-empty.
+ */
+@Component
+public class PipelineBacklogMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineBacklogMonitor.class);
+
+    private static final double RATE_SMOOTHING = 0.3;
+
+    /** Statuses recordings stay in for good; counting them would scan an ever-growing set. */
+    private static final Set<ProcessingStatus> TERMINAL = EnumSet.of(ProcessingStatus.COMPLETE,
+            ProcessingStatus.FAILED, ProcessingStatus.PROCESSING_HALTED_NO_SPEECH,
+            ProcessingStatus.PROCESSING_HALTED_UNSUITABLE_CONTENT);
+
+    private static final Map<String, String> LANE_QUEUES = laneQueues();
+
+    private final AmqpAdmin amqpAdmin;
+    private final RestTemplate restTemplate;
+    private final FirebaseService firebaseService;
+    private final PipelineTransport pipelineTransport;
+    private final ProcessingLaneRouter processingLaneRouter;
+    private final boolean brokerTransport;
+    private final String managementUrl;
+    private final String managementVhost;
+    private final String managementUsername;
+    private final String managementPassword;
+    private final Map<String, QueueSample> samples = new ConcurrentHashMap<>();
+    private final Map<ProcessingStatus, Long> statusCounts = new ConcurrentHashMap<>();
+
+    public PipelineBacklogMonitor(AmqpAdmin amqpAdmin, RestTemplate restTemplate,
+            FirebaseService firebaseService, PipelineTransport pipelineTransport,
+            ProcessingLaneRouter processingLaneRouter, MeterRegistry meterRegistry,
+            @Value("${app.pipeline.transport:rabbit}") String transportName,
+            @Value("${app.rabbit.management.url:}") String managementUrl,
+            @Value("${app.rabbit.management.vhost:/}") String managementVhost,
+            @Value("${app.rabbit.management.username:${spring.rabbitmq.username:guest}}") String managementUsername,
+            @Value("${app.rabbit.management.password:${spring.rabbitmq.password:guest}}") String managementPassword) {
+        this.amqpAdmin = amqpAdmin;
+        this.restTemplate = restTemplate;
+        this.firebaseService = firebaseService;
+        this.pipelineTransport = pipelineTransport;
+        this.processingLaneRouter = processingLaneRouter;
+        this.brokerTransport = !"memory".equals(transportName);
+        this.managementUrl = StringUtils.trimTrailingCharacter(managementUrl.trim(), '/');
+        this.managementVhost = managementVhost;
+        this.managementUsername = managementUsername;
+        this.managementPassword = managementPassword;
+
+        for (String queue : RabbitMQConfig.WORK_QUEUES) {
+            Gauge.builder("pipeline.queue.depth", () -> sampleValue(queue, QueueSample::depth))
+                    .description("Messages waiting in the queue").tag("queue", queue)
+                    .register(meterRegistry);
+            Gauge.builder("pipeline.queue.consumers",
+                    () -> sampleValue(queue, QueueSample::consumers))
+                    .description("Consumers attached to the queue").tag("queue", queue)
+                    .register(meterRegistry);
+            Gauge.builder("pipeline.queue.oldest.age",
+                    () -> sampleValue(queue, QueueSample::oldestAgeSeconds))
+                    .description("Age of the message at the head of the queue").baseUnit("seconds")
+                    .tag("queue", queue).register(meterRegistry);
+            Gauge.builder("pipeline.queue.drain.time",
+                    () -> sampleValue(queue, QueueSample::drainSeconds))
+                    .description("Estimated time to empty the queue at the recent consume rate")
+                    .baseUnit("seconds").tag("queue", queue).register(meterRegistry);
+        }
+        for (ProcessingStatus status : ProcessingStatus.values()) {
+            if (TERMINAL.contains(status)) {
+                continue;
+            }
+            Gauge.builder("pipeline.recordings", () -> {
+                Long count = statusCounts.get(status);
+                return count != null ? count : Double.NaN;
+            }).description("Recordings currently in each processing status")
+                    .tag("status", status.name()).register(meterRegistry);
+        }
+    }
+
+    /** {@code backlogSinceMillis} is when the queue was first seen non-empty, 0 while empty. */
+    public record QueueSample(double depth, double consumers, double oldestAgeSeconds,
+            double drainRate, double drainSeconds, long sampledAtMillis,
+            long backlogSinceMillis) {
+    }
+
+    @Scheduled(initialDelayString = "${app.metrics.backlog.initial-delay-ms:10000}",
+            fixedDelayString = "${app.metrics.backlog.interval-ms:15000}")
+    public void sampleQueues() {
+        if (!brokerTransport) {
+            sampleLanes();
+            return;
+        }
+        for (String queue : RabbitMQConfig.WORK_QUEUES) {
+            try {
+                QueueSample sample = StringUtils.hasText(managementUrl) ? fromManagementApi(queue)
+                        : fromPassiveDeclare(queue, samples.get(queue));
+                if (sample != null) {
+                    samples.put(queue, sample);
+                }
+            } catch (AmqpException | RestClientException e) {
+                log.debug("Could not sample queue {}: {}", queue, e.getMessage());
+                samples.remove(queue);
+            }
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.metrics.backlog.initial-delay-ms:10000}",
+            fixedDelayString = "${app.metrics.status-counts.interval-ms:60000}")
+    public void countStatuses() {
+        for (ProcessingStatus status : ProcessingStatus.values()) {
+            if (TERMINAL.contains(status)) {
+                continue;
+            }
+            try {
+                statusCounts.put(status, firebaseService.countAudioMetadataByStatus(status));
+            } catch (FirestoreInteractionException e) {
+                log.debug("Could not count {} recordings: {}", status, e.getMessage());
+                statusCounts.remove(status);
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> queues = new LinkedHashMap<>();
+        for (String queue : RabbitMQConfig.WORK_QUEUES) {
+            QueueSample sample = samples.get(queue);
+            if (sample == null) {
+                continue;
+            }
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("depth", (long) sample.depth());
+            view.put("consumers", (long) sample.consumers());
+            view.put("oldestMessageAgeSeconds", finiteOrNull(sample.oldestAgeSeconds()));
+            view.put("drainRatePerSecond", finiteOrNull(sample.drainRate()));
+            view.put("estimatedDrainSeconds", finiteOrNull(sample.drainSeconds()));
+            queues.put(queue, view);
+        }
+        Map<String, Object> statuses = new LinkedHashMap<>();
+        for (ProcessingStatus status : ProcessingStatus.values()) {
+            Long count = statusCounts.get(status);
+            if (count != null) {
+                statuses.put(status.name(), count);
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", !brokerTransport ? "in-process"
+                : StringUtils.hasText(managementUrl) ? "management-api" : "passive-declare");
+        result.put("queues", queues);
+        result.put("recordingsByStatus", statuses);
+        return result;
+    }
+
+    @Nullable
+    private QueueSample fromManagementApi(String queue) {
+        URI uri = URI.create(managementUrl + "/api/queues/"
+                + UriUtils.encodePathSegment(managementVhost, StandardCharsets.UTF_8) + "/"
+                + UriUtils.encodePathSegment(queue, StandardCharsets.UTF_8)
+                + "?columns=messages,consumers,head_message_timestamp,message_stats");
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBasicAuth(managementUsername, managementPassword);
+        JsonNode body = restTemplate
+                .exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class)
+                .getBody();
+        if (body == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        double depth = body.path("messages").asDouble(0);
+        long backlogSince = backlogSince(depth, samples.get(queue), now);
+        JsonNode head = body.path("head_message_timestamp");
+        double oldestAge = head.isNumber() ? Math.max(0, now / 1000.0 - head.asDouble())
+                : estimatedOldestAge(queue, depth, backlogSince, now);
+        double rate = body.path("message_stats").path("ack_details").path("rate").asDouble(0);
+        return new QueueSample(depth, body.path("consumers").asDouble(0), oldestAge, rate,
+                drainSeconds(depth, rate), now, backlogSince);
+    }
+
+    @Nullable
+    private QueueSample fromPassiveDeclare(String queue, @Nullable QueueSample previous) {
+        QueueInformation info = amqpAdmin.getQueueInfo(queue);
+        if (info == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        double depth = info.getMessageCount();
+        long backlogSince = backlogSince(depth, previous, now);
+        return fromDepth(depth, info.getConsumerCount(),
+                estimatedOldestAge(queue, depth, backlogSince, now), previous, now,
+                backlogSince);
+    }
+
+    /** With the in-process transport the lanes are the queues; upload has one lane per key. */
+    private void sampleLanes() {
+        Map<String, PipelineTransport.LaneBacklog> byQueue = new HashMap<>();
+        pipelineTransport.laneBacklog().forEach((routingKey, lane) -> {
+            String queue = LANE_QUEUES.get(routingKey);
+            if (queue != null) {
+                byQueue.merge(queue, lane, PipelineBacklogMonitor::combine);
+            }
+        });
+        long now = System.currentTimeMillis();
+        for (String queue : RabbitMQConfig.WORK_QUEUES) {
+            PipelineTransport.LaneBacklog lane = byQueue.get(queue);
+            if (lane == null) {
+                samples.remove(queue);
+                continue;
+            }
+            QueueSample previous = samples.get(queue);
+            double oldestAge = lane.oldestEnqueuedAtMillis() > 0
+                    ? Math.max(0, now - lane.oldestEnqueuedAtMillis()) / 1000.0
+                    : 0;
+            samples.put(queue, fromDepth(lane.depth(), lane.consumers(), oldestAge, previous, now,
+                    backlogSince(lane.depth(), previous, now)));
+        }
+    }
+
+    private static QueueSample fromDepth(double depth, double consumers, double oldestAge,
+            @Nullable QueueSample previous, long now, long backlogSince) {
+        double rate = 0;
+        if (previous != null && now > previous.sampledAtMillis()) {
+            double observed = Math.max(0, previous.depth() - depth) * 1000.0
+                    / (now - previous.sampledAtMillis());
+            rate = Double.isNaN(previous.drainRate()) ? observed
+                    : RATE_SMOOTHING * observed + (1 - RATE_SMOOTHING) * previous.drainRate();
+        }
+        return new QueueSample(depth, consumers, oldestAge, rate, drainSeconds(depth, rate), now,
+                backlogSince);
+    }
+
+    /**
+     * The head of a FIFO queue arrived after the last message a listener took from it, so that
+     * message's wait plus the time since bounds the head's age. Without a consume during the
+     * current backlog, the time the queue has been non-empty is the best available floor.
+     */
+    private double estimatedOldestAge(String queue, double depth, long backlogSince, long now) {
+        if (depth == 0) {
+            return 0;
+        }
+        ProcessingLaneRouter.LastWait lastWait = processingLaneRouter.lastWait(queue);
+        if (lastWait != null && lastWait.observedAtMillis() >= backlogSince) {
+            return (lastWait.waitedMillis() + now - lastWait.observedAtMillis()) / 1000.0;
+        }
+        return (now - backlogSince) / 1000.0;
+    }
+
+    private static long backlogSince(double depth, @Nullable QueueSample previous, long now) {
+        if (depth == 0) {
+            return 0;
+        }
+        return previous != null && previous.backlogSinceMillis() > 0
+                ? previous.backlogSinceMillis()
+                : now;
+    }
+
+    private static PipelineTransport.LaneBacklog combine(PipelineTransport.LaneBacklog a,
+            PipelineTransport.LaneBacklog b) {
+        long oldest = a.oldestEnqueuedAtMillis() == 0 ? b.oldestEnqueuedAtMillis()
+                : b.oldestEnqueuedAtMillis() == 0 ? a.oldestEnqueuedAtMillis()
+                : Math.min(a.oldestEnqueuedAtMillis(), b.oldestEnqueuedAtMillis());
+        return new PipelineTransport.LaneBacklog(a.depth() + b.depth(),
+                a.consumers() + b.consumers(), oldest);
+    }
+
+    private static Map<String, String> laneQueues() {
+        Map<String, String> queues = new HashMap<>();
+        for (RabbitMQConfig.PipelineStage stage : RabbitMQConfig.RETRYABLE_STAGES) {
+            queues.put(stage.routingKey(), stage.queue());
+        }
+        queues.put(RabbitMQConfig.UPLOAD_PPTX_ROUTING_KEY, RabbitMQConfig.UPLOAD_QUEUE_NAME);
+        return Map.copyOf(queues);
+    }
+
+    private double sampleValue(String queue, ToDoubleFunction<QueueSample> field) {
+        QueueSample sample = samples.get(queue);
+        return sample != null ? field.applyAsDouble(sample) : Double.NaN;
+    }
+
+    private static double drainSeconds(double depth, double rate) {
+        if (depth == 0) {
+            return 0;
+        }
+        return rate > 0 ? depth / rate : Double.NaN;
+    }
+
+    @Nullable
+    private static Double finiteOrNull(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+}
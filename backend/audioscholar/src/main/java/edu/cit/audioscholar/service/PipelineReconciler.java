@@ -0,0 +1,323 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.dto.AudioProcessingMessage;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Finds recordings that have sat in an in-flight status for longer than the stale threshold (a
+ * lost message, or a node that died mid-stage) and re-enqueues the stage their completion flags
+ * say comes next. Runs shortly after startup and then periodically; a cluster-wide lease keeps it
+ * to one node per pass. A recording whose stage lease is still being renewed has a live worker
+ * and is left alone, and every re-enqueue claims the recording by bumping lastUpdated in a
+ * transaction that fails if anything else wrote it since it was read; the messages are staged in
+ * that same transaction.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reconciler.enabled", havingValue = "true", matchIfMissing = true)
+public class PipelineReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineReconciler.class);
+
+    private static final String LEASE_KEY = "reconciler";
+
+    private static final List<ProcessingStatus> IN_FLIGHT = List.of(
+            ProcessingStatus.UPLOAD_IN_PROGRESS, ProcessingStatus.UPLOADED,
+            ProcessingStatus.PROCESSING_QUEUED, ProcessingStatus.TRANSCRIBING,
+            ProcessingStatus.PDF_CONVERTING, ProcessingStatus.PDF_CONVERTING_API,
+            ProcessingStatus.TRANSCRIPTION_COMPLETE, ProcessingStatus.PDF_CONVERSION_COMPLETE,
+            ProcessingStatus.SUMMARIZATION_QUEUED, ProcessingStatus.SUMMARIZING);
+
+    private static final List<String> STAGE_LEASE_PREFIXES =
+            List.of("upload:", "transcription:", "pptx:", "summarization:");
+
+    private static final Set<ProcessingStatus> TRANSCRIPTION_ACCEPTS = EnumSet.of(
+            ProcessingStatus.UPLOAD_IN_PROGRESS, ProcessingStatus.PROCESSING_QUEUED,
+            ProcessingStatus.PDF_CONVERTING, ProcessingStatus.PDF_CONVERSION_COMPLETE);
+
+    private final FirebaseService firebaseService;
+    private final StageCompletionService stageCompletionService;
+    private final ProcessingLaneRouter processingLaneRouter;
+    private final LeaseService leaseService;
+    private final PipelineTransport pipelineTransport;
+    private final MeterRegistry meterRegistry;
+    private final Duration staleAfter;
+    private final Duration uploadStaleAfter;
+    private final int pageSize;
+    private final int maxRequeuesPerRun;
+    private final long requeueIntervalMs;
+    private final Duration leaseTtl;
+
+    private int requeuedThisRun;
+
+    public PipelineReconciler(FirebaseService firebaseService,
+            StageCompletionService stageCompletionService,
+            ProcessingLaneRouter processingLaneRouter, LeaseService leaseService,
+            PipelineTransport pipelineTransport, MeterRegistry meterRegistry,
+            @Value("${app.reconciler.stale-minutes:45}") long staleMinutes,
+            @Value("${app.reconciler.upload-stale-minutes:120}") long uploadStaleMinutes,
+            @Value("${app.reconciler.page-size:100}") int pageSize,
+            @Value("${app.reconciler.max-requeues-per-run:50}") int maxRequeuesPerRun,
+            @Value("${app.reconciler.requeue-interval-ms:200}") long requeueIntervalMs,
+            @Value("${app.reconciler.interval-ms:300000}") long intervalMs,
+            @Value("${app.lease.ttl-minutes:5}") long stageLeaseTtlMinutes) {
+        this.firebaseService = firebaseService;
+        this.stageCompletionService = stageCompletionService;
+        this.processingLaneRouter = processingLaneRouter;
+        this.leaseService = leaseService;
+        this.pipelineTransport = pipelineTransport;
+        this.meterRegistry = meterRegistry;
+        // A crashed worker's lease lapses within one TTL; anything younger may still be renewed.
+        Duration minimumStale = Duration.ofMinutes(stageLeaseTtlMinutes * 2);
+        this.staleAfter = max(Duration.ofMinutes(staleMinutes), minimumStale);
+        this.uploadStaleAfter = max(Duration.ofMinutes(uploadStaleMinutes), minimumStale);
+        if (staleAfter.toMinutes() > staleMinutes) {
+            log.warn("app.reconciler.stale-minutes={} is shorter than two lease TTLs; using {}.",
+                    staleMinutes, staleAfter);
+        }
+        this.pageSize = pageSize;
+        this.maxRequeuesPerRun = maxRequeuesPerRun;
+        this.requeueIntervalMs = requeueIntervalMs;
+        this.leaseTtl = Duration.ofMillis(intervalMs);
+    }
+
+    @Scheduled(initialDelayString = "${app.reconciler.initial-delay-ms:60000}",
+            fixedDelayString = "${app.reconciler.interval-ms:300000}")
+    public void reconcile() {
+        LeaseService.Lease lease = leaseService.tryAcquire(LEASE_KEY, leaseTtl);
+        if (lease == null) {
+            return;
+        }
+        requeuedThisRun = 0;
+        int examined = 0;
+        try {
+            for (ProcessingStatus status : IN_FLIGHT) {
+                if (requeuedThisRun >= maxRequeuesPerRun) {
+                    log.info("Reconciler hit its limit of {} re-enqueues; the rest wait for the next pass.",
+                            maxRequeuesPerRun);
+                    break;
+                }
+                examined += reconcileStatus(status);
+            }
+        } catch (FirestoreInteractionException e) {
+            log.error("Reconciler pass aborted: {}", e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Reconciler pass interrupted.");
+        } finally {
+            leaseService.release(lease);
+        }
+        if (examined > 0) {
+            log.info("Reconciler examined {} stale recording(s) and re-enqueued {}.", examined,
+                    requeuedThisRun);
+        }
+    }
+
+    private int reconcileStatus(ProcessingStatus status) throws InterruptedException {
+        Duration threshold = status == ProcessingStatus.UPLOAD_IN_PROGRESS ? uploadStaleAfter
+                : staleAfter;
+        Instant cutoff = Instant.now().minus(threshold);
+        Timestamp updatedBefore =
+                Timestamp.ofTimeSecondsAndNanos(cutoff.getEpochSecond(), cutoff.getNano());
+        int examined = 0;
+        AudioMetadata after = null;
+        while (requeuedThisRun < maxRequeuesPerRun) {
+            List<AudioMetadata> page = firebaseService
+                    .findAudioMetadataByStatusUpdatedBefore(status, updatedBefore, pageSize, after);
+            for (AudioMetadata metadata : page) {
+                if (requeuedThisRun >= maxRequeuesPerRun) {
+                    break;
+                }
+                examined++;
+                try {
+                    resume(metadata);
+                } catch (FirestoreInteractionException | AmqpException e) {
+                    log.warn("[{}] Reconciler could not resume recording: {}", metadata.getId(),
+                            e.getMessage());
+                }
+            }
+            if (page.size() < pageSize) {
+                break;
+            }
+            after = page.get(page.size() - 1);
+        }
+        return examined;
+    }
+
+    private void resume(AudioMetadata metadata) throws InterruptedException {
+        String metadataId = metadata.getId();
+        ProcessingStatus status = metadata.getStatus();
+        if (hasLiveWorker(metadataId)) {
+            log.debug("[{}] Stale in {} but a stage lease is still renewed; leaving it.",
+                    metadataId, status);
+            return;
+        }
+        boolean pdfRequired = !metadata.isAudioOnly()
+                && StringUtils.hasText(metadata.getNhostPptxFileId());
+        boolean pdfDone = !pdfRequired || metadata.isPdfConversionComplete();
+
+        if (metadata.isTranscriptionComplete() && pdfDone) {
+            Map<String, PipelineTransport.Outgoing> summarization =
+                    Map.of("summarization", summarizationMessage(metadata));
+            PipelineTransport.Staged staged;
+            if (status == ProcessingStatus.SUMMARIZATION_QUEUED
+                    || status == ProcessingStatus.SUMMARIZING) {
+                staged = claim(metadata, ProcessingStatus.SUMMARIZATION_QUEUED, Map.of(),
+                        summarization);
+            } else {
+                staged = stageCompletionService.completeAndStage(metadataId,
+                        StageCompletionService.STAGE_TRANSCRIPTION, Map.of(), null,
+                        List.copyOf(summarization.values()));
+            }
+            if (staged != null) {
+                log.info("[{}] Stale in {}; re-enqueuing summarization.", metadataId, status);
+                send(summarization, staged);
+            }
+            return;
+        }
+
+        if (!StringUtils.hasText(metadata.getNhostFileId())) {
+            if (status == ProcessingStatus.UPLOAD_IN_PROGRESS) {
+                markUploadFailed(metadata);
+            }
+            return;
+        }
+
+        boolean transcriptionPending = !metadata.isTranscriptionComplete();
+        ProcessingStatus target = transcriptionPending && !TRANSCRIPTION_ACCEPTS.contains(status)
+                ? ProcessingStatus.PROCESSING_QUEUED
+                : status;
+        Map<String, PipelineTransport.Outgoing> fanOut = new LinkedHashMap<>();
+        if (transcriptionPending) {
+            AudioProcessingMessage message = newMessage(metadata);
+            fanOut.put("transcription", new PipelineTransport.Outgoing(
+                    processingLaneRouter.transcriptionRoutingKey(message.getTier()), message));
+        }
+        if (!pdfDone) {
+            fanOut.put("pptx", new PipelineTransport.Outgoing(
+                    RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY, newMessage(metadata)));
+        }
+        // One claim covers both stages, so a second reconciler pass or a worker that moved the
+        // recording on in the meantime makes this pass send nothing.
+        PipelineTransport.Staged staged = claim(metadata, target, Map.of(), fanOut);
+        if (staged == null) {
+            log.debug("[{}] Recording changed since it was read; not resuming.", metadataId);
+            return;
+        }
+        log.info("[{}] Stale in {}; re-enqueuing {}.", metadataId, status, fanOut.keySet());
+        send(fanOut, staged);
+    }
+
+    private boolean hasLiveWorker(String metadataId) {
+        for (String prefix : STAGE_LEASE_PREFIXES) {
+            if (leaseService.isHeld(prefix + metadataId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the recording to {@code target} (which may be its current status, to just bump
+     * lastUpdated) and stages {@code messages} in the same transaction, only if nothing has
+     * touched it since it was read, so a worker that is still making progress is never rolled
+     * back and concurrent passes cannot both claim it. Returns null when the claim fails.
+     */
+    @Nullable
+    private PipelineTransport.Staged claim(AudioMetadata metadata, ProcessingStatus target,
+            Map<String, Object> extraUpdates, Map<String, PipelineTransport.Outgoing> messages) {
+        DocumentReference docRef = firebaseService.getDocumentReference(
+                firebaseService.getAudioMetadataCollectionName(), metadata.getId());
+        return firebaseService.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            if (!snapshot.exists() || snapshot.get("deletionRequestedAt") != null
+                    || !Objects.equals(snapshot.getString("status"), metadata.getStatus().name())
+                    || !Objects.equals(snapshot.getTimestamp("lastUpdated"),
+                            metadata.getLastUpdated())) {
+                return null;
+            }
+            Map<String, Object> updates = new HashMap<>(extraUpdates);
+            updates.put("status", target.name());
+            updates.put("lastUpdated", Timestamp.now());
+            transaction.update(docRef, updates);
+            return pipelineTransport.stageAll(transaction, List.copyOf(messages.values()));
+        });
+    }
+
+    private void markUploadFailed(AudioMetadata metadata) {
+        if (claim(metadata, ProcessingStatus.FAILED,
+                Map.of("failureReason", "Upload did not complete"), Map.of()) != null) {
+            log.warn("[{}] Upload never reached storage; marked FAILED.", metadata.getId());
+        }
+    }
+
+    /** Publishes the stages of one recording as a single batch, keyed by stage name. */
+    private void send(Map<String, PipelineTransport.Outgoing> byStage,
+            PipelineTransport.Staged staged) throws InterruptedException {
+        if (byStage.isEmpty()) {
+            return;
+        }
+        throttle();
+        staged.publish();
+        byStage.keySet().forEach(this::countRequeue);
+    }
+
+    private PipelineTransport.Outgoing summarizationMessage(AudioMetadata metadata) {
+        String tier = processingLaneRouter.resolveTier(null, metadata.getUserId());
+        Map<String, String> payload = new HashMap<>();
+        payload.put("metadataId", metadata.getId());
+        payload.put("messageId", UUID.randomUUID().toString());
+        payload.put("tier", tier);
+        payload.put("enqueuedAt", String.valueOf(System.currentTimeMillis()));
+        return new PipelineTransport.Outgoing(processingLaneRouter.summarizationRoutingKey(tier),
+                payload);
+    }
+
+    private AudioProcessingMessage newMessage(AudioMetadata metadata) {
+        AudioProcessingMessage message = new AudioProcessingMessage(metadata.getId(),
+                metadata.getUserId(), metadata.getId());
+        message.setTier(processingLaneRouter.resolveTier(null, metadata.getUserId()));
+        message.setEnqueuedAt(System.currentTimeMillis());
+        return message;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private void throttle() throws InterruptedException {
+        if (requeuedThisRun > 0 && requeueIntervalMs > 0) {
+            Thread.sleep(requeueIntervalMs);
+        }
+    }
+
+    private void countRequeue(String stage) {
+        requeuedThisRun++;
+        meterRegistry.counter("pipeline.reconciler.requeued", "stage", stage).increment();
+    }
+}
@@ -0,0 +1,60 @@
+package edu.cit.audioscholar.service;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.lang.Nullable;
+import com.google.cloud.firestore.Transaction;
+
+/**
+ * Carries messages between pipeline stages. Producers address a stage by its routing key on the
+ * processing exchange; consumers register a handler per routing key. The RabbitMQ transport
+ * ignores registrations because its {@code @RabbitListener} containers do the consuming.
+ */
+public interface PipelineTransport {
+
+    void send(String routingKey, Object payload);
+
+    /** Sends several messages together; transports that can batch publish them in one go. */
+    default void sendAll(List<Outgoing> messages) {
+        for (Outgoing message : messages) {
+            send(message.routingKey(), message.payload());
+        }
+    }
+
+    /**
+     * Records the messages as part of a Firestore transaction so they commit, or not, together
+     * with its status change. Call {@link Staged#publish()} once the transaction has committed;
+     * a durable transport delivers whatever that publish does not get confirmed. Without a
+     * durable record the default simply sends on publish.
+     */
+    default Staged stageAll(Transaction transaction, List<Outgoing> messages) {
+        return () -> sendAll(messages);
+    }
+
+    <T> void register(String routingKey, Class<T> payloadType, StageHandler<T> handler);
+
+    /**
+     * Backlog of each in-process lane keyed by routing key. Empty for broker transports, whose
+     * queues are sampled from the broker instead.
+     */
+    default Map<String, LaneBacklog> laneBacklog() {
+        return Map.of();
+    }
+
+    record Outgoing(String routingKey, Object payload) {
+    }
+
+    /** {@code oldestEnqueuedAtMillis} is 0 when the lane is empty. */
+    record LaneBacklog(int depth, int consumers, long oldestEnqueuedAtMillis) {
+    }
+
+    @FunctionalInterface
+    interface Staged {
+        void publish();
+    }
+
+    @FunctionalInterface
+    interface StageHandler<T> {
+        void handle(T payload, @Nullable Integer attempt) throws Exception;
+    }
+}
@@ -1,19 +1,26 @@
 package edu.cit.audioscholar.service;
 
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
 import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
 import edu.cit.audioscholar.dto.AudioProcessingMessage;
+import edu.cit.audioscholar.exception.TransientStageException;
 import edu.cit.audioscholar.model.AudioMetadata;
 import edu.cit.audioscholar.model.ProcessingStatus;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class PptxConversionListenerService {
@@ -24,25 +31,67 @@ public class PptxConversionListenerService {
         private final FirebaseService firebaseService;
         private final NhostStorageService nhostStorageService;
         private final ConvertApiService convertApiService;
-        private final RabbitTemplate rabbitTemplate;
+        private final PipelineTransport pipelineTransport;
         private final ObjectMapper objectMapper;
+        private final ContentHashIndexService contentHashIndexService;
+        private final StageCompletionService stageCompletionService;
+        private final LeaseService leaseService;
+        private final LeaseHeartbeat leaseHeartbeat;
+        private final ProcessingLaneRouter processingLaneRouter;
+        private final StageTimelineService stageTimelineService;
+        private final Duration leaseTtl;
 
         public PptxConversionListenerService(FirebaseService firebaseService,
                         NhostStorageService nhostStorageService,
-                        ConvertApiService convertApiService, RabbitTemplate rabbitTemplate,
-                        ObjectMapper objectMapper) {
+                        ConvertApiService convertApiService,
+                        PipelineTransport pipelineTransport,
+                        ObjectMapper objectMapper,
+                        ContentHashIndexService contentHashIndexService,
+                        StageCompletionService stageCompletionService, LeaseService leaseService,
+                        LeaseHeartbeat leaseHeartbeat,
+                        @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes,
+                        ProcessingLaneRouter processingLaneRouter,
+                        StageTimelineService stageTimelineService) {
                 this.firebaseService = firebaseService;
                 this.nhostStorageService = nhostStorageService;
                 this.convertApiService = convertApiService;
-                this.rabbitTemplate = rabbitTemplate;
+                this.pipelineTransport = pipelineTransport;
                 this.objectMapper = objectMapper;
+                this.contentHashIndexService = contentHashIndexService;
+                this.stageCompletionService = stageCompletionService;
+                this.leaseService = leaseService;
+                this.leaseHeartbeat = leaseHeartbeat;
+                this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+                this.processingLaneRouter = processingLaneRouter;
+                this.stageTimelineService = stageTimelineService;
         }
 
-        @RabbitListener(queues = RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME)
-        public void handlePptxConversion(AudioProcessingMessage messageDto) {
+        @PostConstruct
+        void registerInProcessConsumers() {
+                pipelineTransport.register(RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY,
+                                AudioProcessingMessage.class,
+                                this::handlePptxConversion);
+        }
+
+        @RabbitListener(queues = RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME,
+                        containerFactory = RabbitMQConfig.PPTX_CONVERSION_LISTENER_FACTORY)
+        public void handlePptxConversion(AudioProcessingMessage messageDto,
+                        @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                                        required = false) @Nullable Integer attempt) {
                 String metadataId = messageDto.getMetadataId();
                 logger.info("Processing PPTX conversion for metadata ID: {}", metadataId);
 
+                LeaseService.Lease lease = leaseService.tryAcquire("pptx:" + metadataId, leaseTtl);
+                if (lease == null) {
+                        logger.info("PPTX conversion for ID {} is already running on another listener. Skipping duplicate message.",
+                                        metadataId);
+                        return;
+                }
+
+                LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+                StageTimelineService.Span span = stageTimelineService.start(metadataId,
+                                StageTimelineService.STAGE_PPTX, messageDto.getTier(),
+                                messageDto.getEnqueuedAt(), attempt);
                 try {
                         Map<String, Object> metadataMap = firebaseService.getData(
                                         firebaseService.getAudioMetadataCollectionName(),
@@ -65,7 +114,15 @@ public class PptxConversionListenerService {
                                 return;
                         }
 
-                        updateStatus(metadataId, ProcessingStatus.PDF_CONVERTING_API, null);
+                        if (currentStatus == ProcessingStatus.PROCESSING_HALTED_NO_SPEECH) {
+                                logger.info("Skipping PDF conversion for ID {} as processing was halted (no speech detected).",
+                                                metadataId);
+                                return;
+                        }
+
+                        if (!updateStatus(metadataId, ProcessingStatus.PDF_CONVERTING_API, null)) {
+                                return;
+                        }
 
                         metadataMap = firebaseService.getData(
                                         firebaseService.getAudioMetadataCollectionName(),
@@ -86,72 +143,63 @@ public class PptxConversionListenerService {
                         Map<String, Object> pptxUrlUpdate = new HashMap<>();
                         pptxUrlUpdate.put("pptxNhostUrl", pptxUrl);
                         pptxUrlUpdate.put("lastUpdated", Timestamp.now());
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, pptxUrlUpdate);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, pptxUrlUpdate)) {
+                                return;
+                        }
                         logger.info("Updated AudioMetadata with PPTX URL for ID: {}", metadataId);
 
-                        logger.info("Starting PPTX to PDF conversion using ConvertAPI for file: {}",
-                                        pptxUrl);
-                        String pdfUrl = convertApiService.convertPptxUrlToPdfUrl(pptxUrl);
-                        logger.info("PPTX to PDF conversion successful. PDF URL: {}", pdfUrl);
+                        String pdfUrl = contentHashIndexService
+                                        .findReusablePdfUrl(metadata.getPptxContentHash());
+                        if (pdfUrl != null) {
+                                logger.info("PPTX content for ID {} was converted recently; reusing PDF URL: {}",
+                                                metadataId, pdfUrl);
+                        } else {
+                                logger.info("Starting PPTX to PDF conversion using ConvertAPI for file: {}",
+                                                pptxUrl);
+                                pdfUrl = convertApiService.convertPptxUrlToPdfUrl(pptxUrl);
+                                logger.info("PPTX to PDF conversion successful. PDF URL: {}",
+                                                pdfUrl);
+                                contentHashIndexService.recordPdf(metadata.getPptxContentHash(),
+                                                pdfUrl);
+                        }
 
                         Map<String, Object> updates = new HashMap<>();
                         updates.put("convertApiPdfUrl", pdfUrl);
                         updates.put("generatedPdfUrl", pdfUrl);
                         updates.put("pdfConversionComplete", true);
                         updates.put("status", ProcessingStatus.PDF_CONVERSION_COMPLETE.name());
-                        updates.put("lastUpdated", Timestamp.now());
 
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        String tier = processingLaneRouter.resolveTier(messageDto.getTier(),
+                                        metadata.getUserId());
+                        Map<String, String> message = new HashMap<>();
+                        message.put("metadataId", metadataId);
+                        message.put("messageId", UUID.randomUUID().toString());
+                        message.put("tier", tier);
+                        message.put("enqueuedAt", String.valueOf(System.currentTimeMillis()));
+
+                        PipelineTransport.Outgoing outgoing = new PipelineTransport.Outgoing(
+                                        processingLaneRouter.summarizationRoutingKey(tier),
+                                        message);
+
+                        PipelineTransport.Staged summarization =
+                                        stageCompletionService.completeAndStage(metadataId,
+                                                        StageCompletionService.STAGE_PDF_CONVERSION,
+                                                        updates, lease, List.of(outgoing));
                         logger.info("AudioMetadata updated with PDF details and status PDF_CONVERSION_COMPLETE for ID: {}",
                                         metadataId);
 
-                        metadataMap = firebaseService.getData(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId);
-                        metadata = AudioMetadata.fromMap(metadataMap);
-
-                        logger.info("PDF conversion complete for ID: {}. Waiting for transcription (Current status: {}, Transcription complete flag: {}).",
-                                        metadataId, metadata.getStatus(),
-                                        metadata.isTranscriptionComplete());
-
-                        boolean transcriptionDone = metadata.isTranscriptionComplete();
-                        boolean pdfDone = metadata.isPdfConversionComplete();
-                        boolean isAudioOnly = metadata.isAudioOnly();
-
-                        logger.debug("Completion status check for {}: TranscriptionDone={}, PdfConversionDone={}, AudioOnly={}",
-                                        metadataId, transcriptionDone, pdfDone, isAudioOnly);
-
-                        boolean readyForSummarization =
-                                        transcriptionDone && (pdfDone || isAudioOnly);
-
-                        if (readyForSummarization && metadata
-                                        .getStatus() != ProcessingStatus.SUMMARIZATION_QUEUED
-                                        && metadata.getStatus() != ProcessingStatus.SUMMARIZING
-                                        && metadata.getStatus() != ProcessingStatus.SUMMARY_COMPLETE) {
-
-                                updates = new HashMap<>();
-                                updates.put("status", ProcessingStatus.SUMMARIZATION_QUEUED.name());
-                                updates.put("lastUpdated", Timestamp.now());
-                                firebaseService.updateDataWithMap(
-                                                firebaseService.getAudioMetadataCollectionName(),
-                                                metadataId, updates);
-                                logger.info("Updated status to SUMMARIZATION_QUEUED for metadata ID: {}",
-                                                metadataId);
-
-                                Map<String, String> message = new HashMap<>();
-                                message.put("metadataId", metadataId);
-                                message.put("messageId", UUID.randomUUID().toString());
-
-                                rabbitTemplate.convertAndSend(
-                                                RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                                RabbitMQConfig.SUMMARIZATION_ROUTING_KEY, message);
+                        if (summarization != null) {
+                                summarization.publish();
                                 logger.info("Sent message to summarization queue for metadata ID: {}",
                                                 metadataId);
                         } else {
+                                metadataMap = firebaseService.getData(
+                                                firebaseService.getAudioMetadataCollectionName(),
+                                                metadataId);
+                                metadata = AudioMetadata.fromMap(metadataMap);
+                                boolean transcriptionDone = metadata.isTranscriptionComplete();
+                                boolean pdfDone = metadata.isPdfConversionComplete();
+                                boolean isAudioOnly = metadata.isAudioOnly();
                                 logger.info("Conditions not yet met for summarization or already in progress (Transcription: {}, PDF: {}, AudioOnly: {}, Status: {}). Waiting for other processes.",
                                                 transcriptionDone, pdfDone, isAudioOnly,
                                                 metadata.getStatus());
@@ -164,23 +212,37 @@ public class PptxConversionListenerService {
                                                         new AudioProcessingMessage();
                                         transcriptionMessage.setMetadataId(metadataId);
                                         transcriptionMessage.setUserId(metadata.getUserId());
+                                        transcriptionMessage.setTier(tier);
+                                        transcriptionMessage.setEnqueuedAt(
+                                                        System.currentTimeMillis());
 
-                                        rabbitTemplate.convertAndSend(
-                                                        RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
-                                                        RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY,
+                                        pipelineTransport.send(
+                                                        processingLaneRouter
+                                                                        .transcriptionRoutingKey(tier),
                                                         transcriptionMessage);
                                         logger.info("Sent retry message to transcription queue for metadata ID: {}",
                                                         metadataId);
                                 }
                         }
                 } catch (Exception e) {
+                        if (StageRetryAdvice.isTransient(e)) {
+                                logger.warn("Transient failure converting PPTX for ID {}; handing back for delayed retry: {}",
+                                                metadataId, e.getMessage());
+                                throw new TransientStageException(
+                                                "PPTX conversion unavailable: " + e.getMessage(), e);
+                        }
                         logger.error("Error during PPTX to PDF conversion: {}", e.getMessage(), e);
                         updateStatus(metadataId, ProcessingStatus.FAILED,
                                         "Error converting PPTX to PDF: " + e.getMessage());
+                } finally {
+                        stageTimelineService.finish(span);
+                        renewal.close();
+                        leaseService.release(lease);
                 }
         }
 
-        private void updateStatus(String metadataId, ProcessingStatus status,
+        /** Returns false when the recording is deleted or being deleted and nothing was written. */
+        private boolean updateStatus(String metadataId, ProcessingStatus status,
                         String failureReason) {
                 try {
                         Map<String, Object> updates = new HashMap<>();
@@ -193,13 +255,14 @@ public class PptxConversionListenerService {
                                 updates.put("failureReason", null);
                         }
 
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                return false;
+                        }
                         logger.info("Updated status to {} for metadata ID: {}", status, metadataId);
                 } catch (Exception e) {
                         logger.error("Failed to update status for metadata ID: {}", metadataId, e);
                 }
+                return true;
         }
 
         private String generatePdfFileName(String originalPptxFileName) {
@@ -0,0 +1,108 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Component
+public class ProcessingLaneRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProcessingLaneRouter.class);
+
+    public static final String TIER_PREMIUM = "PREMIUM";
+    public static final String TIER_STANDARD = "STANDARD";
+    public static final String STAGE_TRANSCRIPTION = "transcription";
+    public static final String STAGE_SUMMARIZATION = "summarization";
+
+    private static final String ROLE_PREMIUM = "ROLE_PREMIUM";
+
+    private final UserService userService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LastWait> lastWaits = new ConcurrentHashMap<>();
+
+    public ProcessingLaneRouter(@Lazy UserService userService, MeterRegistry meterRegistry) {
+        this.userService = userService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /** Keeps a tier already stamped on a message, otherwise looks it up from the user's roles. */
+    public String resolveTier(@Nullable String stampedTier, @Nullable String userId) {
+        if (TIER_PREMIUM.equals(stampedTier) || TIER_STANDARD.equals(stampedTier)) {
+            return stampedTier;
+        }
+        if (userId == null) {
+            return TIER_STANDARD;
+        }
+        try {
+            User user = userService.getUserById(userId);
+            if (user != null && user.getRoles() != null && user.getRoles().contains(ROLE_PREMIUM)) {
+                return TIER_PREMIUM;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not resolve tier for user {}; using the standard lane: {}", userId,
+                    e.getMessage());
+        }
+        return TIER_STANDARD;
+    }
+
+    public String transcriptionRoutingKey(String tier) {
+        return TIER_PREMIUM.equals(tier) ? RabbitMQConfig.TRANSCRIPTION_PREMIUM_ROUTING_KEY
+                : RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY;
+    }
+
+    public String summarizationRoutingKey(String tier) {
+        return TIER_PREMIUM.equals(tier) ? RabbitMQConfig.SUMMARIZATION_PREMIUM_ROUTING_KEY
+                : RabbitMQConfig.SUMMARIZATION_ROUTING_KEY;
+    }
+
+    /** How long a consumed message had waited, and when it was taken off its queue. */
+    public record LastWait(long waitedMillis, long observedAtMillis) {
+    }
+
+    /** The most recent first-attempt wait seen on {@code queue}, or null if none yet. */
+    @Nullable
+    public LastWait lastWait(String queue) {
+        return lastWaits.get(queue);
+    }
+
+    public void recordWait(String stage, @Nullable String tier, @Nullable Long enqueuedAtMillis) {
+        if (enqueuedAtMillis == null || enqueuedAtMillis <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long waitedMillis = Math.max(0, now - enqueuedAtMillis);
+        String queue = queueFor(stage, tier);
+        if (queue != null) {
+            lastWaits.put(queue, new LastWait(waitedMillis, now));
+        }
+        Timer.builder("pipeline.lane.wait").description("Time a message waited in its queue lane")
+                .tags("stage", stage, "lane",
+                        TIER_PREMIUM.equals(tier) ? "premium" : "standard")
+                .publishPercentileHistogram().register(meterRegistry)
+                .record(Duration.ofMillis(waitedMillis));
+    }
+
+    @Nullable
+    private static String queueFor(String stage, @Nullable String tier) {
+        boolean premium = TIER_PREMIUM.equals(tier);
+        return switch (stage) {
+            case STAGE_TRANSCRIPTION -> premium ? RabbitMQConfig.TRANSCRIPTION_PREMIUM_QUEUE_NAME
+                    : RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME;
+            case STAGE_SUMMARIZATION -> premium ? RabbitMQConfig.SUMMARIZATION_PREMIUM_QUEUE_NAME
+                    : RabbitMQConfig.SUMMARIZATION_QUEUE_NAME;
+            case StageTimelineService.STAGE_PPTX -> RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME;
+            case StageTimelineService.STAGE_UPLOAD_AUDIO, StageTimelineService.STAGE_UPLOAD_PPTX ->
+                    RabbitMQConfig.UPLOAD_QUEUE_NAME;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,334 @@
+package edu.cit.audioscholar.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.Transaction;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Publishes to the processing exchange with correlated publisher confirms and mandatory returns.
+ * Every message is recorded in the publish outbox before it goes out: {@link #stageAll} writes
+ * the entries in the caller's transaction, next to the status change they belong to, which is
+ * how the stage hand-offs publish. {@link #sendAll}, left for sends with no status change to ride
+ * on, writes them in one batch first and throws without publishing if that write fails. An entry
+ * is dropped once the broker acks it; nacked, returned or never-confirmed messages, and staged
+ * ones whose publish never ran, stay behind and {@link #relayOutbox()} republishes them. A message can therefore arrive twice,
+ * which the stage leases in the listeners already absorb.
+ */
+@Service
+@ConditionalOnProperty(name = "app.pipeline.transport", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitPipelineTransport implements PipelineTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(RabbitPipelineTransport.class);
+
+    private static final String LEASE_KEY = "outbox-relay";
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final RabbitTemplate rabbitTemplate;
+    private final FirebaseService firebaseService;
+    private final LeaseService leaseService;
+    private final MeterRegistry meterRegistry;
+    private final String outboxCollection;
+    private final Duration confirmTimeout;
+    private final Duration relayLease;
+    private final int maxAttempts;
+    private final int relayBatchSize;
+    private final Executor writeExecutor = task -> Schedulers.boundedElastic().schedule(task);
+
+    public RabbitPipelineTransport(RabbitTemplate rabbitTemplate, FirebaseService firebaseService,
+            LeaseService leaseService, MeterRegistry meterRegistry,
+            @Value("${firebase.firestore.collection.outbox:publish_outbox}") String outboxCollection,
+            @Value("${app.pipeline.outbox.confirm-timeout-ms:30000}") long confirmTimeoutMs,
+            @Value("${app.pipeline.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.pipeline.outbox.relay-batch-size:100}") int relayBatchSize,
+            @Value("${app.pipeline.outbox.relay-lease-ms:300000}") long relayLeaseMs) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.firebaseService = firebaseService;
+        this.leaseService = leaseService;
+        this.meterRegistry = meterRegistry;
+        this.outboxCollection = outboxCollection;
+        this.confirmTimeout = Duration.ofMillis(confirmTimeoutMs);
+        this.relayLease = Duration.ofMillis(relayLeaseMs);
+        this.maxAttempts = maxAttempts;
+        this.relayBatchSize = relayBatchSize;
+    }
+
+    private record Pending(String id, String routingKey, Message message) {
+    }
+
+    @Override
+    public void send(String routingKey, Object payload) {
+        sendAll(List.of(new Outgoing(routingKey, payload)));
+    }
+
+    @Override
+    public void sendAll(List<Outgoing> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        Map<String, Map<String, Object>> entries = new LinkedHashMap<>();
+        List<Pending> batch = prepare(messages, entries::put);
+        // Unrecorded messages would be lost for good if the publish then failed, so a failed
+        // outbox write fails the send and leaves the retry to the caller.
+        firebaseService.setDocuments(outboxCollection, entries);
+        publish(batch, false);
+    }
+
+    @Override
+    public Staged stageAll(Transaction transaction, List<Outgoing> messages) {
+        List<Pending> batch = prepare(messages, (id, entry) -> transaction
+                .set(firebaseService.getDocumentReference(outboxCollection, id), entry));
+        return () -> {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                publish(batch, true);
+            } catch (AmqpException e) {
+                log.warn("Publishing {} staged message(s) failed ({}); the relay will retry.",
+                        batch.size(), e.getMessage());
+            }
+        };
+    }
+
+    /** Converts the messages and hands each one's outbox entry to {@code record}. */
+    private List<Pending> prepare(List<Outgoing> messages,
+            BiConsumer<String, Map<String, Object>> record) {
+        Timestamp now = Timestamp.now();
+        Timestamp retryAt = retryAt(0);
+        List<Pending> batch = new ArrayList<>(messages.size());
+        for (Outgoing outgoing : messages) {
+            String id = UUID.randomUUID().toString();
+            MessageProperties properties = new MessageProperties();
+            properties.setMessageId(id);
+            Message message =
+                    rabbitTemplate.getMessageConverter().toMessage(outgoing.payload(), properties);
+            batch.add(new Pending(id, outgoing.routingKey(), message));
+            record.accept(id, toEntry(id, outgoing.routingKey(), message, 0, retryAt, now));
+        }
+        return batch;
+    }
+
+    @Override
+    public <T> void register(String routingKey, Class<T> payloadType, StageHandler<T> handler) {
+        // Consumed by the @RabbitListener containers.
+    }
+
+    /**
+     * Republishes outbox entries whose confirm never arrived in time, backing off exponentially
+     * per entry and giving up after max-attempts (the reconciler still resumes the recording).
+     * Each due entry is re-read and rescheduled in one transaction, so an entry whose ack
+     * removed it after the query is neither recreated nor republished. The relay lease has its
+     * own TTL (relay-lease-ms), kept well above the time one pass takes.
+     */
+    @Scheduled(initialDelayString = "${app.pipeline.outbox.relay-interval-ms:30000}",
+            fixedDelayString = "${app.pipeline.outbox.relay-interval-ms:30000}")
+    public void relayOutbox() {
+        LeaseService.Lease lease = leaseService.tryAcquire(LEASE_KEY, relayLease);
+        if (lease == null) {
+            return;
+        }
+        try {
+            List<Map<String, Object>> due = firebaseService.findDocumentsBefore(outboxCollection,
+                    "retryAt", Timestamp.now(), relayBatchSize);
+            List<DocumentReference> refs = due.stream().map(entry -> entry.get("id"))
+                    .filter(String.class::isInstance)
+                    .map(id -> firebaseService.getDocumentReference(outboxCollection, (String) id))
+                    .toList();
+            if (refs.isEmpty()) {
+                return;
+            }
+            List<Pending> batch = firebaseService.runTransaction(transaction -> {
+                List<DocumentSnapshot> snapshots = new ArrayList<>(refs.size());
+                for (DocumentReference ref : refs) {
+                    snapshots.add(transaction.get(ref).get());
+                }
+                List<Pending> republish = new ArrayList<>(snapshots.size());
+                for (DocumentSnapshot snapshot : snapshots) {
+                    Map<String, Object> entry = snapshot.getData();
+                    if (!snapshot.exists() || entry == null) {
+                        continue;
+                    }
+                    String id = snapshot.getId();
+                    String routingKey = (String) entry.get("routingKey");
+                    int attempts = entry.get("attempts") instanceof Number n ? n.intValue() : 0;
+                    if (routingKey == null || attempts >= maxAttempts) {
+                        log.error("Abandoning outbox message {} for '{}' after {} attempt(s).",
+                                id, routingKey, attempts);
+                        transaction.delete(snapshot.getReference());
+                        continue;
+                    }
+                    transaction.update(snapshot.getReference(), Map.of("attempts", attempts + 1,
+                            "retryAt", retryAt(attempts + 1)));
+                    republish.add(new Pending(id, routingKey, fromEntry(id, entry)));
+                }
+                return republish;
+            });
+            if (!batch.isEmpty()) {
+                log.info("Republishing {} unconfirmed outbox message(s).", batch.size());
+                meterRegistry.counter("pipeline.publish.relayed").increment(batch.size());
+                publish(batch, true);
+            }
+        } catch (FirestoreInteractionException | AmqpException e) {
+            log.warn("Outbox relay pass failed: {}", e.getMessage());
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    /**
+     * Sends the batch over one channel and, once every confirm is in, removes the acked entries
+     * with a single batch delete. The entries are already committed when this runs. If the send
+     * itself fails, entries that never reached the broker are kept for the relay only when
+     * {@code keepUnsent} is set; otherwise the caller sees the failure and they are dropped.
+     */
+    private void publish(List<Pending> batch, boolean keepUnsent) {
+        List<CorrelationData> sent = new ArrayList<>(batch.size());
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (Pending pending : batch) {
+                    CorrelationData correlation = new CorrelationData(pending.id());
+                    operations.send(RabbitMQConfig.PROCESSING_EXCHANGE_NAME, pending.routingKey(),
+                            pending.message(), correlation);
+                    sent.add(correlation);
+                }
+                return null;
+            });
+        } catch (AmqpException e) {
+            if (!keepUnsent) {
+                delete(batch.subList(sent.size(), batch.size()).stream().map(Pending::id)
+                        .toList());
+            }
+            throw e;
+        }
+        List<CompletableFuture<String>> acks = new ArrayList<>(sent.size());
+        for (CorrelationData correlation : sent) {
+            acks.add(correlation.getFuture()
+                    .handle((confirm, failure) -> confirmed(correlation,
+                            confirm != null && confirm.isAck() && failure == null,
+                            failure != null ? failure.getMessage()
+                                    : confirm != null ? confirm.getReason() : null)));
+        }
+        CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> delete(acks.stream().map(CompletableFuture::join)
+                        .filter(Objects::nonNull).toList()), writeExecutor);
+    }
+
+    @Nullable
+    private String confirmed(CorrelationData correlation, boolean ack, @Nullable String reason) {
+        ReturnedMessage returned = correlation.getReturned();
+        if (ack && returned == null) {
+            meterRegistry.counter("pipeline.publish.confirms", "outcome", "ack").increment();
+            return correlation.getId();
+        }
+        String outcome = returned != null ? "returned" : "nack";
+        meterRegistry.counter("pipeline.publish.confirms", "outcome", outcome).increment();
+        log.warn("Message {} was {} by the broker ({}); left in the outbox for redelivery.",
+                correlation.getId(), returned != null ? "returned" : "not acked",
+                returned != null ? returned.getReplyText() : reason);
+        return null;
+    }
+
+    private void delete(List<String> ids) {
+        try {
+            firebaseService.deleteDocuments(outboxCollection, ids);
+        } catch (FirestoreInteractionException e) {
+            log.warn("Could not clear {} outbox entries: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private Timestamp retryAt(int attempts) {
+        long delayMs = confirmTimeout.toMillis() << Math.min(attempts, MAX_BACKOFF_SHIFT);
+        return Timestamp.ofTimeMicroseconds((System.currentTimeMillis() + delayMs) * 1000);
+    }
+
+    private static Map<String, Object> toEntry(String id, String routingKey, Message message,
+            int attempts, Timestamp retryAt, Timestamp createdAt) {
+        MessageProperties properties = message.getMessageProperties();
+        // Firestore keeps every integer as a long, so the boxed type is stored beside each number
+        // and restored on relay; the retry advice and listeners read the attempt as a number.
+        Map<String, Object> headers = new HashMap<>();
+        Map<String, String> headerTypes = new HashMap<>();
+        properties.getHeaders().forEach((key, value) -> {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short
+                    || value instanceof Byte || value instanceof Double || value instanceof Float) {
+                headers.put(key, value);
+                headerTypes.put(key, value.getClass().getSimpleName());
+            } else if (value instanceof String || value instanceof Boolean) {
+                headers.put(key, value);
+            } else if (value != null) {
+                headers.put(key, value.toString());
+            }
+        });
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", id);
+        entry.put("routingKey", routingKey);
+        entry.put("body", new String(message.getBody(), StandardCharsets.UTF_8));
+        entry.put("contentType", properties.getContentType());
+        entry.put("contentEncoding", properties.getContentEncoding());
+        entry.put("headers", headers);
+        entry.put("headerTypes", headerTypes);
+        entry.put("attempts", attempts);
+        entry.put("retryAt", retryAt);
+        entry.put("createdAt", createdAt);
+        return entry;
+    }
+
+    private static Message fromEntry(String id, Map<String, Object> entry) {
+        MessageProperties properties = new MessageProperties();
+        properties.setMessageId(id);
+        properties.setContentType((String) entry.get("contentType"));
+        properties.setContentEncoding((String) entry.get("contentEncoding"));
+        Map<?, ?> headerTypes = entry.get("headerTypes") instanceof Map<?, ?> types ? types
+                : Map.of();
+        if (entry.get("headers") instanceof Map<?, ?> headers) {
+            headers.forEach((key, value) -> properties.setHeader(String.valueOf(key),
+                    restoreHeader(value, headerTypes.get(key))));
+        }
+        String body = (String) entry.getOrDefault("body", "");
+        return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+    }
+
+    private static Object restoreHeader(Object value, @Nullable Object type) {
+        if (!(value instanceof Number number) || type == null) {
+            return value;
+        }
+        return switch (type.toString()) {
+            case "Integer" -> number.intValue();
+            case "Short" -> number.shortValue();
+            case "Byte" -> number.byteValue();
+            case "Double" -> number.doubleValue();
+            case "Float" -> number.floatValue();
+            default -> number.longValue();
+        };
+    }
+}
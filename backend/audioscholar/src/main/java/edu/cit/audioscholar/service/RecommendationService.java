@@ -67,8 +67,7 @@ public class RecommendationService {
                     Map<String, Object> completeUpdates = new HashMap<>();
                     completeUpdates.put("status", ProcessingStatus.COMPLETE.name());
                     completeUpdates.put("lastUpdated", Timestamp.now());
-                    firebaseService.updateData(firebaseService.getAudioMetadataCollectionName(),
-                            metadataId, completeUpdates);
+                    firebaseService.updateLiveAudioMetadata(metadataId, completeUpdates);
                     log.info("[{}] Updated metadata status to COMPLETE", metadataId);
                 }
 
@@ -112,8 +111,11 @@ public class RecommendationService {
             Map<String, Object> updates = new HashMap<>();
             updates.put("status", ProcessingStatus.GENERATING_RECOMMENDATIONS.name());
             updates.put("lastUpdated", Timestamp.now());
-            firebaseService.updateData(firebaseService.getAudioMetadataCollectionName(), metadataId,
-                    updates);
+            if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                String errorMsg = "Recording is being deleted";
+                log.warn("[{}] {}", metadataId, errorMsg);
+                return errorResponseToString("Metadata Not Found", errorMsg);
+            }
             log.info("[{}] Updated metadata status to GENERATING_RECOMMENDATIONS", metadataId);
 
             String recommendationsJson;
@@ -150,8 +152,7 @@ public class RecommendationService {
             Map<String, Object> completeUpdates = new HashMap<>();
             completeUpdates.put("status", ProcessingStatus.COMPLETE.name());
             completeUpdates.put("lastUpdated", Timestamp.now());
-            firebaseService.updateData(firebaseService.getAudioMetadataCollectionName(), metadataId,
-                    completeUpdates);
+            firebaseService.updateLiveAudioMetadata(metadataId, completeUpdates);
             log.info("[{}] Updated metadata status to COMPLETE and set lastUpdated timestamp",
                     metadataId);
 
@@ -0,0 +1,120 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.FieldValue;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Generates learning-material recommendations for recordings the summarization stage queued
+ * because its direct call to the recommender failed. Failures propagate so the stage retry tiers
+ * redeliver the message; a recording that has already left RECOMMENDATIONS_QUEUED is skipped.
+ */
+@Service
+public class RecommendationsListenerService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationsListenerService.class);
+
+    private final FirebaseService firebaseService;
+    private final LearningMaterialRecommenderService recommenderService;
+    private final PipelineTransport pipelineTransport;
+    private final LeaseService leaseService;
+    private final LeaseHeartbeat leaseHeartbeat;
+    private final CacheManager cacheManager;
+    private final Duration leaseTtl;
+
+    public RecommendationsListenerService(FirebaseService firebaseService,
+            LearningMaterialRecommenderService recommenderService,
+            PipelineTransport pipelineTransport, LeaseService leaseService,
+            LeaseHeartbeat leaseHeartbeat, CacheManager cacheManager,
+            @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes) {
+        this.firebaseService = firebaseService;
+        this.recommenderService = recommenderService;
+        this.pipelineTransport = pipelineTransport;
+        this.leaseService = leaseService;
+        this.leaseHeartbeat = leaseHeartbeat;
+        this.cacheManager = cacheManager;
+        this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+    }
+
+    @PostConstruct
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void registerInProcessConsumers() {
+        PipelineTransport.StageHandler<Map> handler =
+                (message, attempt) -> handleRecommendationsRequest(message, attempt);
+        pipelineTransport.register(RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY, Map.class,
+                handler);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.RECOMMENDATIONS_QUEUE_NAME,
+            containerFactory = RabbitMQConfig.RECOMMENDATIONS_LISTENER_FACTORY)
+    public void handleRecommendationsRequest(Map<String, String> message,
+            @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                    required = false) @Nullable Integer attempt) {
+        String metadataId = message.get("metadataId");
+        if (metadataId == null) {
+            log.error("Recommendations message without a metadataId; discarding: {}", message);
+            return;
+        }
+        LeaseService.Lease lease = leaseService.tryAcquire("recommendations:" + metadataId,
+                leaseTtl);
+        if (lease == null) {
+            log.info("[{}] Recommendations already running on another listener; skipping.",
+                    metadataId);
+            return;
+        }
+        LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+        try {
+            AudioMetadata metadata = AudioMetadata.fromMap(firebaseService.getData(
+                    firebaseService.getAudioMetadataCollectionName(), metadataId));
+            if (metadata == null
+                    || metadata.getStatus() != ProcessingStatus.RECOMMENDATIONS_QUEUED) {
+                log.info("[{}] Recording is no longer waiting for recommendations; skipping.",
+                        metadataId);
+                return;
+            }
+            String userId = message.getOrDefault("userId", metadata.getUserId());
+            recommenderService.generateAndSaveRecommendations(userId,
+                    message.get("recordingId"), message.get("summaryId"));
+            markComplete(metadataId);
+            log.info("[{}] Recommendations generated on attempt {}.", metadataId,
+                    attempt == null ? 1 : attempt + 1);
+        } finally {
+            renewal.close();
+            leaseService.release(lease);
+        }
+    }
+
+    private void markComplete(String metadataId) {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("status", ProcessingStatus.COMPLETE.name());
+        updates.put("lastUpdated", Timestamp.now());
+        updates.put("failureReason", FieldValue.delete());
+        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+            return;
+        }
+        Cache byId = cacheManager.getCache("audioMetadataById");
+        if (byId != null) {
+            byId.evictIfPresent(metadataId);
+        }
+        Cache byUser = cacheManager.getCache("audioMetadataByUser");
+        if (byUser != null) {
+            byUser.clear();
+        }
+    }
+}
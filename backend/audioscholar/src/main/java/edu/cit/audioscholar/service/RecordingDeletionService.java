@@ -0,0 +1,402 @@
+package edu.cit.audioscholar.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import com.google.api.core.ApiFuture;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.BulkWriterException;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.WriteResult;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
+import edu.cit.audioscholar.dto.AudioProcessingMessage;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.TransientStageException;
+import edu.cit.audioscholar.model.AudioMetadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Removes a tombstoned recording (deletionRequestedAt set, status DELETING) and everything
+ * hanging off it. The DELETE endpoint only writes the tombstone and enqueues a job; this worker
+ * deletes the Nhost files in parallel while a BulkWriter removes the dependent Firestore
+ * documents, appends what it removed to the deletion audit, and deletes the metadata document
+ * last so a partial pass can always be resumed from the tombstone. Pipeline stages write through
+ * {@link FirebaseService#updateLiveAudioMetadata}, which refuses tombstoned or missing documents.
+ * Failed passes go through the stage retry tiers, and a periodic sweep re-enqueues tombstones
+ * whose job was lost.
+ */
+@Service
+public class RecordingDeletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordingDeletionService.class);
+
+    private static final String RECORDINGS_COLLECTION = "recordings";
+    private static final String SUMMARIES_COLLECTION = "summaries";
+    private static final String USERS_COLLECTION = "users";
+    private static final String SWEEP_LEASE_KEY = "deletion-sweep";
+    private static final String CACHE_METADATA_BY_ID = "audioMetadataById";
+    private static final String CACHE_METADATA_BY_USER = "audioMetadataByUser";
+    private static final String USER_CACHE = "usersById";
+
+    private final FirebaseService firebaseService;
+    private final NhostStorageService nhostStorageService;
+    private final ContentHashIndexService contentHashIndexService;
+    private final LeaseService leaseService;
+    private final LeaseHeartbeat leaseHeartbeat;
+    private final PipelineTransport pipelineTransport;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final String recommendationsCollection;
+    private final String segmentsCollection;
+    private final String timelineCollection;
+    private final String auditCollection;
+    private final Duration leaseTtl;
+    private final Duration sweepStaleAfter;
+    private final int sweepPageSize;
+    private final Executor executor = task -> Schedulers.boundedElastic().schedule(task);
+
+    public RecordingDeletionService(FirebaseService firebaseService,
+            NhostStorageService nhostStorageService,
+            ContentHashIndexService contentHashIndexService, LeaseService leaseService,
+            LeaseHeartbeat leaseHeartbeat, PipelineTransport pipelineTransport, CacheManager cacheManager,
+            MeterRegistry meterRegistry,
+            @Value("${firebase.firestore.collection.recommendations}") String recommendationsCollection,
+            @Value("${firebase.firestore.collection.transcriptsegments:transcript_segments}") String segmentsCollection,
+            @Value("${firebase.firestore.collection.timelines:pipeline_timelines}") String timelineCollection,
+            @Value("${firebase.firestore.collection.deletionaudit:deletion_audit}") String auditCollection,
+            @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes,
+            @Value("${app.deletion.sweep.stale-minutes:15}") long sweepStaleMinutes,
+            @Value("${app.deletion.sweep.page-size:100}") int sweepPageSize) {
+        this.firebaseService = firebaseService;
+        this.nhostStorageService = nhostStorageService;
+        this.contentHashIndexService = contentHashIndexService;
+        this.leaseService = leaseService;
+        this.leaseHeartbeat = leaseHeartbeat;
+        this.pipelineTransport = pipelineTransport;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.recommendationsCollection = recommendationsCollection;
+        this.segmentsCollection = segmentsCollection;
+        this.timelineCollection = timelineCollection;
+        this.auditCollection = auditCollection;
+        this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+        this.sweepStaleAfter = Duration.ofMinutes(sweepStaleMinutes);
+        this.sweepPageSize = sweepPageSize;
+    }
+
+    @PostConstruct
+    void registerInProcessConsumers() {
+        pipelineTransport.register(RabbitMQConfig.DELETION_ROUTING_KEY,
+                AudioProcessingMessage.class, this::handleDeletion);
+    }
+
+    public void enqueue(String metadataId) {
+        AudioProcessingMessage message = new AudioProcessingMessage();
+        message.setMetadataId(metadataId);
+        message.setEnqueuedAt(System.currentTimeMillis());
+        pipelineTransport.send(RabbitMQConfig.DELETION_ROUTING_KEY, message);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.DELETION_QUEUE_NAME,
+            containerFactory = RabbitMQConfig.DELETION_LISTENER_FACTORY)
+    public void handleDeletion(AudioProcessingMessage message,
+            @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                    required = false) @Nullable Integer attempt) {
+        String metadataId = message.getMetadataId();
+        if (!StringUtils.hasText(metadataId)) {
+            log.warn("Deletion job without a metadata ID; dropping it.");
+            return;
+        }
+        LeaseService.Lease lease = leaseService.tryAcquire("deletion:" + metadataId, leaseTtl);
+        if (lease == null) {
+            log.info("[{}] Deletion is already running on another worker; skipping.", metadataId);
+            return;
+        }
+        LeaseHeartbeat.Renewal renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+        try {
+            Map<String, Object> data = firebaseService
+                    .getData(firebaseService.getAudioMetadataCollectionName(), metadataId);
+            if (data == null) {
+                log.info("[{}] Metadata already gone; nothing left to delete.", metadataId);
+                return;
+            }
+            AudioMetadata metadata = AudioMetadata.fromMap(data);
+            if (metadata.getDeletionRequestedAt() == null) {
+                log.warn("[{}] Deletion job for a recording that is not tombstoned (status {}); ignoring.",
+                        metadataId, metadata.getStatus());
+                return;
+            }
+            delete(metadataId, metadata, metadata.getDeletionRequestedAt(),
+                    attempt != null ? attempt : 0);
+        } catch (FirestoreInteractionException e) {
+            throw new TransientStageException(
+                    "Deletion of " + metadataId + " failed: " + e.getMessage(), e);
+        } finally {
+            renewal.close();
+            leaseService.release(lease);
+        }
+    }
+
+    /**
+     * Re-enqueues tombstones that have not been finished (or retried) within the stale window.
+     * Tombstones are found by deletionRequestedAt, so one whose status was written over is still
+     * picked up; those with a recent failed pass or a running worker are left to it.
+     */
+    @Scheduled(initialDelayString = "${app.deletion.sweep.interval-ms:600000}",
+            fixedDelayString = "${app.deletion.sweep.interval-ms:600000}")
+    public void sweepTombstones() {
+        LeaseService.Lease lease = leaseService.tryAcquire(SWEEP_LEASE_KEY, sweepStaleAfter);
+        if (lease == null) {
+            return;
+        }
+        try {
+            Instant staleBefore = Instant.now().minus(sweepStaleAfter);
+            Timestamp cutoff = Timestamp.ofTimeSecondsAndNanos(staleBefore.getEpochSecond(),
+                    staleBefore.getNano());
+            List<AudioMetadata> stale = firebaseService
+                    .findAudioMetadataDeletionRequestedBefore(cutoff, sweepPageSize);
+            for (AudioMetadata metadata : stale) {
+                if (metadata.getLastUpdated() != null
+                        && metadata.getLastUpdated().compareTo(cutoff) > 0
+                        || leaseService.isHeld("deletion:" + metadata.getId())) {
+                    continue;
+                }
+                log.info("[{}] Tombstone is stale; re-enqueuing deletion.", metadata.getId());
+                enqueue(metadata.getId());
+            }
+        } catch (FirestoreInteractionException | AmqpException e) {
+            log.warn("Tombstone sweep failed: {}", e.getMessage());
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+
+    private void delete(String metadataId, AudioMetadata metadata, @Nullable Object requestedAt,
+            int attempt) {
+        long startedNanos = System.nanoTime();
+        Map<String, CompletableFuture<String>> files = new LinkedHashMap<>();
+        deleteNhostFile(files, metadataId, "nhostFileId", metadata.getNhostFileId(), "audio",
+                metadata.getContentHash());
+        deleteNhostFile(files, metadataId, "nhostPptxFileId", metadata.getNhostPptxFileId(),
+                "powerpoint", metadata.getPptxContentHash());
+        deleteNhostFile(files, metadataId, null, metadata.getGeneratedPdfNhostFileId(), null,
+                null);
+        CompletableFuture<Map<String, String>> documents =
+                CompletableFuture.supplyAsync(() -> deleteDocuments(metadataId, metadata), executor);
+
+        Map<String, String> removedFiles = new LinkedHashMap<>();
+        List<String> failures = new ArrayList<>();
+        files.forEach((fileId, future) -> {
+            try {
+                removedFiles.put(fileId, future.join());
+            } catch (CompletionException e) {
+                failures.add("nhost:" + fileId + ": " + e.getCause().getMessage());
+            }
+        });
+        Map<String, String> removedDocuments = new LinkedHashMap<>();
+        try {
+            documents.join().forEach((path, outcome) -> {
+                if (outcome.startsWith("failed")) {
+                    failures.add(path + ": " + outcome);
+                } else {
+                    removedDocuments.put(path, outcome);
+                }
+            });
+        } catch (CompletionException e) {
+            failures.add("firestore: " + e.getCause().getMessage());
+        }
+        deleteTempFile(metadata.getTempFilePath());
+        deleteTempFile(metadata.getTempPptxFilePath());
+
+        boolean complete = failures.isEmpty();
+        Map<String, Object> pass = new HashMap<>();
+        pass.put("attempt", attempt);
+        pass.put("at", Timestamp.now());
+        pass.put("nhostFiles", removedFiles);
+        pass.put("documents", removedDocuments);
+        pass.put("failures", failures);
+        pass.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+        Map<String, Object> audit = new HashMap<>();
+        audit.put("metadataId", metadataId);
+        audit.put("userId", metadata.getUserId());
+        audit.put("recordingId", metadata.getRecordingId());
+        audit.put("title", metadata.getTitle());
+        audit.put("requestedAt", requestedAt);
+        audit.put("status", complete ? "COMPLETE" : "INCOMPLETE");
+        audit.put("lastUpdated", Timestamp.now());
+        audit.put("passes", FieldValue.arrayUnion(pass));
+        firebaseService.updateData(auditCollection, metadataId, audit);
+
+        if (!complete) {
+            meterRegistry.counter("recording.deletion", "outcome", "retry").increment();
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("deletionError", String.join("; ", failures));
+            updates.put("lastUpdated", Timestamp.now());
+            firebaseService.updateDataWithMap(firebaseService.getAudioMetadataCollectionName(),
+                    metadataId, updates);
+            throw new TransientStageException("Deletion of " + metadataId + " left "
+                    + failures.size() + " item(s) behind: " + String.join("; ", failures));
+        }
+
+        firebaseService.deleteData(firebaseService.getAudioMetadataCollectionName(), metadataId);
+        evictCaches(metadataId, metadata.getUserId());
+        meterRegistry.counter("recording.deletion", "outcome", "complete").increment();
+        meterRegistry.timer("recording.deletion.duration")
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        log.info("[{}] Deleted recording: {} Nhost file(s), {} document(s).", metadataId,
+                removedFiles.size(), removedDocuments.size() + 1);
+    }
+
+    /**
+     * Starts deleting one Nhost file. Uploaded files go through the content-hash index first and
+     * are kept while another recording still points at them.
+     */
+    private void deleteNhostFile(Map<String, CompletableFuture<String>> files, String metadataId,
+            @Nullable String field, @Nullable String fileId, @Nullable String fileType,
+            @Nullable String contentHash) {
+        if (!StringUtils.hasText(fileId) || files.containsKey(fileId)) {
+            return;
+        }
+        files.put(fileId, CompletableFuture.supplyAsync(() -> {
+            if (field != null && !contentHashIndexService.releaseNhostFile(field, fileId,
+                    metadataId, fileType, contentHash)) {
+                return "kept-shared";
+            }
+            nhostStorageService.deleteFile(fileId);
+            return "deleted";
+        }, executor));
+    }
+
+    /**
+     * Deletes everything in Firestore that belongs to the recording, except the metadata document
+     * itself, through one BulkWriter. Returns each document path with "deleted", "updated" or the
+     * failure.
+     */
+    private Map<String, String> deleteDocuments(String metadataId, AudioMetadata metadata) {
+        Map<String, DocumentReference> targets = new LinkedHashMap<>();
+        for (DocumentReference ref : firebaseService.findDocumentReferences(segmentsCollection,
+                "metadataId", metadataId)) {
+            targets.put(ref.getPath(), ref);
+        }
+        addTarget(targets, timelineCollection, metadataId);
+        String recordingId = metadata.getRecordingId();
+        addTarget(targets, SUMMARIES_COLLECTION, metadata.getSummaryId());
+        if (StringUtils.hasText(recordingId)) {
+            for (DocumentReference ref : firebaseService
+                    .findDocumentReferences(recommendationsCollection, "recordingId", recordingId)) {
+                targets.put(ref.getPath(), ref);
+            }
+            Map<String, Object> recording = firebaseService.getData(RECORDINGS_COLLECTION,
+                    recordingId);
+            if (recording != null && recording.get("summaryId") instanceof String summaryId) {
+                addTarget(targets, SUMMARIES_COLLECTION, summaryId);
+            }
+            addTarget(targets, RECORDINGS_COLLECTION, recordingId);
+        }
+
+        Map<String, ApiFuture<WriteResult>> writes = new LinkedHashMap<>();
+        BulkWriter writer = firebaseService.newBulkWriter();
+        targets.forEach((path, ref) -> writes.put(path, writer.delete(ref)));
+        String userPath = null;
+        if (StringUtils.hasText(metadata.getUserId()) && StringUtils.hasText(recordingId)) {
+            DocumentReference userRef = firebaseService.getDocumentReference(USERS_COLLECTION,
+                    metadata.getUserId());
+            userPath = userRef.getPath();
+            writes.put(userPath,
+                    writer.update(userRef, "recordingIds", FieldValue.arrayRemove(recordingId)));
+        }
+        try {
+            writer.close();
+        } catch (Exception e) {
+            log.warn("[{}] BulkWriter did not close cleanly: {}", metadataId, e.getMessage());
+        }
+
+        Map<String, String> outcomes = new LinkedHashMap<>();
+        for (Map.Entry<String, ApiFuture<WriteResult>> write : writes.entrySet()) {
+            boolean userUpdate = write.getKey().equals(userPath);
+            try {
+                write.getValue().get();
+                outcomes.put(write.getKey(), userUpdate ? "updated" : "deleted");
+            } catch (ExecutionException e) {
+                if (userUpdate && e.getCause() instanceof BulkWriterException failure
+                        && failure.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                    outcomes.put(write.getKey(), "skipped-missing");
+                } else {
+                    outcomes.put(write.getKey(), "failed: " + e.getCause().getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                outcomes.put(write.getKey(), "failed: interrupted");
+            }
+        }
+        return outcomes;
+    }
+
+    private void addTarget(Map<String, DocumentReference> targets, String collection,
+            @Nullable String documentId) {
+        if (StringUtils.hasText(documentId)) {
+            DocumentReference ref = firebaseService.getDocumentReference(collection, documentId);
+            targets.put(ref.getPath(), ref);
+        }
+    }
+
+    private void deleteTempFile(@Nullable String path) {
+        if (!StringUtils.hasText(path)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(path));
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private void evictCaches(String metadataId, @Nullable String userId) {
+        evict(CACHE_METADATA_BY_ID, metadataId);
+        // The list cache is keyed by user, page size and cursor, so no single key covers a user.
+        Cache byUser = cacheManager.getCache(CACHE_METADATA_BY_USER);
+        if (byUser != null) {
+            byUser.clear();
+        }
+        if (userId != null) {
+            evict(USER_CACHE, userId);
+        }
+    }
+
+    private void evict(String cacheName, String key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+    }
+}
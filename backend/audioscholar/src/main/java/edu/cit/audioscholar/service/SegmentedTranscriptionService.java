@@ -0,0 +1,344 @@
+package edu.cit.audioscholar.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Transcribes long recordings as overlapping segments. Each segment is cut into its own audio
+ * file and uploaded on its own, so a segment request carries only its slice of the recording.
+ * Segments from every recording on this node share one pool of
+ * {@code app.transcription.max-concurrent-segments} permits. Recordings whose container cannot
+ * be cut (MP4/M4A) fall back to a single request for the whole file.
+ */
+@Service
+public class SegmentedTranscriptionService {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentedTranscriptionService.class);
+
+    static final String NO_SPEECH_MARKER = "[NO SPEECH DETECTED]";
+    static final int BOUNDARY_SEARCH_SECONDS = 20;
+    static final int MIN_SEGMENT_SECONDS = 4 * BOUNDARY_SEARCH_SECONDS;
+    private static final int MAX_OVERLAP_WORDS = 200;
+    private static final int MIN_OVERLAP_MATCH_WORDS = 3;
+    private static final int ANCHOR_WORDS = 4;
+    private static final int TAIL_MATCH_WORDS = 8;
+    private static final Pattern WORD_PATTERN = Pattern.compile("\\S+");
+
+    private final GeminiService geminiService;
+    private final AudioEnergyAnalyzer audioEnergyAnalyzer;
+    private final AudioSegmentCutter audioSegmentCutter;
+    private final TranscriptSegmentStore transcriptSegmentStore;
+    private final boolean streamingEnabled;
+    private final int segmentSeconds;
+    private final int overlapSeconds;
+    private final int thresholdSeconds;
+    private final Semaphore segmentPermits;
+    private final VirtualThreadTaskExecutor segmentExecutor =
+            new VirtualThreadTaskExecutor("transcription-segment-");
+
+    public SegmentedTranscriptionService(GeminiService geminiService,
+            AudioEnergyAnalyzer audioEnergyAnalyzer, AudioSegmentCutter audioSegmentCutter,
+            TranscriptSegmentStore transcriptSegmentStore,
+            @Value("${app.transcription.stream.enabled:true}") boolean streamingEnabled,
+            @Value("${app.transcription.segment-seconds:600}") int segmentSeconds,
+            @Value("${app.transcription.segment-overlap-seconds:15}") int overlapSeconds,
+            @Value("${app.transcription.segment-threshold-seconds:900}") int thresholdSeconds,
+            @Value("${app.transcription.max-concurrent-segments:4}") int maxConcurrentSegments) {
+        this.geminiService = geminiService;
+        this.audioEnergyAnalyzer = audioEnergyAnalyzer;
+        this.audioSegmentCutter = audioSegmentCutter;
+        this.transcriptSegmentStore = transcriptSegmentStore;
+        this.streamingEnabled = streamingEnabled;
+        if (segmentSeconds < MIN_SEGMENT_SECONDS) {
+            log.warn("app.transcription.segment-seconds={} is below the minimum of {}; using {}.",
+                    segmentSeconds, MIN_SEGMENT_SECONDS, MIN_SEGMENT_SECONDS);
+        }
+        this.segmentSeconds = Math.max(MIN_SEGMENT_SECONDS, segmentSeconds);
+        this.overlapSeconds = Math.max(0, Math.min(overlapSeconds, this.segmentSeconds / 4));
+        this.thresholdSeconds = thresholdSeconds;
+        this.segmentPermits = new Semaphore(Math.max(1, maxConcurrentSegments), true);
+    }
+
+    /**
+     * Transcribes {@code audioFilePath}. {@code contentHash} is the file's SHA-256 when known, so
+     * it is not hashed again for the Gemini file cache.
+     */
+    public String transcribe(Path audioFilePath, String fileName, @Nullable Integer durationSeconds,
+            String metadataId, @Nullable String contentHash) throws IOException {
+        if (streamingEnabled) {
+            transcriptSegmentStore.clear(metadataId);
+        }
+        if (durationSeconds == null || durationSeconds <= thresholdSeconds) {
+            return transcribeSingle(audioFilePath, fileName, metadataId, contentHash);
+        }
+        AudioSegmentCutter.Plan plan = audioSegmentCutter.plan(audioFilePath);
+        if (plan == null) {
+            log.info("[{}] {} cannot be cut into segments; transcribing it in one request.",
+                    metadataId, fileName);
+            return transcribeSingle(audioFilePath, fileName, metadataId, contentHash);
+        }
+
+        AudioEnergyAnalyzer.EnergyProfile profile = audioEnergyAnalyzer.analyze(audioFilePath,
+                AudioEnergyAnalyzer.DEFAULT_FRAME_MILLIS);
+        List<Segment> segments = planSegments(profile, durationSeconds);
+        log.info("[{}] Transcribing {} seconds of audio as {} segments: {}", metadataId,
+                durationSeconds, segments.size(), segments);
+
+        List<Future<String>> results = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            Path cut = audioFilePath.resolveSibling(
+                    metadataId + "_segment" + i + "." + plan.extension());
+            results.add(segmentExecutor.submit(
+                    () -> transcribeSegment(plan, segment, cut, metadataId)));
+        }
+
+        List<String> parts = new ArrayList<>(segments.size());
+        String previousPart = null;
+        try {
+            for (int i = 0; i < results.size(); i++) {
+                String part = await(results.get(i));
+                if (geminiService.isErrorResponse(part)) {
+                    log.error("[{}] Segment {} ({}) failed: {}", metadataId, i, segments.get(i),
+                            part);
+                    if (streamingEnabled) {
+                        transcriptSegmentStore.clear(metadataId);
+                    }
+                    return part;
+                }
+                parts.add(part);
+                String text = stitchNext(previousPart, part);
+                if (streamingEnabled && text != null) {
+                    transcriptSegmentStore.append(metadataId, i,
+                            previousPart == null ? text : "\n\n" + text);
+                }
+                if (text != null) {
+                    previousPart = text;
+                }
+            }
+        } finally {
+            results.forEach(result -> result.cancel(true));
+        }
+
+        String transcript = stitch(parts);
+        log.info("[{}] Stitched {} segment transcripts into {} characters.", metadataId,
+                parts.size(), transcript.length());
+        return transcript;
+    }
+
+    private String transcribeSegment(AudioSegmentCutter.Plan plan, Segment segment, Path cut,
+            String metadataId) throws IOException, InterruptedException {
+        segmentPermits.acquire();
+        try {
+            plan.write(segment.startSeconds(), segment.endSeconds(), cut);
+            log.info("[{}] Transcribing segment {} from {} ({} bytes)", metadataId, segment,
+                    cut.getFileName(), Files.size(cut));
+            return geminiService.callGeminiTranscriptionAPI(cut, cut.getFileName().toString(),
+                    metadataId, null);
+        } finally {
+            segmentPermits.release();
+            Files.deleteIfExists(cut);
+        }
+    }
+
+    private String await(Future<String> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for segment transcription", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Segment transcription failed: " + e.getCause().getMessage(),
+                    e.getCause());
+        }
+    }
+
+    private String transcribeSingle(Path audioFilePath, String fileName, String metadataId,
+            @Nullable String contentHash) throws IOException {
+        if (!streamingEnabled) {
+            return geminiService.callGeminiTranscriptionAPI(audioFilePath, fileName, metadataId,
+                    contentHash);
+        }
+        TranscriptSegmentStore.Capture capture = transcriptSegmentStore.capture(metadataId,
+                geminiService.streamTranscriptionAsync(audioFilePath, fileName, metadataId,
+                        contentHash));
+        if (capture.failure() == null && !capture.text().isBlank()) {
+            return capture.text().trim();
+        }
+        if (capture.failure() != null) {
+            log.warn("[{}] Streaming transcription failed after {} segments ({}); retrying without streaming.",
+                    metadataId, capture.segments(), capture.failure().getMessage());
+        } else {
+            log.warn("[{}] Streaming transcription returned no text; retrying without streaming.",
+                    metadataId);
+        }
+
+        String transcript = geminiService.callGeminiTranscriptionAPI(audioFilePath, fileName,
+                metadataId, contentHash);
+        if (!geminiService.isErrorResponse(transcript)) {
+            // Clients may already show the streamed part, so only append what follows it.
+            String rest = remainderAfter(capture.text(), transcript);
+            if (rest != null && !rest.isBlank() && !rest.trim().equals(NO_SPEECH_MARKER)) {
+                transcriptSegmentStore.append(metadataId, capture.segments(),
+                        capture.segments() == 0 ? rest.trim() : " " + rest.trim());
+            }
+        }
+        return transcript;
+    }
+
+    /**
+     * The part of {@code full} after the text already {@code shown}, found by the occurrence of
+     * the last {@link #TAIL_MATCH_WORDS} words of {@code shown} nearest its length; null if they
+     * do not occur in {@code full}.
+     */
+    @Nullable
+    static String remainderAfter(String shown, String full) {
+        List<String> shownWords = normalizedWords(shown, null);
+        if (shownWords.isEmpty()) {
+            return full;
+        }
+        List<String> tail = shownWords.subList(Math.max(0, shownWords.size() - TAIL_MATCH_WORDS),
+                shownWords.size());
+        List<Integer> offsets = new ArrayList<>();
+        List<String> fullWords = normalizedWords(full, offsets);
+        int best = -1;
+        for (int end = tail.size(); end <= fullWords.size(); end++) {
+            if (fullWords.subList(end - tail.size(), end).equals(tail) && (best < 0
+                    || Math.abs(end - shownWords.size()) < Math.abs(best - shownWords.size()))) {
+                best = end;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        return best < offsets.size() ? full.substring(offsets.get(best)) : "";
+    }
+
+    /**
+     * Splits {@code durationSeconds} into segments of about {@code segmentSeconds}, moving each
+     * cut to the quietest moment within {@link #BOUNDARY_SEARCH_SECONDS} of its nominal position,
+     * and widens every segment by the overlap on both sides.
+     */
+    List<Segment> planSegments(@Nullable AudioEnergyAnalyzer.EnergyProfile profile,
+            int durationSeconds) {
+        List<Integer> cuts = new ArrayList<>();
+        int previousCut = 0;
+        while (durationSeconds - previousCut > segmentSeconds + segmentSeconds / 4) {
+            int nominal = previousCut + segmentSeconds;
+            int cut = nominal;
+            if (profile != null) {
+                cut = (int) Math.round(profile.quietestSecondBetween(
+                        nominal - BOUNDARY_SEARCH_SECONDS, nominal + BOUNDARY_SEARCH_SECONDS));
+            }
+            // segmentSeconds >= 4 * BOUNDARY_SEARCH_SECONDS, so every cut moves forward.
+            cut = Math.max(cut, previousCut + segmentSeconds / 2);
+            cuts.add(cut);
+            previousCut = cut;
+        }
+        cuts.add(durationSeconds);
+
+        List<Segment> segments = new ArrayList<>();
+        int start = 0;
+        for (int cut : cuts) {
+            segments.add(new Segment(Math.max(0, start - overlapSeconds),
+                    Math.min(durationSeconds, cut + overlapSeconds)));
+            start = cut;
+        }
+        return segments;
+    }
+
+    static String stitch(List<String> parts) {
+        StringBuilder transcript = new StringBuilder();
+        String previous = null;
+        for (String part : parts) {
+            String text = stitchNext(previous, part);
+            if (text == null) {
+                continue;
+            }
+            if (previous != null) {
+                transcript.append("\n\n");
+            }
+            transcript.append(text);
+            previous = text;
+        }
+        return transcript.length() == 0 ? NO_SPEECH_MARKER : transcript.toString();
+    }
+
+    @Nullable
+    static String stitchNext(@Nullable String previous, @Nullable String part) {
+        String text = part == null ? "" : part.trim();
+        if (text.isEmpty() || text.equals(NO_SPEECH_MARKER)) {
+            return null;
+        }
+        if (previous != null) {
+            text = dropOverlap(previous, text);
+            if (text.isEmpty()) {
+                return null;
+            }
+        }
+        return text;
+    }
+
+    private static String dropOverlap(String previous, String next) {
+        List<String> tail = normalizedWords(previous, null);
+        if (tail.size() > MAX_OVERLAP_WORDS) {
+            tail = tail.subList(tail.size() - MAX_OVERLAP_WORDS, tail.size());
+        }
+        List<Integer> offsets = new ArrayList<>();
+        List<String> head = normalizedWords(next, offsets);
+
+        int matched = 0;
+        for (int k = Math.min(tail.size(), Math.min(head.size(), MAX_OVERLAP_WORDS));
+                k >= MIN_OVERLAP_MATCH_WORDS; k--) {
+            if (tail.subList(tail.size() - k, tail.size()).equals(head.subList(0, k))) {
+                matched = k;
+                break;
+            }
+        }
+        if (matched == 0 && tail.size() >= ANCHOR_WORDS) {
+            List<String> anchor = tail.subList(tail.size() - ANCHOR_WORDS, tail.size());
+            for (int end = Math.min(head.size(), MAX_OVERLAP_WORDS); end >= ANCHOR_WORDS; end--) {
+                if (head.subList(end - ANCHOR_WORDS, end).equals(anchor)) {
+                    matched = end;
+                    break;
+                }
+            }
+        }
+        if (matched == 0) {
+            return next;
+        }
+        return matched < offsets.size() ? next.substring(offsets.get(matched)).trim() : "";
+    }
+
+    private static List<String> normalizedWords(String text, @Nullable List<Integer> offsets) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD_PATTERN.matcher(text);
+        while (matcher.find()) {
+            words.add(matcher.group().toLowerCase().replaceAll("[^\\p{L}\\p{N}]", ""));
+            if (offsets != null) {
+                offsets.add(matcher.start());
+            }
+        }
+        return words;
+    }
+
+    record Segment(int startSeconds, int endSeconds) {
+    }
+}
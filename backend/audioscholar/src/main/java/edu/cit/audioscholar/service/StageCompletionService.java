@@ -0,0 +1,161 @@
+package edu.cit.audioscholar.service;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Service
+public class StageCompletionService {
+
+    private static final Logger log = LoggerFactory.getLogger(StageCompletionService.class);
+
+    public static final long STAGE_TRANSCRIPTION = 1L;
+    public static final long STAGE_PDF_CONVERSION = 1L << 1;
+
+    private static final Set<ProcessingStatus> NOT_CLAIMABLE = EnumSet.of(
+            ProcessingStatus.SUMMARIZATION_QUEUED, ProcessingStatus.SUMMARIZING,
+            ProcessingStatus.SUMMARY_COMPLETE, ProcessingStatus.RECOMMENDATIONS_QUEUED,
+            ProcessingStatus.GENERATING_RECOMMENDATIONS, ProcessingStatus.COMPLETE,
+            ProcessingStatus.FAILED, ProcessingStatus.PROCESSING_HALTED_NO_SPEECH,
+            ProcessingStatus.PROCESSING_HALTED_UNSUITABLE_CONTENT);
+
+    private final FirebaseService firebaseService;
+    private final PipelineTransport pipelineTransport;
+    private final MeterRegistry meterRegistry;
+
+    public StageCompletionService(FirebaseService firebaseService,
+            PipelineTransport pipelineTransport, MeterRegistry meterRegistry) {
+        this.firebaseService = firebaseService;
+        this.pipelineTransport = pipelineTransport;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Marks a stage complete and writes its results in one transaction. Returns true when this
+     * call completed the join and moved the recording to SUMMARIZATION_QUEUED, in which case the
+     * caller is the only one that should enqueue summarization.
+     */
+    public boolean completeStage(String metadataId, long stage, Map<String, Object> stageUpdates) {
+        return completeStage(metadataId, stage, stageUpdates, null);
+    }
+
+    /**
+     * As {@link #completeStage(String, long, Map)}, but fenced by the caller's lease: the write is
+     * dropped when a later lease holder has already recorded this stage.
+     */
+    public boolean completeStage(String metadataId, long stage, Map<String, Object> stageUpdates,
+            @Nullable LeaseService.Lease lease) {
+        return completeAndStage(metadataId, stage, stageUpdates, lease, List.of()) != null;
+    }
+
+    /**
+     * As {@link #completeStage(String, long, Map, LeaseService.Lease)}, but a claim also stages
+     * {@code onClaim} in the same transaction, so the summarization message is recorded together
+     * with the SUMMARIZATION_QUEUED status. Returns null when this call did not claim; otherwise
+     * the caller publishes the returned messages.
+     */
+    @Nullable
+    public PipelineTransport.Staged completeAndStage(String metadataId, long stage,
+            Map<String, Object> stageUpdates, @Nullable LeaseService.Lease lease,
+            List<PipelineTransport.Outgoing> onClaim) {
+        DocumentReference docRef = firebaseService.getDocumentReference(
+                firebaseService.getAudioMetadataCollectionName(), metadataId);
+        Timer.Sample commit = Timer.start(meterRegistry);
+        PipelineTransport.Staged staged = firebaseService.runTransaction(transaction -> {
+            DocumentSnapshot snapshot = transaction.get(docRef).get();
+            if (!snapshot.exists()) {
+                log.warn("[{}] Metadata missing; cannot record stage {}.", metadataId, stage);
+                return null;
+            }
+            if (snapshot.get("deletionRequestedAt") != null) {
+                log.info("[{}] Recording is being deleted; dropping stage {} result.", metadataId,
+                        stage);
+                return null;
+            }
+            String fenceField = "stageFences." + stage;
+            if (lease != null) {
+                Long fence = snapshot.getLong(fenceField);
+                if (fence != null && fence > lease.fencingToken()) {
+                    log.warn("[{}] Dropping stage {} result from stale lease (token {} < {}).",
+                            metadataId, stage, lease.fencingToken(), fence);
+                    return null;
+                }
+            }
+            long stageBits = stageBits(snapshot) | stage;
+            Long version = snapshot.getLong("stageVersion");
+
+            Map<String, Object> updates = new HashMap<>(stageUpdates);
+            updates.put("stageBits", stageBits);
+            updates.put("stageVersion", (version != null ? version : 0L) + 1);
+            updates.put("lastUpdated", Timestamp.now());
+            if (lease != null) {
+                updates.put(fenceField, lease.fencingToken());
+            }
+
+            boolean claim = isReady(snapshot, stageBits) && isClaimable(snapshot);
+            if (claim) {
+                updates.put("status", ProcessingStatus.SUMMARIZATION_QUEUED.name());
+                updates.put("waitingForPdf", false);
+            }
+            transaction.update(docRef, updates);
+            if (!claim) {
+                return null;
+            }
+            return onClaim.isEmpty() ? () -> {
+            } : pipelineTransport.stageAll(transaction, onClaim);
+        });
+        commit.stop(Timer.builder("pipeline.stage.commit")
+                .description("Firestore transaction recording a stage result")
+                .tag("stage", stage == STAGE_TRANSCRIPTION ? "transcription" : "pptx")
+                .publishPercentileHistogram().register(meterRegistry));
+        log.info("[{}] Recorded stage {}; summarization {}.", metadataId, stage,
+                staged != null ? "claimed by this stage" : "not ready or already claimed");
+        return staged;
+    }
+
+    private static long stageBits(DocumentSnapshot snapshot) {
+        Long stored = snapshot.getLong("stageBits");
+        long bits = stored != null ? stored : 0L;
+        if (Boolean.TRUE.equals(snapshot.getBoolean("transcriptionComplete"))) {
+            bits |= STAGE_TRANSCRIPTION;
+        }
+        if (Boolean.TRUE.equals(snapshot.getBoolean("pdfConversionComplete"))) {
+            bits |= STAGE_PDF_CONVERSION;
+        }
+        return bits;
+    }
+
+    private static boolean isReady(DocumentSnapshot snapshot, long stageBits) {
+        if ((stageBits & STAGE_TRANSCRIPTION) == 0) {
+            return false;
+        }
+        boolean audioOnly = Boolean.TRUE.equals(snapshot.getBoolean("audioOnly"));
+        boolean hasPptx = StringUtils.hasText(snapshot.getString("nhostPptxFileId"));
+        return audioOnly || !hasPptx || (stageBits & STAGE_PDF_CONVERSION) != 0;
+    }
+
+    private static boolean isClaimable(DocumentSnapshot snapshot) {
+        String status = snapshot.getString("status");
+        if (status == null) {
+            return true;
+        }
+        try {
+            return !NOT_CLAIMABLE.contains(ProcessingStatus.valueOf(status));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package edu.cit.audioscholar.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Records when each pipeline stage of a recording was enqueued, started and finished, in a
+ * per-recording document of the timelines collection, and feeds the queue-wait and stage-duration
+ * histograms. Firestore writes run off the listener thread; a stage's finish write is chained
+ * after its start write so the two can never land out of order.
+ */
+@Service
+public class StageTimelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(StageTimelineService.class);
+
+    public static final String STAGE_UPLOAD_AUDIO = "upload-audio";
+    public static final String STAGE_UPLOAD_PPTX = "upload-pptx";
+    public static final String STAGE_PPTX = "pptx";
+
+    private final FirebaseService firebaseService;
+    private final ProcessingLaneRouter processingLaneRouter;
+    private final MeterRegistry meterRegistry;
+    private final String timelineCollection;
+    private final Executor writeExecutor = task -> Schedulers.boundedElastic().schedule(task);
+
+    public StageTimelineService(FirebaseService firebaseService,
+            ProcessingLaneRouter processingLaneRouter, MeterRegistry meterRegistry,
+            @Value("${firebase.firestore.collection.timelines:pipeline_timelines}") String timelineCollection) {
+        this.firebaseService = firebaseService;
+        this.processingLaneRouter = processingLaneRouter;
+        this.meterRegistry = meterRegistry;
+        this.timelineCollection = timelineCollection;
+    }
+
+    public record Span(String metadataId, String stage, long startedNanos,
+            CompletableFuture<Void> startWrite) {
+    }
+
+    /**
+     * Marks {@code stage} as started. Queue wait is only recorded on the first attempt, since a
+     * redelivered message still carries its original enqueue time.
+     */
+    public Span start(String metadataId, String stage, @Nullable String tier,
+            @Nullable Long enqueuedAtMillis, @Nullable Integer attempt) {
+        boolean firstAttempt = attempt == null || attempt == 0;
+        if (firstAttempt) {
+            processingLaneRouter.recordWait(stage, tier, enqueuedAtMillis);
+        }
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("startedAt", Timestamp.now());
+        entry.put("finishedAt", null);
+        entry.put("durationMs", null);
+        entry.put("attempt", attempt != null ? attempt : 0);
+        if (enqueuedAtMillis != null && enqueuedAtMillis > 0) {
+            entry.put("enqueuedAt", Timestamp.ofTimeMicroseconds(enqueuedAtMillis * 1000));
+            if (firstAttempt) {
+                entry.put("queueWaitMs",
+                        Math.max(0, System.currentTimeMillis() - enqueuedAtMillis));
+            }
+        }
+        CompletableFuture<Void> startWrite =
+                CompletableFuture.runAsync(() -> persist(metadataId, stage, entry), writeExecutor);
+        return new Span(metadataId, stage, System.nanoTime(), startWrite);
+    }
+
+    public void finish(@Nullable Span span) {
+        if (span == null) {
+            return;
+        }
+        long elapsedNanos = System.nanoTime() - span.startedNanos();
+        Timer.builder("pipeline.stage.duration").description("Time spent processing a stage")
+                .tags("stage", span.stage()).publishPercentileHistogram()
+                .register(meterRegistry).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("finishedAt", Timestamp.now());
+        entry.put("durationMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        span.startWrite().whenCompleteAsync(
+                (ignored, failure) -> persist(span.metadataId(), span.stage(), entry),
+                writeExecutor);
+    }
+
+    /** Stages of a recording in the order they started; empty when nothing has been recorded. */
+    public List<Map<String, Object>> getTimeline(String metadataId) {
+        Map<String, Object> document = firebaseService.getData(timelineCollection, metadataId);
+        if (document == null) {
+            return List.of();
+        }
+        List<Map.Entry<String, Map<?, ?>>> entries = new ArrayList<>();
+        for (Map.Entry<String, Object> field : document.entrySet()) {
+            if (field.getValue() instanceof Map<?, ?> value) {
+                entries.add(Map.entry(field.getKey(), value));
+            }
+        }
+        entries.sort(Comparator.comparing(StageTimelineService::startedAt,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        List<Map<String, Object>> stages = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Map<?, ?>> entry : entries) {
+            Map<?, ?> value = entry.getValue();
+            Map<String, Object> stage = new LinkedHashMap<>();
+            stage.put("stage", entry.getKey());
+            for (String key : List.of("enqueuedAt", "startedAt", "finishedAt")) {
+                stage.put(key, value.get(key) instanceof Timestamp time
+                        ? time.toDate().toInstant().toString()
+                        : null);
+            }
+            stage.put("queueWaitMs", value.get("queueWaitMs"));
+            stage.put("durationMs", value.get("durationMs"));
+            stage.put("attempt", value.get("attempt"));
+            stages.add(stage);
+        }
+        return stages;
+    }
+
+    @Nullable
+    private static Timestamp startedAt(Map.Entry<String, Map<?, ?>> entry) {
+        return entry.getValue().get("startedAt") instanceof Timestamp started ? started : null;
+    }
+
+    private void persist(String metadataId, String stage, Map<String, Object> entry) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(stage, entry);
+        try {
+            firebaseService.updateData(timelineCollection, metadataId, update);
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to record {} timeline: {}", metadataId, stage, e.getMessage());
+        }
+    }
+}
@@ -4,39 +4,42 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.lang.Nullable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.FieldValue;
 import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
 import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import edu.cit.audioscholar.exception.TransientStageException;
 import edu.cit.audioscholar.model.AudioMetadata;
 import edu.cit.audioscholar.model.ProcessingStatus;
 import edu.cit.audioscholar.model.Recording;
 import edu.cit.audioscholar.model.Summary;
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class SummarizationListenerService {
@@ -44,6 +47,7 @@ public class SummarizationListenerService {
         private static final Logger log =
                         LoggerFactory.getLogger(SummarizationListenerService.class);
         private static final String CACHE_METADATA_BY_USER = "audioMetadataByUser";
+        private static final String SUMMARIES_COLLECTION = "summaries";
 
         private final FirebaseService firebaseService;
         private final GeminiService geminiService;
@@ -54,10 +58,15 @@ public class SummarizationListenerService {
         private final Path tempDir;
         private final LearningMaterialRecommenderService recommenderService;
         private final RecordingService recordingService;
-        private final RabbitTemplate rabbitTemplate;
-        private final Map<String, Long> processedMessageIds = new ConcurrentHashMap<>();
-        private final Map<String, Lock> metadataLocks = new ConcurrentHashMap<>();
-        private static final long MESSAGE_ID_EXPIRATION_TIME = 10 * 60 * 1000;
+        private final PipelineTransport pipelineTransport;
+        private final SummaryResultCache summaryResultCache;
+        private final LeaseService leaseService;
+        private final LeaseHeartbeat leaseHeartbeat;
+        private final GeminiRateGovernor geminiRateGovernor;
+        private final ProcessingLaneRouter processingLaneRouter;
+        private final StageTimelineService stageTimelineService;
+        private final Duration leaseTtl;
+        private final Duration processedMessageTtl;
 
         public SummarizationListenerService(FirebaseService firebaseService,
                         GeminiService geminiService, NhostStorageService nhostStorageService,
@@ -65,7 +74,14 @@ public class SummarizationListenerService {
                         ObjectMapper objectMapper,
                         @Value("${app.temp-file-dir:./temp_files}") String tempDirStr,
                         @Lazy LearningMaterialRecommenderService recommenderService,
-                        @Lazy RecordingService recordingService, RabbitTemplate rabbitTemplate) {
+                        @Lazy RecordingService recordingService,
+                        PipelineTransport pipelineTransport,
+                        SummaryResultCache summaryResultCache, LeaseService leaseService,
+                        LeaseHeartbeat leaseHeartbeat, GeminiRateGovernor geminiRateGovernor,
+                        @Value("${app.lease.ttl-minutes:5}") long leaseTtlMinutes,
+                        @Value("${app.lease.processed-message-ttl-hours:24}") long processedMessageTtlHours,
+                        ProcessingLaneRouter processingLaneRouter,
+                        StageTimelineService stageTimelineService) {
                 this.firebaseService = firebaseService;
                 this.geminiService = geminiService;
                 this.nhostStorageService = nhostStorageService;
@@ -75,38 +91,52 @@ public class SummarizationListenerService {
                 this.tempDir = Paths.get(tempDirStr);
                 this.recommenderService = recommenderService;
                 this.recordingService = recordingService;
-                this.rabbitTemplate = rabbitTemplate;
+                this.pipelineTransport = pipelineTransport;
+                this.summaryResultCache = summaryResultCache;
+                this.leaseService = leaseService;
+                this.leaseHeartbeat = leaseHeartbeat;
+                this.geminiRateGovernor = geminiRateGovernor;
+                this.leaseTtl = Duration.ofMinutes(leaseTtlMinutes);
+                this.processedMessageTtl = Duration.ofHours(processedMessageTtlHours);
+                this.processingLaneRouter = processingLaneRouter;
+                this.stageTimelineService = stageTimelineService;
                 try {
                         Files.createDirectories(this.tempDir);
                 } catch (IOException e) {
                         log.error("Could not create temporary directory for SummarizationListenerService: {}",
                                         this.tempDir.toAbsolutePath(), e);
                 }
+        }
 
-                Thread cleanupThread = new Thread(() -> {
-                        while (!Thread.currentThread().isInterrupted()) {
-                                try {
-                                        Thread.sleep(60000);
-                                        cleanupExpiredMessageIds();
-                                } catch (InterruptedException e) {
-                                        Thread.currentThread().interrupt();
-                                        break;
-                                }
-                        }
-                });
-                cleanupThread.setDaemon(true);
-                cleanupThread.setName("MessageIdCleanupThread");
-                cleanupThread.start();
+        @PostConstruct
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        void registerInProcessConsumers() {
+                PipelineTransport.StageHandler<Map> handler =
+                                (message, attempt) -> processSummarizationRequest(message, attempt);
+                pipelineTransport.register(RabbitMQConfig.SUMMARIZATION_ROUTING_KEY, Map.class,
+                                handler);
+                pipelineTransport.register(RabbitMQConfig.SUMMARIZATION_PREMIUM_ROUTING_KEY,
+                                Map.class, handler);
         }
 
-        private void cleanupExpiredMessageIds() {
-                long currentTime = System.currentTimeMillis();
-                processedMessageIds.entrySet().removeIf(entry -> (currentTime
-                                - entry.getValue()) > MESSAGE_ID_EXPIRATION_TIME);
+        @RabbitListener(queues = RabbitMQConfig.SUMMARIZATION_QUEUE_NAME,
+                        containerFactory = RabbitMQConfig.SUMMARIZATION_LISTENER_FACTORY)
+        public void handleSummarizationRequest(Map<String, String> message,
+                        @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                                        required = false) @Nullable Integer attempt) {
+                processSummarizationRequest(message, attempt);
         }
 
-        @RabbitListener(queues = RabbitMQConfig.SUMMARIZATION_QUEUE_NAME)
-        public void handleSummarizationRequest(Map<String, String> message) {
+        @RabbitListener(queues = RabbitMQConfig.SUMMARIZATION_PREMIUM_QUEUE_NAME,
+                        containerFactory = RabbitMQConfig.SUMMARIZATION_PREMIUM_LISTENER_FACTORY)
+        public void handlePremiumSummarizationRequest(Map<String, String> message,
+                        @Header(name = StageRetryAdvice.ATTEMPT_HEADER,
+                                        required = false) @Nullable Integer attempt) {
+                processSummarizationRequest(message, attempt);
+        }
+
+        private void processSummarizationRequest(Map<String, String> message,
+                        @Nullable Integer attempt) {
                 if (message == null || message.get("metadataId") == null
                                 || message.get("metadataId").isEmpty()) {
                         log.error("[AMQP Listener - Summarization] Received invalid message: {}. Ignoring.",
@@ -117,28 +147,48 @@ public class SummarizationListenerService {
                 final String metadataId = message.get("metadataId");
                 final String messageId = message.get("messageId");
 
+                String processedKey = null;
                 if (messageId != null && !messageId.isEmpty()) {
-                        if (processedMessageIds.containsKey(messageId)) {
+                        // Delayed retries reuse the messageId, so each attempt gets its own marker.
+                        processedKey = "summarization:" + messageId
+                                        + (attempt != null && attempt > 0 ? "#" + attempt : "");
+                        if (leaseService.isProcessed(processedKey)) {
                                 log.info("[AMQP Listener - Summarization] Duplicate message detected (ID: {}). Skipping.",
                                                 messageId);
                                 return;
                         }
-                        processedMessageIds.put(messageId, System.currentTimeMillis());
                 } else {
                         log.warn("[{}] Message has no messageId for deduplication. Processing anyway but this may cause duplicates.",
                                         metadataId);
                 }
 
-                log.info("[AMQP Listener - Summarization] Received request for metadataId: {}, messageId: {}",
-                                metadataId, messageId);
+                log.info("[AMQP Listener - Summarization] Received request for metadataId: {}, messageId: {}, tier: {}",
+                                metadataId, messageId, message.get("tier"));
 
                 String userId = null;
-                Lock lock = null;
+                LeaseService.Lease lease = null;
+                LeaseHeartbeat.Renewal renewal = null;
+                GeminiRateGovernor.Priority priority = null;
+                StageTimelineService.Span span = null;
+                // Cleared when the message is handed back for redelivery, so only a settled
+                // attempt is recorded as processed.
+                boolean settled = true;
 
                 try {
-                        lock = metadataLocks.computeIfAbsent(metadataId, k -> new ReentrantLock());
-                        lock.lock();
-                        log.debug("[{}] Acquired lock for summarization processing", metadataId);
+                        lease = leaseService.tryAcquire("summarization:" + metadataId, leaseTtl);
+                        if (lease == null) {
+                                log.info("[{}] Another listener holds the summarization lease. Skipping duplicate processing.",
+                                                metadataId);
+                                return;
+                        }
+                        log.debug("[{}] Acquired summarization lease (fencing token {})",
+                                        metadataId, lease.fencingToken());
+                        renewal = leaseHeartbeat.keepAlive(lease, leaseTtl);
+                        priority = geminiRateGovernor.prioritize(metadataId, message.get("tier"));
+                        span = stageTimelineService.start(metadataId,
+                                        ProcessingLaneRouter.STAGE_SUMMARIZATION,
+                                        message.get("tier"),
+                                        parseEnqueuedAt(message.get("enqueuedAt")), attempt);
 
                         Map<String, Object> latestMetadataMap = firebaseService.getData(
                                         firebaseService.getAudioMetadataCollectionName(),
@@ -184,50 +234,11 @@ public class SummarizationListenerService {
 
                         String transcript = metadata.getTranscriptText();
                         if (transcript == null || transcript.isBlank()) {
-                                for (int retryCount = 1; retryCount <= 3; retryCount++) {
-                                        log.warn("[{}] Transcript text is missing in metadata. Retry attempt {} of 3 after delay...",
-                                                        metadataId, retryCount);
-                                        try {
-                                                Thread.sleep(2000);
-
-                                                Map<String, Object> retryMetadataMap =
-                                                                firebaseService.getData(
-                                                                                firebaseService.getAudioMetadataCollectionName(),
-                                                                                metadataId);
-
-                                                if (retryMetadataMap != null) {
-                                                        AudioMetadata retryMetadata = AudioMetadata
-                                                                        .fromMap(retryMetadataMap);
-                                                        transcript = retryMetadata
-                                                                        .getTranscriptText();
-                                                        if (transcript != null
-                                                                        && !transcript.isBlank()) {
-                                                                log.info("[{}] Successfully retrieved transcript on retry {}",
-                                                                                metadataId,
-                                                                                retryCount);
-                                                                metadata = retryMetadata;
-                                                                break;
-                                                        }
-                                                }
-                                        } catch (InterruptedException e) {
-                                                Thread.currentThread().interrupt();
-                                                log.error("[{}] Retry interrupted", metadataId);
-                                                break;
-                                        } catch (Exception e) {
-                                                log.error("[{}] Error during retry {}: {}",
-                                                                metadataId, retryCount,
-                                                                e.getMessage());
-                                        }
-                                }
-
-                                if (transcript == null || transcript.isBlank()) {
-                                        log.error("[{}] Transcript text is still missing after retries. Cannot generate summary.",
-                                                        metadataId);
-                                        updateMetadataStatus(metadataId, userId,
-                                                        ProcessingStatus.FAILED,
-                                                        "Missing transcript for summarization after multiple retries");
-                                        return;
-                                }
+                                log.error("[{}] Transcript text is missing although summarization was queued. Cannot generate summary.",
+                                                metadataId);
+                                updateMetadataStatus(metadataId, userId, ProcessingStatus.FAILED,
+                                                "Missing transcript for summarization");
+                                return;
                         }
 
                         String googleFilesApiPdfUri = metadata.getGoogleFilesApiPdfUri();
@@ -235,14 +246,21 @@ public class SummarizationListenerService {
                                 log.info("[{}] Found Google Files API URI for PDF, using it directly for summarization: {}",
                                                 metadataId, googleFilesApiPdfUri);
 
-                                updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.SUMMARIZING, null);
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.SUMMARIZING, null)) {
+                                        return;
+                                }
 
                                 log.info("[{}] Calling GeminiService to generate summary with PDF context (direct Google Files API)...",
                                                 metadataId);
-                                String summarizationJson = geminiService
-                                                .generateSummaryWithGoogleFileUri(transcript,
-                                                                googleFilesApiPdfUri, metadataId);
+                                final String pdfTranscript = transcript;
+                                String summarizationJson = summarizeWithCache(
+                                                SummaryResultCache.MODE_PDF_URI, transcript,
+                                                summaryResultCache.pdfUriKey(googleFilesApiPdfUri),
+                                                metadataId,
+                                                () -> geminiService.generateSummaryWithGoogleFileUri(
+                                                                pdfTranscript, googleFilesApiPdfUri,
+                                                                metadataId));
 
                                 processSummarizationResult(summarizationJson, metadataId, userId,
                                                 metadata);
@@ -254,8 +272,10 @@ public class SummarizationListenerService {
                                 log.info("[{}] Found ConvertAPI PDF URL, using it for summarization: {}",
                                                 metadataId, convertApiPdfUrl);
 
-                                updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.SUMMARIZING, null);
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.SUMMARIZING, null)) {
+                                        return;
+                                }
 
                                 Path tempPdfPath = null;
                                 try {
@@ -270,9 +290,17 @@ public class SummarizationListenerService {
 
                                         log.info("[{}] Calling GeminiService to generate summary with PDF context...",
                                                         metadataId);
-                                        String summarizationJson = geminiService
-                                                        .generateSummaryWithPdfContext(transcript,
-                                                                        tempPdfPath, metadataId);
+                                        final String pdfTranscript = transcript;
+                                        final Path pdfPath = tempPdfPath;
+                                        String summarizationJson = summarizeWithCache(
+                                                        SummaryResultCache.MODE_PDF_FILE, transcript,
+                                                        summaryResultCache.pdfFileKey(pdfPath),
+                                                        metadataId,
+                                                        () -> geminiService
+                                                                        .generateSummaryWithPdfContext(
+                                                                                        pdfTranscript,
+                                                                                        pdfPath,
+                                                                                        metadataId));
 
                                         processSummarizationResult(summarizationJson, metadataId,
                                                         userId, metadata);
@@ -304,14 +332,19 @@ public class SummarizationListenerService {
                         if (metadata.isAudioOnly()) {
                                 log.info("[{}] Audio-only upload detected. Processing summarization without PDF context.",
                                                 metadataId);
-                                updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.SUMMARIZING, null);
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.SUMMARIZING, null)) {
+                                        return;
+                                }
 
                                 log.info("[{}] Calling GeminiService to generate transcript-only summary...",
                                                 metadataId);
-                                String summarizationJson =
-                                                geminiService.generateTranscriptOnlySummary(
-                                                                transcript, metadataId);
+                                final String audioTranscript = transcript;
+                                String summarizationJson = summarizeWithCache(
+                                                SummaryResultCache.MODE_TRANSCRIPT_ONLY, transcript,
+                                                null, metadataId,
+                                                () -> geminiService.generateTranscriptOnlySummary(
+                                                                audioTranscript, metadataId));
 
                                 processSummarizationResult(summarizationJson, metadataId, userId,
                                                 metadata);
@@ -328,9 +361,8 @@ public class SummarizationListenerService {
                                                                         .name());
                                         statusUpdate.put("lastUpdated", Timestamp.now());
                                         statusUpdate.put("waitingForPdf", true);
-                                        firebaseService.updateDataWithMap(firebaseService
-                                                        .getAudioMetadataCollectionName(),
-                                                        metadataId, statusUpdate);
+                                        firebaseService.updateLiveAudioMetadata(metadataId,
+                                                        statusUpdate);
 
                                         log.info("[{}] Updated metadata to indicate waiting for PDF completion.",
                                                         metadataId);
@@ -340,8 +372,10 @@ public class SummarizationListenerService {
                                         return;
                                 }
 
-                                updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.SUMMARIZING, null);
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.SUMMARIZING, null)) {
+                                        return;
+                                }
 
                                 String pdfNhostId = extractNhostIdFromUrl(pdfUrl);
                                 if (pdfNhostId == null) {
@@ -376,11 +410,18 @@ public class SummarizationListenerService {
 
                                                 log.info("[{}] Calling GeminiService to generate summary with PDF context...",
                                                                 metadataId);
-                                                String summarizationJson = geminiService
-                                                                .generateSummaryWithPdfContext(
-                                                                                transcript,
-                                                                                tempPdfPath,
-                                                                                metadataId);
+                                                final String pdfTranscript = transcript;
+                                                final Path pdfPath = tempPdfPath;
+                                                String summarizationJson = summarizeWithCache(
+                                                                SummaryResultCache.MODE_PDF_FILE,
+                                                                transcript,
+                                                                summaryResultCache.pdfFileKey(pdfPath),
+                                                                metadataId,
+                                                                () -> geminiService
+                                                                                .generateSummaryWithPdfContext(
+                                                                                                pdfTranscript,
+                                                                                                pdfPath,
+                                                                                                metadataId));
 
                                                 processSummarizationResult(summarizationJson,
                                                                 metadataId, userId, metadata);
@@ -424,9 +465,17 @@ public class SummarizationListenerService {
 
                                         log.info("[{}] Calling GeminiService to generate summary with PDF context...",
                                                         metadataId);
-                                        String summarizationJson = geminiService
-                                                        .generateSummaryWithPdfContext(transcript,
-                                                                        tempPdfPath, metadataId);
+                                        final String pdfTranscript = transcript;
+                                        final Path pdfPath = tempPdfPath;
+                                        String summarizationJson = summarizeWithCache(
+                                                        SummaryResultCache.MODE_PDF_FILE, transcript,
+                                                        summaryResultCache.pdfFileKey(pdfPath),
+                                                        metadataId,
+                                                        () -> geminiService
+                                                                        .generateSummaryWithPdfContext(
+                                                                                        pdfTranscript,
+                                                                                        pdfPath,
+                                                                                        metadataId));
 
                                         processSummarizationResult(summarizationJson, metadataId,
                                                         userId, metadata);
@@ -449,18 +498,31 @@ public class SummarizationListenerService {
                                 log.warn("[{}] Neither audio-only flag nor PowerPoint file detected. Treating as audio-only.",
                                                 metadataId);
 
-                                updateMetadataStatus(metadataId, userId,
-                                                ProcessingStatus.SUMMARIZING, null);
-                                String summarizationJson =
-                                                geminiService.generateTranscriptOnlySummary(
-                                                                transcript, metadataId);
+                                if (!updateMetadataStatus(metadataId, userId,
+                                                ProcessingStatus.SUMMARIZING, null)) {
+                                        return;
+                                }
+                                final String audioTranscript = transcript;
+                                String summarizationJson = summarizeWithCache(
+                                                SummaryResultCache.MODE_TRANSCRIPT_ONLY, transcript,
+                                                null, metadataId,
+                                                () -> geminiService.generateTranscriptOnlySummary(
+                                                                audioTranscript, metadataId));
                                 processSummarizationResult(summarizationJson, metadataId, userId,
                                                 metadata);
                         }
 
+                } catch (TransientStageException e) {
+                        log.warn("[{}] Transient summarization failure; handing back for delayed retry: {}",
+                                        metadataId, e.getMessage());
+                        updateMetadataStatus(metadataId, userId,
+                                        ProcessingStatus.SUMMARIZATION_QUEUED, null);
+                        settled = false;
+                        throw e;
                 } catch (FirestoreInteractionException e) {
                         log.error("[{}] Firestore error during summarization processing: {}",
                                         metadataId, e.getMessage(), e);
+                        settled = false;
                 } catch (Exception e) {
                         log.error("[{}] Unexpected error during summarization processing: {}",
                                         metadataId, e.getMessage(), e);
@@ -488,18 +550,87 @@ public class SummarizationListenerService {
                                 }
                         }
                 } finally {
-                        if (lock != null) {
-                                lock.unlock();
-                                log.debug("[{}] Released lock for summarization processing",
-                                                metadataId);
+                        stageTimelineService.finish(span);
+                        if (priority != null) {
+                                priority.close();
+                        }
+                        if (renewal != null) {
+                                renewal.close();
+                        }
+                        if (lease != null) {
+                                if (settled && processedKey != null) {
+                                        markProcessed(metadataId, processedKey);
+                                }
+                                leaseService.release(lease);
+                                log.debug("[{}] Released summarization lease", metadataId);
                         }
                 }
         }
 
+        private void markProcessed(String metadataId, String processedKey) {
+                try {
+                        leaseService.markProcessed(processedKey, processedMessageTtl);
+                } catch (RuntimeException e) {
+                        log.warn("[{}] Could not record message {} as processed; a redelivery will be absorbed by the status check: {}",
+                                        metadataId, processedKey, e.getMessage());
+                }
+        }
+
+        @Nullable
+        private static Long parseEnqueuedAt(@Nullable String enqueuedAt) {
+                if (enqueuedAt == null) {
+                        return null;
+                }
+                try {
+                        return Long.parseLong(enqueuedAt);
+                } catch (NumberFormatException e) {
+                        return null;
+                }
+        }
+
+        private String summarizeWithCache(String mode, String transcript,
+                        @Nullable String pdfContentKey, String metadataId,
+                        Supplier<String> summarizer) {
+                String modelName = geminiService.getSummarizationModelName();
+                String cacheKey = summaryResultCache.keyFor(mode, modelName, transcript,
+                                pdfContentKey);
+                String cached = summaryResultCache.get(cacheKey);
+                if (cached != null) {
+                        log.info("[{}] Reusing cached summary {} for identical transcript and slide content.",
+                                        metadataId, cacheKey);
+                        return cached;
+                }
+
+                String summarizationJson = summarizer.get();
+                if (isCacheableSummary(summarizationJson)) {
+                        summaryResultCache.put(cacheKey, modelName, summarizationJson, metadataId);
+                }
+                return summarizationJson;
+        }
+
+        private boolean isCacheableSummary(String summarizationJson) {
+                if (summarizationJson == null || summarizationJson.isBlank()
+                                || geminiService.isErrorResponse(summarizationJson)
+                                || summarizationJson.contains("\"errorTitle\"")) {
+                        return false;
+                }
+                try {
+                        objectMapper.readTree(summarizationJson);
+                        return true;
+                } catch (JsonProcessingException e) {
+                        return false;
+                }
+        }
+
         private void processSummarizationResult(String summarizationJson, String metadataId,
                         String userId, AudioMetadata metadata) {
                 log.info("[{}] Processing summarization result...", metadataId);
 
+                if (geminiService.isTransientErrorResponse(summarizationJson)) {
+                        throw new TransientStageException(
+                                        "Summarization unavailable: " + summarizationJson);
+                }
+
                 try {
                         if (summarizationJson == null || summarizationJson.isBlank()) {
                                 log.error("[{}] Summarization result is null or blank. Cannot proceed.",
@@ -509,7 +640,8 @@ public class SummarizationListenerService {
                                 return;
                         }
 
-                        if (summarizationJson.contains("\"errorTitle\"")
+                        if (geminiService.isErrorResponse(summarizationJson)
+                                        || summarizationJson.contains("\"errorTitle\"")
                                         || summarizationJson.contains("\"errorDetails\"")) {
                                 log.error("[{}] Received error in summarization result: {}",
                                                 metadataId, summarizationJson);
@@ -659,9 +791,11 @@ public class SummarizationListenerService {
                         updates.put("summaryId", summary.getSummaryId());
                         updates.put("status", ProcessingStatus.SUMMARY_COMPLETE.name());
                         updates.put("lastUpdated", Timestamp.now());
-                        firebaseService.updateDataWithMap(
-                                        firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                firebaseService.deleteData(SUMMARIES_COLLECTION,
+                                                summary.getSummaryId());
+                                return;
+                        }
                         log.info("[{}] Updated metadata with summaryId and set status to SUMMARY_COMPLETE",
                                         metadataId);
 
@@ -754,8 +888,10 @@ public class SummarizationListenerService {
                 recommendationMessage.put("summaryId", summaryId);
                 recommendationMessage.put("userId", userId);
 
-                updateMetadataStatus(metadataId, userId, ProcessingStatus.RECOMMENDATIONS_QUEUED,
-                                null);
+                if (!updateMetadataStatus(metadataId, userId,
+                                ProcessingStatus.RECOMMENDATIONS_QUEUED, null)) {
+                        return;
+                }
 
                 try {
                         log.info("[{}] Attempting direct call to recommender service with recordingId {} and summaryId {}",
@@ -769,12 +905,9 @@ public class SummarizationListenerService {
                         log.error("[{}] Direct call to recommender failed: {}. Falling back to message queue.",
                                         metadataId, e.getMessage());
                         try {
-                                String messageJson = objectMapper
-                                                .writeValueAsString(recommendationMessage);
-                                rabbitTemplate.convertAndSend(
-                                                RabbitMQConfig.PROCESSING_EXCHANGE_NAME,
+                                pipelineTransport.send(
                                                 RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY,
-                                                messageJson);
+                                                recommendationMessage);
                                 log.info("[{}] Sent message to recommendations queue. Message details: {}",
                                                 metadataId, recommendationMessage);
                         } catch (Exception mqEx) {
@@ -818,8 +951,9 @@ public class SummarizationListenerService {
                 return null;
         }
 
-        private void updateMetadataStatus(String metadataId, String userId, ProcessingStatus status,
-                        @Nullable String reason) {
+        /** Returns false when the recording is deleted or being deleted and nothing was written. */
+        private boolean updateMetadataStatus(String metadataId, String userId,
+                        ProcessingStatus status, @Nullable String reason) {
                 log.info("[{}] Setting status to {}{}", metadataId, status,
                                 (reason != null ? ". Reason: " + reason : ""));
                 Map<String, Object> updates = new HashMap<>();
@@ -832,8 +966,9 @@ public class SummarizationListenerService {
                 }
 
                 try {
-                        firebaseService.updateData(firebaseService.getAudioMetadataCollectionName(),
-                                        metadataId, updates);
+                        if (!firebaseService.updateLiveAudioMetadata(metadataId, updates)) {
+                                return false;
+                        }
 
                         try {
                                 Map<String, Object> updatedDataMap = firebaseService.getData(
@@ -881,6 +1016,7 @@ public class SummarizationListenerService {
                         log.error("[{}] Failed to update metadata status to {} in Firestore: {}",
                                         metadataId, status, e.getMessage(), e);
                 }
+                return true;
         }
 
         private void invalidateCache(String userId) {
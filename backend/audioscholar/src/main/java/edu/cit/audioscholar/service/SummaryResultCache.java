@@ -0,0 +1,165 @@
+package edu.cit.audioscholar.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+
+@Service
+public class SummaryResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(SummaryResultCache.class);
+
+    public static final String MODE_TRANSCRIPT_ONLY = "transcript";
+    public static final String MODE_PDF_FILE = "pdf-file";
+    public static final String MODE_PDF_URI = "pdf-uri";
+
+    private static final int MAX_STORED_CHARS = 900_000;
+
+    private final FirebaseService firebaseService;
+    private final ContentHashIndexService contentHashIndexService;
+    private final GeminiFileCacheService geminiFileCacheService;
+    private final String collectionName;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Cache<String, String> localCache;
+
+    public SummaryResultCache(FirebaseService firebaseService,
+            ContentHashIndexService contentHashIndexService,
+            GeminiFileCacheService geminiFileCacheService,
+            @Value("${firebase.firestore.collection.summarycache:summary_cache}") String collectionName,
+            @Value("${app.summarization.cache.enabled:true}") boolean enabled,
+            @Value("${app.summarization.cache.ttl-days:30}") long ttlDays,
+            @Value("${app.summarization.cache.max-entries:500}") long maxEntries) {
+        this.firebaseService = firebaseService;
+        this.contentHashIndexService = contentHashIndexService;
+        this.geminiFileCacheService = geminiFileCacheService;
+        this.collectionName = collectionName;
+        this.enabled = enabled;
+        this.ttl = Duration.ofDays(ttlDays);
+        this.localCache = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl)
+                .recordStats().build();
+    }
+
+    /**
+     * Returns null (do not cache) when a PDF-backed mode has no PDF key: summaries of the same
+     * transcript with different, unhashable slides must not share an entry.
+     */
+    @Nullable
+    public String keyFor(String mode, String modelName, @Nullable String transcriptText,
+            @Nullable String pdfContentKey) {
+        if (!enabled || !StringUtils.hasText(transcriptText)) {
+            return null;
+        }
+        boolean usesPdf = !MODE_TRANSCRIPT_ONLY.equals(mode);
+        if (usesPdf && !StringUtils.hasText(pdfContentKey)) {
+            return null;
+        }
+        String material = String.join("\n", mode, modelName, GeminiService.SUMMARY_PROMPT_VERSION,
+                usesPdf ? pdfContentKey : "", transcriptText);
+        try (InputStream inputStream =
+                new ByteArrayInputStream(material.getBytes(StandardCharsets.UTF_8))) {
+            return contentHashIndexService.sha256(inputStream);
+        } catch (IOException e) {
+            log.warn("Could not compute summary cache key: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    public String pdfFileKey(Path pdfFilePath) {
+        if (!enabled) {
+            return null;
+        }
+        try (InputStream inputStream = Files.newInputStream(pdfFilePath)) {
+            return contentHashIndexService.sha256(inputStream);
+        } catch (IOException e) {
+            log.warn("Could not hash {} for the summary cache: {}", pdfFilePath.getFileName(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    public String pdfUriKey(String googleFileUri) {
+        if (!enabled) {
+            return null;
+        }
+        String contentHash = geminiFileCacheService.findContentHash(googleFileUri);
+        return contentHash != null ? contentHash : googleFileUri;
+    }
+
+    @Nullable
+    public String get(@Nullable String key) {
+        if (!enabled || key == null) {
+            return null;
+        }
+        String cached = localCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            Map<String, Object> data = firebaseService.getData(collectionName, key);
+            if (data == null) {
+                return null;
+            }
+            String summaryJson = (String) data.get("summaryJson");
+            Timestamp expiresAt = (Timestamp) data.get("expiresAt");
+            if (!StringUtils.hasText(summaryJson) || expiresAt == null
+                    || !expiresAt.toDate().toInstant().isAfter(Instant.now())) {
+                return null;
+            }
+            localCache.put(key, summaryJson);
+            return summaryJson;
+        } catch (FirestoreInteractionException | ClassCastException e) {
+            log.warn("Summary cache lookup failed for {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    public void put(@Nullable String key, String modelName, String summaryJson,
+            String metadataId) {
+        if (!enabled || key == null || !StringUtils.hasText(summaryJson)) {
+            return;
+        }
+        localCache.put(key, summaryJson);
+        if (summaryJson.length() > MAX_STORED_CHARS) {
+            log.debug("[{}] Summary of {} characters is too large for the Firestore summary cache.",
+                    metadataId, summaryJson.length());
+            return;
+        }
+
+        Instant expiresAt = Instant.now().plus(ttl);
+        Map<String, Object> data = new HashMap<>();
+        data.put("summaryJson", summaryJson);
+        data.put("modelName", modelName);
+        data.put("promptVersion", GeminiService.SUMMARY_PROMPT_VERSION);
+        data.put("sourceMetadataId", metadataId);
+        data.put("createdAt", Timestamp.now());
+        data.put("expiresAt", Timestamp.ofTimeSecondsAndNanos(expiresAt.getEpochSecond(),
+                expiresAt.getNano()));
+        try {
+            firebaseService.saveData(collectionName, key, data);
+            log.debug("[{}] Cached summary under {} until {}", metadataId, key, expiresAt);
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to persist summary cache entry {}: {}", metadataId, key,
+                    e.getMessage());
+        }
+    }
+}
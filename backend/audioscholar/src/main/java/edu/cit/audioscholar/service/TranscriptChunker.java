@@ -0,0 +1,83 @@
+package edu.cit.audioscholar.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TranscriptChunker {
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\n\\s*\\n");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?])\\s+");
+
+    private final int tokenBudget;
+    private final int chunkTokens;
+    private final double charsPerToken;
+
+    public TranscriptChunker(
+            @Value("${app.summarization.map-reduce.token-budget:12000}") int tokenBudget,
+            @Value("${app.summarization.map-reduce.chunk-tokens:6000}") int chunkTokens,
+            @Value("${app.summarization.map-reduce.chars-per-token:4.0}") double charsPerToken) {
+        this.tokenBudget = tokenBudget;
+        this.chunkTokens = Math.max(1000, Math.min(chunkTokens, tokenBudget));
+        this.charsPerToken = charsPerToken > 0 ? charsPerToken : 4.0;
+    }
+
+    public int estimateTokens(String text) {
+        return text == null ? 0 : (int) Math.ceil(text.length() / charsPerToken);
+    }
+
+    public boolean exceedsBudget(String text) {
+        return estimateTokens(text) > tokenBudget;
+    }
+
+    public List<String> split(String text) {
+        int maxChars = (int) (chunkTokens * charsPerToken);
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String paragraph : PARAGRAPH_BREAK.split(text.trim())) {
+            for (String piece : fitPieces(paragraph.trim(), maxChars)) {
+                if (current.length() > 0 && current.length() + piece.length() + 2 > maxChars) {
+                    chunks.add(current.toString());
+                    current.setLength(0);
+                }
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(piece);
+            }
+        }
+        if (current.length() > 0) {
+            chunks.add(current.toString());
+        }
+        return chunks;
+    }
+
+    static List<String> fitPieces(String paragraph, int maxChars) {
+        if (paragraph.length() <= maxChars) {
+            return List.of(paragraph);
+        }
+        List<String> pieces = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String sentence : SENTENCE_END.split(paragraph)) {
+            if (current.length() > 0 && current.length() + sentence.length() + 1 > maxChars) {
+                pieces.add(current.toString());
+                current.setLength(0);
+            }
+            while (sentence.length() > maxChars) {
+                pieces.add(sentence.substring(0, maxChars));
+                sentence = sentence.substring(maxChars);
+            }
+            if (current.length() > 0) {
+                current.append(' ');
+            }
+            current.append(sentence);
+        }
+        if (current.length() > 0) {
+            pieces.add(current.toString());
+        }
+        return pieces;
+    }
+}
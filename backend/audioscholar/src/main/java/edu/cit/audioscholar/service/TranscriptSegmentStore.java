@@ -0,0 +1,119 @@
+package edu.cit.audioscholar.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Append-only store of partial transcript text. Each flush is written as its own small document so
+ * clients can poll for new segments while transcription is still running, without the
+ * audio_metadata document being rewritten on every chunk.
+ */
+@Service
+public class TranscriptSegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TranscriptSegmentStore.class);
+    private static final int MAX_CHUNKS_PER_SEGMENT = 64;
+
+    private final FirebaseService firebaseService;
+    private final String collectionName;
+    private final Duration flushInterval;
+
+    public TranscriptSegmentStore(FirebaseService firebaseService,
+            @Value("${firebase.firestore.collection.transcriptsegments:transcript_segments}") String collectionName,
+            @Value("${app.transcription.stream.flush-millis:1000}") long flushMillis) {
+        this.firebaseService = firebaseService;
+        this.collectionName = collectionName;
+        this.flushInterval = Duration.ofMillis(flushMillis);
+    }
+
+    /**
+     * Stores {@code chunks} as segments while they arrive. A stream that fails part-way does not
+     * throw: the returned capture carries the failure and what was already stored, so the caller
+     * can fall back without withdrawing text clients have seen.
+     */
+    public Capture capture(String metadataId, Flux<String> chunks) {
+        AtomicInteger sequence = new AtomicInteger();
+        StringBuilder transcript = new StringBuilder();
+        Throwable failure = null;
+        try {
+            chunks.bufferTimeout(MAX_CHUNKS_PER_SEGMENT, flushInterval)
+                    .map(parts -> String.join("", parts))
+                    .filter(text -> !text.isEmpty())
+                    .publishOn(Schedulers.boundedElastic())
+                    .doOnNext(text -> {
+                        transcript.append(text);
+                        append(metadataId, sequence.getAndIncrement(), text);
+                    })
+                    .blockLast();
+        } catch (RuntimeException e) {
+            failure = Exceptions.unwrap(e);
+        }
+        log.info("[{}] Streamed {} characters into {} transcript segments{}.", metadataId,
+                transcript.length(), sequence.get(), failure != null ? " before failing" : "");
+        return new Capture(transcript.toString(), sequence.get(), failure);
+    }
+
+    public void append(String metadataId, int sequence, String text) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("metadataId", metadataId);
+        data.put("sequence", sequence);
+        data.put("text", text);
+        data.put("createdAt", Timestamp.now());
+        try {
+            firebaseService.saveData(collectionName, documentId(metadataId, sequence), data);
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to store transcript segment {}: {}", metadataId, sequence,
+                    e.getMessage());
+        }
+    }
+
+    public List<Map<String, Object>> getSegments(String metadataId, int afterSequence) {
+        List<Map<String, Object>> segments = new ArrayList<>();
+        for (Map<String, Object> entry : firebaseService.findDocumentsAfter(collectionName,
+                "metadataId", metadataId, "sequence", afterSequence)) {
+            Map<String, Object> segment = new HashMap<>();
+            segment.put("sequence", ((Number) entry.get("sequence")).intValue());
+            segment.put("text", entry.get("text"));
+            segments.add(segment);
+        }
+        return segments;
+    }
+
+    public void clear(String metadataId) {
+        try {
+            List<Map<String, Object>> entries =
+                    firebaseService.queryCollection(collectionName, "metadataId", metadataId);
+            for (Map<String, Object> entry : entries) {
+                int sequence = ((Number) entry.get("sequence")).intValue();
+                firebaseService.deleteData(collectionName, documentId(metadataId, sequence));
+            }
+            if (!entries.isEmpty()) {
+                log.info("[{}] Cleared {} transcript segments.", metadataId, entries.size());
+            }
+        } catch (FirestoreInteractionException e) {
+            log.warn("[{}] Failed to clear transcript segments: {}", metadataId, e.getMessage());
+        }
+    }
+
+    private String documentId(String metadataId, int sequence) {
+        return metadataId + "-" + String.format("%05d", sequence);
+    }
+
+    /** Text stored by {@link #capture}, the number of segments written, and why it stopped. */
+    public record Capture(String text, int segments, @Nullable Throwable failure) {
+    }
+}
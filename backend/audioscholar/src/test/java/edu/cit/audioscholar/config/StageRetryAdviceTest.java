@@ -0,0 +1,89 @@
+package edu.cit.audioscholar.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.List;
+import java.util.function.Consumer;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.core.ReturnedMessage;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import com.rabbitmq.client.Channel;
+import edu.cit.audioscholar.exception.TransientStageException;
+
+class StageRetryAdviceTest {
+
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final StageRetryAdvice advice = new StageRetryAdvice(rabbitTemplate, List.of(10, 60),
+            200);
+
+    @Test
+    void acksTheDeliveryOnceTheRetryCopyIsConfirmed() throws Throwable {
+        brokerAnswers(correlation -> correlation.getFuture()
+                .complete(new CorrelationData.Confirm(true, null)));
+
+        assertThat(advice.invoke(failingDelivery())).isNull();
+
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE_NAME),
+                eq(RabbitMQConfig.retryQueueName(RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME, 10)),
+                any(Message.class), any(CorrelationData.class));
+    }
+
+    @Test
+    void rejectsTheDeliveryWhenTheRetryCopyIsNacked() {
+        brokerAnswers(correlation -> correlation.getFuture()
+                .complete(new CorrelationData.Confirm(false, "disk alarm")));
+
+        assertThatThrownBy(() -> advice.invoke(failingDelivery()))
+                .isInstanceOf(TransientStageException.class);
+    }
+
+    @Test
+    void rejectsTheDeliveryWhenTheRetryCopyIsReturned() {
+        brokerAnswers(correlation -> {
+            correlation.setReturned(new ReturnedMessage(new Message(new byte[0]), 312,
+                    "NO_ROUTE", RabbitMQConfig.RETRY_EXCHANGE_NAME, "missing"));
+            correlation.getFuture().complete(new CorrelationData.Confirm(true, null));
+        });
+
+        assertThatThrownBy(() -> advice.invoke(failingDelivery()))
+                .isInstanceOf(TransientStageException.class);
+    }
+
+    @Test
+    void rejectsTheDeliveryWhenNoConfirmArrives() {
+        brokerAnswers(correlation -> {
+        });
+
+        assertThatThrownBy(() -> advice.invoke(failingDelivery()))
+                .isInstanceOf(TransientStageException.class);
+    }
+
+    private void brokerAnswers(Consumer<CorrelationData> broker) {
+        doAnswer(call -> {
+            broker.accept(call.getArgument(3));
+            return null;
+        }).when(rabbitTemplate).send(anyString(), anyString(), any(Message.class),
+                any(CorrelationData.class));
+    }
+
+    private static MethodInvocation failingDelivery() throws Throwable {
+        MessageProperties properties = new MessageProperties();
+        properties.setConsumerQueue(RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME);
+        Message message = new Message("{}".getBytes(), properties);
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getArguments()).thenReturn(new Object[] {mock(Channel.class), message});
+        when(invocation.proceed()).thenThrow(new TransientStageException("Gemini overloaded"));
+        return invocation;
+    }
+}
@@ -0,0 +1,275 @@
+package edu.cit.audioscholar.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Drives uploads through a running instance (normally the loadtest profile against
+ * {@link UpstreamStandIn}) and reports uploads per minute plus p50/p99 of the end-to-end time and
+ * of every stage's queue wait and duration, read from {@code /api/audio/metadata/{id}/timeline}.
+ *
+ * <pre>
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     edu.cit.audioscholar.loadtest.LoadTestDriver --base-url=http://localhost:8080 \
+ *     --audio=lecture.mp3 --pptx=slides.pptx --uploads=200 --concurrency=20
+ * </pre>
+ *
+ * Authentication uses {@code --token}, or a token minted from {@code JWT_SECRET} for
+ * {@code --user-id} (the same Base64 secret the application is started with).
+ */
+public class LoadTestDriver {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETE", "FAILED",
+            "PROCESSING_HALTED_NO_SPEECH", "PROCESSING_HALTED_UNSUITABLE_CONTENT");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient =
+            HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final String baseUrl;
+    private final String token;
+    private final Path audio;
+    private final Path pptx;
+    private final Duration pollInterval;
+    private final Duration jobTimeout;
+
+    /** Outcome of one upload: its final status, end-to-end time and per-stage timings. */
+    record Job(String metadataId, String status, long endToEndMillis,
+            Map<String, Long> queueWaitMillis, Map<String, Long> durationMillis) {
+    }
+
+    LoadTestDriver(String baseUrl, String token, Path audio, Path pptx, Duration pollInterval,
+            Duration jobTimeout) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1)
+                : baseUrl;
+        this.token = token;
+        this.audio = audio;
+        this.pptx = pptx;
+        this.pollInterval = pollInterval;
+        this.jobTimeout = jobTimeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String token = options.get("token");
+        if (token == null) {
+            String secret = System.getenv("JWT_SECRET");
+            if (secret == null) {
+                System.err.println("Pass --token=<jwt> or export JWT_SECRET to mint one.");
+                System.exit(2);
+            }
+            token = mintToken(secret, options.getOrDefault("user-id", "loadtest-user"));
+        }
+        LoadTestDriver driver = new LoadTestDriver(
+                options.getOrDefault("base-url", "http://localhost:8080"), token,
+                Path.of(required(options, "audio")),
+                options.containsKey("pptx") ? Path.of(options.get("pptx")) : null,
+                Duration.ofMillis(Long.parseLong(options.getOrDefault("poll-ms", "1000"))),
+                Duration.ofMinutes(Long.parseLong(options.getOrDefault("timeout-minutes", "30"))));
+        int uploads = Integer.parseInt(options.getOrDefault("uploads", "50"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "10"));
+        System.out.print(driver.run(uploads, concurrency));
+    }
+
+    String run(int uploads, int concurrency) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        List<Job> jobs = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Integer> errors = new ConcurrentHashMap<>();
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < uploads; i++) {
+                inFlight.acquire();
+                int index = i;
+                executor.submit(() -> {
+                    try {
+                        jobs.add(runJob(index));
+                    } catch (Exception e) {
+                        errors.merge(e.getClass().getSimpleName() + ": " + e.getMessage(), 1,
+                                Integer::sum);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        return report(jobs, errors, elapsedMillis);
+    }
+
+    private Job runJob(int index) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        String metadataId = upload("Load test " + index);
+        long deadline = started + jobTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(pollInterval.toMillis());
+            JsonNode timeline = getJson("/api/audio/metadata/" + metadataId + "/timeline");
+            String status = timeline.path("status").asText();
+            if (TERMINAL_STATUSES.contains(status)) {
+                Map<String, Long> queueWait = new HashMap<>();
+                Map<String, Long> duration = new HashMap<>();
+                for (JsonNode stage : timeline.path("stages")) {
+                    String name = stage.path("stage").asText();
+                    if (stage.path("queueWaitMs").isNumber()) {
+                        queueWait.put(name, stage.path("queueWaitMs").asLong());
+                    }
+                    if (stage.path("durationMs").isNumber()) {
+                        duration.put(name, stage.path("durationMs").asLong());
+                    }
+                }
+                return new Job(metadataId, status, (System.nanoTime() - started) / 1_000_000,
+                        queueWait, duration);
+            }
+        }
+        throw new IOException("Timed out waiting for " + metadataId);
+    }
+
+    private String upload(String title) throws IOException, InterruptedException {
+        String boundary = "loadtest-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        writeText(body, boundary, "title", title);
+        String audioType = Files.probeContentType(audio);
+        writeFile(body, boundary, "audioFile", audio, audioType != null ? audioType : "audio/mpeg");
+        if (pptx != null) {
+            writeFile(body, boundary, "powerpointFile", pptx,
+                    "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+        }
+        body.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpResponse<String> response = httpClient.send(HttpRequest
+                .newBuilder(URI.create(baseUrl + "/api/audio/upload"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())).build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Upload returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).path("id").asText();
+    }
+
+    private JsonNode getJson(String path) throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .header("Authorization", "Bearer " + token).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException(path + " returned " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static void writeText(ByteArrayOutputStream body, String boundary, String name,
+            String value) throws IOException {
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name
+                + "\"\r\n\r\n" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeFile(ByteArrayOutputStream body, String boundary, String name,
+            Path file, String contentType) throws IOException {
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name
+                + "\"; filename=\"" + file.getFileName() + "\"\r\nContent-Type: " + contentType
+                + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(Files.readAllBytes(file));
+        body.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String report(List<Job> jobs, Map<String, Integer> errors, long elapsedMillis) {
+        StringBuilder out = new StringBuilder();
+        long completed = jobs.stream().filter(job -> "COMPLETE".equals(job.status())).count();
+        out.append(String.format("Uploads: %d finished (%d complete), %d errors in %.1f s%n",
+                jobs.size(), completed, errors.values().stream().mapToInt(Integer::intValue).sum(),
+                elapsedMillis / 1000.0));
+        out.append(String.format("Throughput: %.1f uploads/minute%n",
+                completed * 60_000.0 / elapsedMillis));
+        appendLine(out, "end-to-end", jobs.stream().map(Job::endToEndMillis).toList());
+
+        Map<String, List<Long>> waits = new TreeMap<>();
+        Map<String, List<Long>> durations = new TreeMap<>();
+        for (Job job : jobs) {
+            job.queueWaitMillis().forEach((stage, millis) -> waits
+                    .computeIfAbsent(stage, key -> new ArrayList<>()).add(millis));
+            job.durationMillis().forEach((stage, millis) -> durations
+                    .computeIfAbsent(stage, key -> new ArrayList<>()).add(millis));
+        }
+        durations.forEach((stage, values) -> appendLine(out, stage, values));
+        waits.forEach((stage, values) -> appendLine(out, stage + " (queue wait)", values));
+
+        Map<String, Long> statuses = new TreeMap<>();
+        jobs.forEach(job -> statuses.merge(job.status(), 1L, Long::sum));
+        statuses.forEach((status, count) -> out.append(String.format("Status %s: %d%n", status,
+                count)));
+        errors.forEach((error, count) -> out.append(String.format("Error x%d: %s%n", count,
+                error)));
+        return out.toString();
+    }
+
+    private static void appendLine(StringBuilder out, String label, List<Long> values) {
+        if (values.isEmpty()) {
+            return;
+        }
+        out.append(String.format("%-28s n=%-5d p50=%7d ms  p99=%7d ms%n", label, values.size(),
+                percentile(values, 50), percentile(values, 99)));
+    }
+
+    /** Nearest-rank percentile. */
+    static long percentile(List<Long> values, double percentile) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, rank - 1)));
+    }
+
+    static String mintToken(String base64Secret, String userId) {
+        Date now = new Date();
+        return Jwts.builder().id(UUID.randomUUID().toString()).subject(userId)
+                .claim("roles", "ROLE_USER").claim("name", "Load test").issuedAt(now)
+                .expiration(new Date(now.getTime() + Duration.ofHours(12).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)),
+                        Jwts.SIG.HS256)
+                .compact();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int equals = arg.indexOf('=');
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    private static String required(Map<String, String> options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.cit.audioscholar.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+
+class LoadTestDriverTest {
+
+    @Test
+    void percentileUsesTheNearestRank() {
+        List<Long> values = LongStream.rangeClosed(1, 100).boxed().toList();
+
+        assertThat(LoadTestDriver.percentile(values, 50)).isEqualTo(50);
+        assertThat(LoadTestDriver.percentile(values, 99)).isEqualTo(99);
+        assertThat(LoadTestDriver.percentile(List.of(7L), 99)).isEqualTo(7);
+    }
+
+    @Test
+    void reportListsThroughputAndStagePercentiles() {
+        List<LoadTestDriver.Job> jobs = List.of(
+                new LoadTestDriver.Job("a", "COMPLETE", 4000, Map.of("transcription", 100L),
+                        Map.of("transcription", 2000L)),
+                new LoadTestDriver.Job("b", "COMPLETE", 6000, Map.of("transcription", 300L),
+                        Map.of("transcription", 3000L)),
+                new LoadTestDriver.Job("c", "FAILED", 1000, Map.of(), Map.of()));
+
+        String report = LoadTestDriver.report(jobs, Map.of("IOException: boom", 1), 60_000);
+
+        assertThat(report).contains("3 finished (2 complete), 1 errors")
+                .contains("Throughput: 2.0 uploads/minute")
+                .containsPattern("transcription\\s+n=2\\s+p50=\\s+2000 ms\\s+p99=\\s+3000 ms")
+                .containsPattern("transcription \\(queue wait\\)\\s+n=2\\s+p50=\\s+100 ms")
+                .contains("Status FAILED: 1");
+    }
+
+    @Test
+    void mintedTokenVerifiesWithTheApplicationSecret() {
+        String secret = "c2VjcmV0LWtleS1mb3ItbG9hZC10ZXN0cy10aGF0LWlzLWxvbmctZW5vdWdo";
+
+        String token = LoadTestDriver.mintToken(secret, "user-1");
+
+        assertThat(Jwts.parser().verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+                .build().parseSignedClaims(token).getPayload().getSubject()).isEqualTo("user-1");
+    }
+}
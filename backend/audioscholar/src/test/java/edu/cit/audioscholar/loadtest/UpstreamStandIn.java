@@ -0,0 +1,421 @@
+package edu.cit.audioscholar.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for the paid upstreams the pipeline calls: the Gemini generateContent,
+ * streamGenerateContent and Files endpoints, Nhost storage, ConvertAPI and YouTube search. Start
+ * it, then run the application with {@code --spring.profiles.active=loadtest}, which points every
+ * client here (see application-loadtest.properties).
+ *
+ * <p>Each upstream has its own latency, jitter and error injection, set with system properties
+ * ({@code -Dstandin.gemini.latency-ms=1500}, {@code -Dstandin.nhost.error-rate=0.02},
+ * {@code -Dstandin.youtube.error-status=429}); {@code standin.latency-ms} and friends set the
+ * defaults for all of them. Gemini answers are synthesised from the request's response schema, so
+ * summaries and recommendations parse like real ones.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     -Dstandin.gemini.latency-ms=1500 edu.cit.audioscholar.loadtest.UpstreamStandIn 8089
+ * </pre>
+ */
+public class UpstreamStandIn implements AutoCloseable {
+
+    public static final String GEMINI = "gemini";
+    public static final String NHOST = "nhost";
+    public static final String CONVERTAPI = "convertapi";
+    public static final String YOUTUBE = "youtube";
+
+    private static final Pattern MODEL_CALL = Pattern.compile("/v1beta/models/[^/:]+:(\\w+)");
+    private static final Pattern GEMINI_FILE = Pattern.compile("/v1beta/(files/[\\w-]+)");
+    private static final Pattern NHOST_FILE = Pattern.compile("/v1/files/([\\w-]+)");
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final int STREAM_CHUNKS = 4;
+    private static final String TRANSCRIPT = "Today we cover queues and stacks. A queue is first "
+            + "in, first out, so the oldest element leaves first. A stack is last in, first out. "
+            + "Both support constant time insertion and removal at their ends.";
+    private static final byte[] PDF = ("%PDF-1.4\n1 0 obj<</Type/Catalog/Pages 2 0 R>>endobj\n"
+            + "2 0 obj<</Type/Pages/Kids[]/Count 0>>endobj\ntrailer<</Root 1 0 R>>\n%%EOF\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+
+    /** Latency and error injection for one upstream. */
+    public record Behavior(long latencyMillis, long jitterMillis, double errorRate,
+            int errorStatus) {
+
+        public static final Behavior NONE = new Behavior(0, 0, 0, 503);
+
+        static Behavior fromSystemProperties(String upstream) {
+            return new Behavior(longProperty(upstream, "latency-ms", 0),
+                    longProperty(upstream, "jitter-ms", 0),
+                    Double.parseDouble(property(upstream, "error-rate", "0")),
+                    (int) longProperty(upstream, "error-status", 503));
+        }
+
+        private static long longProperty(String upstream, String name, long fallback) {
+            return Long.parseLong(property(upstream, name, Long.toString(fallback)));
+        }
+
+        private static String property(String upstream, String name, String fallback) {
+            return System.getProperty("standin." + upstream + "." + name,
+                    System.getProperty("standin." + name, fallback));
+        }
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Behavior> behaviors = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Path storageDir;
+
+    public UpstreamStandIn(int port) throws IOException {
+        this.storageDir = Files.createTempDirectory("upstream-standin");
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        for (String upstream : new String[] {GEMINI, NHOST, CONVERTAPI, YOUTUBE}) {
+            behaviors.put(upstream, Behavior.fromSystemProperties(upstream));
+        }
+        server.createContext("/upload/v1beta/files", exchange -> handle(exchange, GEMINI,
+                this::geminiUpload));
+        server.createContext("/v1beta/models/", exchange -> handle(exchange, GEMINI,
+                this::geminiModelCall));
+        server.createContext("/v1beta/files/", exchange -> handle(exchange, GEMINI,
+                this::geminiFile));
+        server.createContext("/v1/files", exchange -> handle(exchange, NHOST, this::nhostFiles));
+        server.createContext("/convert/", exchange -> handle(exchange, CONVERTAPI,
+                this::convert));
+        server.createContext("/youtube/v3/search", exchange -> handle(exchange, YOUTUBE,
+                this::youtubeSearch));
+        server.setExecutor(executor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        UpstreamStandIn standIn = new UpstreamStandIn(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(standIn::close));
+        standIn.start();
+        System.out.printf("Upstream stand-in listening on %s%n", standIn.baseUrl());
+        standIn.behaviors.forEach((upstream, behavior) -> System.out.printf("  %-10s %s%n",
+                upstream, behavior));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public void setBehavior(String upstream, Behavior behavior) {
+        behaviors.put(upstream, behavior);
+    }
+
+    public long requestCount(String upstream) {
+        AtomicLong count = requestCounts.get(upstream);
+        return count != null ? count.get() : 0;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try (Stream<Path> files = Files.walk(storageDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Temporary files only; nothing to report.
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, String upstream, Handler handler) {
+        try (exchange) {
+            requestCounts.computeIfAbsent(upstream, key -> new AtomicLong()).incrementAndGet();
+            Behavior behavior = behaviors.getOrDefault(upstream, Behavior.NONE);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = behavior.latencyMillis()
+                    + (behavior.jitterMillis() > 0 ? random.nextLong(behavior.jitterMillis() + 1)
+                            : 0);
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            if (behavior.errorRate() > 0 && random.nextDouble() < behavior.errorRate()) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                sendJson(exchange, behavior.errorStatus(), objectMapper.createObjectNode()
+                        .set("error", objectMapper.createObjectNode()
+                                .put("code", behavior.errorStatus())
+                                .put("message", "Injected by the upstream stand-in")
+                                .put("status", behavior.errorStatus() == 429
+                                        ? "RESOURCE_EXHAUSTED"
+                                        : "UNAVAILABLE")));
+                return;
+            }
+            handler.handle(exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            try {
+                sendJson(exchange, 500, objectMapper.createObjectNode().put("error",
+                        String.valueOf(e.getMessage())));
+            } catch (IOException ignored) {
+                // The client is gone.
+            }
+        }
+    }
+
+    // Gemini Files API: resumable upload start, then a single "upload, finalize" request.
+    private void geminiUpload(HttpExchange exchange) throws IOException {
+        String command = exchange.getRequestHeaders().getFirst("X-Goog-Upload-Command");
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        if (command != null && command.contains("start")) {
+            exchange.getResponseHeaders().add("X-Goog-Upload-Url",
+                    baseUrl() + "/upload/v1beta/files?upload_id=" + ids.incrementAndGet());
+            sendJson(exchange, 200, objectMapper.createObjectNode());
+            return;
+        }
+        String name = "files/standin-" + ids.incrementAndGet();
+        sendJson(exchange, 200, objectMapper.createObjectNode().set("file", fileResource(name)));
+    }
+
+    private void geminiFile(HttpExchange exchange) throws IOException {
+        Matcher matcher = GEMINI_FILE.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.find()) {
+            sendJson(exchange, 404, objectMapper.createObjectNode());
+            return;
+        }
+        sendJson(exchange, 200, "DELETE".equals(exchange.getRequestMethod())
+                ? objectMapper.createObjectNode()
+                : fileResource(matcher.group(1)));
+    }
+
+    private ObjectNode fileResource(String name) {
+        return objectMapper.createObjectNode().put("name", name)
+                .put("uri", baseUrl() + "/v1beta/" + name).put("state", "ACTIVE");
+    }
+
+    private void geminiModelCall(HttpExchange exchange) throws IOException {
+        Matcher matcher = MODEL_CALL.matcher(exchange.getRequestURI().getPath());
+        if (!matcher.find()) {
+            sendJson(exchange, 404, objectMapper.createObjectNode());
+            return;
+        }
+        JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+        JsonNode generationConfig = request.path("generationConfig");
+        JsonNode schema = generationConfig.has("response_schema")
+                ? generationConfig.get("response_schema")
+                : generationConfig.path("responseSchema");
+        String text = schema.isMissingNode() || schema.isNull() ? TRANSCRIPT
+                : objectMapper.writeValueAsString(sample(schema));
+        if (!"streamGenerateContent".equals(matcher.group(1))) {
+            sendJson(exchange, 200, candidateResponse(text, true));
+            return;
+        }
+
+        Behavior behavior = behaviors.getOrDefault(GEMINI, Behavior.NONE);
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            int step = Math.max(1, (text.length() + STREAM_CHUNKS - 1) / STREAM_CHUNKS);
+            for (int start = 0; start < text.length(); start += step) {
+                boolean last = start + step >= text.length();
+                String chunk = text.substring(start, Math.min(text.length(), start + step));
+                out.write(("data: " + objectMapper.writeValueAsString(
+                        candidateResponse(chunk, last)) + "\r\n\r\n")
+                                .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (!last && behavior.latencyMillis() > 0) {
+                    Thread.sleep(behavior.latencyMillis() / STREAM_CHUNKS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ObjectNode candidateResponse(String text, boolean withUsage) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode candidate = response.putArray("candidates").addObject();
+        candidate.putObject("content").put("role", "model").putArray("parts").addObject()
+                .put("text", text);
+        candidate.put("finishReason", "STOP");
+        if (withUsage) {
+            response.putObject("usageMetadata").put("promptTokenCount", 1000)
+                    .put("candidatesTokenCount", text.length() / 4)
+                    .put("totalTokenCount", 1000 + text.length() / 4);
+        }
+        return response;
+    }
+
+    /** Builds a value that satisfies a Gemini response schema. */
+    JsonNode sample(JsonNode schema) {
+        String type = schema.path("type").asText("STRING").toUpperCase();
+        switch (type) {
+            case "OBJECT": {
+                ObjectNode object = objectMapper.createObjectNode();
+                Iterator<Map.Entry<String, JsonNode>> fields = schema.path("properties").fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    object.set(field.getKey(), sampleField(field.getKey(), field.getValue()));
+                }
+                return object;
+            }
+            case "ARRAY": {
+                ArrayNode array = objectMapper.createArrayNode();
+                for (int i = 0; i < 3; i++) {
+                    array.add(sample(schema.path("items")));
+                }
+                return array;
+            }
+            case "NUMBER":
+                return objectMapper.getNodeFactory().numberNode(0.9);
+            case "INTEGER":
+                return objectMapper.getNodeFactory().numberNode(1);
+            case "BOOLEAN":
+                return objectMapper.getNodeFactory().booleanNode(true);
+            default:
+                return objectMapper.getNodeFactory().textNode("Queues and stacks");
+        }
+    }
+
+    private JsonNode sampleField(String name, JsonNode schema) {
+        if (!"STRING".equalsIgnoreCase(schema.path("type").asText("STRING"))) {
+            return sample(schema);
+        }
+        return objectMapper.getNodeFactory().textNode(switch (name) {
+            case "transcript" -> TRANSCRIPT;
+            case "summaryText" -> "## Summary\n\n" + TRANSCRIPT;
+            case "url" -> "https://www.youtube.com/watch?v=standin" + ids.incrementAndGet();
+            case "type" -> "Video";
+            case "audience" -> "Beginner";
+            default -> "Queues and stacks";
+        });
+    }
+
+    // Nhost storage: multipart upload, download and delete by file id.
+    private void nhostFiles(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if ("POST".equals(method)) {
+            String id = UUID.randomUUID().toString();
+            Files.write(storageDir.resolve(id), multipartFile(exchange));
+            sendJson(exchange, 201, objectMapper.createObjectNode().put("id", id)
+                    .put("bucketId", "default").put("isUploaded", true));
+            return;
+        }
+        Matcher matcher = NHOST_FILE.matcher(exchange.getRequestURI().getPath());
+        Path file = matcher.find() ? storageDir.resolve(matcher.group(1)) : null;
+        if (file == null || !Files.exists(file)) {
+            sendJson(exchange, 404, objectMapper.createObjectNode().put("error", "not found"));
+            return;
+        }
+        if ("DELETE".equals(method)) {
+            Files.deleteIfExists(file);
+            exchange.sendResponseHeaders(204, -1);
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, Files.size(file));
+        try (OutputStream out = exchange.getResponseBody()) {
+            Files.copy(file, out);
+        }
+    }
+
+    private byte[] multipartFile(HttpExchange exchange) throws IOException {
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readAllBytes();
+        }
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        Matcher boundary = BOUNDARY.matcher(contentType != null ? contentType : "");
+        if (!boundary.find()) {
+            return body;
+        }
+        byte[] delimiter = ("\r\n--" + boundary.group(1)).getBytes(StandardCharsets.US_ASCII);
+        int nameAt = indexOf(body, "name=\"file\"".getBytes(StandardCharsets.US_ASCII), 0);
+        int start = nameAt < 0 ? -1
+                : indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.US_ASCII), nameAt);
+        int end = start < 0 ? -1 : indexOf(body, delimiter, start + 4);
+        return start < 0 || end < 0 ? body : Arrays.copyOfRange(body, start + 4, end);
+    }
+
+    static int indexOf(byte[] data, byte[] pattern, int from) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    // ConvertAPI: the converted PDF is stored like an Nhost file so the summarizer downloads it
+    // through the same stand-in.
+    private void convert(HttpExchange exchange) throws IOException {
+        exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+        String id = UUID.randomUUID().toString();
+        Files.write(storageDir.resolve(id), PDF);
+        ObjectNode response = objectMapper.createObjectNode().put("ConversionCost", 1);
+        response.putArray("Files").addObject().put("FileName", "slides.pdf")
+                .put("FileExt", "pdf").put("FileSize", PDF.length).put("FileId", id)
+                .put("Url", baseUrl() + "/v1/files/" + id);
+        sendJson(exchange, 200, response);
+    }
+
+    private void youtubeSearch(HttpExchange exchange) throws IOException {
+        ObjectNode response = objectMapper.createObjectNode()
+                .put("kind", "youtube#searchListResponse");
+        ArrayNode items = response.putArray("items");
+        for (int i = 0; i < 5; i++) {
+            String videoId = "standin" + ids.incrementAndGet();
+            ObjectNode item = items.addObject().put("kind", "youtube#searchResult");
+            item.putObject("id").put("kind", "youtube#video").put("videoId", videoId);
+            ObjectNode snippet = item.putObject("snippet").put("title", "Queues and stacks " + i)
+                    .put("description", "Stand-in search result").put("channelTitle",
+                            "Stand-in");
+            snippet.putObject("thumbnails").putObject("default").put("url",
+                    baseUrl() + "/thumbnails/" + videoId + ".jpg");
+        }
+        sendJson(exchange, 200, response);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
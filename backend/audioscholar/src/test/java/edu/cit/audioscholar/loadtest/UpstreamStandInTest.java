@@ -0,0 +1,161 @@
+package edu.cit.audioscholar.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.audioscholar.service.NhostStorageService;
+
+class UpstreamStandInTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private UpstreamStandIn standIn;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void start() throws IOException {
+        standIn = new UpstreamStandIn(0);
+        standIn.start();
+    }
+
+    @AfterEach
+    void stop() {
+        standIn.close();
+    }
+
+    @Test
+    void nhostUploadsDownloadThroughTheRealClient() throws IOException {
+        NhostStorageService nhost = new NhostStorageService(new RestTemplate(),
+                standIn.baseUrl() + "/v1/files", "secret", objectMapper);
+        Path source = Files.write(tempDir.resolve("lecture.mp3"), new byte[] {1, 2, 3, 4, 5});
+
+        String fileId = nhost.uploadFile(source.toFile(), "lecture.mp3", "audio/mpeg");
+        Path copy = tempDir.resolve("copy.mp3");
+        nhost.downloadFileToPath(fileId, copy);
+
+        assertThat(copy).hasBinaryContent(new byte[] {1, 2, 3, 4, 5});
+        assertThat(standIn.requestCount(UpstreamStandIn.NHOST)).isEqualTo(2);
+    }
+
+    @Test
+    void geminiResumableUploadReturnsAFileUri() throws Exception {
+        HttpResponse<String> start = post("/upload/v1beta/files?key=test", "{}",
+                "X-Goog-Upload-Command", "start");
+        String uploadUrl = start.headers().firstValue("X-Goog-Upload-Url").orElseThrow();
+
+        HttpResponse<String> finish = httpClient.send(HttpRequest.newBuilder(URI.create(uploadUrl))
+                .header("X-Goog-Upload-Command", "upload, finalize")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(new byte[64])).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(objectMapper.readTree(finish.body()).path("file").path("uri").asText())
+                .startsWith(standIn.baseUrl() + "/v1beta/files/");
+    }
+
+    @Test
+    void generateContentAnswersInTheRequestedSchema() throws Exception {
+        Map<String, Object> schema = Map.of("type", "OBJECT", "properties", Map.of(
+                "summaryText", Map.of("type", "STRING"),
+                "keyPoints", Map.of("type", "ARRAY", "items", Map.of("type", "STRING")),
+                "glossary", Map.of("type", "ARRAY", "items", Map.of("type", "OBJECT",
+                        "properties", Map.of("term", Map.of("type", "STRING"))))),
+                "required", List.of("summaryText", "keyPoints", "glossary"));
+        String request = objectMapper.writeValueAsString(Map.of("generationConfig",
+                Map.of("response_mime_type", "application/json", "response_schema", schema)));
+
+        HttpResponse<String> response =
+                post("/v1beta/models/gemini-2.5-flash:generateContent?key=test", request);
+
+        JsonNode body = objectMapper.readTree(response.body());
+        JsonNode summary = objectMapper.readTree(
+                body.at("/candidates/0/content/parts/0/text").asText());
+        assertThat(summary.path("summaryText").asText()).contains("queues");
+        assertThat(summary.path("keyPoints")).hasSize(3);
+        assertThat(summary.at("/glossary/0/term").isTextual()).isTrue();
+        assertThat(body.at("/usageMetadata/promptTokenCount").asInt()).isPositive();
+    }
+
+    @Test
+    void streamGenerateContentSendsServerSentEvents() throws Exception {
+        HttpResponse<String> response = post(
+                "/v1beta/models/gemini-2.0-flash:streamGenerateContent?alt=sse&key=test", "{}");
+
+        List<String> events = response.body().lines().filter(line -> line.startsWith("data: "))
+                .toList();
+        StringBuilder text = new StringBuilder();
+        for (String event : events) {
+            text.append(objectMapper.readTree(event.substring(6))
+                    .at("/candidates/0/content/parts/0/text").asText());
+        }
+        assertThat(events).hasSizeGreaterThan(1);
+        assertThat(text.toString()).startsWith("Today we cover queues and stacks.");
+    }
+
+    @Test
+    void convertApiResultPointsAtADownloadableFile() throws Exception {
+        HttpResponse<String> response = post("/convert/pptx/to/pdf", "File=x&StoreFile=true");
+        String url = objectMapper.readTree(response.body()).at("/Files/0/Url").asText();
+
+        HttpResponse<byte[]> pdf = httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(url).matches(".*/v1/files/[0-9a-f-]{36}");
+        assertThat(new String(pdf.body(), 0, 5)).isEqualTo("%PDF-");
+    }
+
+    @Test
+    void injectedErrorsUseTheConfiguredStatus() throws Exception {
+        standIn.setBehavior(UpstreamStandIn.YOUTUBE,
+                new UpstreamStandIn.Behavior(0, 0, 1.0, 429));
+
+        HttpResponse<String> failed = get("/youtube/v3/search?part=id,snippet&q=queues");
+        standIn.setBehavior(UpstreamStandIn.YOUTUBE, UpstreamStandIn.Behavior.NONE);
+        HttpResponse<String> ok = get("/youtube/v3/search?part=id,snippet&q=queues");
+
+        assertThat(failed.statusCode()).isEqualTo(429);
+        assertThat(ok.statusCode()).isEqualTo(200);
+        assertThat(objectMapper.readTree(ok.body()).at("/items/0/id/videoId").asText())
+                .startsWith("standin");
+    }
+
+    @Test
+    void injectedLatencyDelaysTheResponse() throws Exception {
+        standIn.setBehavior(UpstreamStandIn.YOUTUBE, new UpstreamStandIn.Behavior(200, 0, 0, 503));
+
+        long started = System.nanoTime();
+        get("/youtube/v3/search?q=queues");
+
+        assertThat((System.nanoTime() - started) / 1_000_000).isGreaterThanOrEqualTo(200);
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(standIn.baseUrl() + path))
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body, String... headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(standIn.baseUrl() + path))
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
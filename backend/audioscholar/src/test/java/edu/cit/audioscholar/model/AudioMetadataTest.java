@@ -0,0 +1,38 @@
+package edu.cit.audioscholar.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class AudioMetadataTest {
+
+    @Test
+    void toMapLeavesIncrementedAndTransactionalCountersOut() {
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setId("rec-1");
+        metadata.setModelCalls(3);
+        metadata.setModelPromptTokens(1200);
+        metadata.setModelOutputTokens(300);
+        metadata.setModelRetries(1);
+        metadata.setModelLatencyMillis(4500);
+        metadata.setStageBits(3);
+        metadata.setStageVersion(2);
+
+        Map<String, Object> map = metadata.toMap();
+
+        assertThat(map).containsEntry("id", "rec-1").doesNotContainKeys("modelCalls",
+                "modelPromptTokens", "modelOutputTokens", "modelRetries", "modelLatencyMillis",
+                "stageBits", "stageVersion");
+    }
+
+    @Test
+    void fromMapStillReadsTheCounters() {
+        AudioMetadata metadata = AudioMetadata.fromMap(Map.of("modelCalls", 3L,
+                "modelPromptTokens", 1200L, "stageBits", 3L, "stageVersion", 2L));
+
+        assertThat(metadata.getModelCalls()).isEqualTo(3);
+        assertThat(metadata.getModelPromptTokens()).isEqualTo(1200);
+        assertThat(metadata.getStageBits()).isEqualTo(3);
+        assertThat(metadata.getStageVersion()).isEqualTo(2);
+    }
+}
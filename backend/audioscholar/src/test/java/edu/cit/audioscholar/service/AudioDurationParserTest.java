@@ -0,0 +1,119 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AudioDurationParserTest {
+
+    private static final double MP3_FRAME_SECONDS = 1152.0 / 44100;
+
+    private final AudioDurationParser parser = new AudioDurationParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsWavDurationFromTheDataChunk() throws Exception {
+        Path wav = AudioFixtures.wav(tempDir, "lecture.wav", 16000, 12.5, i -> 0.1);
+
+        assertThat(parser.parseDurationSeconds(wav)).isCloseTo(12.5, within(0.001));
+    }
+
+    @Test
+    void countsEveryFrameOfAShortAdtsStream() throws Exception {
+        Path aac = AudioFixtures.adts(tempDir, 1000, 300);
+
+        assertThat(parser.parseDurationSeconds(aac))
+                .isCloseTo(1000 * AudioFixtures.ADTS_FRAME_SECONDS, within(1e-9));
+    }
+
+    @Test
+    void extrapolatesLongAdtsStreamsFromTheSampledBitrate() throws Exception {
+        // 20 MB, far past the sampled prefix
+        Path aac = AudioFixtures.adts(tempDir, 50_000, 400);
+
+        assertThat(parser.parseDurationSeconds(aac))
+                .isCloseTo(50_000 * AudioFixtures.ADTS_FRAME_SECONDS, within(0.05));
+    }
+
+    @Test
+    void ignoresTrailingBytesAfterAShortAdtsStream() throws Exception {
+        Path aac = AudioFixtures.adts(tempDir, 100, 300);
+        Files.write(aac, new byte[] {'T', 'A', 'G', 0, 0, 0, 0, 0},
+                StandardOpenOption.APPEND);
+
+        assertThat(parser.parseDurationSeconds(aac))
+                .isCloseTo(100 * AudioFixtures.ADTS_FRAME_SECONDS, within(1e-9));
+    }
+
+    @Test
+    void estimatesConstantBitrateMp3AfterAnId3Tag() throws Exception {
+        Path mp3 = AudioFixtures.mp3(tempDir, 1000, 4096);
+
+        // audio bytes at 128 kbps; the fixture's frames carry no padding byte
+        assertThat(parser.parseDurationSeconds(mp3))
+                .isCloseTo(1000 * 417 * 8 / 128_000.0, within(1e-9));
+    }
+
+    @Test
+    void readsMp3FrameCountFromTheXingHeader() throws Exception {
+        Path mp3 = AudioFixtures.mp3(tempDir, 10, 0);
+        byte[] bytes = Files.readAllBytes(mp3);
+        ByteBuffer xing = ByteBuffer.wrap(bytes, 4 + 32, 12);
+        xing.put("Xing".getBytes()).putInt(0x1).putInt(5000);
+        Files.write(mp3, bytes);
+
+        assertThat(parser.parseDurationSeconds(mp3))
+                .isCloseTo(5000 * MP3_FRAME_SECONDS, within(1e-9));
+    }
+
+    @Test
+    void readsMp4DurationFromTheMovieHeader() throws Exception {
+        Path m4a = tempDir.resolve("lecture.m4a");
+        Files.write(m4a, concat(ftyp(), box("moov", mediaHeader("mvhd", 1000, 754_321))));
+
+        assertThat(parser.parseDurationSeconds(m4a)).isCloseTo(754.321, within(1e-9));
+    }
+
+    @Test
+    void fallsBackToTheTrackMediaHeader() throws Exception {
+        Path m4a = tempDir.resolve("lecture.m4a");
+        byte[] track = box("trak", box("mdia", mediaHeader("mdhd", 44100, 44100 * 90)));
+        Files.write(m4a, concat(ftyp(), box("moov", concat(mediaHeader("mvhd", 1000, 0), track))));
+
+        assertThat(parser.parseDurationSeconds(m4a)).isCloseTo(90.0, within(1e-9));
+    }
+
+    @Test
+    void returnsNullForUnknownContent() throws Exception {
+        Path text = tempDir.resolve("notes.txt");
+        Files.writeString(text, "not audio at all, just some lecture notes");
+
+        assertThat(parser.parseDurationSeconds(text)).isNull();
+    }
+
+    private static byte[] ftyp() {
+        return box("ftyp", "M4A \0\0\0\0isomM4A ".getBytes());
+    }
+
+    private static byte[] mediaHeader(String type, int timescale, int duration) {
+        ByteBuffer content = ByteBuffer.allocate(24);
+        content.putInt(0).putInt(0).putInt(0).putInt(timescale).putInt(duration).putInt(0);
+        return box(type, content.array());
+    }
+
+    private static byte[] box(String type, byte[] content) {
+        return ByteBuffer.allocate(8 + content.length).putInt(8 + content.length)
+                .put(type.getBytes()).put(content).array();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        return ByteBuffer.allocate(first.length + second.length).put(first).put(second).array();
+    }
+}
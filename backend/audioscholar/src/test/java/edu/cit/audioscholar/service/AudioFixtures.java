@@ -0,0 +1,95 @@
+package edu.cit.audioscholar.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.function.DoublePredicate;
+import java.util.function.IntToDoubleFunction;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/** Synthetic audio files for parser, cutter and energy tests. */
+final class AudioFixtures {
+
+    static final int ADTS_SAMPLE_RATE = 44100;
+    static final double ADTS_FRAME_SECONDS = 1024.0 / ADTS_SAMPLE_RATE;
+
+    private AudioFixtures() {
+    }
+
+    /** An ADTS stream of {@code frames} 44.1 kHz frames, each {@code frameLength} bytes. */
+    static Path adts(Path directory, int frames, int frameLength) throws IOException {
+        ByteBuffer stream = ByteBuffer.allocate(frames * frameLength);
+        for (int i = 0; i < frames; i++) {
+            stream.put((byte) 0xFF).put((byte) 0xF1);
+            stream.put((byte) ((1 << 6) | (4 << 2)));
+            stream.put((byte) ((2 << 6) | ((frameLength >> 11) & 0x03)));
+            stream.put((byte) ((frameLength >> 3) & 0xFF));
+            stream.put((byte) (((frameLength & 0x07) << 5) | 0x1F));
+            stream.put((byte) 0xFC);
+            stream.put(new byte[frameLength - 7]);
+        }
+        Path file = directory.resolve("fixture.aac");
+        Files.write(file, stream.array());
+        return file;
+    }
+
+    /**
+     * An MPEG-1 Layer III stream of {@code frames} 128 kbps 44.1 kHz frames (417 bytes each),
+     * optionally preceded by an ID3v2 tag of {@code id3Bytes} bytes.
+     */
+    static Path mp3(Path directory, int frames, int id3Bytes) throws IOException {
+        int frameLength = 144 * 128_000 / 44_100;
+        ByteBuffer stream = ByteBuffer.allocate(
+                (id3Bytes > 0 ? 10 + id3Bytes : 0) + frames * frameLength);
+        if (id3Bytes > 0) {
+            stream.put("ID3".getBytes()).put((byte) 4).put((byte) 0).put((byte) 0);
+            stream.put((byte) ((id3Bytes >> 21) & 0x7F)).put((byte) ((id3Bytes >> 14) & 0x7F))
+                    .put((byte) ((id3Bytes >> 7) & 0x7F)).put((byte) (id3Bytes & 0x7F));
+            stream.put(new byte[id3Bytes]);
+        }
+        for (int i = 0; i < frames; i++) {
+            stream.putInt(0xFFFB9000);
+            stream.put(new byte[frameLength - 4]);
+        }
+        Path file = directory.resolve("fixture.mp3");
+        Files.write(file, stream.array());
+        return file;
+    }
+
+    /** A mono 16-bit WAV whose sample {@code i} is {@code amplitude.applyAsDouble(i)}. */
+    static Path wav(Path directory, String name, int sampleRate, double seconds,
+            IntToDoubleFunction amplitude) throws IOException {
+        int samples = (int) (sampleRate * seconds);
+        ByteBuffer pcm = ByteBuffer.allocate(samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < samples; i++) {
+            pcm.putShort((short) Math.round(amplitude.applyAsDouble(i) * Short.MAX_VALUE));
+        }
+        AudioFormat format = new AudioFormat(sampleRate, 16, 1, true, false);
+        Path file = directory.resolve(name);
+        try (AudioInputStream stream = new AudioInputStream(
+                new ByteArrayInputStream(pcm.array()), format, samples)) {
+            AudioSystem.write(stream, AudioFileFormat.Type.WAVE, file.toFile());
+        }
+        return file;
+    }
+
+    /** A sine tone of {@code level} peak amplitude while {@code speaking} is true, else noise. */
+    static IntToDoubleFunction toneWhen(int sampleRate, double level, double noise,
+            DoublePredicate speaking) {
+        Random random = new Random(42);
+        return i -> {
+            double second = (double) i / sampleRate;
+            double hiss = (random.nextDouble() * 2 - 1) * noise;
+            return speaking.test(second)
+                    ? level * Math.sin(2 * Math.PI * 220 * second) + hiss
+                    : hiss;
+        };
+    }
+}
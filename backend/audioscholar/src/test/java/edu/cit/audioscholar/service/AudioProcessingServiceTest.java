@@ -0,0 +1,64 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.dto.NhostUploadMessage;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ProcessingStatus;
+
+class AudioProcessingServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final NhostStorageService nhostStorageService = mock(NhostStorageService.class);
+    private final List<PipelineTransport.Outgoing> sent = new ArrayList<>();
+
+    @Test
+    void theRequestQueuesTheFileWithoutWaitingForNhost() throws Exception {
+        when(firebaseService.saveData(anyString(), anyString(), any())).thenAnswer(call -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> data = (Map<String, Object>) call.getArgument(2);
+            firestore.put(call.getArgument(0), call.getArgument(1), data);
+            return "saved";
+        });
+        PipelineTransport transport = mock(PipelineTransport.class);
+        doAnswer(call -> sent.addAll(call.getArgument(0))).when(transport).sendAll(any());
+        AudioProcessingService service = new AudioProcessingService(firebaseService, transport,
+                nhostStorageService, "500MB", tempDir.toString(),
+                new ConcurrentMapCacheManager(), new ObjectMapper(),
+                mock(ContentHashIndexService.class), mock(RecordingDeletionService.class));
+        byte[] audio = new byte[4096];
+
+        AudioMetadata metadata = service.queueFilesForUpload(
+                new MockMultipartFile("audioFile", "lecture.m4a", "audio/mp4", audio), null,
+                "Lecture", null, "user-1");
+
+        verifyNoInteractions(nhostStorageService);
+        assertThat(metadata.getStatus()).isEqualTo(ProcessingStatus.UPLOAD_IN_PROGRESS);
+        assertThat(sent).singleElement().satisfies(outgoing -> {
+            assertThat(outgoing.routingKey()).isEqualTo(RabbitMQConfig.UPLOAD_AUDIO_ROUTING_KEY);
+            NhostUploadMessage message = (NhostUploadMessage) outgoing.payload();
+            assertThat(message.getNhostFileId()).isNull();
+            assertThat(Files.readAllBytes(Path.of(message.getTempFilePath()))).isEqualTo(audio);
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AudioSegmentCutterTest {
+
+    private final AudioSegmentCutter cutter = new AudioSegmentCutter();
+    private final AudioDurationParser durationParser = new AudioDurationParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void cutsAdtsOnFrameBoundaries() throws Exception {
+        Path source = AudioFixtures.adts(tempDir, 431, 100);
+        AudioSegmentCutter.Plan plan = cutter.plan(source);
+        assertThat(plan).isNotNull();
+        assertThat(plan.extension()).isEqualTo("aac");
+
+        Path cut = tempDir.resolve("cut.aac");
+        plan.write(2.0, 5.0, cut);
+
+        assertThat(Files.size(cut) % 100).isZero();
+        assertThat(durationParser.parseDurationSeconds(cut))
+                .isCloseTo(3.0, within(2 * AudioFixtures.ADTS_FRAME_SECONDS));
+    }
+
+    @Test
+    void lastCutRunsToTheEndOfTheStream() throws Exception {
+        Path source = AudioFixtures.adts(tempDir, 431, 100);
+        Path cut = tempDir.resolve("tail.aac");
+
+        cutter.plan(source).write(8.0, 10.0, cut);
+
+        assertThat(durationParser.parseDurationSeconds(cut))
+                .isCloseTo(431 * AudioFixtures.ADTS_FRAME_SECONDS - 8.0,
+                        within(AudioFixtures.ADTS_FRAME_SECONDS));
+    }
+
+    @Test
+    void cutsMp3AfterTheId3Tag() throws Exception {
+        Path source = AudioFixtures.mp3(tempDir, 383, 2048);
+        AudioSegmentCutter.Plan plan = cutter.plan(source);
+        assertThat(plan).isNotNull();
+        assertThat(plan.extension()).isEqualTo("mp3");
+
+        Path cut = tempDir.resolve("cut.mp3");
+        plan.write(1.0, 4.0, cut);
+
+        assertThat(Files.size(cut) % 417).isZero();
+        assertThat(durationParser.parseDurationSeconds(cut)).isCloseTo(3.0, within(0.06));
+    }
+
+    @Test
+    void cutsWavAsPcm() throws Exception {
+        Path source = AudioFixtures.wav(tempDir, "lecture.wav", 8000, 10,
+                i -> Math.sin(i / 10.0) * 0.5);
+        AudioSegmentCutter.Plan plan = cutter.plan(source);
+        assertThat(plan).isNotNull();
+        assertThat(plan.extension()).isEqualTo("wav");
+
+        Path cut = tempDir.resolve("cut.wav");
+        plan.write(2.5, 6.0, cut);
+
+        assertThat(durationParser.parseDurationSeconds(cut)).isCloseTo(3.5, within(0.01));
+    }
+
+    @Test
+    void returnsNullForMp4() throws Exception {
+        Path source = tempDir.resolve("lecture.m4a");
+        Files.write(source, new byte[] {0, 0, 0, 24, 'f', 't', 'y', 'p', 'M', '4', 'A', ' ', 0,
+                0, 0, 0, 'M', '4', 'A', ' ', 'i', 's', 'o', 'm'});
+
+        assertThat(cutter.plan(source)).isNull();
+    }
+}
@@ -0,0 +1,255 @@
+package edu.cit.audioscholar.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mockito.invocation.InvocationOnMock;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.Transaction;
+
+/**
+ * In-memory documents behind a mocked {@link FirebaseService}: {@code getDocumentReference},
+ * {@code runTransaction} (reads see committed state, writes apply when the callback returns),
+ * {@code getData}, {@code updateDataWithMap}, {@code updateData}, {@code deleteData},
+ * {@code setDocuments} and {@code deleteDocuments}; {@code updateLiveAudioMetadata} runs for
+ * real on top of them. Dotted update keys address nested maps and {@code FieldValue.delete()}
+ * removes a field, as in Firestore.
+ */
+final class FirestoreFake {
+
+    static final String METADATA = "audio_metadata";
+
+    private final Map<String, Map<String, Object>> documents = new LinkedHashMap<>();
+    private final AtomicInteger transactions = new AtomicInteger();
+    private Runnable beforeCommit = () -> {
+    };
+
+    FirestoreFake(FirebaseService firebaseService) {
+        when(firebaseService.getAudioMetadataCollectionName()).thenReturn(METADATA);
+        when(firebaseService.getDocumentReference(anyString(), anyString()))
+                .thenAnswer(call -> reference(call.getArgument(0), call.getArgument(1)));
+        when(firebaseService.runTransaction(any())).thenAnswer(this::runTransaction);
+        when(firebaseService.getData(anyString(), anyString())).thenAnswer(call -> {
+            Map<String, Object> data = get(call.getArgument(0), call.getArgument(1));
+            return data != null ? new HashMap<>(data) : null;
+        });
+        when(firebaseService.updateDataWithMap(anyString(), anyString(), any()))
+                .thenAnswer(call -> {
+                    apply(path(call.getArgument(0), call.getArgument(1)), call.getArgument(2),
+                            false);
+                    return "updated";
+                });
+        when(firebaseService.updateLiveAudioMetadata(anyString(), any())).thenCallRealMethod();
+        when(firebaseService.updateData(anyString(), anyString(), any())).thenAnswer(call -> {
+            apply(path(call.getArgument(0), call.getArgument(1)), call.getArgument(2), true);
+            return "updated";
+        });
+        when(firebaseService.deleteData(anyString(), anyString())).thenAnswer(call -> {
+            documents.remove(path(call.getArgument(0), call.getArgument(1)));
+            return "deleted";
+        });
+        doAnswer(call -> {
+            Map<String, Map<String, Object>> batch = call.getArgument(1);
+            batch.forEach((id, data) -> put(call.getArgument(0), id, data));
+            return null;
+        }).when(firebaseService).setDocuments(anyString(), any());
+        doAnswer(call -> {
+            Collection<String> ids = call.getArgument(1);
+            ids.forEach(id -> documents.remove(path(call.getArgument(0), id)));
+            return null;
+        }).when(firebaseService).deleteDocuments(anyString(), any());
+    }
+
+    void put(String collection, String id, Map<String, Object> data) {
+        documents.put(path(collection, id), new HashMap<>(data));
+    }
+
+    Map<String, Object> get(String collection, String id) {
+        return documents.get(path(collection, id));
+    }
+
+    /** Documents of one collection keyed by id, in insertion order. */
+    Map<String, Map<String, Object>> all(String collection) {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        String prefix = collection + "/";
+        documents.forEach((path, data) -> {
+            if (path.startsWith(prefix)) {
+                result.put(path.substring(prefix.length()), data);
+            }
+        });
+        return result;
+    }
+
+    boolean exists(String collection, String id) {
+        return documents.containsKey(path(collection, id));
+    }
+
+    int transactionCount() {
+        return transactions.get();
+    }
+
+    /** Runs just before a transaction commits, e.g. to simulate a concurrent writer. */
+    void beforeCommit(Runnable hook) {
+        this.beforeCommit = hook;
+    }
+
+    DocumentReference reference(String collection, String id) {
+        DocumentReference reference = mock(DocumentReference.class,
+                withSettings().name(path(collection, id)));
+        when(reference.getId()).thenReturn(id);
+        when(reference.getPath()).thenReturn(path(collection, id));
+        return reference;
+    }
+
+    private Object runTransaction(InvocationOnMock call) throws Exception {
+        transactions.incrementAndGet();
+        Transaction.Function<?> function = call.getArgument(0);
+        List<Runnable> writes = new ArrayList<>();
+        Transaction transaction = mock(Transaction.class);
+        when(transaction.get(any(DocumentReference.class))).thenAnswer(
+                get -> ApiFutures.immediateFuture(snapshot(get.getArgument(0))));
+        when(transaction.set(any(DocumentReference.class), anyMap())).thenAnswer(set -> {
+            String path = ((DocumentReference) set.getArgument(0)).getPath();
+            Map<String, Object> data = set.getArgument(1);
+            writes.add(() -> documents.put(path, new HashMap<>(data)));
+            return transaction;
+        });
+        when(transaction.set(any(DocumentReference.class), anyMap(), any(SetOptions.class)))
+                .thenAnswer(set -> {
+                    String path = ((DocumentReference) set.getArgument(0)).getPath();
+                    Map<String, Object> data = set.getArgument(1);
+                    writes.add(() -> apply(path, data, true));
+                    return transaction;
+                });
+        when(transaction.update(any(DocumentReference.class), anyMap())).thenAnswer(
+                update -> {
+                    String path = ((DocumentReference) update.getArgument(0)).getPath();
+                    Map<String, Object> data = update.getArgument(1);
+                    writes.add(() -> apply(path, data, false));
+                    return transaction;
+                });
+        when(transaction.update(any(DocumentReference.class), anyString(), any())).thenAnswer(
+                update -> {
+                    String path = ((DocumentReference) update.getArgument(0)).getPath();
+                    Map<String, Object> data = new HashMap<>();
+                    data.put(update.getArgument(1), update.getArgument(2));
+                    writes.add(() -> apply(path, data, false));
+                    return transaction;
+                });
+        when(transaction.delete(any(DocumentReference.class))).thenAnswer(delete -> {
+            String path = ((DocumentReference) delete.getArgument(0)).getPath();
+            writes.add(() -> documents.remove(path));
+            return transaction;
+        });
+
+        Object result = function.updateCallback(transaction);
+        if (!writes.isEmpty()) {
+            beforeCommit.run();
+        }
+        writes.forEach(Runnable::run);
+        return result;
+    }
+
+    private void apply(String path, Map<String, Object> updates, boolean merge) {
+        Map<String, Object> document = documents.get(path);
+        if (document == null) {
+            if (!merge) {
+                throw new IllegalStateException("NOT_FOUND: no document to update at " + path);
+            }
+            document = new HashMap<>();
+            documents.put(path, document);
+        }
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            String[] parts = entry.getKey().split("\\.");
+            Map<String, Object> parent = document;
+            for (int i = 0; i < parts.length - 1; i++) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> child = (Map<String, Object>) parent.computeIfAbsent(parts[i],
+                        key -> new HashMap<String, Object>());
+                parent = child;
+            }
+            Object value = entry.getValue();
+            if (FieldValue.delete().equals(value)) {
+                parent.remove(parts[parts.length - 1]);
+            } else if (FieldValue.serverTimestamp().equals(value)) {
+                parent.put(parts[parts.length - 1], Timestamp.now());
+            } else {
+                parent.put(parts[parts.length - 1], value);
+            }
+        }
+    }
+
+    private DocumentSnapshot snapshot(DocumentReference reference) {
+        Map<String, Object> stored = documents.get(reference.getPath());
+        Map<String, Object> data = stored != null ? deepCopy(stored) : null;
+        return mock(DocumentSnapshot.class, call -> {
+            String method = call.getMethod().getName();
+            Object field = call.getArguments().length == 1 && call.getArgument(0) instanceof String
+                    ? lookup(data, call.getArgument(0))
+                    : null;
+            switch (method) {
+                case "exists":
+                    return data != null;
+                case "getId":
+                    return reference.getId();
+                case "getReference":
+                    return reference;
+                case "getData":
+                    return data;
+                case "contains":
+                    return field != null;
+                case "getLong":
+                    return field instanceof Number number ? number.longValue() : null;
+                case "getDouble":
+                    return field instanceof Number number ? number.doubleValue() : null;
+                case "get":
+                case "getString":
+                case "getBoolean":
+                case "getTimestamp":
+                    return field;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object lookup(Map<String, Object> data, String field) {
+        Object current = data;
+        for (String part : field.split("\\.")) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<String, Object>) current).get(part);
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> deepCopy(Map<String, Object> source) {
+        Map<String, Object> copy = new HashMap<>();
+        source.forEach((key, value) -> copy.put(key,
+                value instanceof Map ? deepCopy((Map<String, Object>) value) : value));
+        return copy;
+    }
+
+    private static String path(String collection, String id) {
+        return collection + "/" + id;
+    }
+}
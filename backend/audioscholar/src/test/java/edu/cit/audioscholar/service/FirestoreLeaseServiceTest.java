@@ -0,0 +1,78 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import com.google.cloud.Timestamp;
+
+class FirestoreLeaseServiceTest {
+
+    private static final String LEASES = "processing_leases";
+    private static final String PROCESSED = "processed_messages";
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final FirestoreLeaseService leases =
+            new FirestoreLeaseService(firebaseService, LEASES, PROCESSED);
+
+    @Test
+    void renewalExtendsTheLeaseAndKeepsItsFencingToken() {
+        LeaseService.Lease lease = leases.tryAcquire("summarization:rec-1", Duration.ofSeconds(30));
+
+        LeaseService.Lease renewed = leases.renew(lease, Duration.ofMinutes(5));
+
+        assertThat(renewed).isNotNull();
+        assertThat(renewed.fencingToken()).isEqualTo(lease.fencingToken());
+        assertThat(renewed.expiresAt()).isAfter(lease.expiresAt());
+        assertThat(expiresAt("summarization:rec-1"))
+                .isEqualTo(renewed.expiresAt().truncatedTo(ChronoUnit.MILLIS));
+        assertThat(leases.tryAcquire("summarization:rec-1", Duration.ofSeconds(30))).isNull();
+    }
+
+    @Test
+    void aLapsedLeaseCannotBeRenewed() {
+        LeaseService.Lease lease = leases.tryAcquire("summarization:rec-1", Duration.ofSeconds(30));
+        firestore.get(LEASES, "summarization:rec-1").put("expiresAt",
+                Timestamp.ofTimeSecondsAndNanos(Instant.now().getEpochSecond() - 1, 0));
+
+        assertThat(leases.renew(lease, Duration.ofMinutes(5))).isNull();
+    }
+
+    @Test
+    void aLeaseTakenOverByAnotherHolderCannotBeRenewedOrReleased() {
+        LeaseService.Lease lease = leases.tryAcquire("summarization:rec-1", Duration.ofSeconds(30));
+        Map<String, Object> takenOver = new HashMap<>(firestore.get(LEASES, "summarization:rec-1"));
+        takenOver.put("owner", "other-node");
+        takenOver.put("fencingToken", lease.fencingToken() + 1);
+        firestore.put(LEASES, "summarization:rec-1", takenOver);
+
+        assertThat(leases.renew(lease, Duration.ofMinutes(5))).isNull();
+        leases.release(lease);
+
+        assertThat(firestore.get(LEASES, "summarization:rec-1")).containsEntry("owner",
+                "other-node");
+        assertThat(expiresAt("summarization:rec-1")).isAfter(Instant.now());
+    }
+
+    @Test
+    void processedMarkersAreVisibleUntilTheyExpire() {
+        assertThat(leases.isProcessed("summarization:msg-1")).isFalse();
+
+        assertThat(leases.markProcessed("summarization:msg-1", Duration.ofHours(1))).isTrue();
+        assertThat(leases.isProcessed("summarization:msg-1")).isTrue();
+        assertThat(leases.markProcessed("summarization:msg-1", Duration.ofHours(1))).isFalse();
+
+        firestore.get(PROCESSED, "summarization:msg-1").put("expiresAt",
+                Timestamp.ofTimeSecondsAndNanos(Instant.now().getEpochSecond() - 1, 0));
+        assertThat(leases.isProcessed("summarization:msg-1")).isFalse();
+    }
+
+    private Instant expiresAt(String key) {
+        return ((Timestamp) firestore.get(LEASES, key).get("expiresAt")).toDate().toInstant();
+    }
+}
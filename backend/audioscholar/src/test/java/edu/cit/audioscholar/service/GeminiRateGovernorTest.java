@@ -0,0 +1,256 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import edu.cit.audioscholar.exception.GeminiUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class GeminiRateGovernorTest {
+
+    private static final String MODEL = "gemini-test";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private GeminiRateGovernor governor(double initialLimit, int failureThreshold,
+            long openSeconds) {
+        return governor(initialLimit, failureThreshold, openSeconds, 0);
+    }
+
+    private GeminiRateGovernor governor(double initialLimit, int failureThreshold,
+            long openSeconds, int premiumReserved) {
+        return new GeminiRateGovernor(meterRegistry, initialLimit, 1, 8, 10, 3, 1, 10,
+                failureThreshold, openSeconds, premiumReserved);
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).tag("model", MODEL).gauge().value();
+    }
+
+    private static HttpServerErrorException serverError() {
+        return HttpServerErrorException.create(HttpStatus.INTERNAL_SERVER_ERROR, "boom",
+                new HttpHeaders(), new byte[0], StandardCharsets.UTF_8);
+    }
+
+    private static HttpClientErrorException throttled(HttpHeaders headers, String body) {
+        return HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "slow down",
+                headers, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void successGrowsTheLimitAdditively() {
+        GeminiRateGovernor governor = governor(4, 8, 30);
+
+        governor.execute(MODEL, Mono.just("ok")).block();
+
+        assertThat(gauge("gemini.limiter.limit")).isEqualTo(4.25);
+    }
+
+    @Test
+    void throttlingHalvesTheLimitDownToTheMinimum() {
+        GeminiRateGovernor governor = governor(4, 8, 30);
+
+        for (int i = 0; i < 3; i++) {
+            governor.execute(MODEL, Mono.error(throttled(new HttpHeaders(), ""))).onErrorResume(
+                    e -> Mono.empty()).block();
+        }
+
+        assertThat(gauge("gemini.limiter.limit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void clientErrorsOtherThan429LeaveTheLimitAlone() {
+        GeminiRateGovernor governor = governor(4, 1, 30);
+        HttpClientErrorException badRequest = HttpClientErrorException.create(
+                HttpStatus.BAD_REQUEST, "bad", new HttpHeaders(), new byte[0],
+                StandardCharsets.UTF_8);
+
+        governor.execute(MODEL, Mono.error(badRequest)).onErrorResume(e -> Mono.empty()).block();
+
+        assertThat(gauge("gemini.limiter.limit")).isEqualTo(4.0);
+        assertThat(gauge("gemini.circuit.state")).isZero();
+    }
+
+    @Test
+    void queuesCallsBeyondTheLimitUntilAPermitIsReleased() {
+        GeminiRateGovernor governor = governor(2, 8, 30);
+        Sinks.One<String> first = Sinks.one();
+        Sinks.One<String> second = Sinks.one();
+        AtomicInteger thirdStarted = new AtomicInteger();
+
+        governor.execute(MODEL, first.asMono()).subscribe();
+        governor.execute(MODEL, second.asMono()).subscribe();
+        governor.execute(MODEL, Mono.fromCallable(thirdStarted::incrementAndGet)).subscribe();
+
+        assertThat(gauge("gemini.limiter.in_flight")).isEqualTo(2);
+        assertThat(gauge("gemini.limiter.queue_depth")).isEqualTo(1);
+        assertThat(thirdStarted).hasValue(0);
+
+        first.tryEmitValue("done");
+
+        assertThat(thirdStarted).hasValue(1);
+        assertThat(gauge("gemini.limiter.queue_depth")).isZero();
+        assertThat(gauge("gemini.limiter.in_flight")).isEqualTo(1);
+    }
+
+    @Test
+    void premiumWaitersAreServedBeforeEarlierStandardWaiters() {
+        GeminiRateGovernor governor = governor(1, 8, 30);
+        governor.prioritize("premium-rec", ProcessingLaneRouter.TIER_PREMIUM);
+        Sinks.One<String> running = Sinks.one();
+        List<String> started = new CopyOnWriteArrayList<>();
+
+        governor.execute(MODEL, running.asMono()).subscribe();
+        governor.execute(MODEL, "standard-rec", Mono.fromCallable(() -> started.add("standard")))
+                .subscribe();
+        governor.execute(MODEL, "premium-rec", Mono.fromCallable(() -> started.add("premium")))
+                .subscribe();
+
+        assertThat(gauge("gemini.limiter.queue_depth")).isEqualTo(2);
+        assertThat(gauge("gemini.limiter.premium_queue_depth")).isEqualTo(1);
+
+        running.tryEmitValue("done");
+
+        assertThat(started).containsExactly("premium", "standard");
+    }
+
+    @Test
+    void standardCallsLeaveTheReservedPermitsToPremium() {
+        GeminiRateGovernor governor = governor(2, 8, 30, 1);
+        governor.prioritize("premium-rec", ProcessingLaneRouter.TIER_PREMIUM);
+        AtomicInteger standardStarted = new AtomicInteger();
+        AtomicInteger premiumStarted = new AtomicInteger();
+
+        governor.execute(MODEL, "standard-rec", Sinks.<String>one().asMono()).subscribe();
+        governor.execute(MODEL, "standard-rec",
+                Mono.fromCallable(standardStarted::incrementAndGet)).subscribe();
+        governor.execute(MODEL, "premium-rec",
+                Mono.fromCallable(premiumStarted::incrementAndGet)).subscribe();
+
+        assertThat(standardStarted).hasValue(0);
+        assertThat(premiumStarted).hasValue(1);
+        assertThat(gauge("gemini.limiter.queue_depth")).isEqualTo(1);
+    }
+
+    @Test
+    void closingThePriorityReturnsTheRecordingToTheStandardQueue() {
+        GeminiRateGovernor governor = governor(1, 8, 30);
+        GeminiRateGovernor.Priority priority =
+                governor.prioritize("premium-rec", ProcessingLaneRouter.TIER_PREMIUM);
+        governor.execute(MODEL, Sinks.<String>one().asMono()).subscribe();
+
+        priority.close();
+        governor.execute(MODEL, "premium-rec", Mono.just("later")).subscribe();
+
+        assertThat(gauge("gemini.limiter.queue_depth")).isEqualTo(1);
+        assertThat(gauge("gemini.limiter.premium_queue_depth")).isZero();
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailuresAndRejectsWithoutCalling() {
+        GeminiRateGovernor governor = governor(4, 3, 30);
+        for (int i = 0; i < 3; i++) {
+            governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThatThrownBy(() -> governor
+                .execute(MODEL, Mono.fromCallable(calls::incrementAndGet)).block())
+                .isInstanceOf(GeminiUnavailableException.class);
+        assertThat(calls).hasValue(0);
+        assertThat(gauge("gemini.circuit.state"))
+                .isEqualTo(GeminiRateGovernor.CircuitState.OPEN.ordinal());
+    }
+
+    @Test
+    void successResetsTheConsecutiveFailureCount() {
+        GeminiRateGovernor governor = governor(4, 3, 30);
+        for (int i = 0; i < 2; i++) {
+            governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                    .block();
+        }
+        governor.execute(MODEL, Mono.just("ok")).block();
+        governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                .block();
+
+        assertThat(gauge("gemini.circuit.state")).isZero();
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() {
+        GeminiRateGovernor governor = governor(4, 1, 0);
+        governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                .block();
+        assertThat(gauge("gemini.circuit.state"))
+                .isEqualTo(GeminiRateGovernor.CircuitState.OPEN.ordinal());
+
+        assertThat(governor.execute(MODEL, Mono.just("probe")).block()).isEqualTo("probe");
+
+        assertThat(gauge("gemini.circuit.state")).isZero();
+    }
+
+    @Test
+    void onlyOneProbeRunsWhileHalfOpen() {
+        GeminiRateGovernor governor = governor(4, 1, 0);
+        governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                .block();
+        Sinks.One<String> probe = Sinks.one();
+        governor.execute(MODEL, probe.asMono()).subscribe();
+
+        assertThat(gauge("gemini.circuit.state"))
+                .isEqualTo(GeminiRateGovernor.CircuitState.HALF_OPEN.ordinal());
+        assertThatThrownBy(() -> governor.execute(MODEL, Mono.just("second")).block())
+                .isInstanceOf(GeminiUnavailableException.class);
+    }
+
+    @Test
+    void failedProbeReopensTheCircuit() {
+        GeminiRateGovernor governor = governor(4, 1, 0);
+        governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                .block();
+
+        governor.execute(MODEL, Mono.error(serverError())).onErrorResume(e -> Mono.empty())
+                .block();
+
+        assertThat(gauge("gemini.circuit.state"))
+                .isEqualTo(GeminiRateGovernor.CircuitState.OPEN.ordinal());
+    }
+
+    @Test
+    void readsRetryAfterFromTheHeaderOrTheErrorBody() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "7");
+
+        assertThat(GeminiRateGovernor.retryAfter(throttled(headers, "")))
+                .isEqualTo(Duration.ofSeconds(7));
+        assertThat(GeminiRateGovernor.retryAfter(throttled(new HttpHeaders(),
+                "{\"error\":{\"details\":[{\"retryDelay\": \"2.5s\"}]}}")))
+                .isEqualTo(Duration.ofMillis(2500));
+        assertThat(GeminiRateGovernor.retryAfter(serverError())).isNull();
+    }
+
+    @Test
+    void backoffHonoursALongerRetryAfter() {
+        GeminiRateGovernor governor = governor(4, 8, 30);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "5");
+
+        Duration delay = governor.backoffDelay(1, throttled(headers, ""));
+
+        assertThat(delay).isBetween(Duration.ofSeconds(5), Duration.ofMillis(5001));
+        assertThat(governor.backoffDelay(3, serverError()))
+                .isBetween(Duration.ofMillis(2), Duration.ofMillis(4));
+    }
+}
@@ -0,0 +1,44 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.AmqpException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class InMemoryPipelineTransportTest {
+
+    private final InMemoryPipelineTransport transport = new InMemoryPipelineTransport(
+            new ObjectMapper(), new SimpleMeterRegistry(), 8, 1, 200, List.of(1));
+
+    @AfterEach
+    void stop() {
+        transport.shutdown();
+    }
+
+    @Test
+    void rejectsARoutingKeyWithoutAConsumer() {
+        assertThatThrownBy(() -> transport.send(RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY,
+                Map.of("metadataId", "rec-1")))
+                .isInstanceOf(AmqpException.class)
+                .hasMessageContaining(RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY);
+    }
+
+    @Test
+    void deliversToTheRegisteredConsumer() throws Exception {
+        CompletableFuture<Map<?, ?>> received = new CompletableFuture<>();
+        transport.register(RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY, Map.class,
+                (message, attempt) -> received.complete(message));
+
+        transport.send(RabbitMQConfig.RECOMMENDATIONS_ROUTING_KEY, Map.of("metadataId", "rec-1"));
+
+        assertThat(received.get(5, TimeUnit.SECONDS).get("metadataId")).isEqualTo("rec-1");
+    }
+}
@@ -0,0 +1,83 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class LeaseHeartbeatTest {
+
+    private static final Duration TTL = Duration.ofMillis(1500);
+
+    private final InMemoryLeaseService leaseService = new InMemoryLeaseService();
+    private final LeaseHeartbeat heartbeat = new LeaseHeartbeat(leaseService);
+
+    @AfterEach
+    void stop() {
+        heartbeat.shutdown();
+    }
+
+    @Test
+    void keepsTheLeaseAlivePastItsTtlUntilClosed() throws InterruptedException {
+        LeaseService.Lease lease = leaseService.tryAcquire("transcription:rec-1", TTL);
+
+        try (LeaseHeartbeat.Renewal renewal = heartbeat.keepAlive(lease, TTL)) {
+            Thread.sleep(TTL.toMillis() * 2);
+
+            assertThat(renewal.isHeld()).isTrue();
+            assertThat(leaseService.tryAcquire("transcription:rec-1", TTL)).isNull();
+        }
+
+        Thread.sleep(TTL.toMillis() + 200);
+        LeaseService.Lease next = leaseService.tryAcquire("transcription:rec-1", TTL);
+        assertThat(next).isNotNull();
+        assertThat(next.fencingToken()).isGreaterThan(lease.fencingToken());
+    }
+
+    @Test
+    void reportsALeaseThatWasTakenOver() throws InterruptedException {
+        LeaseService.Lease lease = leaseService.tryAcquire("transcription:rec-1", TTL);
+        leaseService.release(lease);
+        leaseService.tryAcquire("transcription:rec-1", Duration.ofMinutes(1));
+
+        try (LeaseHeartbeat.Renewal renewal = heartbeat.keepAlive(lease, TTL)) {
+            Thread.sleep(1200);
+
+            assertThat(renewal.isHeld()).isFalse();
+        }
+    }
+
+    @Test
+    void aSlowRenewalDoesNotHoldUpTheOthers() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch fastRenewed = new CountDownLatch(2);
+        InMemoryLeaseService slowStore = new InMemoryLeaseService() {
+            @Override
+            public Lease renew(Lease lease, Duration ttl) {
+                if (lease.key().startsWith("slow")) {
+                    try {
+                        stuck.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                } else {
+                    fastRenewed.countDown();
+                }
+                return super.renew(lease, ttl);
+            }
+        };
+        LeaseHeartbeat shared = new LeaseHeartbeat(slowStore);
+        try (LeaseHeartbeat.Renewal slow =
+                shared.keepAlive(slowStore.tryAcquire("slow:rec-1", TTL), TTL);
+                LeaseHeartbeat.Renewal fast =
+                        shared.keepAlive(slowStore.tryAcquire("fast:rec-2", TTL), TTL)) {
+            assertThat(fastRenewed.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(fast.isHeld()).isTrue();
+        } finally {
+            stuck.countDown();
+            shared.shutdown();
+        }
+    }
+}
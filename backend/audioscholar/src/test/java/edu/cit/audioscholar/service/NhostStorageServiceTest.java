@@ -0,0 +1,73 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class NhostStorageServiceTest {
+
+    private static final String FILES = "https://nhost.test/v1/files";
+
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final NhostStorageService service =
+            new NhostStorageService(restTemplate, FILES, "secret", new ObjectMapper());
+
+    @BeforeEach
+    void nhost() {
+        // Drains the part like the real request would, so the service counts what was sent.
+        when(restTemplate.exchange(eq(FILES), eq(HttpMethod.POST), any(HttpEntity.class),
+                eq(String.class))).thenAnswer(call -> {
+                    HttpEntity<?> request = call.getArgument(2);
+                    @SuppressWarnings("unchecked")
+                    MultiValueMap<String, Object> body =
+                            (MultiValueMap<String, Object>) request.getBody();
+                    HttpEntity<?> part = (HttpEntity<?>) body.getFirst("file");
+                    try (InputStream in = ((Resource) part.getBody()).getInputStream()) {
+                        in.readAllBytes();
+                    }
+                    return new ResponseEntity<>("{\"id\":\"file-1\"}", HttpStatus.CREATED);
+                });
+        when(restTemplate.exchange(eq(FILES + "/file-1"), eq(HttpMethod.DELETE),
+                any(HttpEntity.class), eq(String.class)))
+                .thenReturn(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+    }
+
+    @Test
+    void aCompleteStreamKeepsTheFile() throws IOException {
+        NhostStorageService.StreamedUpload upload = service.uploadStream(
+                new ByteArrayInputStream(new byte[10]), 10, "lecture.m4a", "audio/mp4");
+
+        assertThat(upload.getFileId()).isEqualTo("file-1");
+        assertThat(upload.getSize()).isEqualTo(10);
+        verify(restTemplate, never()).exchange(eq(FILES + "/file-1"), eq(HttpMethod.DELETE),
+                any(HttpEntity.class), eq(String.class));
+    }
+
+    @Test
+    void aShortStreamDeletesTheFileAndFails() {
+        assertThatThrownBy(() -> service.uploadStream(new ByteArrayInputStream(new byte[6]), 10,
+                "lecture.m4a", "audio/mp4")).isInstanceOf(IOException.class)
+                .hasMessageContaining("6 bytes");
+
+        verify(restTemplate).exchange(eq(FILES + "/file-1"), eq(HttpMethod.DELETE),
+                any(HttpEntity.class), eq(String.class));
+    }
+}
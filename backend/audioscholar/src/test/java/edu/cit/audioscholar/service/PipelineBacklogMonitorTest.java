@@ -0,0 +1,100 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.web.client.RestTemplate;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PipelineBacklogMonitorTest {
+
+    private final AmqpAdmin amqpAdmin = mock(AmqpAdmin.class);
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final PipelineTransport transport = mock(PipelineTransport.class);
+    private final ProcessingLaneRouter router =
+            new ProcessingLaneRouter(mock(UserService.class), new SimpleMeterRegistry());
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void reportsInProcessLanesPerQueue() {
+        long now = System.currentTimeMillis();
+        when(transport.laneBacklog()).thenReturn(Map.of(
+                RabbitMQConfig.UPLOAD_AUDIO_ROUTING_KEY,
+                new PipelineTransport.LaneBacklog(2, 4, now - 30_000),
+                RabbitMQConfig.UPLOAD_PPTX_ROUTING_KEY,
+                new PipelineTransport.LaneBacklog(1, 4, now - 90_000),
+                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY,
+                new PipelineTransport.LaneBacklog(0, 4, 0)));
+        PipelineBacklogMonitor monitor = monitor("memory");
+
+        monitor.sampleQueues();
+
+        assertThat(gauge("pipeline.queue.depth", RabbitMQConfig.UPLOAD_QUEUE_NAME)).isEqualTo(3);
+        assertThat(gauge("pipeline.queue.consumers", RabbitMQConfig.UPLOAD_QUEUE_NAME))
+                .isEqualTo(8);
+        assertThat(gauge("pipeline.queue.oldest.age", RabbitMQConfig.UPLOAD_QUEUE_NAME))
+                .isBetween(89.0, 100.0);
+        assertThat(gauge("pipeline.queue.oldest.age", RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME))
+                .isZero();
+        verify(amqpAdmin, never()).getQueueInfo(any());
+    }
+
+    @Test
+    void estimatesTheHeadAgeFromTheLastConsumedWaitWithoutTheManagementApi() {
+        when(amqpAdmin.getQueueInfo(RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME))
+                .thenReturn(new QueueInformation(RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME, 5, 2));
+        PipelineBacklogMonitor monitor = monitor("rabbit");
+        monitor.sampleQueues();
+        router.recordWait(ProcessingLaneRouter.STAGE_TRANSCRIPTION,
+                ProcessingLaneRouter.TIER_STANDARD, System.currentTimeMillis() - 120_000);
+
+        monitor.sampleQueues();
+
+        assertThat(gauge("pipeline.queue.oldest.age", RabbitMQConfig.TRANSCRIPTION_QUEUE_NAME))
+                .isBetween(119.0, 130.0);
+        assertThat(gauge("pipeline.queue.oldest.age", RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME))
+                .isNaN();
+    }
+
+    @Test
+    void fallsBackToHowLongTheQueueHasBeenNonEmpty() {
+        when(amqpAdmin.getQueueInfo(RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME))
+                .thenReturn(new QueueInformation(RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME, 3, 1));
+        PipelineBacklogMonitor monitor = monitor("rabbit");
+
+        monitor.sampleQueues();
+
+        assertThat(gauge("pipeline.queue.oldest.age", RabbitMQConfig.PPTX_CONVERSION_QUEUE_NAME))
+                .isBetween(0.0, 5.0);
+    }
+
+    @Test
+    void doesNotCountTerminalStatuses() {
+        monitor("rabbit").countStatuses();
+
+        verify(firebaseService).countAudioMetadataByStatus(ProcessingStatus.TRANSCRIBING);
+        verify(firebaseService, never()).countAudioMetadataByStatus(ProcessingStatus.FAILED);
+        verify(firebaseService, never()).countAudioMetadataByStatus(ProcessingStatus.COMPLETE);
+        assertThat(meterRegistry.find("pipeline.recordings")
+                .tag("status", ProcessingStatus.FAILED.name()).gauge()).isNull();
+    }
+
+    private PipelineBacklogMonitor monitor(String transportName) {
+        return new PipelineBacklogMonitor(amqpAdmin, mock(RestTemplate.class), firebaseService,
+                transport, router, meterRegistry, transportName, "", "/", "guest", "guest");
+    }
+
+    private double gauge(String name, String queue) {
+        return meterRegistry.get(name).tag("queue", queue).gauge().value();
+    }
+}
@@ -0,0 +1,161 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class PipelineReconcilerTest {
+
+    private static final Timestamp STALE = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 0);
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final ProcessingLaneRouter router = mock(ProcessingLaneRouter.class);
+    private final LeaseService leaseService = new InMemoryLeaseService();
+    private final PipelineTransport transport = mock(PipelineTransport.class,
+            withSettings().defaultAnswer(Answers.CALLS_REAL_METHODS));
+    private final PipelineReconciler reconciler = new PipelineReconciler(firebaseService,
+            mock(StageCompletionService.class), router, leaseService, transport,
+            new SimpleMeterRegistry(), 45, 120, 100, 50, 0, 300_000, 5);
+
+    @BeforeEach
+    void lanes() {
+        when(router.resolveTier(any(), any())).thenReturn(ProcessingLaneRouter.TIER_STANDARD);
+        when(router.transcriptionRoutingKey(anyString())).thenReturn("transcription.standard");
+    }
+
+    @Test
+    void claimsTheRecordingBeforeReEnqueuingTranscription() {
+        Map<String, Object> stored = recording(ProcessingStatus.TRANSCRIBING);
+        staleQuery(ProcessingStatus.TRANSCRIBING, stored);
+        firestore.beforeCommit(() -> verify(transport, never()).sendAll(anyList()));
+
+        reconciler.reconcile();
+
+        verify(transport).stageAll(any(), anyList());
+        assertThat(sent()).extracting(PipelineTransport.Outgoing::routingKey)
+                .containsExactly("transcription.standard");
+        Map<String, Object> after = firestore.get(FirestoreFake.METADATA, "rec-1");
+        assertThat(after).containsEntry("status", ProcessingStatus.PROCESSING_QUEUED.name());
+        assertThat((Timestamp) after.get("lastUpdated")).isGreaterThan(STALE);
+    }
+
+    @Test
+    void sendsNothingWhenTheRecordingChangedAfterTheQuery() {
+        Map<String, Object> read = recording(ProcessingStatus.PROCESSING_QUEUED);
+        staleQuery(ProcessingStatus.PROCESSING_QUEUED, read);
+        firestore.put(FirestoreFake.METADATA, "rec-1", with(read, "lastUpdated", Timestamp.now()));
+
+        reconciler.reconcile();
+
+        verify(transport, never()).sendAll(anyList());
+    }
+
+    @Test
+    void aPptxOnlyResumeIsClaimedOnce() {
+        Map<String, Object> stored = recording(ProcessingStatus.TRANSCRIPTION_COMPLETE);
+        stored.put("transcriptionComplete", true);
+        stored.put("nhostPptxFileId", "pptx-1");
+        firestore.put(FirestoreFake.METADATA, "rec-1", stored);
+        staleQuery(ProcessingStatus.TRANSCRIPTION_COMPLETE, stored);
+
+        reconciler.reconcile();
+        reconciler.reconcile();
+
+        assertThat(sent()).extracting(PipelineTransport.Outgoing::routingKey)
+                .containsExactly(RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY);
+        Map<String, Object> after = firestore.get(FirestoreFake.METADATA, "rec-1");
+        assertThat(after).containsEntry("status",
+                ProcessingStatus.TRANSCRIPTION_COMPLETE.name());
+        assertThat((Timestamp) after.get("lastUpdated")).isGreaterThan(STALE);
+    }
+
+    @Test
+    void marksAnUnfinishedUploadFailedOnlyIfNothingMovedIt() {
+        Map<String, Object> read = recording(ProcessingStatus.UPLOAD_IN_PROGRESS);
+        read.remove("nhostFileId");
+        staleQuery(ProcessingStatus.UPLOAD_IN_PROGRESS, read);
+        firestore.put(FirestoreFake.METADATA, "rec-1",
+                with(with(read, "nhostFileId", "file-1"), "lastUpdated", Timestamp.now()));
+
+        reconciler.reconcile();
+
+        assertThat(firestore.get(FirestoreFake.METADATA, "rec-1"))
+                .containsEntry("status", ProcessingStatus.UPLOAD_IN_PROGRESS.name())
+                .doesNotContainKey("failureReason");
+
+        firestore.put(FirestoreFake.METADATA, "rec-1", read);
+        reconciler.reconcile();
+
+        assertThat(firestore.get(FirestoreFake.METADATA, "rec-1"))
+                .containsEntry("status", ProcessingStatus.FAILED.name())
+                .containsEntry("failureReason", "Upload did not complete");
+    }
+
+    @Test
+    void leavesARecordingWhoseStageLeaseIsStillRenewed() {
+        Map<String, Object> stored = recording(ProcessingStatus.TRANSCRIBING);
+        staleQuery(ProcessingStatus.TRANSCRIBING, stored);
+        leaseService.tryAcquire("transcription:rec-1", Duration.ofMinutes(5));
+
+        reconciler.reconcile();
+
+        verify(transport, never()).sendAll(anyList());
+        assertThat(firestore.get(FirestoreFake.METADATA, "rec-1"))
+                .containsEntry("status", ProcessingStatus.TRANSCRIBING.name())
+                .containsEntry("lastUpdated", STALE);
+    }
+
+    private Map<String, Object> recording(ProcessingStatus status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", "rec-1");
+        data.put("userId", "user-1");
+        data.put("status", status.name());
+        data.put("nhostFileId", "file-1");
+        data.put("audioOnly", false);
+        data.put("lastUpdated", STALE);
+        firestore.put(FirestoreFake.METADATA, "rec-1", data);
+        return data;
+    }
+
+    private void staleQuery(ProcessingStatus status, Map<String, Object> read) {
+        when(firebaseService.findAudioMetadataByStatusUpdatedBefore(eq(status), any(), anyInt(),
+                any())).thenReturn(List.of(AudioMetadata.fromMap(new HashMap<>(read))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PipelineTransport.Outgoing> sent() {
+        ArgumentCaptor<List<PipelineTransport.Outgoing>> batch =
+                ArgumentCaptor.forClass(List.class);
+        verify(transport, times(1)).sendAll(batch.capture());
+        return batch.getValue();
+    }
+
+    private static Map<String, Object> with(Map<String, Object> data, String key, Object value) {
+        Map<String, Object> copy = new HashMap<>(data);
+        copy.put(key, value);
+        return copy;
+    }
+}
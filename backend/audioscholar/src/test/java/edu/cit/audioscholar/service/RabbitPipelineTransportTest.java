@@ -0,0 +1,202 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import com.google.cloud.Timestamp;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.config.StageRetryAdvice;
+import edu.cit.audioscholar.exception.FirestoreInteractionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RabbitPipelineTransportTest {
+
+    private static final String OUTBOX = "publish_outbox";
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final RabbitTemplate rabbitTemplate = mock(RabbitTemplate.class);
+    private final RabbitOperations operations = mock(RabbitOperations.class);
+    private final List<Message> published = new ArrayList<>();
+    private final RabbitPipelineTransport transport = new RabbitPipelineTransport(rabbitTemplate,
+            firebaseService, new InMemoryLeaseService(), new SimpleMeterRegistry(), OUTBOX, 50,
+            8, 100, 60_000);
+
+    private boolean brokerAcks = true;
+
+    @BeforeEach
+    void broker() {
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new SimpleMessageConverter());
+        when(rabbitTemplate.invoke(anyCallback()))
+                .thenAnswer(call -> ((RabbitOperations.OperationsCallback<?>) call.getArgument(0))
+                        .doInRabbit(operations));
+        doAnswer(call -> {
+            published.add(call.getArgument(2));
+            CorrelationData correlation = call.getArgument(3);
+            correlation.getFuture().complete(new CorrelationData.Confirm(brokerAcks, null));
+            return null;
+        }).when(operations).send(anyString(), anyString(), any(Message.class),
+                any(CorrelationData.class));
+    }
+
+    @Test
+    void stagedMessagesCommitWithTheStatusChangeAndPublishOnlyAfterwards()
+            throws InterruptedException {
+        firestore.put(FirestoreFake.METADATA, "rec-1", Map.of("status", "UPLOAD_IN_PROGRESS"));
+        firestore.beforeCommit(() -> assertThat(published).isEmpty());
+
+        PipelineTransport.Staged staged = firebaseService.runTransaction(transaction -> {
+            transaction.update(firestore.reference(FirestoreFake.METADATA, "rec-1"),
+                    Map.of("status", "PROCESSING_QUEUED"));
+            return transport.stageAll(transaction, List.of(
+                    new PipelineTransport.Outgoing(RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY,
+                            "transcribe rec-1"),
+                    new PipelineTransport.Outgoing(RabbitMQConfig.PPTX_CONVERSION_ROUTING_KEY,
+                            "convert rec-1")));
+        });
+
+        assertThat(firestore.all(OUTBOX)).hasSize(2);
+        assertThat(published).isEmpty();
+
+        staged.publish();
+
+        assertThat(published).hasSize(2);
+        verify(rabbitTemplate).invoke(anyCallback());
+        awaitOutboxSize(0);
+    }
+
+    @Test
+    void anUnpublishedStagedMessageIsLeftForTheRelay() {
+        brokerAcks = false;
+
+        List<PipelineTransport.Outgoing> messages = List.of(new PipelineTransport.Outgoing(
+                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY, "transcribe rec-1"));
+        PipelineTransport.Staged staged = firebaseService
+                .runTransaction(transaction -> transport.stageAll(transaction, messages));
+        staged.publish();
+
+        assertThat(firestore.all(OUTBOX)).hasSize(1);
+    }
+
+    @Test
+    void sendAllRecordsTheOutboxBeforePublishing() {
+        brokerAcks = false;
+
+        transport.send(RabbitMQConfig.SUMMARIZATION_ROUTING_KEY, "summarize rec-1");
+
+        InOrder order = inOrder(firebaseService, operations);
+        order.verify(firebaseService).setDocuments(eq(OUTBOX), any());
+        order.verify(operations).send(anyString(), anyString(), any(Message.class),
+                any(CorrelationData.class));
+        assertThat(firestore.all(OUTBOX)).hasSize(1);
+    }
+
+    @Test
+    void aFailedOutboxWriteFailsTheSendWithoutPublishing() {
+        doThrow(new FirestoreInteractionException("unavailable")).when(firebaseService)
+                .setDocuments(eq(OUTBOX), any());
+
+        assertThatThrownBy(() -> transport.send(RabbitMQConfig.SUMMARIZATION_ROUTING_KEY,
+                "summarize rec-1")).isInstanceOf(FirestoreInteractionException.class);
+
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    void theRelayRestoresNumericHeaderTypes() {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("id", "msg-1");
+        entry.put("routingKey", RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY);
+        entry.put("body", "transcribe rec-1");
+        entry.put("attempts", 1L);
+        entry.put("createdAt", Timestamp.now());
+        // Firestore hands every stored integer back as a long.
+        entry.put("headers", Map.of(StageRetryAdvice.ATTEMPT_HEADER, 2L, "source", "upload"));
+        entry.put("headerTypes", Map.of(StageRetryAdvice.ATTEMPT_HEADER, "Integer"));
+        firestore.put(OUTBOX, "msg-1", entry);
+        when(firebaseService.findDocumentsBefore(eq(OUTBOX), eq("retryAt"), any(), anyInt()))
+                .thenReturn(List.of(entry));
+
+        transport.relayOutbox();
+
+        assertThat(published).hasSize(1);
+        MessageProperties properties = published.get(0).getMessageProperties();
+        assertThat(properties.<Object>getHeader(StageRetryAdvice.ATTEMPT_HEADER)).isEqualTo(2);
+        assertThat(properties.<Object>getHeader("source")).isEqualTo("upload");
+    }
+
+    @Test
+    void theRelaySkipsEntriesAckedSinceTheQuery() {
+        brokerAcks = false;
+        Map<String, Object> acked = Map.of("id", "msg-1", "routingKey",
+                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY, "body", "transcribe rec-1",
+                "attempts", 1L);
+        Map<String, Object> unconfirmed = Map.of("id", "msg-2", "routingKey",
+                RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY, "body", "transcribe rec-2",
+                "attempts", 1L);
+        firestore.put(OUTBOX, "msg-2", unconfirmed);
+        when(firebaseService.findDocumentsBefore(eq(OUTBOX), eq("retryAt"), any(), anyInt()))
+                .thenReturn(List.of(acked, unconfirmed));
+
+        transport.relayOutbox();
+
+        assertThat(published).extracting(message -> new String(message.getBody()))
+                .containsExactly("transcribe rec-2");
+        assertThat(firestore.exists(OUTBOX, "msg-1")).isFalse();
+        assertThat(firestore.get(OUTBOX, "msg-2")).containsEntry("attempts", 2)
+                .containsEntry("body", "transcribe rec-2");
+    }
+
+    @Test
+    void numericHeadersKeepTheirTypeInTheOutbox() {
+        when(rabbitTemplate.getMessageConverter()).thenReturn(new SimpleMessageConverter() {
+            @Override
+            protected Message createMessage(Object object, MessageProperties properties) {
+                properties.setHeader(StageRetryAdvice.ATTEMPT_HEADER, 3);
+                return super.createMessage(object, properties);
+            }
+        });
+        brokerAcks = false;
+
+        transport.send(RabbitMQConfig.TRANSCRIPTION_ROUTING_KEY, "transcribe rec-1");
+
+        Map<String, Object> entry = firestore.all(OUTBOX).values().iterator().next();
+        assertThat(entry.get("headers")).isEqualTo(Map.of(StageRetryAdvice.ATTEMPT_HEADER, 3));
+        assertThat(entry.get("headerTypes"))
+                .isEqualTo(Map.of(StageRetryAdvice.ATTEMPT_HEADER, "Integer"));
+    }
+
+    private static RabbitOperations.OperationsCallback<Object> anyCallback() {
+        return any();
+    }
+
+    private void awaitOutboxSize(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (firestore.all(OUTBOX).size() != size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(firestore.all(OUTBOX)).hasSize(size);
+    }
+}
@@ -0,0 +1,146 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.BulkWriter;
+import com.google.cloud.firestore.DocumentReference;
+import edu.cit.audioscholar.config.RabbitMQConfig;
+import edu.cit.audioscholar.dto.AudioProcessingMessage;
+import edu.cit.audioscholar.model.AudioMetadata;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecordingDeletionServiceTest {
+
+    private static final Timestamp REQUESTED = Timestamp.ofTimeSecondsAndNanos(1_700_000_000L, 0);
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final LeaseService leaseService = new InMemoryLeaseService();
+    private final LeaseHeartbeat leaseHeartbeat = new LeaseHeartbeat(leaseService);
+    private final PipelineTransport transport = mock(PipelineTransport.class);
+    private final ConcurrentMapCacheManager cacheManager =
+            new ConcurrentMapCacheManager("audioMetadataById", "audioMetadataByUser", "usersById");
+    private final RecordingDeletionService service = new RecordingDeletionService(firebaseService,
+            mock(NhostStorageService.class), mock(ContentHashIndexService.class), leaseService,
+            leaseHeartbeat, transport, cacheManager, new SimpleMeterRegistry(), "recommendations",
+            "transcript_segments", "pipeline_timelines", "deletion_audit", 5, 15, 100);
+
+    @BeforeEach
+    void bulkWriter() {
+        BulkWriter writer = mock(BulkWriter.class);
+        when(writer.delete(any(DocumentReference.class)))
+                .thenReturn(ApiFutures.immediateFuture(null));
+        when(firebaseService.newBulkWriter()).thenReturn(writer);
+    }
+
+    @AfterEach
+    void stop() {
+        leaseHeartbeat.shutdown();
+    }
+
+    @Test
+    void aStageFinishingAfterTheTombstoneLeavesItDeleting() {
+        tombstone(ProcessingStatus.DELETING);
+
+        boolean written = firebaseService.updateLiveAudioMetadata("rec-1",
+                new HashMap<>(Map.of("status", ProcessingStatus.SUMMARIZING.name())));
+        boolean claimed = new StageCompletionService(firebaseService, transport,
+                new SimpleMeterRegistry())
+                .completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                        Map.of("transcriptionComplete", true));
+
+        assertThat(written).isFalse();
+        assertThat(claimed).isFalse();
+        assertThat(firestore.get(FirestoreFake.METADATA, "rec-1"))
+                .containsEntry("status", ProcessingStatus.DELETING.name())
+                .doesNotContainKey("transcriptionComplete");
+    }
+
+    @Test
+    void deletesATombstoneWhoseStatusWasWrittenOver() {
+        tombstone(ProcessingStatus.SUMMARIZING);
+        cacheManager.getCache("audioMetadataByUser").put("user-1-20-null", List.of());
+
+        service.handleDeletion(message(), null);
+
+        assertThat(firestore.exists(FirestoreFake.METADATA, "rec-1")).isFalse();
+        assertThat(cacheManager.getCache("audioMetadataByUser").get("user-1-20-null")).isNull();
+        assertThat(firestore.get("deletion_audit", "rec-1"))
+                .containsEntry("status", "COMPLETE")
+                .containsEntry("requestedAt", REQUESTED);
+    }
+
+    @Test
+    void aLateStageWriteDoesNotRecreateTheDeletedRecording() {
+        tombstone(ProcessingStatus.DELETING);
+        service.handleDeletion(message(), null);
+
+        boolean written = firebaseService.updateLiveAudioMetadata("rec-1",
+                new HashMap<>(Map.of("status", ProcessingStatus.COMPLETE.name())));
+
+        assertThat(written).isFalse();
+        assertThat(firestore.exists(FirestoreFake.METADATA, "rec-1")).isFalse();
+    }
+
+    @Test
+    void theSweepFindsTombstonesByRequestTime() {
+        AudioMetadata overwritten = metadata("rec-1", ProcessingStatus.SUMMARIZING, REQUESTED);
+        AudioMetadata retriedRecently = metadata("rec-2", ProcessingStatus.DELETING,
+                Timestamp.now());
+        AudioMetadata running = metadata("rec-3", ProcessingStatus.DELETING, REQUESTED);
+        leaseService.tryAcquire("deletion:rec-3", Duration.ofMinutes(5));
+        when(firebaseService.findAudioMetadataDeletionRequestedBefore(any(), anyInt()))
+                .thenReturn(List.of(overwritten, retriedRecently, running));
+
+        service.sweepTombstones();
+
+        verify(transport).send(eq(RabbitMQConfig.DELETION_ROUTING_KEY),
+                argThat(sent -> sent instanceof AudioProcessingMessage message
+                        && "rec-1".equals(message.getMetadataId())));
+        verify(transport, times(1)).send(any(), any());
+    }
+
+    private void tombstone(ProcessingStatus status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", "rec-1");
+        data.put("userId", "user-1");
+        data.put("status", status.name());
+        data.put("deletionRequestedAt", REQUESTED);
+        data.put("lastUpdated", REQUESTED);
+        firestore.put(FirestoreFake.METADATA, "rec-1", data);
+    }
+
+    private static AudioMetadata metadata(String id, ProcessingStatus status,
+            Timestamp lastUpdated) {
+        AudioMetadata metadata = new AudioMetadata();
+        metadata.setId(id);
+        metadata.setStatus(status);
+        metadata.setDeletionRequestedAt(REQUESTED);
+        metadata.setLastUpdated(lastUpdated);
+        return metadata;
+    }
+
+    private static AudioProcessingMessage message() {
+        AudioProcessingMessage message = new AudioProcessingMessage();
+        message.setMetadataId("rec-1");
+        return message;
+    }
+}
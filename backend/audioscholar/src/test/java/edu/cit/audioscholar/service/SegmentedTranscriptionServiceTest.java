@@ -0,0 +1,173 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import edu.cit.audioscholar.service.SegmentedTranscriptionService.Segment;
+
+class SegmentedTranscriptionServiceTest {
+
+    private static SegmentedTranscriptionService service(int segmentSeconds, int overlapSeconds) {
+        return new SegmentedTranscriptionService(mock(GeminiService.class),
+                mock(AudioEnergyAnalyzer.class), mock(AudioSegmentCutter.class),
+                mock(TranscriptSegmentStore.class), false, segmentSeconds, overlapSeconds, 900,
+                4);
+    }
+
+    private static AudioEnergyAnalyzer.EnergyProfile profileWithSilenceAt(int seconds,
+            int... silentSeconds) {
+        double[] rms = new double[seconds];
+        Arrays.fill(rms, 0.2);
+        for (int second : silentSeconds) {
+            rms[second] = 0.001;
+        }
+        return new AudioEnergyAnalyzer.EnergyProfile(1000, rms);
+    }
+
+    @Test
+    void planSegmentsCoversTheRecordingWithOverlaps() {
+        List<Segment> segments = service(600, 15).planSegments(null, 1900);
+
+        assertThat(segments).containsExactly(new Segment(0, 615), new Segment(585, 1215),
+                new Segment(1185, 1900));
+    }
+
+    @Test
+    void planSegmentsMovesCutsToTheQuietestMomentNearby() {
+        List<Segment> segments =
+                service(600, 15).planSegments(profileWithSilenceAt(1900, 612, 1195), 1900);
+
+        assertThat(segments).containsExactly(new Segment(0, 627), new Segment(597, 1210),
+                new Segment(1180, 1900));
+    }
+
+    @Test
+    void planSegmentsKeepsShortTailInTheLastSegment() {
+        List<Segment> segments = service(600, 15).planSegments(null, 700);
+
+        assertThat(segments).containsExactly(new Segment(0, 700));
+    }
+
+    @Test
+    void planSegmentsTerminatesForSegmentsShorterThanTheBoundarySearch() {
+        SegmentedTranscriptionService service = service(10, 15);
+
+        List<Segment> segments = service.planSegments(profileWithSilenceAt(400, 1, 2, 3), 400);
+
+        assertThat(segments).isNotEmpty();
+        assertThat(segments.get(segments.size() - 1).endSeconds()).isEqualTo(400);
+        for (int i = 1; i < segments.size(); i++) {
+            assertThat(segments.get(i).startSeconds())
+                    .isGreaterThan(segments.get(i - 1).startSeconds());
+        }
+    }
+
+    @Test
+    void stitchDropsWordsRepeatedInTheOverlap() {
+        String first = "Today we cover sorting. Merge sort splits the list in half";
+        String second = "splits the list in half and merges the sorted halves back together.";
+
+        assertThat(SegmentedTranscriptionService.stitch(List.of(first, second)))
+                .isEqualTo(first + "\n\nand merges the sorted halves back together.");
+    }
+
+    @Test
+    void stitchMatchesOverlapIgnoringCaseAndPunctuation() {
+        String first = "The heap property holds for every node, Right?";
+        String second = "for every node right? Next we look at insertion.";
+
+        assertThat(SegmentedTranscriptionService.stitch(List.of(first, second)))
+                .isEqualTo(first + "\n\nNext we look at insertion.");
+    }
+
+    @Test
+    void stitchAnchorsOnTheTailWhenTheNextPartStartsEarlier() {
+        String first = "we now define the recurrence relation for quicksort";
+        String second = "partition step. So we now define the recurrence relation for quicksort "
+                + "which is T of n.";
+
+        assertThat(SegmentedTranscriptionService.stitch(List.of(first, second)))
+                .isEqualTo(first + "\n\nwhich is T of n.");
+    }
+
+    @Test
+    void stitchKeepsPartsWithoutOverlap() {
+        assertThat(SegmentedTranscriptionService.stitch(List.of("First part.", "Second part.")))
+                .isEqualTo("First part.\n\nSecond part.");
+    }
+
+    @Test
+    void stitchSkipsSilentSegments() {
+        assertThat(SegmentedTranscriptionService.stitch(List.of("Intro.",
+                SegmentedTranscriptionService.NO_SPEECH_MARKER, "Outro.")))
+                .isEqualTo("Intro.\n\nOutro.");
+        assertThat(SegmentedTranscriptionService.stitch(
+                List.of(SegmentedTranscriptionService.NO_SPEECH_MARKER, " ")))
+                .isEqualTo(SegmentedTranscriptionService.NO_SPEECH_MARKER);
+    }
+
+    @Test
+    void remainderAfterFindsWhereTheShownTextEnds() {
+        String shown = "Welcome back. Last week we covered stacks and today we start with queues";
+        String full = "Welcome back. Last week we covered stacks, and today we start with queues. "
+                + "A queue is first in, first out.";
+
+        assertThat(SegmentedTranscriptionService.remainderAfter(shown, full))
+                .isEqualTo("A queue is first in, first out.");
+        assertThat(SegmentedTranscriptionService.remainderAfter("", full)).isEqualTo(full);
+        assertThat(SegmentedTranscriptionService.remainderAfter(
+                "completely different words that never appear anywhere in it", full)).isNull();
+    }
+
+    @Test
+    void streamingFallbackAppendsAfterTheSegmentsAlreadyShown() throws Exception {
+        GeminiService geminiService = mock(GeminiService.class);
+        TranscriptSegmentStore store = mock(TranscriptSegmentStore.class);
+        SegmentedTranscriptionService service = new SegmentedTranscriptionService(geminiService,
+                mock(AudioEnergyAnalyzer.class), mock(AudioSegmentCutter.class), store, true, 600,
+                15, 900, 4);
+        when(store.capture(eq("rec-1"), any())).thenReturn(new TranscriptSegmentStore.Capture(
+                "Welcome back. Last week we covered stacks and today we start with queues", 2,
+                new IllegalStateException("stream reset")));
+        when(geminiService.callGeminiTranscriptionAPI(any(), anyString(), eq("rec-1"), any()))
+                .thenReturn("Welcome back. Last week we covered stacks, and today we start "
+                        + "with queues. A queue is first in, first out.");
+
+        String transcript =
+                service.transcribe(Path.of("lecture.aac"), "lecture.aac", 300, "rec-1", null);
+
+        assertThat(transcript).endsWith("first in, first out.");
+        verify(store, times(1)).clear("rec-1");
+        verify(store).append("rec-1", 2, " A queue is first in, first out.");
+    }
+
+    @Test
+    void streamingFallbackErrorLeavesShownSegmentsAlone() throws Exception {
+        GeminiService geminiService = mock(GeminiService.class);
+        TranscriptSegmentStore store = mock(TranscriptSegmentStore.class);
+        SegmentedTranscriptionService service = new SegmentedTranscriptionService(geminiService,
+                mock(AudioEnergyAnalyzer.class), mock(AudioSegmentCutter.class), store, true, 600,
+                15, 900, 4);
+        when(store.capture(eq("rec-1"), any())).thenReturn(new TranscriptSegmentStore.Capture(
+                "partial text", 1, new IllegalStateException("stream reset")));
+        when(geminiService.callGeminiTranscriptionAPI(any(), anyString(), eq("rec-1"), any()))
+                .thenReturn("{\"error\":\"x\",\"details\":\"y\"}");
+        when(geminiService.isErrorResponse(anyString())).thenReturn(true);
+
+        service.transcribe(Path.of("lecture.aac"), "lecture.aac", 300, "rec-1", null);
+
+        verify(store, times(1)).clear("rec-1");
+        verify(store, never()).append(anyString(), anyInt(), anyString());
+    }
+}
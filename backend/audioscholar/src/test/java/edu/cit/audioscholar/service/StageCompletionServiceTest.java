@@ -0,0 +1,147 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import com.google.cloud.firestore.Transaction;
+import edu.cit.audioscholar.model.ProcessingStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StageCompletionServiceTest {
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final PipelineTransport transport = mock(PipelineTransport.class);
+    private final StageCompletionService service =
+            new StageCompletionService(firebaseService, transport, new SimpleMeterRegistry());
+
+    @Test
+    void transcriptionAloneWaitsForThePdf() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, "pptx-1", false);
+
+        boolean claimed = service.completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of("transcriptionComplete", true));
+
+        assertThat(claimed).isFalse();
+        assertThat(metadata("rec-1")).containsEntry("stageBits", 1L)
+                .containsEntry("stageVersion", 1L)
+                .containsEntry("status", ProcessingStatus.TRANSCRIBING.name())
+                .containsEntry("transcriptionComplete", true);
+    }
+
+    @Test
+    void whicheverStageFinishesLastClaimsSummarization() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, "pptx-1", false);
+
+        boolean pdfClaimed = service.completeStage("rec-1",
+                StageCompletionService.STAGE_PDF_CONVERSION, Map.of("pdfConversionComplete", true));
+        boolean transcriptionClaimed = service.completeStage("rec-1",
+                StageCompletionService.STAGE_TRANSCRIPTION, Map.of("transcriptionComplete", true));
+
+        assertThat(pdfClaimed).isFalse();
+        assertThat(transcriptionClaimed).isTrue();
+        assertThat(metadata("rec-1")).containsEntry("stageBits", 3L)
+                .containsEntry("stageVersion", 2L)
+                .containsEntry("status", ProcessingStatus.SUMMARIZATION_QUEUED.name())
+                .containsEntry("waitingForPdf", false);
+    }
+
+    @Test
+    void audioOnlyRecordingsClaimOnTranscription() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, null, true);
+
+        assertThat(service.completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of())).isTrue();
+    }
+
+    @Test
+    void aRepeatedStageNeverClaimsTwice() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, null, true);
+
+        boolean first = service.completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of());
+        boolean redelivered = service.completeStage("rec-1",
+                StageCompletionService.STAGE_TRANSCRIPTION, Map.of());
+
+        assertThat(first).isTrue();
+        assertThat(redelivered).isFalse();
+        assertThat(metadata("rec-1")).containsEntry("stageVersion", 2L);
+    }
+
+    @Test
+    void legacyCompletionFlagsCountTowardsTheJoin() {
+        recording("rec-1", ProcessingStatus.PDF_CONVERTING, "pptx-1", false);
+        metadata("rec-1").put("transcriptionComplete", true);
+
+        assertThat(service.completeStage("rec-1", StageCompletionService.STAGE_PDF_CONVERSION,
+                Map.of("pdfConversionComplete", true))).isTrue();
+    }
+
+    @Test
+    void staleLeaseResultsAreDropped() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, null, true);
+        LeaseService.Lease current = new LeaseService.Lease("k", "node-b", 5, Instant.MAX);
+        LeaseService.Lease stale = new LeaseService.Lease("k", "node-a", 4, Instant.MAX);
+        service.completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of("transcript", "new"), current);
+
+        boolean claimed = service.completeStage("rec-1", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of("transcript", "old"), stale);
+
+        assertThat(claimed).isFalse();
+        assertThat(metadata("rec-1")).containsEntry("transcript", "new")
+                .containsEntry("stageVersion", 1L);
+    }
+
+    @Test
+    void theClaimStagesSummarizationInItsTransaction() {
+        recording("rec-1", ProcessingStatus.TRANSCRIBING, "pptx-1", false);
+        List<PipelineTransport.Outgoing> summarization = List.of(
+                new PipelineTransport.Outgoing("summarize", "summarize rec-1"));
+        List<String> published = new ArrayList<>();
+        when(transport.stageAll(any(Transaction.class), eq(summarization)))
+                .thenReturn(() -> published.add("rec-1"));
+
+        PipelineTransport.Staged waiting = service.completeAndStage("rec-1",
+                StageCompletionService.STAGE_PDF_CONVERSION, Map.of(), null, summarization);
+        PipelineTransport.Staged claimed = service.completeAndStage("rec-1",
+                StageCompletionService.STAGE_TRANSCRIPTION, Map.of(), null, summarization);
+
+        assertThat(waiting).isNull();
+        verify(transport).stageAll(any(Transaction.class), eq(summarization));
+        assertThat(published).isEmpty();
+        claimed.publish();
+        assertThat(published).containsExactly("rec-1");
+    }
+
+    @Test
+    void missingRecordingIsNotClaimed() {
+        assertThat(service.completeStage("gone", StageCompletionService.STAGE_TRANSCRIPTION,
+                Map.of())).isFalse();
+        assertThat(firestore.exists(FirestoreFake.METADATA, "gone")).isFalse();
+    }
+
+    private void recording(String id, ProcessingStatus status, String pptxFileId,
+            boolean audioOnly) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("status", status.name());
+        data.put("audioOnly", audioOnly);
+        if (pptxFileId != null) {
+            data.put("nhostPptxFileId", pptxFileId);
+        }
+        firestore.put(FirestoreFake.METADATA, id, data);
+    }
+
+    private Map<String, Object> metadata(String id) {
+        return firestore.get(FirestoreFake.METADATA, id);
+    }
+}
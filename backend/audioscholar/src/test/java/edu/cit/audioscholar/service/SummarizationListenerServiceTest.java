@@ -0,0 +1,136 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.cache.CacheManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.cit.audioscholar.exception.TransientStageException;
+import edu.cit.audioscholar.model.ProcessingStatus;
+
+class SummarizationListenerServiceTest {
+
+    private static final Map<String, String> MESSAGE =
+            Map.of("metadataId", "rec-1", "messageId", "msg-1");
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final FirestoreFake firestore = new FirestoreFake(firebaseService);
+    private final GeminiService geminiService = mock(GeminiService.class);
+    private final LeaseService leaseService = spy(new InMemoryLeaseService());
+    private final LeaseHeartbeat leaseHeartbeat = new LeaseHeartbeat(leaseService);
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void stopHeartbeat() {
+        leaseHeartbeat.shutdown();
+    }
+
+    @Test
+    void marksTheMessageProcessedOnlyAfterTheWorkAndBeforeReleasingTheLease() {
+        recording(ProcessingStatus.COMPLETE);
+
+        listener().handleSummarizationRequest(MESSAGE, null);
+
+        InOrder order = inOrder(leaseService, firebaseService);
+        order.verify(leaseService).isProcessed("summarization:msg-1");
+        order.verify(leaseService).tryAcquire(eq("summarization:rec-1"), any(Duration.class));
+        order.verify(firebaseService).getData(FirestoreFake.METADATA, "rec-1");
+        order.verify(leaseService).markProcessed(eq("summarization:msg-1"), any(Duration.class));
+        order.verify(leaseService).release(any(LeaseService.Lease.class));
+        assertThat(leaseService.isProcessed("summarization:msg-1")).isTrue();
+    }
+
+    @Test
+    void aDuplicateOfAProcessedMessageIsSkipped() {
+        recording(ProcessingStatus.COMPLETE);
+        SummarizationListenerService listener = listener();
+
+        listener.handleSummarizationRequest(MESSAGE, null);
+        listener.handleSummarizationRequest(MESSAGE, null);
+
+        verify(leaseService, times(1)).tryAcquire(anyString(), any(Duration.class));
+        verify(firebaseService, times(1)).getData(FirestoreFake.METADATA, "rec-1");
+    }
+
+    @Test
+    void aTransientFailureLeavesTheMessageUnmarkedSoTheRetryRuns() {
+        recording(ProcessingStatus.SUMMARIZATION_QUEUED);
+        when(geminiService.generateTranscriptOnlySummary(anyString(), eq("rec-1")))
+                .thenThrow(new TransientStageException("Gemini overloaded"));
+        SummarizationListenerService listener = listener();
+
+        assertThatThrownBy(() -> listener.handleSummarizationRequest(MESSAGE, null))
+                .isInstanceOf(TransientStageException.class);
+
+        verify(leaseService, never()).markProcessed(anyString(), any(Duration.class));
+        assertThat(leaseService.isProcessed("summarization:msg-1")).isFalse();
+        assertThat(firestore.get(FirestoreFake.METADATA, "rec-1"))
+                .containsEntry("status", ProcessingStatus.SUMMARIZATION_QUEUED.name());
+        assertThat(leaseService.tryAcquire("summarization:rec-1", Duration.ofMinutes(1)))
+                .isNotNull();
+    }
+
+    @Test
+    void aBusyLeaseDoesNotConsumeTheMessage() {
+        recording(ProcessingStatus.SUMMARIZATION_QUEUED);
+        leaseService.tryAcquire("summarization:rec-1", Duration.ofMinutes(1));
+
+        listener().handleSummarizationRequest(MESSAGE, null);
+
+        verify(leaseService, never()).markProcessed(anyString(), any(Duration.class));
+        verify(firebaseService, never()).getData(FirestoreFake.METADATA, "rec-1");
+        assertThat(leaseService.isProcessed("summarization:msg-1")).isFalse();
+    }
+
+    @Test
+    void eachRetryAttemptHasItsOwnMarker() {
+        recording(ProcessingStatus.COMPLETE);
+        SummarizationListenerService listener = listener();
+
+        listener.handleSummarizationRequest(MESSAGE, null);
+        listener.handleSummarizationRequest(MESSAGE, 1);
+
+        assertThat(leaseService.isProcessed("summarization:msg-1")).isTrue();
+        assertThat(leaseService.isProcessed("summarization:msg-1#1")).isTrue();
+        verify(firebaseService, times(2)).getData(FirestoreFake.METADATA, "rec-1");
+    }
+
+    private SummarizationListenerService listener() {
+        return new SummarizationListenerService(firebaseService, geminiService,
+                mock(NhostStorageService.class), null, mock(CacheManager.class),
+                new ObjectMapper(), tempDir.toString(), null, null,
+                mock(PipelineTransport.class), mock(SummaryResultCache.class), leaseService,
+                leaseHeartbeat, mock(GeminiRateGovernor.class), 5, 24,
+                mock(ProcessingLaneRouter.class),
+                mock(StageTimelineService.class));
+    }
+
+    private void recording(ProcessingStatus status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", "rec-1");
+        data.put("userId", "user-1");
+        data.put("status", status.name());
+        data.put("transcriptText", "A lecture about leases.");
+        data.put("audioOnly", true);
+        firestore.put(FirestoreFake.METADATA, "rec-1", data);
+    }
+}
@@ -0,0 +1,80 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SummaryResultCacheTest {
+
+    private static final String MODEL = "gemini-test";
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final GeminiFileCacheService geminiFileCacheService =
+            mock(GeminiFileCacheService.class);
+    private final SummaryResultCache cache = new SummaryResultCache(firebaseService,
+            new ContentHashIndexService(firebaseService, "content_hashes", true, 120),
+            geminiFileCacheService, "summary_cache", true, 30, 100);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void transcriptOnlyKeyIgnoresThePdfKey() {
+        String key = cache.keyFor(SummaryResultCache.MODE_TRANSCRIPT_ONLY, MODEL, "lecture", null);
+
+        assertThat(key).isNotNull().hasSize(64).isEqualTo(
+                cache.keyFor(SummaryResultCache.MODE_TRANSCRIPT_ONLY, MODEL, "lecture", "abc"));
+    }
+
+    @Test
+    void pdfModesWithoutAPdfKeyAreNotCached() {
+        assertThat(cache.keyFor(SummaryResultCache.MODE_PDF_FILE, MODEL, "lecture", null))
+                .isNull();
+        assertThat(cache.keyFor(SummaryResultCache.MODE_PDF_URI, MODEL, "lecture", "")).isNull();
+    }
+
+    @Test
+    void keyChangesWithEveryInput() {
+        String key = cache.keyFor(SummaryResultCache.MODE_PDF_FILE, MODEL, "lecture", "pdf-a");
+
+        assertThat(key).isNotNull()
+                .isNotEqualTo(cache.keyFor(SummaryResultCache.MODE_PDF_FILE, MODEL, "lecture",
+                        "pdf-b"))
+                .isNotEqualTo(cache.keyFor(SummaryResultCache.MODE_PDF_URI, MODEL, "lecture",
+                        "pdf-a"))
+                .isNotEqualTo(cache.keyFor(SummaryResultCache.MODE_PDF_FILE, "other-model",
+                        "lecture", "pdf-a"))
+                .isNotEqualTo(cache.keyFor(SummaryResultCache.MODE_PDF_FILE, MODEL, "lecture 2",
+                        "pdf-a"));
+    }
+
+    @Test
+    void unreadablePdfSkipsTheCache() {
+        String pdfKey = cache.pdfFileKey(tempDir.resolve("missing.pdf"));
+
+        assertThat(pdfKey).isNull();
+        assertThat(cache.keyFor(SummaryResultCache.MODE_PDF_FILE, MODEL, "lecture", pdfKey))
+                .isNull();
+    }
+
+    @Test
+    void pdfFileKeyHashesTheContent() throws IOException {
+        Path first = Files.writeString(tempDir.resolve("a.pdf"), "%PDF-1.4 slides");
+        Path second = Files.writeString(tempDir.resolve("b.pdf"), "%PDF-1.4 slides");
+
+        assertThat(cache.pdfFileKey(first)).isNotNull().isEqualTo(cache.pdfFileKey(second));
+    }
+
+    @Test
+    void pdfUriKeyPrefersTheUploadedContentHash() {
+        when(geminiFileCacheService.findContentHash("files/abc")).thenReturn("hash-1");
+
+        assertThat(cache.pdfUriKey("files/abc")).isEqualTo("hash-1");
+        assertThat(cache.pdfUriKey("files/other")).isEqualTo("files/other");
+    }
+}
@@ -0,0 +1,71 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TranscriptChunkerTest {
+
+    // 1000 tokens at 0.05 characters per token: chunks of at most 50 characters.
+    private final TranscriptChunker chunker = new TranscriptChunker(2000, 1000, 0.05);
+
+    @Test
+    void budgetUsesTheCharactersPerTokenEstimate() {
+        TranscriptChunker defaults = new TranscriptChunker(12000, 6000, 4.0);
+
+        assertThat(defaults.estimateTokens("x".repeat(48_000))).isEqualTo(12000);
+        assertThat(defaults.exceedsBudget("x".repeat(48_000))).isFalse();
+        assertThat(defaults.exceedsBudget("x".repeat(48_001))).isTrue();
+        assertThat(defaults.estimateTokens(null)).isZero();
+    }
+
+    @Test
+    void splitPacksWholeParagraphsUpToTheChunkSize() {
+        String text = "First paragraph here.\n\nSecond one.\n\n  \n\nThird paragraph is longer.";
+
+        List<String> chunks = chunker.split(text);
+
+        assertThat(chunks).containsExactly("First paragraph here.\n\nSecond one.",
+                "Third paragraph is longer.");
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.length()).isLessThanOrEqualTo(50));
+    }
+
+    @Test
+    void splitBreaksLongParagraphsOnSentences() {
+        String paragraph = "One two three four five six. Seven eight nine ten eleven. "
+                + "Twelve thirteen fourteen! Fifteen sixteen?";
+
+        List<String> chunks = chunker.split(paragraph);
+
+        assertThat(chunks).containsExactly("One two three four five six.",
+                "Seven eight nine ten eleven.", "Twelve thirteen fourteen! Fifteen sixteen?");
+        assertThat(String.join(" ", chunks)).isEqualTo(paragraph);
+    }
+
+    @Test
+    void splitReturnsNothingForBlankText() {
+        assertThat(chunker.split("  \n\n ")).isEmpty();
+    }
+
+    @Test
+    void fitPiecesKeepsShortParagraphsWhole() {
+        assertThat(TranscriptChunker.fitPieces("Short. Paragraph.", 50))
+                .containsExactly("Short. Paragraph.");
+    }
+
+    @Test
+    void fitPiecesGroupsSentencesWithinTheLimit() {
+        assertThat(TranscriptChunker.fitPieces("Aaaa bbb. Cccc ddd. Eeee fff.", 20))
+                .containsExactly("Aaaa bbb. Cccc ddd.", "Eeee fff.");
+    }
+
+    @Test
+    void fitPiecesHardSplitsSentencesLongerThanTheLimit() {
+        String run = "x".repeat(25);
+
+        List<String> pieces = TranscriptChunker.fitPieces("Lead in. " + run + " tail.", 10);
+
+        assertThat(pieces).allSatisfy(piece -> assertThat(piece.length()).isLessThanOrEqualTo(10));
+        assertThat(String.join("", pieces)).isEqualTo("Lead in." + run + " tail.");
+    }
+}
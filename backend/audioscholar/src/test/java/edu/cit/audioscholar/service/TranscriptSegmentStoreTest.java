@@ -0,0 +1,62 @@
+package edu.cit.audioscholar.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class TranscriptSegmentStoreTest {
+
+    private final FirebaseService firebaseService = mock(FirebaseService.class);
+    private final TranscriptSegmentStore store =
+            new TranscriptSegmentStore(firebaseService, "transcript_segments", 1000);
+
+    @Test
+    void getSegmentsQueriesOnlySegmentsAfterTheCursor() {
+        when(firebaseService.findDocumentsAfter("transcript_segments", "metadataId", "rec-1",
+                "sequence", 3)).thenReturn(List.of(
+                        Map.of("metadataId", "rec-1", "sequence", 4L, "text", "four"),
+                        Map.of("metadataId", "rec-1", "sequence", 5L, "text", "five")));
+
+        List<Map<String, Object>> segments = store.getSegments("rec-1", 3);
+
+        assertThat(segments).containsExactly(Map.of("sequence", 4, "text", "four"),
+                Map.of("sequence", 5, "text", "five"));
+    }
+
+    @Test
+    void captureStoresChunksAndReturnsTheText() {
+        TranscriptSegmentStore.Capture capture =
+                store.capture("rec-1", Flux.just("Hello ", "world."));
+
+        assertThat(capture.text()).isEqualTo("Hello world.");
+        assertThat(capture.segments()).isEqualTo(1);
+        assertThat(capture.failure()).isNull();
+        verify(firebaseService).saveData(eq("transcript_segments"), eq("rec-1-00000"), any());
+    }
+
+    @Test
+    void captureReportsAMidStreamFailureWithWhatWasStored() {
+        TranscriptSegmentStore fastFlushing =
+                new TranscriptSegmentStore(firebaseService, "transcript_segments", 10);
+        Flux<String> chunks = Flux.concat(Flux.just("Hello "), Mono.delay(Duration.ofMillis(300))
+                .then(Mono.error(new IllegalStateException("stream reset"))));
+
+        TranscriptSegmentStore.Capture capture = fastFlushing.capture("rec-1", chunks);
+
+        assertThat(capture.failure()).isInstanceOf(IllegalStateException.class);
+        assertThat(capture.text()).isEqualTo("Hello ");
+        assertThat(capture.segments()).isEqualTo(1);
+        verify(firebaseService, times(1)).saveData(anyString(), anyString(), any());
+    }
+}